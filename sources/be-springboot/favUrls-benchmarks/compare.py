@@ -0,0 +1,61 @@
+#!/usr/bin/env python3
+"""Compares two JMH JSON result files and fails if any benchmark regressed.
+
+Usage: compare.py BASELINE.json CURRENT.json [--threshold PERCENT]
+"""
+import argparse
+import json
+import sys
+
+# for these modes a higher score is better, for the others (avgt, sample, ss) a lower one
+HIGHER_IS_BETTER = {"thrpt"}
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        data = json.load(f)
+    ret = {}
+    for item in data:
+        params = item.get("params") or {}
+        key = item["benchmark"] + "".join(f" {k}={v}" for k, v in sorted(params.items()))
+        ret[key] = (item["mode"], item["primaryMetric"]["score"], item["primaryMetric"]["scoreUnit"])
+    return ret
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0,
+                        help="allowed regression in percent (default: 10)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+    regressions = 0
+
+    for key in sorted(current):
+        mode, score, unit = current[key]
+        if key not in baseline:
+            print(f"NEW   {key}: {score:.3f} {unit}")
+            continue
+        _, base_score, _ = baseline[key]
+        if base_score == 0:
+            continue
+        change = (score - base_score) / base_score * 100
+        regression = -change if mode in HIGHER_IS_BETTER else change
+        status = "WORSE" if regression > args.threshold else "ok"
+        if status == "WORSE":
+            regressions += 1
+        print(f"{status:5} {key}: {base_score:.3f} -> {score:.3f} {unit} ({change:+.1f} %)")
+
+    for key in sorted(set(baseline) - set(current)):
+        print(f"GONE  {key}")
+
+    if regressions:
+        print(f"{regressions} benchmark(s) regressed by more than {args.threshold} %.")
+        sys.exit(1)
+
+
+if __name__ == "__main__":
+    main()
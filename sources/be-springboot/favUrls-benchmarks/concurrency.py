@@ -0,0 +1,357 @@
+#!/usr/bin/env python3
+"""Compares the servlet (favUrls) and the reactive (favUrls-reactive) application under rising concurrency.
+
+Usage: concurrency.py [--levels 100,500,1000,2000] [--duration 20] [--cpus 0-1] [--think-ms 0] [-- APP_ARGS]
+
+Both applications are started one after another on the same database, optionally pinned to the same CPUs
+by taskset. Every virtual user logs in (before the measurement, BCrypt is not measured) and then repeats
+GET /v1/url/{appUserId} over its own keep-alive connection, optionally with a think time, so with
+--think-ms most of the connections are idle, as the connections of real browsers are.
+
+For every concurrency level, the throughput, latency percentiles, errors, the CPU time of the server
+per 1000 requests, its RSS and thread count are printed side by side.
+
+The users are those of the SYNTHETIC seed mode (user<N>@synthetic.test, the password `test`), the database
+must be seeded before, e.g. by: java -jar ../favUrls/target/favUrls-*.jar --app.seed.mode=SYNTHETIC
+The load generator runs in this single Python process; pin the servers to other CPUs (--cpus) than
+the generator uses and check that the generator is not the bottleneck (its CPU usage is printed).
+"""
+import argparse
+import asyncio
+import glob
+import json
+import os
+import resource
+import subprocess
+import sys
+import threading
+import time
+import urllib.parse
+
+CSRF_COOKIE_NAME = "XSRF-TOKEN"
+CSRF_HEADER_NAME = "X-XSRF-TOKEN"
+LOGIN_CONCURRENCY = 16
+POLL_INTERVAL_SECONDS = 0.2
+CLOCK_TICKS = os.sysconf("SC_CLK_TCK")
+
+
+class Connection:
+    """Minimal HTTP/1.1 keep-alive client with browser-like cookies (also `Secure` ones over plain http)."""
+
+    def __init__(self, host, port):
+        self.host = host
+        self.port = port
+        self.cookies = {}
+        self.reader = None
+        self.writer = None
+
+    async def request(self, method, path, form=None):
+        if self.writer is None:
+            self.reader, self.writer = await asyncio.open_connection(self.host, self.port)
+        body = urllib.parse.urlencode(form).encode() if form is not None else b""
+        headers = [f"{method} {path} HTTP/1.1", f"Host: {self.host}:{self.port}", f"Content-Length: {len(body)}"]
+        if form is not None:
+            headers.append("Content-Type: application/x-www-form-urlencoded")
+        if self.cookies:
+            headers.append("Cookie: " + "; ".join(f"{k}={v}" for k, v in self.cookies.items()))
+        if CSRF_COOKIE_NAME in self.cookies:
+            headers.append(f"{CSRF_HEADER_NAME}: {self.cookies[CSRF_COOKIE_NAME]}")
+        self.writer.write(("\r\n".join(headers) + "\r\n\r\n").encode("latin-1") + body)
+        try:
+            return await self._read_response()
+        except (ConnectionError, asyncio.IncompleteReadError):
+            await self.close()
+            raise
+
+    async def _read_response(self):
+        status_line = await self.reader.readuntil(b"\r\n")
+        status = int(status_line.split()[1])
+        length = None
+        chunked = False
+        close = False
+        while True:
+            line = (await self.reader.readuntil(b"\r\n")).decode("latin-1").strip()
+            if not line:
+                break
+            name, _, value = line.partition(":")
+            name = name.strip().lower()
+            value = value.strip()
+            if name == "content-length":
+                length = int(value)
+            elif name == "transfer-encoding" and "chunked" in value.lower():
+                chunked = True
+            elif name == "connection" and value.lower() == "close":
+                close = True
+            elif name == "set-cookie":
+                self._update_cookie(value)
+
+        if chunked:
+            parts = []
+            while True:
+                size = int((await self.reader.readuntil(b"\r\n")).split(b";")[0], 16)
+                if size == 0:
+                    await self._skip_trailers()
+                    break
+                parts.append(await self.reader.readexactly(size))
+                await self.reader.readexactly(2)
+            body = b"".join(parts)
+        elif length is not None:
+            body = await self.reader.readexactly(length)
+        else:
+            body = await self.reader.read()
+            close = True
+        if close:
+            await self.close()
+        return status, body
+
+    async def _skip_trailers(self):
+        while (await self.reader.readuntil(b"\r\n")) != b"\r\n":
+            pass
+
+    def _update_cookie(self, header):
+        parts = header.split(";")
+        name, _, value = parts[0].partition("=")
+        deleted = not value or any(p.strip().lower() == "max-age=0" for p in parts[1:])
+        if deleted:
+            self.cookies.pop(name.strip(), None)
+        else:
+            self.cookies[name.strip()] = value.strip()
+
+    async def close(self):
+        if self.writer is not None:
+            self.writer.close()
+            try:
+                await self.writer.wait_closed()
+            except (ConnectionError, OSError):
+                pass
+        self.reader = self.writer = None
+
+
+class Server:
+    def __init__(self, name, command, port):
+        self.name = name
+        self.command = command
+        self.port = port
+        self.process = None
+        self.output = []
+
+    def start(self, timeout, verbose):
+        self.process = subprocess.Popen(self.command, stdout=subprocess.PIPE, stderr=subprocess.STDOUT, text=True)
+
+        def read():
+            for line in self.process.stdout:
+                self.output.append(line)
+                if verbose:
+                    print(line, end="")
+
+        threading.Thread(target=read, daemon=True).start()
+        start = time.monotonic()
+        while not asyncio.run(self._responds()):
+            if self.process.poll() is not None:
+                raise RuntimeError(f"{self.name} exited:\n" + "".join(self.output[-30:]))
+            if time.monotonic() - start > timeout:
+                raise RuntimeError(f"{self.name} did not start in {timeout} s.")
+            time.sleep(POLL_INTERVAL_SECONDS)
+
+    async def _responds(self):
+        connection = Connection("localhost", self.port)
+        try:
+            await connection.request("GET", "/v1/appUser/login")
+            return True
+        except OSError:
+            return False
+        finally:
+            await connection.close()
+
+    def stop(self):
+        self.process.terminate()
+        try:
+            self.process.wait(timeout=30)
+        except subprocess.TimeoutExpired:
+            self.process.kill()
+
+    def cpu_seconds(self):
+        with open(f"/proc/{self.process.pid}/stat", encoding="ascii") as f:
+            fields = f.read().rsplit(")", 1)[1].split()
+        return (int(fields[11]) + int(fields[12])) / CLOCK_TICKS  # utime, stime
+
+    def status(self, key):
+        with open(f"/proc/{self.process.pid}/status", encoding="ascii") as f:
+            for line in f:
+                if line.startswith(key + ":"):
+                    return int(line.split()[1])
+        return None
+
+
+async def login(port, email, password):
+    connection = Connection("localhost", port)
+    await connection.request("GET", "/v1/appUser/login")  # obtains the CSRF cookie
+    status, body = await connection.request("POST", "/v1/appUser/login", {"email": email, "password": password})
+    if status != 200:
+        raise RuntimeError(f"Login of {email} failed with {status}.")
+    return connection, json.loads(body)["appUserId"]
+
+
+async def login_all(port, emails, password):
+    semaphore = asyncio.Semaphore(LOGIN_CONCURRENCY)
+
+    async def one(email):
+        async with semaphore:
+            return await login(port, email, password)
+
+    return await asyncio.gather(*(one(q) for q in emails))
+
+
+async def virtual_user(session, deadline, record_from, think, latencies, counters):
+    connection, app_user_id = session
+    path = f"/v1/url/{app_user_id}"
+    while True:
+        start = time.monotonic()
+        if start >= deadline:
+            return
+        try:
+            status, _ = await connection.request("GET", path)
+            ok = status == 200
+        except (OSError, asyncio.IncompleteReadError):
+            ok = False
+        end = time.monotonic()
+        if start >= record_from:
+            if ok:
+                latencies.append(end - start)
+            else:
+                counters["errors"] += 1
+        if think > 0:
+            await asyncio.sleep(think)
+
+
+async def run_level(sessions, warmup, duration, think):
+    latencies = []
+    counters = {"errors": 0}
+    now = time.monotonic()
+    record_from = now + warmup
+    deadline = record_from + duration
+    await asyncio.gather(*(virtual_user(q, deadline, record_from, think, latencies, counters) for q in sessions))
+    return latencies, counters["errors"]
+
+
+def percentile(values, p):
+    if not values:
+        return None
+    ordered = sorted(values)
+    return ordered[min(len(ordered) - 1, int(len(ordered) * p))]
+
+
+def measure(server, args, emails):
+    print(f"\n{server.name}: starting {' '.join(server.command)}")
+    server.start(args.timeout, args.verbose)
+    try:
+        return asyncio.run(measure_levels(server, args, emails))
+    finally:
+        server.stop()
+
+
+async def measure_levels(server, args, emails):
+    results = {}
+    sessions = await login_all(server.port, emails, args.password)
+    for level in args.levels:
+        cpu_before = server.cpu_seconds()
+        generator_before = time.process_time()
+        latencies, errors = await run_level(sessions[:level], args.warmup, args.duration, args.think_ms / 1000)
+        # the warm-up is included in the CPU time, so it is scaled to the measured part
+        cpu = (server.cpu_seconds() - cpu_before) * args.duration / (args.warmup + args.duration)
+        generator_cpu = (time.process_time() - generator_before) / (args.warmup + args.duration)
+        result = {
+            "throughput": len(latencies) / args.duration,
+            "p50": percentile(latencies, 0.5),
+            "p99": percentile(latencies, 0.99),
+            "errors": errors,
+            "cpuPer1000": cpu / len(latencies) * 1000 if latencies else None,
+            "rss": server.status("VmRSS") / 1024,
+            "threads": server.status("Threads"),
+        }
+        results[level] = result
+        print(f"{server.name:9} {level:6} connections: {result['throughput']:8.0f} req/s,"
+              f" p50 {fmt_ms(result['p50'])}, p99 {fmt_ms(result['p99'])}, {errors} errors,"
+              f" {fmt(result['cpuPer1000'], '.2f')} CPU s/1000 req, RSS {result['rss']:.0f} MB,"
+              f" {result['threads']} threads (generator CPU {generator_cpu:.0%})")
+    for connection, _ in sessions:
+        await connection.close()
+    return results
+
+
+def fmt(value, spec):
+    return "n/a" if value is None else format(value, spec)
+
+
+def fmt_ms(seconds):
+    return "n/a" if seconds is None else f"{seconds * 1000:.1f} ms"
+
+
+def find_jar(target, prefix):
+    jars = [j for j in glob.glob(os.path.join(target, prefix + "-*.jar")) if not j.endswith("-plain.jar")]
+    if not jars:
+        sys.exit(f"No application jar in {target}, build it by mvn package first.")
+    return jars[0]
+
+
+def raise_open_files_limit():
+    soft, hard = resource.getrlimit(resource.RLIMIT_NOFILE)
+    if soft < hard:
+        resource.setrlimit(resource.RLIMIT_NOFILE, (hard, hard))
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--servlet-target", default="../favUrls/target")
+    parser.add_argument("--reactive-target", default="../favUrls-reactive/target")
+    parser.add_argument("--java", default="java")
+    parser.add_argument("--cpus", help="CPUs of the servers for taskset, e.g. 0-1")
+    parser.add_argument("--levels", default="100,500,1000,2000", help="concurrent connections, comma separated")
+    parser.add_argument("--warmup", type=float, default=5, help="seconds before every measurement")
+    parser.add_argument("--duration", type=float, default=20, help="measured seconds of every level")
+    parser.add_argument("--think-ms", type=float, default=0, help="pause of every virtual user between requests")
+    parser.add_argument("--email-pattern", default="user{}@synthetic.test")
+    parser.add_argument("--password", default="test")
+    parser.add_argument("--timeout", type=float, default=120, help="seconds to wait for the start")
+    parser.add_argument("--only", choices=["servlet", "reactive"])
+    parser.add_argument("--verbose", action="store_true", help="print the output of the applications")
+    parser.add_argument("app_args", nargs="*", help="additional arguments of both applications, after --")
+    args = parser.parse_args()
+    args.levels = [int(q) for q in args.levels.split(",")]
+
+    raise_open_files_limit()
+    emails = [args.email_pattern.format(i + 1) for i in range(max(args.levels))]
+    prefix = ["taskset", "-c", args.cpus] if args.cpus else []
+    # the access tokens must not expire during the measurement
+    common = ["--app.security.accessTokenExpirationSeconds=3600"] + args.app_args
+    servers = [
+        Server("servlet", prefix + [args.java, "-jar", find_jar(args.servlet_target, "favUrls")]
+               + ["--server.port=32123", "--app.seed.mode=NONE", "--app.linkCheck.enabled=false",
+                  "--app.enrichment.enabled=false", "--logging.level.org.springframework.web=INFO"] + common, 32123),
+        Server("reactive", prefix + [args.java, "-jar", find_jar(args.reactive_target, "favUrls-reactive")]
+               + ["--server.port=32124"] + common, 32124),
+    ]
+
+    results = {}
+    for server in servers:
+        if args.only and server.name != args.only:
+            continue
+        results[server.name] = measure(server, args, emails)
+
+    print()
+    names = list(results)
+    header = f"{'connections':>11}"
+    for name in names:
+        header += f" | {name + ' req/s':>15} {'p99 ms':>8} {'errors':>6} {'CPU s/1k':>8} {'RSS MB':>6} {'threads':>7}"
+    print(header)
+    for level in args.levels:
+        line = f"{level:>11}"
+        for name in names:
+            r = results[name][level]
+            line += (f" | {r['throughput']:15.0f} {fmt(r['p99'] and r['p99'] * 1000, '8.1f'):>8} {r['errors']:6}"
+                     f" {fmt(r['cpuPer1000'], '8.2f'):>8} {r['rss']:6.0f} {r['threads']:7}")
+        print(line)
+
+
+if __name__ == "__main__":
+    main()
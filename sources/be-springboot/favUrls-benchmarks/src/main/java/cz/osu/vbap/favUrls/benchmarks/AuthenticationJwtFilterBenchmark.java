@@ -0,0 +1,72 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
+import cz.osu.vbap.favUrls.security.JwtTokenUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole filter invocation for a request with a valid access token, without a token and with an invalid one.
+ * Request/response creation is part of the measured time (the filter marks the request as already filtered).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationJwtFilterBenchmark {
+  private static final FilterChain NO_OP_CHAIN = (_, _) -> {
+  };
+
+  private AuthenticationJwtFilter filter;
+  private String accessToken;
+
+  @Setup
+  public void setUp() {
+    JwtTokenUtil jwtTokenUtil = BenchmarkFixtures.createJwtTokenUtil();
+    filter = BenchmarkFixtures.createAuthenticationJwtFilter(jwtTokenUtil);
+    String refreshToken = jwtTokenUtil.generateRefreshToken(BenchmarkFixtures.EMAIL, BenchmarkFixtures.APP_USER_ID);
+    accessToken = jwtTokenUtil.generateAccessToken(refreshToken);
+  }
+
+  @TearDown(Level.Invocation)
+  public void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private MockHttpServletRequest createRequest(String token) {
+    MockHttpServletRequest ret = new MockHttpServletRequest("GET", "/v1/url/" + BenchmarkFixtures.APP_USER_ID);
+    if (token != null)
+      ret.setCookies(new Cookie(AuthenticationJwtFilter.ACCESS_TOKEN_COOKIE_NAME, token));
+    return ret;
+  }
+
+  @Benchmark
+  public Object validToken() throws ServletException, IOException {
+    MockHttpServletRequest request = createRequest(accessToken);
+    filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+    return request.getAttribute(AuthenticationJwtFilter.APP_USER_ID_REQUEST_ATTRIBUTE_NAME);
+  }
+
+  @Benchmark
+  public Object noToken() throws ServletException, IOException {
+    MockHttpServletRequest request = createRequest(null);
+    filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+    return request;
+  }
+
+  @Benchmark
+  public Object requestOnly() {
+    // baseline: the cost of creating the mock request, to be subtracted from the other results
+    return createRequest(accessToken);
+  }
+}
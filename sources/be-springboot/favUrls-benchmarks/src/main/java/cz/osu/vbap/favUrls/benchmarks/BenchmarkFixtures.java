@@ -0,0 +1,86 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import cz.osu.vbap.favUrls.controllers.dto.UrlView;
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
+import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
+import cz.osu.vbap.favUrls.security.JwtTokenUtil;
+import cz.osu.vbap.favUrls.services.AuthenticationService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the benchmarked objects without Spring context; values normally injected by Spring are set directly.
+ */
+class BenchmarkFixtures {
+  // the same key as in application.properties
+  static final String PRIVATE_KEY = "thisKeyShouldBeStoredInOperatingSystemEnvironmentVariable";
+  static final String EMAIL = "john.doe@osu.cz";
+  static final int APP_USER_ID = 42;
+
+  static JwtTokenUtil createJwtTokenUtil() {
+    JwtTokenUtil ret = new JwtTokenUtil();
+    ReflectionTestUtils.setField(ret, "secretKey", PRIVATE_KEY);
+    // long expirations, so tokens do not expire during the benchmark
+    ReflectionTestUtils.setField(ret, "accessTokenExpirationInSeconds", 3600);
+    ReflectionTestUtils.setField(ret, "refreshTokenExpirationInSeconds", 3600);
+    return ret;
+  }
+
+  static AuthenticationJwtFilter createAuthenticationJwtFilter(JwtTokenUtil jwtTokenUtil) {
+    AuthenticationJwtFilter ret = new AuthenticationJwtFilter();
+    ReflectionTestUtils.setField(ret, "jwtTokenUtil", jwtTokenUtil);
+    ReflectionTestUtils.setField(ret, "adminEmails", Set.of());
+    return ret;
+  }
+
+  /**
+   * The service with the given users only; it supports the failed logins, other calls need more beans.
+   */
+  static AuthenticationService createAuthenticationService(PasswordEncoder passwordEncoder, AppUser... appUsers) {
+    AppUserRepository appUserRepository = (AppUserRepository) Proxy.newProxyInstance(
+            AppUserRepository.class.getClassLoader(), new Class<?>[]{AppUserRepository.class},
+            (_, method, args) -> switch (method.getName()) {
+              case "findByEmail" -> Arrays.stream(appUsers)
+                      .filter(q -> q.getEmail().equals(args[0]))
+                      .findFirst();
+              default -> throw new UnsupportedOperationException(method.getName());
+            });
+
+    AuthenticationService ret = new AuthenticationService();
+    ReflectionTestUtils.setField(ret, "appUserRepository", appUserRepository);
+    ReflectionTestUtils.setField(ret, "passwordEncoder", passwordEncoder);
+    return ret;
+  }
+
+  static AppUser createAppUser() {
+    AppUser ret = new AppUser(EMAIL);
+    ret.setAppUserId(APP_USER_ID);
+    return ret;
+  }
+
+  /**
+   * Url list of one user, with values of a typical length.
+   */
+  static List<UrlView> createUrlViews(int count) {
+    List<UrlView> ret = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      UrlView url = new UrlView();
+      url.setUrlId(i + 1);
+      url.setTitle("Article " + i + " - Example News Site");
+      url.setAddress("https://www.example" + (i % 500) + ".com/articles/2024/" + i + "/some-article-title");
+      url.setDescription("Description of the article number " + i
+              + ", as found in the meta description of the page, usually a sentence or two long.");
+      url.setLastCheckStatus(200);
+      url.setFaviconHash(String.format("%064x", (long) (i % 500) * 0x9E3779B97F4A7C15L));
+      ret.add(url);
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,37 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import cz.osu.vbap.favUrls.controllers.dto.AppUserView;
+import cz.osu.vbap.favUrls.controllers.dto.UrlView;
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+  private AppUser appUser;
+  private Url url;
+
+  @Setup
+  public void setUp() {
+    appUser = BenchmarkFixtures.createAppUser();
+    url = new Url(appUser, "University of Ostrava", "https://www.osu.cz");
+    url.setUrlId(1);
+  }
+
+  @Benchmark
+  public UrlView urlViewOf() {
+    return UrlView.of(url);
+  }
+
+  @Benchmark
+  public AppUserView appUserViewOf() {
+    return AppUserView.of(appUser);
+  }
+}
@@ -0,0 +1,90 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.validation.Rules;
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Tag;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity constructors with the argument validation by the `lib.validation` rules, and the single checks
+ * compared with their former implementations (`String.matches` per call, `ArgVal.isTrue` with a supplier).
+ * `newUrls` and `newTags` construct 1M entities per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityValidationBenchmark {
+  private static final int COUNT = 1_000_000;
+
+  private AppUser appUser;
+  private int titleLength = "University of Ostrava".length();
+
+  @Setup
+  public void setUp() {
+    appUser = BenchmarkFixtures.createAppUser();
+  }
+
+  @Benchmark
+  public boolean stringMatches() {
+    return BenchmarkFixtures.EMAIL.matches(".+@.+");
+  }
+
+  @Benchmark
+  public void matchRegex() {
+    ArgVal.matchRegex(BenchmarkFixtures.EMAIL, ".+@.+", "email");
+  }
+
+  @Benchmark
+  public boolean emailRule() {
+    return Rules.EMAIL.test(BenchmarkFixtures.EMAIL);
+  }
+
+  @Benchmark
+  public void isTrueSupplier() {
+    ArgVal.isTrue(() -> titleLength <= Url.TITLE_LENGTH, "title");
+  }
+
+  @Benchmark
+  public void isTrue() {
+    ArgVal.isTrue(titleLength <= Url.TITLE_LENGTH, "title");
+  }
+
+  @Benchmark
+  public AppUser newAppUser() {
+    return new AppUser(BenchmarkFixtures.EMAIL);
+  }
+
+  @Benchmark
+  public Url newUrl() {
+    return new Url(appUser, "University of Ostrava", "https://www.osu.cz");
+  }
+
+  @Benchmark
+  public Tag newTag() {
+    return new Tag(appUser, "private", "F00");
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public void newUrls(Blackhole blackhole) {
+    for (int i = 0; i < COUNT; i++) {
+      blackhole.consume(new Url(appUser, "University of Ostrava", "https://www.osu.cz"));
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public void newTags(Blackhole blackhole) {
+    for (int i = 0; i < COUNT; i++) {
+      blackhole.consume(new Tag(appUser, "private", "F00"));
+    }
+  }
+}
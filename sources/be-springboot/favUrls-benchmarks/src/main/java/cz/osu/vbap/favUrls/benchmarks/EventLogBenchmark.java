@@ -0,0 +1,97 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import cz.osu.vbap.favUrls.controllers.dto.UrlView;
+import cz.osu.vbap.favUrls.lib.eventlog.EventLog;
+import cz.osu.vbap.favUrls.services.AuditLogService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Appending to and reading from the audit `EventLog` in events per second, with the payloads of the url changes
+ * (as encoded by `AuditLogService`) or of the logins (no payload). The average size of the event in bytes
+ * is printed at the start of the trial. The log is in a temporary directory, its segments are rolled
+ * during the benchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventLogBenchmark {
+  private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final int PAYLOAD_COUNT = 1024;
+
+  @Param({"url", "login"})
+  private String event;
+
+  private Path directory;
+  private EventLog log;
+  private byte[][] payloads;
+  private EventLog.Reader reader;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("eventLogBenchmark");
+    log = new EventLog(directory, SEGMENT_SIZE, 4);
+
+    payloads = new byte[PAYLOAD_COUNT][];
+    List<UrlView> urls = BenchmarkFixtures.createUrlViews(PAYLOAD_COUNT);
+    long payloadBytes = 0;
+    for (int i = 0; i < PAYLOAD_COUNT; i++) {
+      UrlView url = urls.get(i);
+      payloads[i] = event.equals("url") ? AuditLogService.encode(url.getTitle(), url.getAddress()) : new byte[0];
+      payloadBytes += payloads[i].length;
+    }
+    System.out.printf("%n%s: %.1f bytes/event%n", event,
+            EventLog.HEADER_SIZE + (double) payloadBytes / PAYLOAD_COUNT);
+
+    // the events to be read
+    for (int i = 0; i < 100_000; i++) {
+      append();
+    }
+    reader = log.reader(log.getStartOffset());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    log.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public long append() {
+    int i = next++ & (PAYLOAD_COUNT - 1);
+    return log.append(System.currentTimeMillis(), (byte) 0, BenchmarkFixtures.APP_USER_ID, i, payloads[i]);
+  }
+
+  // the appends are serialized, more threads show the cost of the contention
+  @Benchmark
+  @Threads(4)
+  public long appendConcurrently() {
+    int i = (int) (Thread.currentThread().threadId() & (PAYLOAD_COUNT - 1));
+    return log.append(System.currentTimeMillis(), (byte) 0, BenchmarkFixtures.APP_USER_ID, i, payloads[i]);
+  }
+
+  @Benchmark
+  public EventLog.Entry read() {
+    EventLog.Entry ret = reader.next();
+    if (ret == null) {
+      reader = log.reader(log.getStartOffset());
+      ret = reader.next();
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,64 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.services.AuthenticationService;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failed logins by `AuthenticationService.login()` in logins per millisecond: with an unknown email
+ * (only the lookup and the exception) and with a wrong password (BCrypt of strength 4 in addition, see
+ * `PasswordEncoderBenchmark` for the real strength). The repository is an in-memory stub.
+ * <p>
+ * `filledStackTrace` is the cost of the failure exception with a stack trace, as thrown before; the stack
+ * of a real request is several times deeper than in the benchmark, and the cost grows with its depth.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FailedLoginBenchmark {
+  private static final String PASSWORD = "test";
+
+  private AuthenticationService authenticationService;
+
+  @Setup
+  public void setUp() {
+    BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    AppUser appUser = BenchmarkFixtures.createAppUser();
+    appUser.setPasswordHash(passwordEncoder.encode(PASSWORD));
+    authenticationService = BenchmarkFixtures.createAuthenticationService(passwordEncoder, appUser);
+  }
+
+  private Object login(String email, String password) {
+    try {
+      return authenticationService.login(email, password);
+    } catch (AppServiceException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object unknownEmail() {
+    return login("unknown@osu.cz", PASSWORD);
+  }
+
+  @Benchmark
+  public Object wrongPassword() {
+    return login(BenchmarkFixtures.EMAIL, "wrong");
+  }
+
+  @Benchmark
+  public Object filledStackTrace() {
+    try {
+      throw new IllegalStateException("Invalid credentials.");
+    } catch (IllegalStateException e) {
+      return e;
+    }
+  }
+}
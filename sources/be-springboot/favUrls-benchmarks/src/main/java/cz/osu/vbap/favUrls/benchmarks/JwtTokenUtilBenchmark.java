@@ -0,0 +1,45 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import cz.osu.vbap.favUrls.security.JwtTokenUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenUtilBenchmark {
+  private JwtTokenUtil jwtTokenUtil;
+  private String refreshToken;
+  private String accessToken;
+
+  @Setup
+  public void setUp() {
+    jwtTokenUtil = BenchmarkFixtures.createJwtTokenUtil();
+    refreshToken = jwtTokenUtil.generateRefreshToken(BenchmarkFixtures.EMAIL, BenchmarkFixtures.APP_USER_ID);
+    accessToken = jwtTokenUtil.generateAccessToken(refreshToken);
+  }
+
+  @Benchmark
+  public String generateRefreshToken() {
+    return jwtTokenUtil.generateRefreshToken(BenchmarkFixtures.EMAIL, BenchmarkFixtures.APP_USER_ID);
+  }
+
+  @Benchmark
+  public String generateAccessToken() {
+    return jwtTokenUtil.generateAccessToken(refreshToken);
+  }
+
+  @Benchmark
+  public boolean isValid() {
+    return jwtTokenUtil.isValid(accessToken);
+  }
+
+  @Benchmark
+  public int getAppUserId() {
+    return jwtTokenUtil.getAppUserId(accessToken);
+  }
+}
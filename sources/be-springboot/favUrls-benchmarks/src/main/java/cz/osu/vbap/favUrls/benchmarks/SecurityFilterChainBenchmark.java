@@ -0,0 +1,153 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import cz.osu.vbap.favUrls.SecurityConfiguration;
+import cz.osu.vbap.favUrls.security.AppCorsConfigurationSource;
+import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
+import cz.osu.vbap.favUrls.security.CsrfCookieFilter;
+import cz.osu.vbap.favUrls.security.JwtTokenUtil;
+import cz.osu.vbap.favUrls.security.SpaCsrfTokenRequestHandler;
+import jakarta.servlet.Filter;
+import jakarta.servlet.GenericServlet;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The filters of `SecurityConfiguration` per request, without Spring context: CORS, CSRF and the CSRF cookie
+ * for the public routes, the JWT filter in addition for the other ones. The remaining filters of Spring Security
+ * (headers, security context...) are not included. Request/response creation is part of the measured time.
+ * <p>
+ * `corsPerRequestConfiguration` is the CORS filter with the configuration built per request, as before;
+ * compare it with `corsPrecomputed`.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityFilterChainBenchmark {
+  private static final String ORIGIN = "http://localhost:3000";
+  private static final String CSRF_TOKEN = "0f6a7c9e-3a47-4c2b-9d51-2f0f6b8e8a11";
+  private static final Servlet NO_OP_SERVLET = new GenericServlet() {
+    @Override
+    public void service(ServletRequest request, ServletResponse response) {
+    }
+  };
+
+  private Filter[] publicFilters;
+  private Filter[] authenticatedFilters;
+  private Filter corsPrecomputed;
+  private Filter corsPerRequest;
+  private String accessToken;
+
+  @Setup
+  public void setUp() {
+    AppCorsConfigurationSource corsConfigurationSource =
+            new AppCorsConfigurationSource(List.of(ORIGIN), List.of(CorsConfiguration.ALL), Duration.ofDays(1));
+    corsPrecomputed = new CorsFilter(corsConfigurationSource);
+    corsPerRequest = new CorsFilter(createPerRequestSource());
+
+    CookieCsrfTokenRepository csrfTokenRepository = new CookieCsrfTokenRepository();
+    csrfTokenRepository.setCookieName(SecurityConfiguration.CSRF_COOKIE_NAME);
+    CsrfFilter csrfFilter = new CsrfFilter(csrfTokenRepository);
+    csrfFilter.setRequestHandler(new SpaCsrfTokenRequestHandler());
+    CsrfCookieFilter csrfCookieFilter = new CsrfCookieFilter(SecurityConfiguration.CSRF_COOKIE_NAME);
+
+    JwtTokenUtil jwtTokenUtil = BenchmarkFixtures.createJwtTokenUtil();
+    AuthenticationJwtFilter jwtFilter = BenchmarkFixtures.createAuthenticationJwtFilter(jwtTokenUtil);
+    accessToken = jwtTokenUtil.generateAccessToken(
+            jwtTokenUtil.generateRefreshToken(BenchmarkFixtures.EMAIL, BenchmarkFixtures.APP_USER_ID));
+
+    publicFilters = new Filter[]{corsPrecomputed, csrfFilter, csrfCookieFilter};
+    authenticatedFilters = new Filter[]{corsPrecomputed, csrfFilter, csrfCookieFilter, jwtFilter};
+  }
+
+  // the former AppCorsConfigurationSource
+  private static CorsConfigurationSource createPerRequestSource() {
+    return _ -> {
+      CorsConfiguration ret = new CorsConfiguration();
+      ret.addAllowedOrigin(ORIGIN);
+      ret.addAllowedMethod(CorsConfiguration.ALL);
+      ret.addAllowedHeader(CorsConfiguration.ALL);
+      ret.setAllowCredentials(true);
+      return ret;
+    };
+  }
+
+  @TearDown(Level.Invocation)
+  public void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static MockHttpServletRequest createRequest(String method, String path, Cookie... cookies) {
+    MockHttpServletRequest ret = new MockHttpServletRequest(method, path);
+    ret.addHeader(HttpHeaders.ORIGIN, ORIGIN);
+    if (cookies.length > 0)
+      ret.setCookies(cookies);
+    return ret;
+  }
+
+  private static MockHttpServletResponse run(MockHttpServletRequest request, Filter... filters)
+          throws ServletException, IOException {
+    MockHttpServletResponse ret = new MockHttpServletResponse();
+    new MockFilterChain(NO_OP_SERVLET, filters).doFilter(request, ret);
+    return ret;
+  }
+
+  @Benchmark
+  public Object preflight() throws ServletException, IOException {
+    MockHttpServletRequest request = createRequest("OPTIONS", "/v1/url/" + BenchmarkFixtures.APP_USER_ID);
+    request.addHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "DELETE");
+    return run(request, authenticatedFilters);
+  }
+
+  @Benchmark
+  public Object publicRoute() throws ServletException, IOException {
+    MockHttpServletRequest request = createRequest("POST", "/v1/appUser/login",
+            new Cookie(SecurityConfiguration.CSRF_COOKIE_NAME, CSRF_TOKEN));
+    request.addHeader("X-XSRF-TOKEN", CSRF_TOKEN);
+    return run(request, publicFilters);
+  }
+
+  // the first request of a client, the CSRF token is generated and sent as the cookie
+  @Benchmark
+  public Object publicRouteWithoutCsrfCookie() throws ServletException, IOException {
+    return run(createRequest("GET", "/v1/appUser/login"), publicFilters);
+  }
+
+  @Benchmark
+  public Object authenticatedRoute() throws ServletException, IOException {
+    return run(createRequest("GET", "/v1/url/" + BenchmarkFixtures.APP_USER_ID,
+            new Cookie(SecurityConfiguration.CSRF_COOKIE_NAME, CSRF_TOKEN),
+            new Cookie(AuthenticationJwtFilter.ACCESS_TOKEN_COOKIE_NAME, accessToken)), authenticatedFilters);
+  }
+
+  @Benchmark
+  public Object corsPrecomputed() throws ServletException, IOException {
+    return run(createRequest("GET", "/v1/url/" + BenchmarkFixtures.APP_USER_ID), corsPrecomputed);
+  }
+
+  @Benchmark
+  public Object corsPerRequestConfiguration() throws ServletException, IOException {
+    return run(createRequest("GET", "/v1/url/" + BenchmarkFixtures.APP_USER_ID), corsPerRequest);
+  }
+}
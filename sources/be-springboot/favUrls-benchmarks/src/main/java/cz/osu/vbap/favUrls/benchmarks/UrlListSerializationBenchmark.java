@@ -0,0 +1,86 @@
+package cz.osu.vbap.favUrls.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import cz.osu.vbap.favUrls.controllers.dto.UrlView;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of the url list (`GET /v1/url/{appUserId}`) in the supported response formats,
+ * gzipped JSON with different compression levels (as by `CompressionFilter`), by the hand-written
+ * `UrlView` serializer or by the default reflection-based bean serializer.
+ * The payload size of every format is printed at the start of the trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlListSerializationBenchmark {
+  private static final String GZIP_PREFIX = "json+gzip";
+
+  @JsonSerialize(using = JsonSerializer.None.class)
+  private abstract static class ReflectionMixIn {
+  }
+
+  @Param({"10000"})
+  private int size;
+  @Param({"json", "json+gzip1", "json+gzip5", "json+gzip9", "cbor", "smile"})
+  private String format;
+  @Param({"handwritten", "reflection"})
+  private String serializer;
+
+  private ObjectWriter writer;
+  private int gzipLevel;
+  private List<UrlView> urls;
+  private ByteArrayOutputStream output;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper mapper = switch (format) {
+      case "cbor" -> new CBORMapper();
+      case "smile" -> new SmileMapper();
+      default -> new ObjectMapper();
+    };
+    if (serializer.equals("reflection"))
+      mapper.addMixIn(UrlView.class, ReflectionMixIn.class);
+    writer = mapper.writerFor(new TypeReference<List<UrlView>>() {
+    });
+    gzipLevel = format.startsWith(GZIP_PREFIX) ? Integer.parseInt(format.substring(GZIP_PREFIX.length())) : 0;
+    urls = BenchmarkFixtures.createUrlViews(size);
+    output = new ByteArrayOutputStream(1 << 20);
+
+    serialize();
+    System.out.printf("%n%s, %s: %d urls = %d bytes%n", format, serializer, size, output.size());
+  }
+
+  @Benchmark
+  public int serialize() throws IOException {
+    output.reset();
+    if (gzipLevel > 0) {
+      try (OutputStream stream = new GZIPOutputStream(output, 8192) {
+        {
+          def.setLevel(gzipLevel);
+        }
+      }) {
+        writer.writeValue(stream, urls);
+      }
+    } else {
+      writer.writeValue(output, urls);
+    }
+    return output.size();
+  }
+}
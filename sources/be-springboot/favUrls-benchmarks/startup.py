@@ -0,0 +1,204 @@
+#!/usr/bin/env python3
+"""Measures the startup time of favUrls: from the start of the process to the first successful GET /v1/url.
+
+Usage: startup.py [--target ../favUrls/target] [--runs 5] [--port 32123] [--email E --password P] [-- APP_ARGS]
+
+Every available variant is measured:
+  plain    java -jar target/favUrls-*.jar
+  aot      java -Dspring.aot.enabled=true -jar target/favUrls-*.jar    (jar built with -Paot)
+  cds      the jar extracted to target/cds with the AppCDS archive     (built with -Pcds)
+  cds+aot  the jar extracted to target/cds-aot with the AppCDS archive (built with -Paot,cds)
+  native   the native executable target/favUrls                      (built with -Pnative)
+
+The user must exist in the database, by default the user created by the SAMPLE seed mode.
+"""
+import argparse
+import glob
+import json
+import os
+import re
+import statistics
+import subprocess
+import sys
+import threading
+import time
+import urllib.error
+import urllib.parse
+import urllib.request
+import zipfile
+
+CSRF_COOKIE_NAME = "XSRF-TOKEN"
+CSRF_HEADER_NAME = "X-XSRF-TOKEN"
+AOT_INITIALIZER = "BOOT-INF/classes/cz/osu/vbap/favUrls/FavUrlsApplication__ApplicationContextInitializer.class"
+STARTED_PATTERN = re.compile(r"Started FavUrlsApplication in ([0-9.]+) seconds")
+POLL_INTERVAL_SECONDS = 0.02
+
+
+class Client:
+    """Keeps cookies like the browser does; urllib's cookie jar does not send `Secure` cookies over plain http."""
+
+    def __init__(self, base_address):
+        self.base_address = base_address
+        self.cookies = {}
+
+    def request(self, method, path, form=None):
+        data = urllib.parse.urlencode(form).encode() if form is not None else None
+        req = urllib.request.Request(self.base_address + path, data=data, method=method)
+        if self.cookies:
+            req.add_header("Cookie", "; ".join(f"{k}={v}" for k, v in self.cookies.items()))
+        if CSRF_COOKIE_NAME in self.cookies:
+            req.add_header(CSRF_HEADER_NAME, self.cookies[CSRF_COOKIE_NAME])
+        try:
+            with urllib.request.urlopen(req, timeout=10) as response:
+                self._update_cookies(response.headers.get_all("Set-Cookie") or [])
+                return response.status, response.read()
+        except urllib.error.HTTPError as e:
+            self._update_cookies(e.headers.get_all("Set-Cookie") or [])
+            return e.code, b""
+
+    def _update_cookies(self, headers):
+        for header in headers:
+            parts = header.split(";")
+            name, _, value = parts[0].partition("=")
+            deleted = not value or any(p.strip().lower() == "max-age=0" for p in parts[1:])
+            if deleted:
+                self.cookies.pop(name.strip(), None)
+            else:
+                self.cookies[name.strip()] = value.strip()
+
+
+def variants(target, java):
+    jars = [j for j in glob.glob(os.path.join(target, "favUrls-*.jar")) if not j.endswith("-plain.jar")]
+    if not jars:
+        sys.exit(f"No application jar in {target}, build it by mvn package first.")
+    jar = jars[0]
+    jar_name = os.path.basename(jar)
+
+    ret = {"plain": [java, "-jar", jar]}
+    with zipfile.ZipFile(jar) as z:
+        if AOT_INITIALIZER in z.namelist():
+            ret["aot"] = [java, "-Dspring.aot.enabled=true", "-jar", jar]
+    for name, directory, aot in (("cds", "cds", False), ("cds+aot", "cds-aot", True)):
+        archive = os.path.join(target, directory, "application.jsa")
+        if os.path.exists(archive):
+            ret[name] = [java, f"-XX:SharedArchiveFile={archive}"] \
+                        + (["-Dspring.aot.enabled=true"] if aot else []) \
+                        + ["-jar", os.path.join(target, directory, jar_name)]
+    executable = os.path.join(target, "favUrls")
+    if os.access(executable, os.X_OK):
+        ret["native"] = [executable]
+    return ret
+
+
+def rss_megabytes(pid):
+    try:
+        with open(f"/proc/{pid}/status", encoding="ascii") as f:
+            for line in f:
+                if line.startswith("VmRSS:"):
+                    return int(line.split()[1]) / 1024
+    except OSError:
+        pass
+    return None
+
+
+def first_url_list(client, email, password):
+    """One attempt of login + GET /v1/url, returns True on success."""
+    try:
+        client.request("GET", "/v1/appUser/login")  # obtains the CSRF cookie
+        status, body = client.request("POST", "/v1/appUser/login", {"email": email, "password": password})
+        if status != 200:
+            return False
+        app_user_id = json.loads(body)["appUserId"]
+        status, _ = client.request("GET", f"/v1/url/{app_user_id}")
+        return status == 200
+    except (urllib.error.URLError, ConnectionError, TimeoutError):
+        return False
+
+
+def measure(command, args):
+    client = Client(f"http://localhost:{args.port}")
+    start = time.monotonic()
+    process = subprocess.Popen(command, stdout=subprocess.PIPE, stderr=subprocess.STDOUT, text=True)
+    output = []
+    reader = start_reader(process, output, args.verbose)
+    try:
+        while not first_url_list(client, args.email, args.password):
+            if process.poll() is not None:
+                raise RuntimeError("The application exited:\n" + "".join(output[-30:]))
+            if time.monotonic() - start > args.timeout:
+                raise RuntimeError(f"No successful response in {args.timeout} s.")
+            time.sleep(POLL_INTERVAL_SECONDS)
+        elapsed = time.monotonic() - start
+        rss = rss_megabytes(process.pid)
+    finally:
+        process.terminate()
+        try:
+            process.wait(timeout=30)
+        except subprocess.TimeoutExpired:
+            process.kill()
+        reader.join()
+
+    match = STARTED_PATTERN.search("".join(output))
+    return elapsed, float(match.group(1)) if match else None, rss
+
+
+def start_reader(process, output, verbose):
+    """Collects the output of the application, so its pipe never gets full."""
+
+    def read():
+        for line in process.stdout:
+            output.append(line)
+            if verbose:
+                print(line, end="")
+
+    ret = threading.Thread(target=read, daemon=True)
+    ret.start()
+    return ret
+
+
+def fmt(value, spec):
+    return "n/a" if value is None else format(value, spec)
+
+
+def median(values):
+    values = [v for v in values if v is not None]
+    return statistics.median(values) if values else None
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("--target", default="../favUrls/target", help="the target directory of favUrls")
+    parser.add_argument("--java", default="java")
+    parser.add_argument("--runs", type=int, default=5)
+    parser.add_argument("--port", type=int, default=32123)
+    parser.add_argument("--email", default="marek.vajgl@osu.cz")
+    parser.add_argument("--password", default="test")
+    parser.add_argument("--timeout", type=float, default=120)
+    parser.add_argument("--only", nargs="*", help="measure only these variants")
+    parser.add_argument("--verbose", action="store_true", help="print the output of the application")
+    parser.add_argument("app_args", nargs="*", help="additional application arguments, after --")
+    args = parser.parse_args()
+
+    app_args = [f"--server.port={args.port}", "--app.linkCheck.enabled=false"] + args.app_args
+    results = {}
+    for name, variant_command in variants(args.target, args.java).items():
+        if args.only and name not in args.only:
+            continue
+        command = variant_command + app_args
+        results[name] = []
+        for run in range(args.runs):
+            elapsed, started, rss = measure(command, args)
+            results[name].append((elapsed, started, rss))
+            print(f"{name:8} run {run + 1}: first /v1/url after {elapsed:.2f} s"
+                  f" (started in {started} s as reported by Spring, RSS {fmt(rss, '.0f')} MB)")
+
+    print()
+    print(f"{'variant':8} {'median s':>9} {'min s':>7} {'max s':>7} {'spring s':>9} {'RSS MB':>7}")
+    for name, runs in results.items():
+        times = [r[0] for r in runs]
+        print(f"{name:8} {median(times):9.2f} {min(times):7.2f} {max(times):7.2f}"
+              f" {fmt(median(r[1] for r in runs), '.2f'):>9} {fmt(median(r[2] for r in runs), '.0f'):>7}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,18 @@
+package cz.osu.vbap.favUrls.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * The url and user API of favUrls (`/v1/url`, `/v1/appUser`) on WebFlux and R2DBC, for the comparison
+ * with the servlet application. Entities, DTOs, service exceptions and `JwtTokenUtil` are compiled
+ * from the favUrls sources; the database schema is created by the same Flyway migrations.
+ * Not supported here: sharding and replicas, link checking, page enrichment and the url change stream.
+ */
+@SpringBootApplication
+public class FavUrlsReactiveApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(FavUrlsReactiveApplication.class, args);
+  }
+}
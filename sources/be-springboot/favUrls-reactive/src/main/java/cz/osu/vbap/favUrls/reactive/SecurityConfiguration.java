@@ -0,0 +1,83 @@
+package cz.osu.vbap.favUrls.reactive;
+
+import cz.osu.vbap.favUrls.reactive.security.AuthenticationJwtWebFilter;
+import cz.osu.vbap.favUrls.reactive.security.CsrfCookieWebFilter;
+import cz.osu.vbap.favUrls.security.JwtTokenUtil;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.csrf.CookieServerCsrfTokenRepository;
+import org.springframework.security.web.server.csrf.ServerCsrfTokenRequestAttributeHandler;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+/**
+ * The same rules as the `SecurityConfiguration` of favUrls: CSRF token in the `XSRF-TOKEN` cookie
+ * (sent back in the `X-XSRF-TOKEN` header), JWT in the `access_token` cookie, 403 for anonymous requests.
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfiguration {
+
+  @Bean
+  public PasswordEncoder passwordEncoder() {
+    return new BCryptPasswordEncoder();
+  }
+
+  @Bean
+  public JwtTokenUtil jwtTokenUtil() {
+    return new JwtTokenUtil();
+  }
+
+  @Bean
+  public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtTokenUtil jwtTokenUtil) {
+    CookieServerCsrfTokenRepository cookieCsrfTokenRepository = CookieServerCsrfTokenRepository.withHttpOnlyFalse();
+    cookieCsrfTokenRepository.setCookieCustomizer(q -> {
+      q.sameSite("Strict");
+      q.secure(true);
+    });
+    // the raw token from the cookie is sent in the header, as by SpaCsrfTokenRequestHandler
+    http.csrf(q -> q
+            .csrfTokenRepository(cookieCsrfTokenRepository)
+            .csrfTokenRequestHandler(new ServerCsrfTokenRequestAttributeHandler()));
+    http.addFilterAfter(new CsrfCookieWebFilter(), SecurityWebFiltersOrder.CSRF);
+
+    http.cors(q -> {
+      CorsConfiguration corsConfiguration = new CorsConfiguration();
+      corsConfiguration.addAllowedOrigin("http://localhost:3000");
+      corsConfiguration.addAllowedMethod("*");
+      corsConfiguration.addAllowedHeader("*");
+      corsConfiguration.setAllowCredentials(true);
+
+      UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+      source.registerCorsConfiguration("/**", corsConfiguration);
+
+      q.configurationSource(source);
+    });
+
+    // stateless, without the login mechanisms enabled by default in WebFlux
+    http.httpBasic(ServerHttpSecurity.HttpBasicSpec::disable);
+    http.formLogin(ServerHttpSecurity.FormLoginSpec::disable);
+    http.securityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+    http.exceptionHandling(q -> q.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)));
+
+    http.authorizeExchange(q -> q
+            .pathMatchers("/v1/appUser/login").permitAll()
+            .pathMatchers("/v1/appUser/refresh").permitAll()
+            .pathMatchers("/v1/appUser/logout").permitAll()
+            .pathMatchers(HttpMethod.POST, "/v1/appUser").permitAll()
+            .anyExchange().authenticated());
+    http.addFilterAt(new AuthenticationJwtWebFilter(jwtTokenUtil), SecurityWebFiltersOrder.AUTHENTICATION);
+
+    return http.build();
+  }
+}
@@ -0,0 +1,61 @@
+package cz.osu.vbap.favUrls.reactive.controllers;
+
+import cz.osu.vbap.favUrls.controllers.dto.ErrorView;
+import cz.osu.vbap.favUrls.controllers.exceptions.ForbiddenException;
+import cz.osu.vbap.favUrls.services.exceptions.BadRequestException;
+import cz.osu.vbap.favUrls.services.exceptions.InternalException;
+import cz.osu.vbap.favUrls.services.exceptions.InvalidOrExpiredCredentialsException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.reactive.resource.NoResourceFoundException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * The status codes of `ApiExceptionHandler` of favUrls; all bodies are `ErrorView`.
+ */
+@ControllerAdvice
+public class ApiExceptionHandler {
+
+  private static ResponseEntity<ErrorView> error(String message, HttpStatus status) {
+    return new ResponseEntity<>(new ErrorView(message), status);
+  }
+
+  // BadDataException is a subclass
+  @ExceptionHandler(BadRequestException.class)
+  public ResponseEntity<ErrorView> badRequestException(BadRequestException e) {
+    return error(e.getMessage(), HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(InvalidOrExpiredCredentialsException.class)
+  public ResponseEntity<ErrorView> invalidOrExpiredCredentialsException(InvalidOrExpiredCredentialsException e) {
+    return error(e.getMessage(), HttpStatus.UNAUTHORIZED);
+  }
+
+  @ExceptionHandler(InternalException.class)
+  public ResponseEntity<ErrorView> internalServerException(InternalException e) {
+    return error("Internal service error.", HttpStatus.INTERNAL_SERVER_ERROR);
+  }
+
+  @ExceptionHandler(NoResourceFoundException.class)
+  public ResponseEntity<ErrorView> exception(NoResourceFoundException e) {
+    return error("Invalid request - path.", HttpStatus.NOT_FOUND);
+  }
+
+  // type mismatch and binding errors of the parameters
+  @ExceptionHandler(ServerWebInputException.class)
+  public ResponseEntity<ErrorView> exception(ServerWebInputException e) {
+    return error("Invalid request - data.", HttpStatus.NOT_FOUND);
+  }
+
+  @ExceptionHandler(ForbiddenException.class)
+  public ResponseEntity<ErrorView> exception(ForbiddenException e) {
+    return error("Forbidden", HttpStatus.FORBIDDEN);
+  }
+
+  @ExceptionHandler(Exception.class)
+  public ResponseEntity<ErrorView> exception(Exception e) {
+    return error("Internal server error", HttpStatus.INTERNAL_SERVER_ERROR);
+  }
+}
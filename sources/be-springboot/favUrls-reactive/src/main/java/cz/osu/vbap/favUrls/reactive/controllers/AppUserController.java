@@ -0,0 +1,90 @@
+package cz.osu.vbap.favUrls.reactive.controllers;
+
+import cz.osu.vbap.favUrls.controllers.dto.AppUserView;
+import cz.osu.vbap.favUrls.reactive.security.AuthenticationJwtWebFilter;
+import cz.osu.vbap.favUrls.reactive.services.AuthenticationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * The same contract as `AppUserController` of favUrls. WebFlux binds simple parameters from the query only,
+ * so the form fields are bound to records by `@ModelAttribute`.
+ */
+@RestController
+@RequestMapping("/v1/appUser")
+public class AppUserController {
+  @Value("${app.security.refreshTokenExpirationSeconds}")
+  private int refreshTokenExpirationInSeconds;
+  @Value("${app.security.accessTokenExpirationSeconds}")
+  private int accessTokenExpirationInSeconds;
+  @Autowired
+  private AuthenticationService authenticationService;
+
+  private static final String ACCESS_TOKEN_COOKIE_NAME = AuthenticationJwtWebFilter.ACCESS_TOKEN_COOKIE_NAME;
+  private static final String REFRESH_TOKEN_COOKIE_NAME = AuthenticationJwtWebFilter.REFRESH_TOKEN_COOKIE_NAME;
+
+  public record Credentials(String email, String password) {
+  }
+
+  private ResponseCookie buildTokenCookie(String name, String value, int expiration) {
+    return ResponseCookie.from(name, value == null ? "" : value)
+            .httpOnly(true)
+            .path("/")
+            .maxAge(expiration)
+            .sameSite("Strict")
+            .build();
+  }
+
+  private void deleteTokenCookies(ServerHttpResponse response) {
+    response.addCookie(buildTokenCookie(ACCESS_TOKEN_COOKIE_NAME, null, 0));
+    response.addCookie(buildTokenCookie(REFRESH_TOKEN_COOKIE_NAME, null, 0));
+  }
+
+  @PostMapping
+  public Mono<AppUserView> register(@ModelAttribute Credentials credentials) {
+    return authenticationService.register(credentials.email(), credentials.password())
+            .map(AppUserView::of);
+  }
+
+  @PostMapping("/login")
+  public Mono<AppUserView> login(@ModelAttribute Credentials credentials, ServerHttpResponse response) {
+    return authenticationService.login(credentials.email(), credentials.password())
+            .map(q -> {
+              response.addCookie(buildTokenCookie(ACCESS_TOKEN_COOKIE_NAME, q.accessToken(), accessTokenExpirationInSeconds));
+              response.addCookie(buildTokenCookie(REFRESH_TOKEN_COOKIE_NAME, q.refreshToken(), refreshTokenExpirationInSeconds));
+              return AppUserView.of(q.appUser());
+            })
+            .doOnError(_ -> deleteTokenCookies(response));
+  }
+
+  @PostMapping(path = "/refresh")
+  public Mono<Void> refreshAccessToken(ServerHttpRequest request, ServerHttpResponse response) {
+    HttpCookie refreshTokenCookie = request.getCookies().getFirst(REFRESH_TOKEN_COOKIE_NAME);
+    if (refreshTokenCookie == null) {
+      deleteTokenCookies(response);
+      return Mono.empty();
+    }
+    return authenticationService.refreshAccessToken(refreshTokenCookie.getValue())
+            .doOnNext(q -> response.addCookie(
+                    buildTokenCookie(ACCESS_TOKEN_COOKIE_NAME, q, accessTokenExpirationInSeconds)))
+            .then();
+  }
+
+  @PostMapping("/logout")
+  public Mono<Void> logout(ServerHttpRequest request, ServerHttpResponse response) {
+    HttpCookie refreshTokenCookie = request.getCookies().getFirst(REFRESH_TOKEN_COOKIE_NAME);
+    deleteTokenCookies(response);
+    if (refreshTokenCookie == null)
+      return Mono.empty();
+    return authenticationService.logout(refreshTokenCookie.getValue());
+  }
+}
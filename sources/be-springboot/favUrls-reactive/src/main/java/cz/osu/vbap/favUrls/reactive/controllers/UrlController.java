@@ -0,0 +1,45 @@
+package cz.osu.vbap.favUrls.reactive.controllers;
+
+import cz.osu.vbap.favUrls.controllers.dto.UrlView;
+import cz.osu.vbap.favUrls.controllers.exceptions.ForbiddenException;
+import cz.osu.vbap.favUrls.reactive.security.AuthenticationJwtWebFilter;
+import cz.osu.vbap.favUrls.reactive.services.UrlService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The same contract as `UrlController` of favUrls, without the change stream (`/v1/url/stream`).
+ */
+@RestController
+@RequestMapping("/v1/url")
+public class UrlController {
+
+  @Autowired
+  private UrlService urlService;
+
+  public record CreateUrl(int appUserId, String title, String address) {
+  }
+
+  @PostMapping
+  public Mono<UrlView> createUrl(@ModelAttribute CreateUrl createUrl) {
+    return urlService.create(createUrl.appUserId(), createUrl.title(), createUrl.address())
+            .map(UrlView::of);
+  }
+
+  @GetMapping("/{appUserId}")
+  public Flux<UrlView> getByUser(@PathVariable int appUserId, ServerWebExchange exchange) {
+    int loggedAppUserId = exchange.getRequiredAttribute(AuthenticationJwtWebFilter.APP_USER_ID_ATTRIBUTE_NAME);
+    if (loggedAppUserId != appUserId) throw new ForbiddenException();
+
+    return urlService.getByUser(appUserId)
+            .map(UrlView::of);
+  }
+
+  @DeleteMapping("/{urlId}")
+  public Mono<Void> deleteUrl(@PathVariable int urlId) {
+    return urlService.delete(urlId);
+  }
+}
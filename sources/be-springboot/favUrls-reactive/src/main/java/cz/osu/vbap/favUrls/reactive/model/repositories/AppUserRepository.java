@@ -0,0 +1,62 @@
+package cz.osu.vbap.favUrls.reactive.model.repositories;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+/**
+ * Reads and writes `AppUser` rows by SQL. The entity classes of favUrls are JPA-mapped and cannot be mapped
+ * by Spring Data R2DBC (no support of associations), so they are only filled from the rows here.
+ */
+@Repository
+public class AppUserRepository {
+  private static final String COLUMNS = "app_user_id, email, password_hash";
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  static AppUser map(Readable row) {
+    AppUser ret = new AppUser();
+    ret.setAppUserId(row.get("app_user_id", Integer.class));
+    ret.setEmail(row.get("email", String.class));
+    ret.setPasswordHash(row.get("password_hash", String.class));
+    return ret;
+  }
+
+  public Mono<AppUser> findById(int appUserId) {
+    return databaseClient.sql("select " + COLUMNS + " from app_user where app_user_id = :appUserId")
+            .bind("appUserId", appUserId)
+            .map(AppUserRepository::map)
+            .one();
+  }
+
+  public Mono<AppUser> findByEmail(String email) {
+    return databaseClient.sql("select " + COLUMNS + " from app_user where email = :email")
+            .bind("email", email)
+            .map(AppUserRepository::map)
+            .one();
+  }
+
+  /**
+   * Inserts the new user and sets its generated id.
+   */
+  public Mono<AppUser> save(AppUser appUser) {
+    // lower-cased as by AppUser.prePersistCheck()
+    appUser.setEmail(appUser.getEmail().toLowerCase(Locale.ROOT));
+    return databaseClient.sql("insert into app_user (email, password_hash) values (:email, :passwordHash)")
+            .bind("email", appUser.getEmail())
+            .bind("passwordHash", appUser.getPasswordHash())
+            .filter(q -> q.returnGeneratedValues("app_user_id"))
+            .map(row -> row.get("app_user_id", Integer.class))
+            .one()
+            .map(id -> {
+              appUser.setAppUserId(id);
+              return appUser;
+            });
+  }
+}
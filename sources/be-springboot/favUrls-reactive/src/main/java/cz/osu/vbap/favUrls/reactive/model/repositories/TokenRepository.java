@@ -0,0 +1,53 @@
+package cz.osu.vbap.favUrls.reactive.model.repositories;
+
+import cz.osu.vbap.favUrls.model.entities.Token;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+/**
+ * Refresh tokens, looked up by the hash of their value (see `Token.hashOf()`).
+ */
+@Repository
+public class TokenRepository {
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  public Mono<Boolean> existsByValue(String value) {
+    return databaseClient.sql("select 1 from token where value_hash = :valueHash")
+            .bind("valueHash", Token.hashOf(value))
+            .map(_ -> Boolean.TRUE)
+            .first()
+            .defaultIfEmpty(Boolean.FALSE);
+  }
+
+  /**
+   * Replaces the token of the user (there is at most one).
+   */
+  @Transactional
+  public Mono<Void> replace(int appUserId, String value) {
+    return databaseClient.sql("delete from token where app_user_id = :appUserId")
+            .bind("appUserId", appUserId)
+            .fetch()
+            .rowsUpdated()
+            .then(databaseClient.sql("insert into token (value, value_hash, app_user_id) " +
+                            "values (:value, :valueHash, :appUserId)")
+                    .bind("value", value)
+                    .bind("valueHash", Token.hashOf(value))
+                    .bind("appUserId", appUserId)
+                    .fetch()
+                    .rowsUpdated())
+            .then();
+  }
+
+  public Mono<Void> deleteByValue(String value) {
+    return databaseClient.sql("delete from token where value_hash = :valueHash")
+            .bind("valueHash", Token.hashOf(value))
+            .fetch()
+            .rowsUpdated()
+            .then();
+  }
+}
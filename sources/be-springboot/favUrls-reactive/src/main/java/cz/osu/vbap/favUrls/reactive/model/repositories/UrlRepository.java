@@ -0,0 +1,95 @@
+package cz.osu.vbap.favUrls.reactive.model.repositories;
+
+import cz.osu.vbap.favUrls.model.entities.Url;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads and writes `Url` rows by SQL, see `AppUserRepository`. The owner is passed by id;
+ * `Url.appUser` and `Url.tags` of the read urls are not filled.
+ */
+@Repository
+public class UrlRepository {
+  private static final String COLUMNS =
+          "url_id, title, address, address_hash, description, favicon_hash, last_check_status";
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  private static Url map(Readable row) {
+    Url ret = new Url();
+    ret.setUrlId(row.get("url_id", Integer.class));
+    ret.setTitle(row.get("title", String.class));
+    ret.setAddress(row.get("address", String.class));
+    ret.setAddressHash(row.get("address_hash", String.class));
+    ret.setDescription(row.get("description", String.class));
+    ret.setFaviconHash(row.get("favicon_hash", String.class));
+    ret.setLastCheckStatus(row.get("last_check_status", Integer.class));
+    return ret;
+  }
+
+  public Flux<Url> findByAppUserId(int appUserId) {
+    return databaseClient.sql("select " + COLUMNS + " from url where app_user_id = :appUserId")
+            .bind("appUserId", appUserId)
+            .map(UrlRepository::map)
+            .all();
+  }
+
+  /**
+   * Finds the url of the user by the hash of its canonical address, backed by `(app_user_id, address_hash)` index.
+   */
+  public Mono<Url> findByAppUserIdAndAddressHash(int appUserId, String addressHash) {
+    return databaseClient.sql("select " + COLUMNS + " from url where app_user_id = :appUserId and address_hash = :addressHash")
+            .bind("appUserId", appUserId)
+            .bind("addressHash", addressHash)
+            .map(UrlRepository::map)
+            .one();
+  }
+
+  /**
+   * Inserts the new url (the address must be canonical and hashed) and sets its generated id.
+   */
+  public Mono<Url> insert(int appUserId, Url url) {
+    return databaseClient.sql("insert into url (title, address, address_hash, app_user_id) " +
+                    "values (:title, :address, :addressHash, :appUserId)")
+            .bind("title", url.getTitle())
+            .bind("address", url.getAddress())
+            .bind("addressHash", url.getAddressHash())
+            .bind("appUserId", appUserId)
+            .filter(q -> q.returnGeneratedValues("url_id"))
+            .map(row -> row.get("url_id", Integer.class))
+            .one()
+            .map(id -> {
+              url.setUrlId(id);
+              return url;
+            });
+  }
+
+  public Mono<Long> updateTitle(int urlId, String title) {
+    return databaseClient.sql("update url set title = :title where url_id = :urlId")
+            .bind("title", title)
+            .bind("urlId", urlId)
+            .fetch()
+            .rowsUpdated();
+  }
+
+  /**
+   * Deletes the url with its tag assignments.
+   */
+  @Transactional
+  public Mono<Long> deleteById(int urlId) {
+    return databaseClient.sql("delete from url_tag where url_id = :urlId")
+            .bind("urlId", urlId)
+            .fetch()
+            .rowsUpdated()
+            .then(databaseClient.sql("delete from url where url_id = :urlId")
+                    .bind("urlId", urlId)
+                    .fetch()
+                    .rowsUpdated());
+  }
+}
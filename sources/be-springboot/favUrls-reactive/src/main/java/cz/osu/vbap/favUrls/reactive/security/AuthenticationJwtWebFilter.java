@@ -0,0 +1,97 @@
+package cz.osu.vbap.favUrls.reactive.security;
+
+import cz.osu.vbap.favUrls.security.AppUserDetails;
+import cz.osu.vbap.favUrls.security.JwtTokenUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * `AuthenticationJwtFilter` of favUrls as a `WebFilter`: a valid access token from the cookie authenticates
+ * the exchange (through the Reactor context, there is no thread-bound security context) and its user id is
+ * stored to the exchange attribute `__appUserId`. Token parsing is CPU-only, so it runs on the event loop.
+ */
+public class AuthenticationJwtWebFilter implements WebFilter {
+
+  public static final String ACCESS_TOKEN_COOKIE_NAME = "access_token";
+  public static final String REFRESH_TOKEN_COOKIE_NAME = "refresh_token";
+  public static final String APP_USER_ID_ATTRIBUTE_NAME = "__appUserId";
+
+  private enum TokenState {
+    NO_TOKEN,
+    VALID,
+    INVALID,
+    ERROR
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(AuthenticationJwtWebFilter.class);
+
+  private final JwtTokenUtil jwtTokenUtil;
+
+  public AuthenticationJwtWebFilter(JwtTokenUtil jwtTokenUtil) {
+    this.jwtTokenUtil = jwtTokenUtil;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String jwt = tryExtractJwtFromRequest(exchange);
+    TokenState state;
+    if (jwt == null || jwt.isEmpty()) {
+      state = TokenState.NO_TOKEN;
+    } else if (jwtTokenUtil.isValid(jwt)) {
+      state = TokenState.VALID;
+    } else {
+      state = TokenState.INVALID;
+    }
+
+    UsernamePasswordAuthenticationToken authentication = null;
+    if (state == TokenState.VALID) {
+      try {
+        authentication = processValidToken(exchange, jwt);
+      } catch (Exception ex) {
+        logger.error("Failed to process authentication procedure: {}", ex.toString());
+        state = TokenState.ERROR;
+      }
+    }
+
+    logger.debug("JWT for {} is : {}", exchange.getRequest().getPath(), state);
+
+    return switch (state) {
+      case ERROR -> {
+        exchange.getResponse().setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+        yield exchange.getResponse().setComplete();
+      }
+      case VALID -> chain.filter(exchange)
+              .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+      case INVALID, NO_TOKEN -> chain.filter(exchange);
+    };
+  }
+
+  private UsernamePasswordAuthenticationToken processValidToken(ServerWebExchange exchange, String jwt) {
+    String email = jwtTokenUtil.getSubject(jwt);
+
+    AppUserDetails userDetails = new AppUserDetails(email);
+    UsernamePasswordAuthenticationToken ret =
+            new UsernamePasswordAuthenticationToken(
+                    userDetails,
+                    null,
+                    userDetails.getAuthorities());
+
+    int appUserId = jwtTokenUtil.getAppUserId(jwt);
+    exchange.getAttributes().put(APP_USER_ID_ATTRIBUTE_NAME, appUserId);
+    return ret;
+  }
+
+  private String tryExtractJwtFromRequest(ServerWebExchange exchange) {
+    HttpCookie cookie = exchange.getRequest().getCookies().getFirst(ACCESS_TOKEN_COOKIE_NAME);
+    String ret = cookie == null ? null : cookie.getValue();
+    return ret;
+  }
+}
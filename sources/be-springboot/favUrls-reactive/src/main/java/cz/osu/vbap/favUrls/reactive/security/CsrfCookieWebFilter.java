@@ -0,0 +1,19 @@
+package cz.osu.vbap.favUrls.reactive.security;
+
+import org.springframework.security.web.server.csrf.CsrfToken;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Renders the CSRF token to the cookie by subscribing to the deferred token, see `CsrfCookieFilter`.
+ */
+public final class CsrfCookieWebFilter implements WebFilter {
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    Mono<CsrfToken> csrfToken = exchange.getAttributeOrDefault(CsrfToken.class.getName(), Mono.empty());
+    return csrfToken.then(chain.filter(exchange));
+  }
+}
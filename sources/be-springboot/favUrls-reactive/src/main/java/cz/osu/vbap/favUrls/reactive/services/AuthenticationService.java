@@ -0,0 +1,90 @@
+package cz.osu.vbap.favUrls.reactive.services;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.reactive.model.repositories.AppUserRepository;
+import cz.osu.vbap.favUrls.reactive.model.repositories.TokenRepository;
+import cz.osu.vbap.favUrls.security.JwtTokenUtil;
+import cz.osu.vbap.favUrls.services.exceptions.BadRequestException;
+import cz.osu.vbap.favUrls.services.exceptions.InternalException;
+import cz.osu.vbap.favUrls.services.exceptions.InvalidOrExpiredCredentialsException;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Reactive counterpart of `AuthenticationService` of favUrls. BCrypt hashing takes tens of milliseconds,
+ * so it is offloaded from the event loop.
+ */
+@Service
+public class AuthenticationService extends ReactiveAppService {
+  @Autowired
+  private JwtTokenUtil jwtTokenUtil;
+  @Autowired
+  private TokenRepository tokenRepository;
+  @Autowired
+  private AppUserRepository appUserRepository;
+  @Autowired
+  private PasswordEncoder passwordEncoder;
+
+  public record LoginResponse(String refreshToken, String accessToken, AppUser appUser) {
+  }
+
+  public Mono<LoginResponse> login(String email, String password) {
+    return tryInvoke(appUserRepository.findByEmail(email))
+            .filterWhen(q -> isValidCredentials(q, password))
+            .switchIfEmpty(Mono.error(() -> new BadRequestException(this, "Invalid credentials.")))
+            .flatMap(appUser -> {
+              String refreshToken = jwtTokenUtil.generateRefreshToken(appUser.getEmail(), appUser.getAppUserId());
+              String accessToken = jwtTokenUtil.generateAccessToken(refreshToken);
+              return tokenRepository.replace(appUser.getAppUserId(), refreshToken)
+                      .onErrorMap(e -> new InternalException(this, "Failed to login", e))
+                      .thenReturn(new LoginResponse(refreshToken, accessToken, appUser));
+            });
+  }
+
+  public Mono<AppUser> register(String email, String password) {
+    return tryInvoke(appUserRepository.findByEmail(email))
+            .flatMap(_ -> Mono.<AppUser>error(new BadRequestException(this, "User already exists.")))
+            .switchIfEmpty(Mono.defer(() -> {
+              AppUser user = new AppUser(email);
+              return offload(() -> passwordEncoder.encode(password))
+                      .flatMap(passwordHash -> {
+                        user.setPasswordHash(passwordHash);
+                        return tryInvoke(appUserRepository.save(user));
+                      });
+            }));
+  }
+
+  private Mono<Boolean> isValidCredentials(AppUser appUser, String password) {
+    return offload(() -> passwordEncoder.matches(password, appUser.getPasswordHash()));
+  }
+
+  public Mono<Void> logout(String refreshToken) {
+    // expired or invalid token cannot be used anymore and is replaced on the next login
+    if (tryGetAppUserId(refreshToken).isEmpty())
+      return Mono.empty();
+    return tryInvoke(tokenRepository.deleteByValue(refreshToken));
+  }
+
+  private Optional<Integer> tryGetAppUserId(String token) {
+    try {
+      return jwtTokenUtil.isValid(token) ? Optional.of(jwtTokenUtil.getAppUserId(token)) : Optional.empty();
+    } catch (JwtException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  public Mono<String> refreshAccessToken(String refreshToken) {
+    if (tryGetAppUserId(refreshToken).isEmpty())
+      return Mono.error(new InvalidOrExpiredCredentialsException(this));
+
+    return tryInvoke(tokenRepository.existsByValue(refreshToken))
+            .flatMap(exists -> exists
+                    ? Mono.just(jwtTokenUtil.generateAccessToken(refreshToken))
+                    : Mono.error(new InvalidOrExpiredCredentialsException(this)));
+  }
+}
@@ -0,0 +1,41 @@
+package cz.osu.vbap.favUrls.reactive.services;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.services.AppService;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import cz.osu.vbap.favUrls.services.exceptions.InternalException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * `AppService` with the reactive variants of `tryInvoke()`: errors other than `AppServiceException`
+ * are logged and replaced by `InternalException`.
+ */
+public abstract class ReactiveAppService extends AppService {
+
+  protected <T> Mono<T> tryInvoke(Mono<T> mono) {
+    ArgVal.notNull(mono, "mono");
+    return mono.onErrorMap(q -> !(q instanceof AppServiceException), this::toInternalException);
+  }
+
+  protected <T> Flux<T> tryInvoke(Flux<T> flux) {
+    ArgVal.notNull(flux, "flux");
+    return flux.onErrorMap(q -> !(q instanceof AppServiceException), this::toInternalException);
+  }
+
+  /**
+   * Runs the blocking or long computation (e.g. password hashing) outside the event loop.
+   */
+  protected <T> Mono<T> offload(Callable<T> callable) {
+    ArgVal.notNull(callable, "callable");
+    return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private InternalException toInternalException(Throwable e) {
+    logger.error("Error in 'tryInvoke'", e);
+    return new InternalException(this, "Error in 'tryInvoke'", e);
+  }
+}
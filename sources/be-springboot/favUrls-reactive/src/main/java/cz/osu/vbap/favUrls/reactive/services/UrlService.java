@@ -0,0 +1,94 @@
+package cz.osu.vbap.favUrls.reactive.services;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.UrlCanonicalizer;
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.reactive.model.repositories.AppUserRepository;
+import cz.osu.vbap.favUrls.reactive.model.repositories.UrlRepository;
+import cz.osu.vbap.favUrls.services.exceptions.BadDataException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of `UrlService` of favUrls, with the same canonicalization and duplicate handling
+ * (`app.urls.duplicatePolicy`). The created urls are not enriched, no change events are published
+ * and the changes are not tracked for the delta sync.
+ */
+@Service
+public class UrlService extends ReactiveAppService {
+
+  /**
+   * See `UrlService.DuplicatePolicy` of favUrls.
+   */
+  public enum DuplicatePolicy {
+    REJECT,
+    MERGE
+  }
+
+  @Autowired
+  private UrlRepository urlRepository;
+  @Autowired
+  private AppUserRepository appUserRepository;
+  @Value("${app.urls.duplicatePolicy:REJECT}")
+  private DuplicatePolicy duplicatePolicy;
+
+  public Mono<Url> create(int appUserId, String title, String address) {
+    return findAppUser(appUserId)
+            .flatMap(appUser -> createOrMerge(appUser, title, address, false));
+  }
+
+  /**
+   * @param isRetry true when repeated after a concurrent create of the same address has inserted first
+   *                (see the unique index `UQ_url_app_user_address_hash`), then the other url is found
+   *                and the `DuplicatePolicy` applies
+   */
+  private Mono<Url> createOrMerge(AppUser appUser, String title, String address, boolean isRetry) {
+    ArgVal.notWhitespace(address, "address");
+    String canonicalAddress = UrlCanonicalizer.canonicalize(address);
+    String addressHash = UrlCanonicalizer.hash(canonicalAddress);
+
+    Mono<Url> existing = tryInvoke(urlRepository.findByAppUserIdAndAddressHash(appUser.getAppUserId(), addressHash))
+            .filter(q -> q.getAddress().equals(canonicalAddress)); // hash collision guard
+
+    return existing
+            .flatMap(url -> {
+              if (duplicatePolicy == DuplicatePolicy.REJECT)
+                return Mono.error(new BadDataException(this, "Url already exists."));
+              if (title == null || title.isBlank())
+                return Mono.just(url);
+              url.setTitle(title);
+              return tryInvoke(urlRepository.updateTitle(url.getUrlId(), title)).thenReturn(url);
+            })
+            .switchIfEmpty(Mono.defer(() -> {
+              // without title, the address is used (the servlet application replaces it by the downloaded one)
+              String effectiveTitle = title == null || title.isBlank()
+                      ? canonicalAddress.substring(0, Math.min(canonicalAddress.length(), Url.TITLE_LENGTH))
+                      : title;
+              Url url = new Url(appUser, effectiveTitle, canonicalAddress);
+              url.setCanonicalAddress(canonicalAddress, addressHash);
+              return tryInvoke(urlRepository.insert(appUser.getAppUserId(), url)
+                      .onErrorResume(DataIntegrityViolationException.class, e -> isRetry
+                              ? Mono.error(e)
+                              : createOrMerge(appUser, title, address, true)));
+            }));
+  }
+
+  public Mono<Void> delete(int urlId) {
+    return tryInvoke(urlRepository.deleteById(urlId)).then();
+  }
+
+  public Flux<Url> getByUser(int appUserId) {
+    return findAppUser(appUserId)
+            .flatMapMany(_ -> tryInvoke(urlRepository.findByAppUserId(appUserId)));
+  }
+
+  private Mono<AppUser> findAppUser(int appUserId) {
+    return tryInvoke(appUserRepository.findById(appUserId))
+            .switchIfEmpty(Mono.error(() -> new BadDataException(this, "User not found.")));
+  }
+}
@@ -0,0 +1,68 @@
+package cz.osu.vbap.favUrls;
+
+import com.zaxxer.hikari.HikariDataSource;
+import cz.osu.vbap.favUrls.lib.db.ReplicaRoutingDataSource;
+import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Enabled only if the read replica is configured (`app.datasource.replica.url`) and sharding is disabled.
+ * Otherwise, the single data source is auto-configured by Spring Boot from `spring.datasource.*`.
+ */
+@Configuration
+@ConditionalOnExpression("'${app.datasource.replica.url:}' != '' and '${app.sharding.enabled:false}' != 'true'")
+public class DataSourceConfiguration {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource ret = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    ret.setPoolName("primary");
+    return ret;
+  }
+
+  @Bean
+  @ConfigurationProperties("app.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(
+          DataSourceProperties properties,
+          @Value("${app.datasource.replica.url}") String url,
+          @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+          @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password) {
+    HikariDataSource ret = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .driverClassName(properties.determineDriverClassName())
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+    ret.setPoolName("replica");
+    ret.setReadOnly(true);
+    return ret;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+          @Qualifier("primaryDataSource") DataSource primaryDataSource,
+          @Qualifier("replicaDataSource") DataSource replicaDataSource,
+          @Value("${app.datasource.replica.primaryPinSeconds:5}") int primaryPinSeconds) {
+    ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+            primaryDataSource,
+            replicaDataSource,
+            AuthenticationJwtFilter.APP_USER_ID_REQUEST_ATTRIBUTE_NAME,
+            Duration.ofSeconds(primaryPinSeconds));
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+}
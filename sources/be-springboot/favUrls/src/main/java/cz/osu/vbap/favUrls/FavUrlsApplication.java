@@ -1,5 +1,6 @@
 package cz.osu.vbap.favUrls;
 
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
 import cz.osu.vbap.favUrls.model.entities.AppUser;
 import cz.osu.vbap.favUrls.model.entities.Tag;
 import cz.osu.vbap.favUrls.model.entities.Token;
@@ -9,13 +10,19 @@ import cz.osu.vbap.favUrls.model.repositories.TagRepository;
 import cz.osu.vbap.favUrls.model.repositories.TokenRepository;
 import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
 import cz.osu.vbap.favUrls.services.AuthenticationService;
+import cz.osu.vbap.favUrls.services.SyntheticDataService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class FavUrlsApplication {
 
   public static void main(String[] args) {
@@ -23,8 +30,27 @@ public class FavUrlsApplication {
   }
 
   /**
-   * Initializes the database with sample data.
+   * What data are created at the start (`app.seed.mode`).
+   */
+  public enum SeedMode {
+    /**
+     * Nothing.
+     */
+    NONE,
+    /**
+     * One user with two tags and two urls.
+     */
+    SAMPLE,
+    /**
+     * Large generated dataset for profiling, see `SyntheticDataService`.
+     */
+    SYNTHETIC
+  }
+
+  /**
+   * Initializes the database with sample or synthetic data, if the database contains no users.
    *
+   * @param seedMode what data should be created
    * @param appUserRepository the repository for managing `AppUser` entities
    * @param tagRepository the repository for managing `Tag` entities
    * @param urlRepository the repository for managing `Url` entities
@@ -32,28 +58,40 @@ public class FavUrlsApplication {
    */
   @Bean
   public CommandLineRunner initDatabase(
+          @Value("${app.seed.mode:SAMPLE}") SeedMode seedMode,
           @Autowired AuthenticationService authenticationService,
+          @Autowired SyntheticDataService syntheticDataService,
           @Autowired AppUserRepository appUserRepository,
           @Autowired TagRepository tagRepository,
-          @Autowired UrlRepository urlRepository) {
+          @Autowired UrlRepository urlRepository,
+          @Autowired ShardRouter shardRouter) {
     return _ -> {
-
-      if (appUserRepository.findByEmail("marek.vajgl@osu.cz").isPresent())
+      if (seedMode == SeedMode.NONE || appUserRepository.count() > 0)
         return; // data already exist
 
+      if (seedMode == SeedMode.SYNTHETIC) {
+        syntheticDataService.generate();
+        return;
+      }
+
       AppUser user = authenticationService.register("marek.vajgl@osu.cz", "test");
 
-      Tag privateTag = new Tag(user, "private", "F00");
-      tagRepository.save(privateTag);
+      // no logged user here, so the shard of the user must be selected explicitly
+      shardRouter.runOnUserShard(user.getAppUserId(), () -> seedUserData(user, tagRepository, urlRepository));
+    };
+  }
 
-      Tag publicTag = new Tag(user, "public", "0F0");
-      tagRepository.save(publicTag);
+  private static void seedUserData(AppUser user, TagRepository tagRepository, UrlRepository urlRepository) {
+    Tag privateTag = new Tag(user, "private", "F00");
+    tagRepository.save(privateTag);
 
-      Url url = new Url(user, "University of Ostrava", "https://www.osu.cz", privateTag, publicTag);
-      urlRepository.save(url);
+    Tag publicTag = new Tag(user, "public", "0F0");
+    tagRepository.save(publicTag);
 
-      url = new Url(user, "NASA", "https://www.nasa.gov");
-      urlRepository.save(url);
-    };
+    Url url = new Url(user, "University of Ostrava", "https://www.osu.cz", privateTag, publicTag);
+    urlRepository.save(url);
+
+    url = new Url(user, "NASA", "https://www.nasa.gov");
+    urlRepository.save(url);
   }
 }
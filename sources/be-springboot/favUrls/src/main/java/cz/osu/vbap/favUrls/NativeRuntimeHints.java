@@ -0,0 +1,83 @@
+package cz.osu.vbap.favUrls;
+
+import cz.osu.vbap.favUrls.controllers.dto.AppUserView;
+import cz.osu.vbap.favUrls.controllers.dto.ErrorView;
+import cz.osu.vbap.favUrls.controllers.dto.UrlView;
+import cz.osu.vbap.favUrls.controllers.dto.ValidationErrorView;
+import cz.osu.vbap.favUrls.lib.aop.AppServiceAspect;
+import cz.osu.vbap.favUrls.lib.aop.ControllerAspect;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Reflection, proxy and resource hints for the native image (`mvn -Pnative native:compile`) which are not
+ * derived by Spring AOT from the bean definitions:
+ * <ul>
+ *   <li>JJWT loads its implementation classes and the Jackson serializer by name,</li>
+ *   <li>the DTOs are written by their package-private serializers, created by Jackson reflectively,</li>
+ *   <li>the advice methods of the aspects in `lib.aop` are invoked reflectively,</li>
+ *   <li>datasource-proxy creates JDK proxies of the JDBC objects,</li>
+ *   <li>Hibernate's JCache region factory and the Ehcache configuration.</li>
+ * </ul>
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+  private static final String[] JJWT_IMPLEMENTATION_CLASSES = {
+          "io.jsonwebtoken.impl.DefaultJwtBuilder",
+          "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+          "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+          "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+          "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+          "io.jsonwebtoken.impl.security.KeysBridge",
+          "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+          "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+          "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+          "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+          "io.jsonwebtoken.impl.security.StandardKeyOperations",
+          "io.jsonwebtoken.impl.security.StandardCurves",
+          "io.jsonwebtoken.jackson.io.JacksonSerializer",
+          "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+  };
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    for (String className : JJWT_IMPLEMENTATION_CLASSES) {
+      hints.reflection().registerType(TypeReference.of(className),
+              MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+    hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+    BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+    bindingRegistrar.registerReflectionHints(hints.reflection(), AppUserView.class, UrlView.class, ErrorView.class,
+            ValidationErrorView.class);
+    hints.reflection().registerType(TypeReference.of(AppUserView.class.getName() + "$Serializer"),
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+    hints.reflection().registerType(TypeReference.of(UrlView.class.getName() + "$Serializer"),
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+    hints.reflection().registerType(AppServiceAspect.class, MemberCategory.INVOKE_DECLARED_METHODS);
+    hints.reflection().registerType(ControllerAspect.class, MemberCategory.INVOKE_DECLARED_METHODS);
+
+    hints.proxies().registerJdkProxy(ProxyJdbcObject.class, Connection.class);
+    hints.proxies().registerJdkProxy(ProxyJdbcObject.class, Statement.class);
+    hints.proxies().registerJdkProxy(ProxyJdbcObject.class, PreparedStatement.class);
+    hints.proxies().registerJdkProxy(ProxyJdbcObject.class, CallableStatement.class);
+
+    hints.reflection().registerType(TypeReference.of("org.hibernate.cache.jcache.internal.JCacheRegionFactory"),
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    hints.reflection().registerType(TypeReference.of("org.ehcache.jsr107.EhcacheCachingProvider"),
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    hints.resources().registerPattern("ehcache.xml");
+    hints.resources().registerPattern("*.xsd");
+    hints.resources().registerPattern("META-INF/services/org.ehcache.*");
+    hints.resources().registerPattern("db/migration/*.sql");
+  }
+}
@@ -0,0 +1,102 @@
+package cz.osu.vbap.favUrls;
+
+import cz.osu.vbap.favUrls.lib.db.QueryCountingFilter;
+import cz.osu.vbap.favUrls.lib.db.QueryObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Query observability (`app.queryObservability.*`): the primary data source (`dataSource` bean, whichever
+ * configuration creates it) is wrapped by datasource-proxy, which reports every executed statement
+ * to the `QueryObserver`. The results are available as `favUrls.db.*` metrics and at `/actuator/queries`.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.queryObservability.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryObservabilityConfiguration {
+  private static final String OBSERVED_DATA_SOURCE_BEAN_NAME = "dataSource";
+
+  @Bean
+  public QueryObserver queryObserver(
+          MeterRegistry meterRegistry,
+          @Value("${app.queryObservability.slowQueryMillis:200}") long slowQueryMillis,
+          @Value("${app.queryObservability.slowQueryLogSize:100}") int slowQueryLogSize,
+          @Value("${app.queryObservability.redactParameters:true}") boolean redactParameters,
+          @Value("${app.queryObservability.maxStatementsPerRequest:20}") int maxStatementsPerRequest,
+          @Value("${app.queryObservability.guardMode:LOG}") QueryObserver.GuardMode guardMode) {
+    return new QueryObserver(
+            meterRegistry, slowQueryMillis, slowQueryLogSize, redactParameters, maxStatementsPerRequest, guardMode);
+  }
+
+  @Bean
+  public FilterRegistrationBean<QueryCountingFilter> queryCountingFilter(QueryObserver queryObserver) {
+    // the first filter, so the statements of the security filters are counted too
+    FilterRegistrationBean<QueryCountingFilter> ret = new FilterRegistrationBean<>(new QueryCountingFilter(queryObserver));
+    ret.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return ret;
+  }
+
+  /**
+   * Static, so the data source can be wrapped before the beans of this configuration exist;
+   * the observer is looked up on the first executed statement.
+   */
+  @Bean
+  public static BeanPostProcessor observedDataSourcePostProcessor(ObjectProvider<QueryObserver> queryObserver) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource
+                && !(bean instanceof ProxyDataSource)
+                && beanName.equals(OBSERVED_DATA_SOURCE_BEAN_NAME)) {
+          return ProxyDataSourceBuilder.create(dataSource)
+                  .name(beanName)
+                  .listener(new LazyListener(queryObserver))
+                  .build();
+        }
+        return bean;
+      }
+    };
+  }
+
+  private static class LazyListener implements QueryExecutionListener {
+    private final ObjectProvider<QueryObserver> provider;
+    private volatile QueryObserver queryObserver;
+
+    private LazyListener(ObjectProvider<QueryObserver> provider) {
+      this.provider = provider;
+    }
+
+    private QueryObserver get() {
+      QueryObserver ret = queryObserver;
+      if (ret == null) {
+        ret = provider.getObject();
+        queryObserver = ret;
+      }
+      return ret;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+      get().beforeQuery(execInfo, queryInfoList);
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+      get().afterQuery(execInfo, queryInfoList);
+    }
+  }
+}
@@ -1,25 +1,53 @@
 package cz.osu.vbap.favUrls;
 
+import cz.osu.vbap.favUrls.security.AppCorsConfigurationSource;
 import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
 import cz.osu.vbap.favUrls.security.CsrfCookieFilter;
 import cz.osu.vbap.favUrls.security.SpaCsrfTokenRequestHandler;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfFilter;
-import org.springframework.web.cors.CorsConfiguration;
-import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Two filter chains: the public one for the routes without authentication (registration, login, refresh
+ * and logout, which read their cookies themselves) without the JWT filter and the other per-user state,
+ * and the full one for the rest. Both share the CORS policy (`app.cors.*`) and the CSRF protection.
+ * The actuator endpoints except health change or expose the state of all users, so they require
+ * the {@link #ADMIN_ROLE} (`app.security.adminEmails`).
+ */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfiguration {
+  public static final String CSRF_COOKIE_NAME = "XSRF-TOKEN";
+  public static final String ADMIN_ROLE = "ADMIN";
+
+  // the GET of any of them only obtains the CSRF cookie (see CsrfCookieFilter)
+  static final RequestMatcher PUBLIC_ROUTES = new OrRequestMatcher(
+          new AntPathRequestMatcher("/v1/appUser", HttpMethod.POST.name()),
+          new AntPathRequestMatcher("/v1/appUser/login"),
+          new AntPathRequestMatcher("/v1/appUser/refresh"),
+          new AntPathRequestMatcher("/v1/appUser/logout"));
 
   @Bean
   public PasswordEncoder passwordEncoder() {
@@ -29,8 +57,25 @@ public class SecurityConfiguration {
   @Autowired private AuthenticationJwtFilter authenticationJwtFilter;
 
   @Bean
-  public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+  public AppCorsConfigurationSource appCorsConfigurationSource(
+          @Value("${app.cors.allowedOrigins:http://localhost:3000}") List<String> allowedOrigins,
+          @Value("${app.cors.allowedMethods:*}") List<String> allowedMethods,
+          @Value("${app.cors.maxAgeSeconds:86400}") long maxAgeSeconds) {
+    return new AppCorsConfigurationSource(allowedOrigins, allowedMethods, Duration.ofSeconds(maxAgeSeconds));
+  }
+
+  // the filter is a bean, without this it would be applied by the servlet container to all requests, too
+  @Bean
+  public FilterRegistrationBean<AuthenticationJwtFilter> authenticationJwtFilterRegistration() {
+    FilterRegistrationBean<AuthenticationJwtFilter> ret = new FilterRegistrationBean<>(authenticationJwtFilter);
+    ret.setEnabled(false);
+    return ret;
+  }
+
+  private void configureCorsAndCsrf(HttpSecurity http, AppCorsConfigurationSource corsConfigurationSource)
+          throws Exception {
     CookieCsrfTokenRepository cookieCsrfTokenRepository = new CookieCsrfTokenRepository();
+    cookieCsrfTokenRepository.setCookieName(CSRF_COOKIE_NAME);
     cookieCsrfTokenRepository.setCookieCustomizer(q -> {
       q.httpOnly(false);
       q.sameSite("Strict");
@@ -39,26 +84,39 @@ public class SecurityConfiguration {
     http.csrf(q -> q
             .csrfTokenRepository(cookieCsrfTokenRepository)
             .csrfTokenRequestHandler(new SpaCsrfTokenRequestHandler()));
-    http.addFilterAfter(new CsrfCookieFilter(), CsrfFilter.class);
+    http.addFilterAfter(new CsrfCookieFilter(CSRF_COOKIE_NAME), CsrfFilter.class);
 
-    http.cors(q -> {
-      CorsConfiguration corsConfiguration = new CorsConfiguration();
-      corsConfiguration.addAllowedOrigin("http://localhost:3000");
-      corsConfiguration.addAllowedMethod("*");
-      corsConfiguration.addAllowedHeader("*");
-      corsConfiguration.setAllowCredentials(true);
+    // preflights are answered by the CORS filter, before the other filters
+    http.cors(q -> q.configurationSource(corsConfigurationSource));
+  }
 
-      UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-      source.registerCorsConfiguration("/**", corsConfiguration);
+  @Bean
+  @Order(1)
+  public SecurityFilterChain publicFilterChain(
+          HttpSecurity http, AppCorsConfigurationSource corsConfigurationSource) throws Exception {
+    http.securityMatcher(PUBLIC_ROUTES);
+    configureCorsAndCsrf(http, corsConfigurationSource);
 
-      q.configurationSource(source);
-    });
+    http.sessionManagement(q -> q.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+    http.requestCache(AbstractHttpConfigurer::disable);
+    http.anonymous(AbstractHttpConfigurer::disable);
+    http.logout(AbstractHttpConfigurer::disable);
+    http.authorizeHttpRequests(q -> q.anyRequest().permitAll());
+
+    return http.build();
+  }
+
+  @Bean
+  @Order(2)
+  public SecurityFilterChain securityFilterChain(
+          HttpSecurity http, AppCorsConfigurationSource corsConfigurationSource) throws Exception {
+    configureCorsAndCsrf(http, corsConfigurationSource);
 
+    // the end of async requests (e.g. `/v1/url/stream`) is dispatched again, without the JWT being processed
     http.authorizeHttpRequests(q -> q
-            .requestMatchers("/v1/appUser/login").permitAll()
-            .requestMatchers("v1/appUser/refresh").permitAll()
-            .requestMatchers("v1/appUser/logout").permitAll()
-            .requestMatchers("/v1/appUser/register").permitAll()
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+            .requestMatchers("/actuator/health", "/actuator/health/**").authenticated()
+            .requestMatchers("/actuator/**").hasRole(ADMIN_ROLE)
             .requestMatchers("/**").authenticated());
     http.addFilterBefore(authenticationJwtFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -0,0 +1,101 @@
+package cz.osu.vbap.favUrls;
+
+import com.zaxxer.hikari.HikariDataSource;
+import cz.osu.vbap.favUrls.lib.db.ConsistentHashRing;
+import cz.osu.vbap.favUrls.lib.db.ShardResolver;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import cz.osu.vbap.favUrls.lib.db.ShardRoutingDataSource;
+import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * User-keyed sharding. Every user has his urls, tags and token stored in one of the shards
+ * (`app.sharding.urls`), selected by consistent hashing of the user id or by the directory for moved users.
+ * The first shard is also the global one - it holds all app users (for login by email), favicons
+ * and the shard directory.
+ * <p>
+ * Ids generated by the shards do not collide, as every shard uses a different `auto_increment_offset`.
+ */
+@Configuration
+public class ShardingConfiguration {
+  private static final Logger logger = LoggerFactory.getLogger(ShardingConfiguration.class);
+
+  @Bean
+  @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "false", matchIfMissing = true)
+  public ShardRouter disabledShardRouter() {
+    return ShardRouter.disabled();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+  public ShardRouter shardRouter(
+          DataSourceProperties properties,
+          MeterRegistry meterRegistry,
+          @Value("${app.sharding.urls}") String[] urls,
+          @Value("${app.sharding.virtualNodes:128}") int virtualNodes,
+          @Value("${app.sharding.placementTtlMillis:1000}") long placementTtlMillis) {
+    List<HikariDataSource> shards = new ArrayList<>();
+    for (int i = 0; i < urls.length; i++) {
+      HikariDataSource shard = properties.initializeDataSourceBuilder()
+              .type(HikariDataSource.class)
+              .url(urls[i].trim())
+              .build();
+      shard.setPoolName("shard-" + i);
+      shard.setConnectionInitSql(
+              "set session auto_increment_increment = " + urls.length + ", auto_increment_offset = " + (i + 1));
+      // the shard pools are not beans, so they are not bound to the metrics by Spring Boot
+      shard.setMetricRegistry(meterRegistry);
+      shards.add(shard);
+    }
+
+    ShardResolver resolver = new ShardResolver(
+            new ConsistentHashRing(urls.length, virtualNodes),
+            new JdbcTemplate(shards.get(ShardRouter.GLOBAL_SHARD)),
+            Duration.ofMillis(placementTtlMillis));
+
+    return new ShardRouter(shards, resolver, AuthenticationJwtFilter.APP_USER_ID_REQUEST_ATTRIBUTE_NAME);
+  }
+
+  @Bean
+  @Primary
+  @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+  public DataSource dataSource(ShardRouter shardRouter) {
+    return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardRouter));
+  }
+
+  /**
+   * Flyway is configured by Spring Boot for the primary data source, which is the global shard;
+   * the same migrations are applied to every shard.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+  public FlywayMigrationStrategy shardFlywayMigrationStrategy(ShardRouter shardRouter) {
+    return flyway -> {
+      for (int i = 0; i < shardRouter.getShardCount(); i++) {
+        Flyway.configure()
+                .configuration(flyway.getConfiguration())
+                .dataSource(shardRouter.getShardDataSource(i))
+                .load()
+                .migrate();
+        logger.info("Schema of shard {} migrated.", i);
+      }
+    };
+  }
+}
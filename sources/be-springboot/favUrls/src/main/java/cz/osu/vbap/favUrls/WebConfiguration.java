@@ -0,0 +1,52 @@
+package cz.osu.vbap.favUrls;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import cz.osu.vbap.favUrls.lib.web.CompressionFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Response compression (`app.compression.*`, see `CompressionFilter`) and binary response formats:
+ * CBOR (`Accept: application/cbor`) and Smile (`Accept: application/x-jackson-smile`),
+ * serialized by Jackson with the same settings as JSON. The converters are added after the default ones,
+ * so JSON stays the format for `Accept: *&#47;*` or a missing `Accept` header.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+  @Autowired
+  private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+  @Bean
+  @ConditionalOnProperty(name = "app.compression.enabled", havingValue = "true")
+  public FilterRegistrationBean<CompressionFilter> compressionFilter(
+          @Value("${app.compression.minResponseSize:2048}") int minResponseSize,
+          @Value("${app.compression.level:5}") int level,
+          @Value("${app.compression.mimeTypes:application/json}") List<String> mimeTypes) {
+    FilterRegistrationBean<CompressionFilter> ret = new FilterRegistrationBean<>(
+            new CompressionFilter(minResponseSize, level, mimeTypes));
+    ret.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+    return ret;
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new MappingJackson2CborHttpMessageConverter(
+            objectMapperBuilder.factory(new CBORFactory()).build()));
+    converters.add(new MappingJackson2SmileHttpMessageConverter(
+            objectMapperBuilder.factory(new SmileFactory()).build()));
+  }
+}
@@ -1,12 +1,17 @@
 package cz.osu.vbap.favUrls.controllers;
 
 import cz.osu.vbap.favUrls.controllers.dto.ErrorView;
+import cz.osu.vbap.favUrls.controllers.dto.ValidationErrorView;
 import cz.osu.vbap.favUrls.controllers.exceptions.ForbiddenException;
+import cz.osu.vbap.favUrls.lib.IdempotencyStore;
+import cz.osu.vbap.favUrls.lib.validation.ValidationException;
 import cz.osu.vbap.favUrls.services.exceptions.BadDataException;
 import cz.osu.vbap.favUrls.services.exceptions.BadRequestException;
 import cz.osu.vbap.favUrls.services.exceptions.InternalException;
+import cz.osu.vbap.favUrls.services.exceptions.InvalidOrExpiredCredentialsException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
@@ -31,6 +36,43 @@ public class ApiExceptionHandler {
     return ret;
   }
 
+  @ExceptionHandler(InvalidOrExpiredCredentialsException.class)
+  public ResponseEntity<ErrorView> invalidOrExpiredCredentialsException(
+          InvalidOrExpiredCredentialsException e, WebRequest request) {
+    ResponseEntity<ErrorView> ret = new ResponseEntity<>(
+            new ErrorView(e.getMessage()),
+            HttpStatus.UNAUTHORIZED);
+    return ret;
+  }
+
+  @ExceptionHandler(ValidationException.class)
+  public ResponseEntity<ValidationErrorView> validationException(ValidationException e, WebRequest request) {
+    ResponseEntity<ValidationErrorView> ret = new ResponseEntity<>(
+            new ValidationErrorView("Invalid request - data.", e.getErrors().stream()
+                    .map(q -> new ValidationErrorView.FieldErrorView(q.field(), q.message()))
+                    .toList()),
+            HttpStatus.BAD_REQUEST);
+    return ret;
+  }
+
+  @ExceptionHandler(IdempotencyStore.InvalidKeyException.class)
+  public ResponseEntity<ErrorView> invalidIdempotencyKeyException(
+          IdempotencyStore.InvalidKeyException e, WebRequest request) {
+    ResponseEntity<ErrorView> ret = new ResponseEntity<>(
+            new ErrorView(e.getMessage()),
+            HttpStatus.BAD_REQUEST);
+    return ret;
+  }
+
+  @ExceptionHandler(IdempotencyStore.KeyReusedException.class)
+  public ResponseEntity<ErrorView> idempotencyKeyReusedException(
+          IdempotencyStore.KeyReusedException e, WebRequest request) {
+    ResponseEntity<ErrorView> ret = new ResponseEntity<>(
+            new ErrorView(e.getMessage()),
+            HttpStatus.UNPROCESSABLE_ENTITY);
+    return ret;
+  }
+
   @ExceptionHandler(InternalException.class)
   public ResponseEntity<Error> internalServerException(InternalException e, WebRequest request) {
     ResponseEntity<Error> ret = new ResponseEntity<>(
@@ -49,6 +91,15 @@ public class ApiExceptionHandler {
     return ret;
   }
 
+  // e.g. the GET of a public route by the clients obtaining the CSRF cookie
+  @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
+  public ResponseEntity<ErrorView> exception(HttpRequestMethodNotSupportedException e, WebRequest request) {
+    ResponseEntity<ErrorView> ret = new ResponseEntity<>(
+            new ErrorView("Invalid request - method."),
+            HttpStatus.METHOD_NOT_ALLOWED);
+    return ret;
+  }
+
   @ExceptionHandler(org.springframework.web.method.annotation.MethodArgumentTypeMismatchException.class)
   public ResponseEntity<Error> exception(org.springframework.web.method.annotation.MethodArgumentTypeMismatchException e, WebRequest request) {
     ResponseEntity<Error> ret = new ResponseEntity<>(
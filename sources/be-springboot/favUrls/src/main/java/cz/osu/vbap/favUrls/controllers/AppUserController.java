@@ -1,32 +1,58 @@
 package cz.osu.vbap.favUrls.controllers;
 
 import cz.osu.vbap.favUrls.controllers.dto.AppUserView;
+import cz.osu.vbap.favUrls.lib.HashUtil;
+import cz.osu.vbap.favUrls.lib.IdempotencyStore;
+import cz.osu.vbap.favUrls.lib.validation.RuleSet;
+import cz.osu.vbap.favUrls.lib.validation.Rules;
+import cz.osu.vbap.favUrls.lib.validation.Validation;
 import cz.osu.vbap.favUrls.model.entities.AppUser;
 import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
 import cz.osu.vbap.favUrls.services.AuthenticationService;
 import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/v1/appUser")
 public class AppUserController {
+  private static final RuleSet<String> PASSWORD_RULES = RuleSet.of(Rules.NOT_BLANK);
+
   @Value("${app.security.refreshTokenExpirationSeconds}")
   private int refreshTokenExpirationInSeconds;
   @Value("${app.security.accessTokenExpirationSeconds}")
   private int accessTokenExpirationInSeconds;
+  @Value("${app.idempotency.retentionMinutes:60}")
+  private int idempotencyRetentionMinutes;
+  @Value("${app.idempotency.maxEntries:10000}")
+  private int idempotencyMaxEntries;
   @Autowired
   private AuthenticationService authenticationService;
 
+  private IdempotencyStore<AppUserView> registeredUsers;
+  // the key of the fingerprints of the registrations, the store is in memory of this instance only
+  private final byte[] fingerprintKey = new byte[32];
+
+  @PostConstruct
+  private void init() {
+    registeredUsers = new IdempotencyStore<>(Duration.ofMinutes(idempotencyRetentionMinutes), idempotencyMaxEntries);
+    new SecureRandom().nextBytes(fingerprintKey);
+  }
+
   private static final String ACCESS_TOKEN_COOKIE_NAME = AuthenticationJwtFilter.ACCESS_TOKEN_COOKIE_NAME;
   private static final String REFRESH_TOKEN_COOKIE_NAME = AuthenticationJwtFilter.REFRESH_TOKEN_COOKIE_NAME;
 
@@ -46,10 +72,30 @@ public class AppUserController {
     response.addCookie(refreshTokenCookie);
   }
 
+  /**
+   * Registers the user. With the `Idempotency-Key` header, a retry with the same key returns the user
+   * registered by the first request instead of failing as the user already exists. The keys are scoped
+   * by the email, so the anonymous clients registering different users cannot collide.
+   */
   @PostMapping
-  public AppUserView register(String email, String password) throws AppServiceException {
-    AppUser appUser = authenticationService.register(email, password);
-    AppUserView ret = AppUserView.of(appUser);
+  public AppUserView register(String email, String password,
+                              @RequestHeader(name = UrlController.IDEMPOTENCY_KEY_HEADER, required = false)
+                              String idempotencyKey) throws AppServiceException {
+    new Validation()
+            .check(AppUser.EMAIL_RULES, email, "email")
+            .check(PASSWORD_RULES, password, "password")
+            .throwIfInvalid();
+
+    AppUserView ret;
+    if (idempotencyKey == null) {
+      ret = AppUserView.of(authenticationService.register(email, password));
+    } else {
+      // a retry with another password is not a replay; the password is kept in memory only as HMAC
+      // under the random key of the instance, so it cannot be guessed from a plain hash
+      String fingerprint = HashUtil.hmacSha256Hex(fingerprintKey, password.getBytes(StandardCharsets.UTF_8));
+      ret = registeredUsers.execute(email, idempotencyKey, fingerprint,
+              () -> AppUserView.of(authenticationService.register(email, password)));
+    }
     return ret;
   }
 
@@ -0,0 +1,46 @@
+package cz.osu.vbap.favUrls.controllers;
+
+import cz.osu.vbap.favUrls.lib.PageMetadataFetcher;
+import cz.osu.vbap.favUrls.model.entities.Favicon;
+import cz.osu.vbap.favUrls.services.PageEnrichmentService;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/v1/favicon")
+public class FaviconController {
+
+  @Autowired
+  private PageEnrichmentService pageEnrichmentService;
+
+  @GetMapping("/{hash}")
+  public ResponseEntity<byte[]> getFavicon(@PathVariable String hash) throws AppServiceException {
+    Favicon favicon = pageEnrichmentService.getFavicon(hash);
+    // the icon comes from any page and is served from the origin of the api, so it must never be
+    // interpreted as a document (an icon stored before the type allowlist is served as plain bytes)
+    MediaType contentType = PageMetadataFetcher.RESOURCE_CONTENT_TYPES.contains(favicon.getContentType())
+            ? MediaType.parseMediaType(favicon.getContentType())
+            : MediaType.APPLICATION_OCTET_STREAM;
+    // content-addressed, so the content for the hash never changes
+    ResponseEntity<byte[]> ret = ResponseEntity.ok()
+            .contentType(contentType)
+            .header("X-Content-Type-Options", "nosniff")
+            .header("Content-Security-Policy", "default-src 'none'")
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().build().toString())
+            .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable())
+            .eTag(favicon.getHash())
+            .body(favicon.getData());
+    return ret;
+  }
+}
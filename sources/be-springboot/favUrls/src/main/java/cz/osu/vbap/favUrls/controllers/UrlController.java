@@ -1,34 +1,187 @@
 package cz.osu.vbap.favUrls.controllers;
 
+import cz.osu.vbap.favUrls.controllers.dto.ChangesView;
+import cz.osu.vbap.favUrls.controllers.dto.TagView;
 import cz.osu.vbap.favUrls.controllers.dto.UrlView;
 import cz.osu.vbap.favUrls.controllers.exceptions.ForbiddenException;
+import cz.osu.vbap.favUrls.lib.EventFeed;
+import cz.osu.vbap.favUrls.lib.IdempotencyStore;
+import cz.osu.vbap.favUrls.lib.validation.RuleSet;
+import cz.osu.vbap.favUrls.lib.validation.Rules;
+import cz.osu.vbap.favUrls.lib.validation.Validation;
+import cz.osu.vbap.favUrls.model.entities.Tombstone;
 import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
+import cz.osu.vbap.favUrls.services.SyncService;
+import cz.osu.vbap.favUrls.services.UrlChangeService;
 import cz.osu.vbap.favUrls.services.UrlService;
 import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
 import cz.osu.vbap.favUrls.services.exceptions.InvalidOrExpiredCredentialsException;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpRequest;
+import org.springframework.http.MediaType;
 import org.springframework.web.HttpRequestHandler;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/v1/url")
 public class UrlController  {
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  // the title is optional, the address is used until the page title is downloaded
+  private static final RuleSet<String> TITLE_RULES = RuleSet.of(Rules.maxLength(Url.TITLE_LENGTH));
+  private static final RuleSet<String> ADDRESS_RULES = Url.ADDRESS_RULES.and(Rules.HTTP_URL);
 
   @Autowired
   private UrlService urlService;
+  @Autowired
+  private UrlChangeService urlChangeService;
+  @Autowired
+  private SyncService syncService;
+  @Value("${app.urlStream.timeoutMinutes:10}")
+  private int streamTimeoutMinutes;
+  @Value("${app.idempotency.retentionMinutes:60}")
+  private int idempotencyRetentionMinutes;
+  @Value("${app.idempotency.maxEntries:10000}")
+  private int idempotencyMaxEntries;
 
+  private IdempotencyStore<UrlView> createdUrls;
+
+  @PostConstruct
+  private void init() {
+    createdUrls = new IdempotencyStore<>(Duration.ofMinutes(idempotencyRetentionMinutes), idempotencyMaxEntries);
+  }
+
+  /**
+   * Creates the url. With the `Idempotency-Key` header, a retry with the same key (of the same logged user)
+   * returns the url created by the first request instead of creating it again.
+   * The address has to be an absolute `http(s)` address.
+   */
   @PostMapping
-  public UrlView createUrl(int appUserId, String title, String address) throws AppServiceException {
-    Url url = urlService.create(appUserId, title, address);
-    UrlView ret = UrlView.of(url);
+  public UrlView createUrl(int appUserId, String title, String address,
+                           @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                           HttpServletRequest request) throws AppServiceException {
+    // the write is routed to the shard of the logged user, so only the logged user's urls can be created
+    int loggedAppUserId = (int) request.getAttribute(AuthenticationJwtFilter.APP_USER_ID_REQUEST_ATTRIBUTE_NAME);
+    if (loggedAppUserId != appUserId) throw new ForbiddenException();
+
+    new Validation()
+            .check(TITLE_RULES, title, "title")
+            .check(ADDRESS_RULES, address, "address")
+            .throwIfInvalid();
+
+    UrlView ret;
+    if (idempotencyKey == null) {
+      ret = UrlView.of(urlService.create(appUserId, title, address));
+    } else {
+      ret = createdUrls.execute(loggedAppUserId, idempotencyKey, Arrays.asList(appUserId, title, address),
+              () -> UrlView.of(urlService.create(appUserId, title, address)));
+    }
+    return ret;
+  }
+
+  /**
+   * Server-sent events with the changes of the urls of the logged user: `created`, `updated` (with the url)
+   * and `deleted` (with `urlId` only). A client reconnecting with the `Last-Event-ID` header gets the changes
+   * missed meanwhile, or the `reset` event if they are no longer known (or too many) and the urls have to be
+   * reloaded.
+   * The connection is held by the async request processing without any thread and ends after
+   * `app.urlStream.timeoutMinutes`; the client (e.g. `EventSource`) is expected to reconnect.
+   */
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(
+          @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+          HttpServletRequest request) {
+    int loggedAppUserId = (int) request.getAttribute(AuthenticationJwtFilter.APP_USER_ID_REQUEST_ATTRIBUTE_NAME);
+
+    SseEmitter ret = new SseEmitter(TimeUnit.MINUTES.toMillis(streamTimeoutMinutes));
+    EventFeed<Integer, UrlChangeService.UrlChange>.Subscription subscription =
+            urlChangeService.subscribe(loggedAppUserId, lastEventId, new StreamListener(ret));
+    ret.onCompletion(subscription::close);
+    ret.onTimeout(subscription::close);
+    ret.onError(_ -> subscription.close());
     return ret;
   }
 
+  private record StreamListener(SseEmitter emitter) implements EventFeed.Listener<UrlChangeService.UrlChange> {
+    @Override
+    public void onEvent(EventFeed.Event<UrlChangeService.UrlChange> event) throws Exception {
+      UrlChangeService.UrlChange change = event.data();
+      Object data = change.type() == UrlChangeService.ChangeType.DELETED
+              ? Map.of("urlId", change.urlId())
+              : toView(change);
+      emitter.send(SseEmitter.event()
+              .id(Long.toString(event.id()))
+              .name(change.type().name().toLowerCase())
+              .data(data, MediaType.APPLICATION_JSON));
+    }
+
+    private static UrlView toView(UrlChangeService.UrlChange change) {
+      UrlView ret = new UrlView();
+      ret.setUrlId(change.urlId());
+      ret.setTitle(change.title());
+      ret.setAddress(change.address());
+      ret.setLastCheckStatus(change.lastCheckStatus());
+      ret.setDescription(change.description());
+      ret.setFaviconHash(change.faviconHash());
+      return ret;
+    }
+
+    @Override
+    public void onReset() throws Exception {
+      emitter.send(SseEmitter.event().name("reset").data(""));
+    }
+
+    @Override
+    public void onHeartbeat() throws Exception {
+      emitter.send(SseEmitter.event().comment("heartbeat"));
+    }
+
+    @Override
+    public void onClose() {
+      emitter.complete();
+    }
+  }
+
+  /**
+   * Delta sync of the urls and tags of the logged user for the offline clients: the urls and tags created
+   * or updated after the `since` cursor and the ids of the deleted ones, at most `app.sync.maxChanges`
+   * changes at once. Without `since`, all urls and tags are returned with the current cursor.
+   */
+  @GetMapping("/changes")
+  public ChangesView getChanges(@RequestParam(required = false) Long since, HttpServletRequest request)
+          throws AppServiceException {
+    int loggedAppUserId = (int) request.getAttribute(AuthenticationJwtFilter.APP_USER_ID_REQUEST_ATTRIBUTE_NAME);
+
+    SyncService.Changes changes = syncService.getChanges(loggedAppUserId, since);
+    ChangesView ret = new ChangesView();
+    ret.setCursor(changes.cursor());
+    ret.setReset(changes.reset());
+    ret.setHasMore(changes.hasMore());
+    ret.setUrls(changes.urls().stream().map(UrlView::of).toList());
+    ret.setTags(changes.tags().stream().map(TagView::of).toList());
+    ret.setDeletedUrlIds(deletedIds(changes, Tombstone.Type.URL));
+    ret.setDeletedTagIds(deletedIds(changes, Tombstone.Type.TAG));
+    return ret;
+  }
+
+  private static List<Integer> deletedIds(SyncService.Changes changes, Tombstone.Type type) {
+    return changes.tombstones().stream()
+            .filter(q -> q.getType() == type)
+            .map(Tombstone::getEntityId)
+            .toList();
+  }
+
   @GetMapping("/{appUserId}")
   public Collection<UrlView> getByUser(@PathVariable int appUserId, HttpServletRequest request) throws AppServiceException{
 
@@ -43,7 +196,8 @@ public class UrlController  {
   }
 
   @DeleteMapping("/{urlId}")
-  public void deleteUrl(@PathVariable int urlId) throws AppServiceException {
-    urlService.delete(urlId);
+  public void deleteUrl(@PathVariable int urlId, HttpServletRequest request) throws AppServiceException {
+    int loggedAppUserId = (int) request.getAttribute(AuthenticationJwtFilter.APP_USER_ID_REQUEST_ATTRIBUTE_NAME);
+    if (!urlService.delete(loggedAppUserId, urlId)) throw new ForbiddenException();
   }
 }
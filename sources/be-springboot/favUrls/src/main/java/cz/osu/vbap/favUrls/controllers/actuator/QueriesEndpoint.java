@@ -0,0 +1,83 @@
+package cz.osu.vbap.favUrls.controllers.actuator;
+
+import cz.osu.vbap.favUrls.lib.db.QueryObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query observability report, available at `/actuator/queries`: statements per endpoint, the latest slow queries
+ * and the wait times for a connection of every connection pool. DELETE resets the statistics.
+ * Only for the admins (the report contains the SQL of all users), see `SecurityConfiguration`.
+ */
+@Component
+@Endpoint(id = "queries")
+@ConditionalOnProperty(name = "app.queryObservability.enabled", havingValue = "true", matchIfMissing = true)
+public class QueriesEndpoint {
+  private static final String POOL_ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+  public record PoolWaitTimes(long count, double meanMillis, double maxMillis, Map<String, Double> percentilesMillis) {
+  }
+
+  public record Report(
+          int maxStatementsPerRequest,
+          QueryObserver.GuardMode guardMode,
+          long slowQueryMillis,
+          Map<String, QueryObserver.EndpointStats> endpoints,
+          List<QueryObserver.SlowQuery> slowQueries,
+          Map<String, PoolWaitTimes> pools) {
+  }
+
+  @Autowired
+  private QueryObserver queryObserver;
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @ReadOperation
+  public Report report() {
+    return new Report(
+            queryObserver.getMaxStatementsPerRequest(),
+            queryObserver.getGuardMode(),
+            queryObserver.getSlowQueryMillis(),
+            queryObserver.getEndpointStats(),
+            queryObserver.getSlowQueries(),
+            getPoolWaitTimes());
+  }
+
+  @DeleteOperation
+  public void reset() {
+    queryObserver.reset();
+  }
+
+  private Map<String, PoolWaitTimes> getPoolWaitTimes() {
+    Map<String, PoolWaitTimes> ret = new TreeMap<>();
+    for (Timer timer : meterRegistry.find(POOL_ACQUIRE_TIMER).timers()) {
+      Map<String, Double> percentiles = new LinkedHashMap<>();
+      for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+        String name = BigDecimal.valueOf(value.percentile() * 100).setScale(1, RoundingMode.HALF_UP)
+                .stripTrailingZeros().toPlainString();
+        percentiles.put("p" + name, value.value(TimeUnit.MILLISECONDS));
+      }
+      ret.put(timer.getId().getTag("pool"), new PoolWaitTimes(
+              timer.count(),
+              timer.mean(TimeUnit.MILLISECONDS),
+              timer.max(TimeUnit.MILLISECONDS),
+              percentiles));
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,37 @@
+package cz.osu.vbap.favUrls.controllers.actuator;
+
+import cz.osu.vbap.favUrls.lib.db.ShardResolver;
+import cz.osu.vbap.favUrls.services.ShardRebalanceService;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Online rebalancing tool, available at `/actuator/shards/{appUserId}`:
+ * GET returns the shard of the user, POST with `{"targetShard": n}` moves the user's data to the shard `n`.
+ * Only for the admins, see `SecurityConfiguration`.
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardsEndpoint {
+
+  @Autowired
+  private ShardRebalanceService shardRebalanceService;
+
+  @ReadOperation
+  public ShardResolver.Placement placement(@Selector int appUserId) {
+    return shardRebalanceService.getPlacement(appUserId);
+  }
+
+  @WriteOperation
+  public ShardResolver.Placement move(@Selector int appUserId, int targetShard) throws AppServiceException {
+    shardRebalanceService.moveUser(appUserId, targetShard);
+    return shardRebalanceService.getPlacement(appUserId);
+  }
+}
@@ -1,20 +1,45 @@
 package cz.osu.vbap.favUrls.controllers.dto;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import cz.osu.vbap.favUrls.model.entities.AppUser;
 import lombok.Data;
 
+import java.io.IOException;
+
 @Data
+@JsonSerialize(using = AppUserView.Serializer.class)
 public class AppUserView {
-  @JsonIgnoreProperties({"urls", "tags", "tokens", "passwordHash"})
-  private static class MixIn{
+
+  /**
+   * Hand-written serializer with pre-encoded property names, see `UrlView.Serializer`.
+   */
+  static class Serializer extends StdSerializer<AppUserView> {
+    private static final SerializedString APP_USER_ID = new SerializedString("appUserId");
+    private static final SerializedString EMAIL = new SerializedString("email");
+
+    Serializer() {
+      super(AppUserView.class);
+    }
+
+    @Override
+    public void serialize(AppUserView value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeStartObject(value);
+      gen.writeFieldName(APP_USER_ID);
+      gen.writeNumber(value.appUserId);
+      gen.writeFieldName(EMAIL);
+      gen.writeString(value.email);
+      gen.writeEndObject();
+    }
   }
 
   public static AppUserView of(AppUser appUser) {
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.addMixIn(AppUser.class, MixIn.class);
-    AppUserView ret = mapper.convertValue(appUser, AppUserView.class);
+    AppUserView ret = new AppUserView();
+    ret.appUserId = appUser.getAppUserId();
+    ret.email = appUser.getEmail();
     return ret;
   }
 
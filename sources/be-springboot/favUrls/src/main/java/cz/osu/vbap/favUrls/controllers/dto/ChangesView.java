@@ -0,0 +1,21 @@
+package cz.osu.vbap.favUrls.controllers.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The response of the delta sync (`GET /v1/url/changes`). The client stores `cursor` and sends it as `since`
+ * by the next sync; with `hasMore`, it repeats the sync at once. With `reset`, the client drops its copy
+ * and does the full sync (without `since`).
+ */
+@Data
+public class ChangesView {
+  private long cursor;
+  private boolean reset;
+  private boolean hasMore;
+  private List<UrlView> urls;
+  private List<TagView> tags;
+  private List<Integer> deletedUrlIds;
+  private List<Integer> deletedTagIds;
+}
@@ -0,0 +1,20 @@
+package cz.osu.vbap.favUrls.controllers.dto;
+
+import cz.osu.vbap.favUrls.model.entities.Tag;
+import lombok.Data;
+
+@Data
+public class TagView {
+
+  public static TagView of(Tag tag) {
+    TagView ret = new TagView();
+    ret.tagId = tag.getTagId();
+    ret.title = tag.getTitle();
+    ret.color = tag.getColor();
+    return ret;
+  }
+
+  private int tagId;
+  private String title;
+  private String color;
+}
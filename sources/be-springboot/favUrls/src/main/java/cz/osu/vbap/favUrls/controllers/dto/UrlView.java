@@ -1,25 +1,72 @@
 package cz.osu.vbap.favUrls.controllers.dto;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import cz.osu.vbap.favUrls.model.entities.Url;
 import lombok.Data;
 
+import java.io.IOException;
+
 @Data
+@JsonSerialize(using = UrlView.Serializer.class)
 public class UrlView {
 
-  @JsonIgnoreProperties({"appUser", "tags"})
-  private static class MixIn{
+  /**
+   * Hand-written serializer for long url lists, with pre-encoded property names;
+   * writes the same properties in the same order as the default bean serializer.
+   */
+  static class Serializer extends StdSerializer<UrlView> {
+    private static final SerializedString URL_ID = new SerializedString("urlId");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString ADDRESS = new SerializedString("address");
+    private static final SerializedString LAST_CHECK_STATUS = new SerializedString("lastCheckStatus");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString FAVICON_HASH = new SerializedString("faviconHash");
+
+    Serializer() {
+      super(UrlView.class);
+    }
+
+    @Override
+    public void serialize(UrlView value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeStartObject(value);
+      gen.writeFieldName(URL_ID);
+      gen.writeNumber(value.urlId);
+      gen.writeFieldName(TITLE);
+      gen.writeString(value.title);
+      gen.writeFieldName(ADDRESS);
+      gen.writeString(value.address);
+      gen.writeFieldName(LAST_CHECK_STATUS);
+      if (value.lastCheckStatus == null)
+        gen.writeNull();
+      else
+        gen.writeNumber(value.lastCheckStatus);
+      gen.writeFieldName(DESCRIPTION);
+      gen.writeString(value.description);
+      gen.writeFieldName(FAVICON_HASH);
+      gen.writeString(value.faviconHash);
+      gen.writeEndObject();
+    }
   }
 
   public static UrlView of(Url url) {
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.addMixIn(Url.class, MixIn.class);
-    UrlView ret = mapper.convertValue(url, UrlView.class);
+    UrlView ret = new UrlView();
+    ret.urlId = url.getUrlId();
+    ret.title = url.getTitle();
+    ret.address = url.getAddress();
+    ret.lastCheckStatus = url.getLastCheckStatus();
+    ret.description = url.getDescription();
+    ret.faviconHash = url.getFaviconHash();
     return ret;
   }
 
   private int urlId;
   private String title;
   private String address;
+  private Integer lastCheckStatus;
+  private String description;
+  private String faviconHash;
 }
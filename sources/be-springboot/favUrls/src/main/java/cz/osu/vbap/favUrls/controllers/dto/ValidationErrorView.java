@@ -0,0 +1,19 @@
+package cz.osu.vbap.favUrls.controllers.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The error of a request with invalid fields, one item per field.
+ */
+@Data
+public class ValidationErrorView {
+  public record FieldErrorView(String field, String message) {
+  }
+
+  public final String message;
+  public final List<FieldErrorView> errors;
+  public final LocalDateTime createdAt = LocalDateTime.now();
+}
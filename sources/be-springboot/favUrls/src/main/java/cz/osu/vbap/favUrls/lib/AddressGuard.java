@@ -0,0 +1,202 @@
+package cz.osu.vbap.favUrls.lib;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Guards the requests to the user-supplied addresses: the host is resolved and all its addresses must be
+ * allowed before the request and before every redirect, so the server cannot be used to reach its own
+ * network (loopback, private ranges, link-local incl. the cloud metadata `169.254.169.254`).
+ * The http client must not follow the redirects itself, see {@link #send}. The checked addresses are pinned
+ * for the request by `PinnedAddressResolverProvider`, so the client cannot connect to other addresses
+ * returned by its own lookup (DNS rebinding).
+ */
+public final class AddressGuard {
+
+  /**
+   * Thrown when the address (or a redirect target) is not allowed.
+   */
+  public static class ForbiddenAddressException extends IOException {
+    public ForbiddenAddressException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Limits the concurrent requests to one host; the permit is held during the request of one hop
+   * (the first request or a redirect), so it covers also the hosts of the redirect targets.
+   */
+  public interface HostLimiter {
+    HostLimiter UNLIMITED = new HostLimiter() {
+      @Override
+      public void acquire(String host) {
+      }
+
+      @Override
+      public void release(String host) {
+      }
+    };
+
+    /**
+     * @param host the host in lower case
+     */
+    void acquire(String host) throws InterruptedException;
+
+    void release(String host);
+  }
+
+  /**
+   * Allows only the public addresses, see {@link #isPublic(InetAddress)}.
+   */
+  public static final AddressGuard PUBLIC_ONLY = new AddressGuard(AddressGuard::isPublic);
+  /**
+   * Allows any address, e.g. for the tests against a local http server.
+   */
+  public static final AddressGuard ANY = new AddressGuard(_ -> true);
+
+  // same as the limit of `HttpClient.Redirect.NORMAL`
+  private static final int MAX_REDIRECTS = 5;
+
+  private final Predicate<InetAddress> isAllowed;
+
+  public AddressGuard(Predicate<InetAddress> isAllowed) {
+    ArgVal.notNull(isAllowed, "isAllowed");
+    this.isAllowed = isAllowed;
+  }
+
+  /**
+   * Returns false for the loopback, any-local, "this network" (`0.0.0.0/8`), link-local, site-local (RFC 1918),
+   * shared (carrier-grade NAT, `100.64.0.0/10`), unique local (`fc00::/7`) and multicast addresses.
+   */
+  public static boolean isPublic(InetAddress address) {
+    ArgVal.notNull(address, "address");
+    byte[] bytes = address.getAddress();
+    boolean ret = !(address.isLoopbackAddress()
+            || address.isAnyLocalAddress()
+            || address.isLinkLocalAddress()
+            || address.isSiteLocalAddress()
+            || address.isMulticastAddress()
+            || (address instanceof Inet4Address && bytes[0] == 0)
+            || (address instanceof Inet4Address && bytes[0] == 100 && (bytes[1] & 0xc0) == 0x40)
+            || (address instanceof Inet6Address && (bytes[0] & 0xfe) == 0xfc));
+    return ret;
+  }
+
+  /**
+   * Resolves the host of the address and checks all its addresses.
+   *
+   * @throws ForbiddenAddressException if any address of the host is not allowed
+   * @throws IOException if the host cannot be resolved
+   */
+  public void check(URI uri) throws IOException {
+    resolve(uri);
+  }
+
+  private List<InetAddress> resolve(URI uri) throws IOException {
+    ArgVal.notNull(uri, "uri");
+    if (uri.getHost() == null)
+      throw new ForbiddenAddressException("Address without host: " + uri);
+    List<InetAddress> ret = List.of(InetAddress.getAllByName(uri.getHost()));
+    for (InetAddress address : ret) {
+      if (!isAllowed.test(address))
+        throw new ForbiddenAddressException("Address not allowed: " + uri.getHost());
+    }
+    return ret;
+  }
+
+  /**
+   * Sends the request and follows the redirects like `HttpClient.Redirect.NORMAL` (not from https to http),
+   * checking the address before every hop. The bodies of the redirect responses are discarded.
+   *
+   * @param httpClient the client not following the redirects
+   * @param uri the address of the request
+   * @param requestOf creates the request for the address (of the first request or of the redirect)
+   * @param bodyHandler the handler of the body of the final response
+   * @return the final response, {@link HttpResponse#uri()} is its address
+   */
+  public <T> HttpResponse<T> send(HttpClient httpClient, URI uri, Function<URI, HttpRequest> requestOf,
+                                  HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+    return send(httpClient, uri, requestOf, bodyHandler, HostLimiter.UNLIMITED);
+  }
+
+  /**
+   * Same as {@link #send(HttpClient, URI, Function, HttpResponse.BodyHandler)}, the request of every hop
+   * holds the permit of its host.
+   *
+   * @param hostLimiter the limiter of the requests per host
+   */
+  public <T> HttpResponse<T> send(HttpClient httpClient, URI uri, Function<URI, HttpRequest> requestOf,
+                                  HttpResponse.BodyHandler<T> bodyHandler, HostLimiter hostLimiter)
+          throws IOException, InterruptedException {
+    ArgVal.notNull(httpClient, "httpClient");
+    ArgVal.notNull(requestOf, "requestOf");
+    ArgVal.notNull(bodyHandler, "bodyHandler");
+    ArgVal.notNull(hostLimiter, "hostLimiter");
+
+    HttpResponse.BodyHandler<T> handler = info -> isRedirect(info.statusCode())
+            && info.headers().firstValue("Location").isPresent()
+            ? HttpResponse.BodySubscribers.replacing(null)
+            : bodyHandler.apply(info);
+
+    URI target = uri;
+    for (int redirects = 0; ; redirects++) {
+      HttpResponse<T> response;
+      String host = target.getHost() == null ? null : target.getHost().toLowerCase(Locale.ROOT);
+      if (host != null) hostLimiter.acquire(host);
+      try {
+        response = sendPinned(httpClient, target, requestOf, handler);
+      } finally {
+        if (host != null) hostLimiter.release(host);
+      }
+      Optional<String> location = response.headers().firstValue("Location");
+      if (!isRedirect(response.statusCode()) || location.isEmpty())
+        return response;
+      if (redirects == MAX_REDIRECTS)
+        throw new IOException("Too many redirects: " + uri);
+
+      URI next = target.resolve(location.get().trim());
+      if (target.getScheme().equalsIgnoreCase("https") && "http".equalsIgnoreCase(next.getScheme()))
+        throw new ForbiddenAddressException("Redirect from https to http: " + next);
+      target = next;
+    }
+  }
+
+  private <T> HttpResponse<T> sendPinned(HttpClient httpClient, URI target, Function<URI, HttpRequest> requestOf,
+                                         HttpResponse.BodyHandler<T> bodyHandler)
+          throws IOException, InterruptedException {
+    List<InetAddress> addresses = resolve(target);
+    String host = target.getHost();
+    if (isIpLiteral(host)) // not resolved again by the client
+      return httpClient.send(requestOf.apply(target), bodyHandler);
+
+    // fail closed, the client would resolve the host again
+    if (!PinnedAddressResolverProvider.isInstalled())
+      throw new ForbiddenAddressException("Addresses cannot be pinned, the resolver is not installed: " + host);
+    PinnedAddressResolverProvider.pin(host, addresses);
+    try {
+      return httpClient.send(requestOf.apply(target), bodyHandler);
+    } finally {
+      PinnedAddressResolverProvider.unpin(host);
+    }
+  }
+
+  private static boolean isIpLiteral(String host) {
+    return host.startsWith("[") || host.chars().allMatch(q -> q == '.' || (q >= '0' && q <= '9'));
+  }
+
+  private static boolean isRedirect(int statusCode) {
+    return statusCode == 301 || statusCode == 302 || statusCode == 303
+            || statusCode == 307 || statusCode == 308;
+  }
+}
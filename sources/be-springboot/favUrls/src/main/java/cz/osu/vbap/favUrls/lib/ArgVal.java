@@ -2,10 +2,15 @@ package cz.osu.vbap.favUrls.lib;
 
 import org.jetbrains.annotations.Contract;
 
-import java.util.function.Function;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 public class ArgVal {
+  // compiled once per regex, the callers use a few constant ones
+  private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
   @Contract(pure = true)
   public static void notNull(Object value, String argName) {
     if (value == null) {
@@ -15,7 +20,7 @@ public class ArgVal {
 
   @Contract(pure = true)
   public static void matchRegex(String text, String regex, String argName) {
-    if (text == null || !text.matches(regex)) {
+    if (text == null || !patterns.computeIfAbsent(regex, Pattern::compile).matcher(text).matches()) {
       throw new IllegalArgumentException(argName + " must match regex " + regex + ". Invalid value: " + text);
     }
   }
@@ -28,13 +33,20 @@ public class ArgVal {
 
   }
 
+  @Contract(pure = true)
+  public static void isTrue(boolean condition, String argName) {
+    if (!condition) {
+      throw new IllegalArgumentException(argName + " failed to pass 'isTrue' validation");
+    }
+  }
+
   public static void isTrue(Supplier<Boolean> validator, String argName) {
     boolean res;
-    try{
+    try {
       res = validator.get();
-      if (!res) throw new IllegalArgumentException(argName + " failed to pass 'isTrue' validation");
-    }catch (Exception ex){
-      throw new IllegalArgumentException(argName + " crashed when passing 'isTrue' validation");
+    } catch (Exception ex) {
+      throw new IllegalArgumentException(argName + " crashed when passing 'isTrue' validation", ex);
     }
+    isTrue(res, argName);
   }
 }
@@ -0,0 +1,292 @@
+package cz.osu.vbap.favUrls.lib;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process publish/subscribe of events grouped by a key (e.g. the user), with resumption of interrupted
+ * subscriptions. Every event gets a unique increasing id; the last `historySize` events of every key
+ * (not older than `historyRetention`) are kept, so a subscriber reconnecting with the id of the last
+ * received event gets the missed ones. If some of them are no longer kept, or there are more of them than
+ * half of the queue of the subscription (the replay would overflow it, so the reconnecting subscriber would be
+ * closed again and again), the subscriber is told to reload by `Listener.onReset()`.
+ * <p>
+ * Every subscription has its own bounded queue. Events are delivered by a virtual thread started only when
+ * the queue is not empty, so an idle subscription holds no thread. A subscriber not keeping up
+ * (its queue is full) is closed and may resume later.
+ *
+ * @param <K> the type of the key
+ * @param <T> the type of the event data
+ */
+public class EventFeed<K, T> {
+
+  public record Event<T>(long id, T data) {
+  }
+
+  /**
+   * Receives the events of one subscription, called from one thread at a time.
+   * Any exception thrown closes the subscription.
+   */
+  public interface Listener<T> {
+    void onEvent(Event<T> event) throws Exception;
+
+    /**
+     * Some events after the last id given to `subscribe()` were discarded; the subscriber should reload
+     * the whole state.
+     */
+    default void onReset() throws Exception {
+    }
+
+    /**
+     * Called by `heartbeat()` for idle subscriptions, e.g. to detect closed connections.
+     */
+    default void onHeartbeat() throws Exception {
+    }
+
+    /**
+     * Called once, when the subscription is closed, for whatever reason.
+     */
+    default void onClose() {
+    }
+  }
+
+  private record StoredEvent<T>(Event<T> event, long createdAtMillis) {
+  }
+
+  private class Channel {
+    private final Queue<StoredEvent<T>> history = new ArrayDeque<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // id of the newest event removed from the history; events of a removed channel are unknown
+    private long discardedId = lastId.get();
+
+    private void discardOld(long now) {
+      StoredEvent<T> eldest;
+      while ((eldest = history.peek()) != null
+              && (history.size() > historySize || now - eldest.createdAtMillis() > historyRetentionMillis)) {
+        discardedId = history.remove().event().id();
+      }
+    }
+  }
+
+  // signals in subscription queues
+  private static final Object RESET = new Object();
+  private static final Object HEARTBEAT = new Object();
+
+  /**
+   * The subscription of one listener, closed by the subscriber or by the feed.
+   */
+  public class Subscription implements AutoCloseable {
+    private final K key;
+    private final Listener<T> listener;
+    private final Queue<Object> queue;
+    private final AtomicBoolean delivering = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Subscription(K key, Listener<T> listener) {
+      this.key = key;
+      this.listener = listener;
+      this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isClosed() {
+      return closed.get();
+    }
+
+    @Override
+    public void close() {
+      if (!closed.compareAndSet(false, true)) return;
+      Channel channel = channels.get(key);
+      if (channel != null)
+        channel.subscriptions.remove(this);
+      queue.clear();
+      listener.onClose();
+    }
+
+    private void offer(Object item) {
+      if (closed.get()) return;
+      if (!queue.offer(item)) {
+        overflowCount.incrementAndGet();
+        close();
+        return;
+      }
+      if (delivering.compareAndSet(false, true))
+        Thread.ofVirtual().name("event-feed").start(this::deliver);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver() {
+      while (true) {
+        Object item = queue.poll();
+        if (item == null) {
+          delivering.set(false);
+          // an item offered after poll() but before set(false) would not start another thread
+          if (queue.isEmpty() || !delivering.compareAndSet(false, true)) return;
+          continue;
+        }
+        if (closed.get()) return;
+        try {
+          if (item == RESET)
+            listener.onReset();
+          else if (item == HEARTBEAT)
+            listener.onHeartbeat();
+          else
+            listener.onEvent((Event<T>) item);
+        } catch (Exception e) {
+          close();
+          return;
+        }
+      }
+    }
+  }
+
+  private final int historySize;
+  private final long historyRetentionMillis;
+  private final int queueCapacity;
+  private final Clock clock;
+  private final AtomicLong lastId;
+  private final AtomicLong overflowCount = new AtomicLong();
+  private final Map<K, Channel> channels = new ConcurrentHashMap<>();
+
+  /**
+   * @param historySize      the count of the last events kept for every key
+   * @param historyRetention the time the events are kept for
+   * @param queueCapacity    the count of undelivered events of one subscription
+   * @param clock            the clock of the event timestamps
+   */
+  public EventFeed(int historySize, Duration historyRetention, int queueCapacity, Clock clock) {
+    ArgVal.isTrue(historySize >= 0, "historySize");
+    ArgVal.notNull(historyRetention, "historyRetention");
+    ArgVal.isTrue(queueCapacity > 0, "queueCapacity");
+    ArgVal.notNull(clock, "clock");
+    this.historySize = historySize;
+    this.historyRetentionMillis = historyRetention.toMillis();
+    this.queueCapacity = queueCapacity;
+    this.clock = clock;
+    // ids continue to grow after a restart, so the ids given by the clients are recognized as too old
+    this.lastId = new AtomicLong(clock.millis() * 1000);
+  }
+
+  public EventFeed(int historySize, Duration historyRetention, int queueCapacity) {
+    this(historySize, historyRetention, queueCapacity, Clock.systemUTC());
+  }
+
+  /**
+   * Stores the event and passes it to all subscribers of the key.
+   *
+   * @return the id of the event
+   */
+  public long publish(K key, T data) {
+    ArgVal.notNull(key, "key");
+    while (true) {
+      Channel channel = channels.computeIfAbsent(key, _ -> new Channel());
+      synchronized (channel) {
+        if (channels.get(key) != channel) continue; // removed by cleanUp() meanwhile
+
+        Event<T> event = new Event<>(lastId.incrementAndGet(), data);
+        long now = clock.millis();
+        channel.history.add(new StoredEvent<>(event, now));
+        channel.discardOld(now);
+        for (Subscription subscription : channel.subscriptions) {
+          subscription.offer(event);
+        }
+        return event.id();
+      }
+    }
+  }
+
+  /**
+   * Subscribes to the events of the key.
+   *
+   * @param key         the key
+   * @param lastEventId the id of the last event received before, or null for the new events only
+   * @param listener    the receiver of the events
+   * @return the subscription, to be closed by the subscriber
+   */
+  public Subscription subscribe(K key, Long lastEventId, Listener<T> listener) {
+    ArgVal.notNull(key, "key");
+    ArgVal.notNull(listener, "listener");
+    Subscription ret = new Subscription(key, listener);
+    while (true) {
+      Channel channel = channels.computeIfAbsent(key, _ -> new Channel());
+      synchronized (channel) {
+        if (channels.get(key) != channel) continue; // removed by cleanUp() meanwhile
+
+        if (lastEventId != null) {
+          channel.discardOld(clock.millis());
+          List<Event<T>> missed = channel.history.stream()
+                  .map(StoredEvent::event)
+                  .filter(q -> q.id() > lastEventId)
+                  .toList();
+          if (lastEventId < channel.discardedId || lastEventId > lastId.get()
+                  || missed.size() > queueCapacity / 2) {
+            ret.offer(RESET);
+          } else {
+            missed.forEach(ret::offer);
+          }
+        }
+        if (!ret.isClosed())
+          channel.subscriptions.add(ret);
+        return ret;
+      }
+    }
+  }
+
+  /**
+   * Calls `Listener.onHeartbeat()` of all subscriptions without undelivered events.
+   */
+  public void heartbeat() {
+    for (Channel channel : channels.values()) {
+      for (Subscription subscription : channel.subscriptions) {
+        if (subscription.queue.isEmpty())
+          subscription.offer(HEARTBEAT);
+      }
+    }
+  }
+
+  /**
+   * Removes expired events and the keys without events and subscribers.
+   */
+  public void cleanUp() {
+    long now = clock.millis();
+    List<K> keys = new ArrayList<>(channels.keySet());
+    for (K key : keys) {
+      Channel channel = channels.get(key);
+      if (channel == null) continue;
+      synchronized (channel) {
+        channel.discardOld(now);
+        if (channel.history.isEmpty() && channel.subscriptions.isEmpty())
+          channels.remove(key, channel);
+      }
+    }
+  }
+
+  /**
+   * Closes all subscriptions.
+   */
+  public void close() {
+    for (Channel channel : channels.values()) {
+      channel.subscriptions.forEach(Subscription::close);
+    }
+  }
+
+  public int getSubscriptionCount() {
+    return channels.values().stream().mapToInt(q -> q.subscriptions.size()).sum();
+  }
+
+  /**
+   * @return the count of subscriptions closed because their queue was full
+   */
+  public long getOverflowCount() {
+    return overflowCount.get();
+  }
+}
@@ -0,0 +1,44 @@
+package cz.osu.vbap.favUrls.lib;
+
+import org.jetbrains.annotations.Contract;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class HashUtil {
+  public static final int SHA256_HEX_LENGTH = 64;
+
+  @Contract(pure = true)
+  public static String sha256Hex(byte[] data) {
+    ArgVal.notNull(data, "data");
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(data);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not supported by the runtime.", e);
+    }
+    return HexFormat.of().formatHex(digest);
+  }
+
+  /**
+   * HMAC-SHA256 of the data; unlike a plain hash, it cannot be reversed by guessing the data without the key.
+   */
+  @Contract(pure = true)
+  public static String hmacSha256Hex(byte[] key, byte[] data) {
+    ArgVal.notNull(key, "key");
+    ArgVal.notNull(data, "data");
+    byte[] digest;
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(key, "HmacSHA256"));
+      digest = mac.doFinal(data);
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new IllegalStateException("HmacSHA256 not supported by the runtime.", e);
+    }
+    return HexFormat.of().formatHex(digest);
+  }
+}
@@ -0,0 +1,126 @@
+package cz.osu.vbap.favUrls.lib;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Results of idempotent operations by the keys given by the clients (e.g. the `Idempotency-Key` header),
+ * so a retried request gets the result of the first execution instead of executing the operation again.
+ * A retry arriving while the first execution runs waits for it. Only successful results are kept,
+ * after a failure the operation may be retried with the same key.
+ * <p>
+ * The results are kept in memory of this instance for `retention`, at most `maxEntries` of them
+ * (the oldest are discarded first).
+ *
+ * @param <V> the type of the result
+ */
+public class IdempotencyStore<V> {
+  public static final int MAX_KEY_LENGTH = 255;
+
+  /**
+   * The key is blank or longer than `MAX_KEY_LENGTH`.
+   */
+  public static class InvalidKeyException extends IllegalArgumentException {
+    public InvalidKeyException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * The key was already used with a different request.
+   */
+  public static class KeyReusedException extends IllegalStateException {
+    public KeyReusedException(String message) {
+      super(message);
+    }
+  }
+
+  private record Key(Object scope, String key) {
+  }
+
+  private record Entry<V>(Object fingerprint, CompletableFuture<V> result, long expiresAtMillis) {
+  }
+
+  private final long retentionMillis;
+  private final int maxEntries;
+  private final Clock clock;
+  // in the insertion order, which is also the order of expiration
+  private final LinkedHashMap<Key, Entry<V>> entries = new LinkedHashMap<>();
+
+  public IdempotencyStore(Duration retention, int maxEntries, Clock clock) {
+    ArgVal.notNull(retention, "retention");
+    ArgVal.isTrue(maxEntries > 0, "maxEntries");
+    ArgVal.notNull(clock, "clock");
+    this.retentionMillis = retention.toMillis();
+    this.maxEntries = maxEntries;
+    this.clock = clock;
+  }
+
+  public IdempotencyStore(Duration retention, int maxEntries) {
+    this(retention, maxEntries, Clock.systemUTC());
+  }
+
+  /**
+   * Executes the operation, or returns the result of its execution with the same key.
+   *
+   * @param scope       the owner of the key (e.g. the logged user), as the keys are chosen by the clients;
+   *                    null if there is none
+   * @param key         the idempotency key given by the client
+   * @param fingerprint the request parameters (compared by `equals()`), the same key with other parameters
+   *                    is rejected by `KeyReusedException`
+   * @param operation   the operation
+   * @return the result of the operation
+   * @throws E the exception of the operation
+   */
+  public <E extends Exception> V execute(
+          Object scope, String key, Object fingerprint, SingleFlight.Loader<V, E> operation) throws E {
+    if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH)
+      throw new InvalidKeyException("The idempotency key must have 1-" + MAX_KEY_LENGTH + " characters.");
+    ArgVal.notNull(operation, "operation");
+
+    long now = clock.millis();
+    Entry<V> own = new Entry<>(fingerprint, new CompletableFuture<>(), now + retentionMillis);
+    Entry<V> existing;
+    synchronized (entries) {
+      discardOld(now);
+      existing = entries.putIfAbsent(new Key(scope, key), own);
+    }
+    if (existing != null) {
+      if (!Objects.equals(existing.fingerprint(), fingerprint))
+        throw new KeyReusedException("The idempotency key was already used with a different request.");
+      return SingleFlight.<V, E>await(existing.result());
+    }
+
+    V ret;
+    try {
+      ret = operation.load();
+    } catch (Throwable e) {
+      synchronized (entries) {
+        entries.remove(new Key(scope, key), own);
+      }
+      own.result().completeExceptionally(e);
+      throw e;
+    }
+    own.result().complete(ret);
+    return ret;
+  }
+
+  private void discardOld(long now) {
+    Iterator<Entry<V>> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      Entry<V> eldest = iterator.next();
+      if (eldest.expiresAtMillis() > now && entries.size() < maxEntries) break;
+      iterator.remove();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package cz.osu.vbap.favUrls.lib;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Checks whether the link is alive. The link is requested by `HEAD` (falling back to `GET` if
+ * the server does not support `HEAD`), redirects are followed. Only the addresses allowed by the `AddressGuard`
+ * are requested (also on the redirects), the others are unreachable. Calls are blocking and intended to be
+ * invoked from virtual threads; number of concurrent requests to the same host is limited, also of the hosts
+ * of the redirects (the limit of the host is kept only while the host has a request running or waiting).
+ * Independent of Spring, so it can be tested against any local http server.
+ */
+public class LinkChecker implements AutoCloseable {
+  /**
+   * Status stored when the server could not be reached at all (invalid address, timeout, connection refused...).
+   */
+  public static final int STATUS_UNREACHABLE = 0;
+
+  public record Result(int statusCode, String finalAddress, LocalDateTime checkedAt, Duration duration) {
+    public boolean isAlive() {
+      return statusCode >= 200 && statusCode < 400;
+    }
+  }
+
+  /**
+   * The permits of the host with the number of the requests using them, changed only in `compute()`.
+   */
+  private static class HostPermits {
+    private final Semaphore semaphore;
+    private int users;
+
+    HostPermits(int perHostLimit) {
+      this.semaphore = new Semaphore(perHostLimit);
+    }
+  }
+
+  private final ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private final HttpClient httpClient;
+  private final AddressGuard addressGuard;
+  private final Duration requestTimeout;
+  private final int perHostLimit;
+  private final ConcurrentMap<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+  private final AddressGuard.HostLimiter hostLimiter = new AddressGuard.HostLimiter() {
+    @Override
+    public void acquire(String host) throws InterruptedException {
+      HostPermits permits = hostPermits.compute(host, (_, q) -> {
+        if (q == null) q = new HostPermits(perHostLimit);
+        q.users++;
+        return q;
+      });
+      try {
+        permits.semaphore.acquire();
+      } catch (InterruptedException e) {
+        evictIfIdle(host);
+        throw e;
+      }
+    }
+
+    @Override
+    public void release(String host) {
+      hostPermits.get(host).semaphore.release();
+      evictIfIdle(host);
+    }
+
+    // the idle host is evicted, so the map does not grow with every host ever checked
+    private void evictIfIdle(String host) {
+      hostPermits.computeIfPresent(host, (_, q) -> --q.users == 0 ? null : q);
+    }
+  };
+
+  public LinkChecker(Duration connectTimeout, Duration requestTimeout, int perHostLimit) {
+    this(connectTimeout, requestTimeout, perHostLimit, AddressGuard.PUBLIC_ONLY);
+  }
+
+  public LinkChecker(Duration connectTimeout, Duration requestTimeout, int perHostLimit, AddressGuard addressGuard) {
+    ArgVal.notNull(connectTimeout, "connectTimeout");
+    ArgVal.notNull(requestTimeout, "requestTimeout");
+    ArgVal.isTrue(perHostLimit > 0, "perHostLimit");
+    ArgVal.notNull(addressGuard, "addressGuard");
+
+    this.addressGuard = addressGuard;
+    this.requestTimeout = requestTimeout;
+    this.perHostLimit = perHostLimit;
+    this.httpClient = HttpClient.newBuilder()
+            .executor(httpExecutor)
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER) // followed by `AddressGuard`
+            .build();
+  }
+
+  public Result check(String address) throws InterruptedException {
+    LocalDateTime checkedAt = LocalDateTime.now();
+    long start = System.nanoTime();
+
+    URI uri;
+    try {
+      uri = URI.create(address);
+    } catch (IllegalArgumentException e) {
+      return new Result(STATUS_UNREACHABLE, null, checkedAt, Duration.ofNanos(System.nanoTime() - start));
+    }
+    if (uri.getHost() == null)
+      return new Result(STATUS_UNREACHABLE, null, checkedAt, Duration.ofNanos(System.nanoTime() - start));
+
+    Result ret = request(uri, checkedAt, start);
+    return ret;
+  }
+
+  /**
+   * Returns the number of the hosts with a request running or waiting.
+   */
+  int getHostCount() {
+    return hostPermits.size();
+  }
+
+  private Result request(URI uri, LocalDateTime checkedAt, long start) throws InterruptedException {
+    int statusCode;
+    String finalAddress;
+    try {
+      HttpResponse<Void> response = send(uri, "HEAD");
+      if (response.statusCode() == 405 || response.statusCode() == 501)
+        response = send(uri, "GET");
+      statusCode = response.statusCode();
+      finalAddress = response.uri().toString();
+    } catch (IOException | IllegalArgumentException e) {
+      statusCode = STATUS_UNREACHABLE;
+      finalAddress = null;
+    }
+    return new Result(statusCode, finalAddress, checkedAt, Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  private HttpResponse<Void> send(URI uri, String method) throws IOException, InterruptedException {
+    return addressGuard.send(httpClient, uri, q -> HttpRequest.newBuilder(q)
+            .timeout(requestTimeout)
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .build(), HttpResponse.BodyHandlers.discarding(), hostLimiter);
+  }
+
+  @Override
+  public void close() {
+    httpClient.close();
+    httpExecutor.close();
+  }
+}
@@ -0,0 +1,264 @@
+package cz.osu.vbap.favUrls.lib;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads the web page and extracts its title, description and favicon address. Only the `<head>`
+ * part of the page is read, the download is cancelled once `</head>` (or `<body>`) is reached.
+ * Only the addresses allowed by the `AddressGuard` are requested (also on the redirects).
+ * Independent of Spring, so it can be tested against any local http server.
+ */
+public class PageMetadataFetcher implements AutoCloseable {
+
+  public record PageMetadata(String title, String description, String faviconAddress) {
+  }
+
+  public record Resource(String contentType, byte[] data) {
+  }
+
+  /**
+   * The accepted types of the resource. Raster images only: the resource is served back from the origin
+   * of the api, where e.g. `image/svg+xml` could run a script of the page.
+   */
+  public static final Set<String> RESOURCE_CONTENT_TYPES = Set.of(
+          "image/png", "image/x-icon", "image/vnd.microsoft.icon", "image/gif", "image/jpeg", "image/webp");
+
+  private static final Pattern HEAD_END = Pattern.compile("</head\\s*>|<body[\\s>]", Pattern.CASE_INSENSITIVE);
+  private static final Pattern TITLE = Pattern.compile("<title[^>]*>(.*?)</title\\s*>",
+          Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern TAG = Pattern.compile("<(meta|link)\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+  private static final Pattern ATTRIBUTE = Pattern.compile(
+          "([a-zA-Z:-]+)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+))");
+  private static final Pattern CHARSET = Pattern.compile("charset=\"?([\\w-]+)", Pattern.CASE_INSENSITIVE);
+  private static final String DEFAULT_FAVICON_PATH = "/favicon.ico";
+  private static final int READ_BUFFER_SIZE = 4096;
+
+  private final ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private final HttpClient httpClient;
+  private final AddressGuard addressGuard;
+  private final Duration requestTimeout;
+  private final int maxHeadChars;
+  private final int maxResourceBytes;
+
+  public PageMetadataFetcher(Duration connectTimeout, Duration requestTimeout, int maxHeadChars, int maxResourceBytes) {
+    this(connectTimeout, requestTimeout, maxHeadChars, maxResourceBytes, AddressGuard.PUBLIC_ONLY);
+  }
+
+  public PageMetadataFetcher(Duration connectTimeout, Duration requestTimeout, int maxHeadChars, int maxResourceBytes,
+                             AddressGuard addressGuard) {
+    ArgVal.notNull(connectTimeout, "connectTimeout");
+    ArgVal.notNull(requestTimeout, "requestTimeout");
+    ArgVal.isTrue(maxHeadChars > 0, "maxHeadChars");
+    ArgVal.isTrue(maxResourceBytes > 0, "maxResourceBytes");
+    ArgVal.notNull(addressGuard, "addressGuard");
+
+    this.addressGuard = addressGuard;
+    this.requestTimeout = requestTimeout;
+    this.maxHeadChars = maxHeadChars;
+    this.maxResourceBytes = maxResourceBytes;
+    this.httpClient = HttpClient.newBuilder()
+            .executor(httpExecutor)
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER) // followed by `AddressGuard`
+            .build();
+  }
+
+  /**
+   * Downloads the `<head>` of the page and extracts its metadata.
+   *
+   * @param address the address of the page
+   * @return the metadata, or empty if the page is not reachable or is not html
+   */
+  public Optional<PageMetadata> fetch(String address) throws InterruptedException {
+    Optional<URI> uri = tryParse(address);
+    if (uri.isEmpty()) return Optional.empty();
+
+    HttpResponse<InputStream> response;
+    String head;
+    try {
+      response = send(uri.get());
+      try (InputStream body = response.body()) {
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        if (response.statusCode() / 100 != 2 || !contentType.toLowerCase(Locale.ROOT).contains("html"))
+          return Optional.empty();
+        head = readHead(body, charsetOf(contentType));
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
+
+    PageMetadata ret = parseHead(head, response.uri());
+    return Optional.of(ret);
+  }
+
+  /**
+   * Downloads the (binary) resource, e.g. favicon.
+   *
+   * @param address the address of the resource
+   * @return the resource with the media type (without parameters), or empty if there is none: the address
+   * is invalid, the server answered it does not exist (e.g. 404), it is not of {@link #RESOURCE_CONTENT_TYPES}
+   * or larger than the limit
+   * @throws IOException if it cannot be downloaded now (unreachable, timeout, 5xx, not allowed address),
+   * a later attempt may succeed
+   */
+  public Optional<Resource> fetchResource(String address) throws IOException, InterruptedException {
+    Optional<URI> uri = tryParse(address);
+    if (uri.isEmpty()) return Optional.empty();
+
+    try {
+      HttpResponse<InputStream> response = send(uri.get());
+      try (InputStream body = response.body()) {
+        if (isTransientFailure(response.statusCode()))
+          throw new IOException("Resource not available now, status " + response.statusCode() + ": " + address);
+        String contentType = mediaTypeOf(response.headers().firstValue("Content-Type").orElse("image/x-icon"));
+        if (response.statusCode() / 100 != 2 || !RESOURCE_CONTENT_TYPES.contains(contentType))
+          return Optional.empty();
+        byte[] data = body.readNBytes(maxResourceBytes + 1);
+        if (data.length == 0 || data.length > maxResourceBytes)
+          return Optional.empty();
+        return Optional.of(new Resource(contentType, data));
+      }
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static boolean isTransientFailure(int statusCode) {
+    return statusCode / 100 == 5 || statusCode == 408 || statusCode == 429;
+  }
+
+  private HttpResponse<InputStream> send(URI uri) throws IOException, InterruptedException {
+    return addressGuard.send(httpClient, uri, q -> HttpRequest.newBuilder(q)
+            .timeout(requestTimeout)
+            .GET()
+            .build(), HttpResponse.BodyHandlers.ofInputStream());
+  }
+
+  private String readHead(InputStream body, Charset charset) throws IOException {
+    StringBuilder ret = new StringBuilder();
+    Reader reader = new InputStreamReader(body, charset);
+    char[] buffer = new char[READ_BUFFER_SIZE];
+    int read;
+    while (ret.length() < maxHeadChars && (read = reader.read(buffer)) != -1) {
+      int searchFrom = Math.max(0, ret.length() - 6); // end tag may be split between two reads
+      ret.append(buffer, 0, read);
+      Matcher matcher = HEAD_END.matcher(ret);
+      if (matcher.find(searchFrom)) {
+        ret.setLength(matcher.start());
+        break;
+      }
+    }
+    return ret.toString();
+  }
+
+  private static PageMetadata parseHead(String head, URI pageUri) {
+    String title = null;
+    Matcher titleMatcher = TITLE.matcher(head);
+    if (titleMatcher.find())
+      title = normalizeText(titleMatcher.group(1));
+
+    String description = null;
+    String faviconHref = null;
+    Matcher tagMatcher = TAG.matcher(head);
+    while (tagMatcher.find()) {
+      Map<String, String> attributes = parseAttributes(tagMatcher.group(2));
+      if (tagMatcher.group(1).equalsIgnoreCase("meta")) {
+        String name = attributes.getOrDefault("name", attributes.get("property"));
+        if (description == null && name != null
+                && (name.equalsIgnoreCase("description") || name.equalsIgnoreCase("og:description")))
+          description = normalizeText(attributes.get("content"));
+      } else {
+        String rel = attributes.getOrDefault("rel", "").toLowerCase(Locale.ROOT);
+        if (faviconHref == null && (rel.equals("icon") || rel.equals("shortcut icon")))
+          faviconHref = attributes.get("href");
+      }
+    }
+
+    String faviconAddress;
+    try {
+      faviconAddress = pageUri.resolve(faviconHref != null ? faviconHref.trim() : DEFAULT_FAVICON_PATH).toString();
+    } catch (IllegalArgumentException e) {
+      faviconAddress = pageUri.resolve(DEFAULT_FAVICON_PATH).toString();
+    }
+
+    return new PageMetadata(title, description, faviconAddress);
+  }
+
+  private static Map<String, String> parseAttributes(String text) {
+    Map<String, String> ret = new HashMap<>();
+    Matcher matcher = ATTRIBUTE.matcher(text);
+    while (matcher.find()) {
+      String value = matcher.group(2) != null ? matcher.group(2)
+              : matcher.group(3) != null ? matcher.group(3)
+              : matcher.group(4);
+      ret.putIfAbsent(matcher.group(1).toLowerCase(Locale.ROOT), value);
+    }
+    return ret;
+  }
+
+  private static String normalizeText(String text) {
+    if (text == null) return null;
+    String ret = text
+            .replaceAll("\\s+", " ")
+            .replace("&lt;", "<")
+            .replace("&gt;", ">")
+            .replace("&quot;", "\"")
+            .replace("&#39;", "'")
+            .replace("&apos;", "'")
+            .replace("&nbsp;", " ")
+            .replace("&amp;", "&")
+            .trim();
+    return ret.isEmpty() ? null : ret;
+  }
+
+  private static String mediaTypeOf(String contentType) {
+    int end = contentType.indexOf(';');
+    return (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static Charset charsetOf(String contentType) {
+    Matcher matcher = CHARSET.matcher(contentType);
+    if (matcher.find()) {
+      try {
+        return Charset.forName(matcher.group(1));
+      } catch (IllegalArgumentException e) {
+        // unknown charset, fallback to default
+      }
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  private static Optional<URI> tryParse(String address) {
+    try {
+      URI uri = URI.create(address);
+      return uri.getHost() == null ? Optional.empty() : Optional.of(uri);
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void close() {
+    httpClient.close();
+    httpExecutor.close();
+  }
+}
@@ -0,0 +1,85 @@
+package cz.osu.vbap.favUrls.lib;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.net.spi.InetAddressResolver;
+import java.net.spi.InetAddressResolverProvider;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Resolver of the JVM (installed by `META-INF/services`), which returns the pinned addresses of the hosts
+ * being requested by `AddressGuard`, so the http client connects to the addresses checked by the guard
+ * and not to the ones of another lookup (DNS rebinding). Other hosts are resolved by the built-in resolver.
+ */
+public class PinnedAddressResolverProvider extends InetAddressResolverProvider {
+
+  private record Pin(List<InetAddress> addresses, int users) {
+  }
+
+  private static final ConcurrentMap<String, Pin> pins = new ConcurrentHashMap<>();
+  private static volatile boolean installed;
+
+  /**
+   * Returns true if the JVM resolves the host names by this provider; known after the first lookup by name.
+   */
+  static boolean isInstalled() {
+    return installed;
+  }
+
+  /**
+   * Pins the addresses of the host until {@link #unpin(String)}. While the host is pinned, another pin
+   * keeps the first addresses (they were checked too).
+   */
+  static void pin(String host, List<InetAddress> addresses) {
+    ArgVal.notNull(host, "host");
+    ArgVal.isTrue(addresses != null && !addresses.isEmpty(), "addresses");
+    pins.compute(host.toLowerCase(Locale.ROOT),
+            (_, q) -> q == null ? new Pin(List.copyOf(addresses), 1) : new Pin(q.addresses(), q.users() + 1));
+  }
+
+  static void unpin(String host) {
+    ArgVal.notNull(host, "host");
+    pins.computeIfPresent(host.toLowerCase(Locale.ROOT),
+            (_, q) -> q.users() == 1 ? null : new Pin(q.addresses(), q.users() - 1));
+  }
+
+  @Override
+  public InetAddressResolver get(Configuration configuration) {
+    InetAddressResolver builtinResolver = configuration.builtinResolver();
+    installed = true;
+    return new InetAddressResolver() {
+      @Override
+      public Stream<InetAddress> lookupByName(String host, LookupPolicy lookupPolicy) throws UnknownHostException {
+        Pin pin = pins.get(host.toLowerCase(Locale.ROOT));
+        if (pin == null) return builtinResolver.lookupByName(host, lookupPolicy);
+
+        List<InetAddress> ret = pin.addresses().stream()
+                .filter(q -> isAccepted(q, lookupPolicy.characteristics()))
+                .toList();
+        if (ret.isEmpty()) throw new UnknownHostException(host);
+        return ret.stream();
+      }
+
+      @Override
+      public String lookupByAddress(byte[] addr) throws UnknownHostException {
+        return builtinResolver.lookupByAddress(addr);
+      }
+    };
+  }
+
+  @Override
+  public String name() {
+    return "favUrls-pinned";
+  }
+
+  private static boolean isAccepted(InetAddress address, int characteristics) {
+    return (address instanceof Inet4Address && (characteristics & InetAddressResolver.LookupPolicy.IPV4) != 0)
+            || (address instanceof Inet6Address && (characteristics & InetAddressResolver.LookupPolicy.IPV6) != 0);
+  }
+}
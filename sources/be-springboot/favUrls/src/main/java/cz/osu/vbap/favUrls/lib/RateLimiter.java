@@ -0,0 +1,29 @@
+package cz.osu.vbap.favUrls.lib;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simple blocking rate limiter. Permits are handed out evenly spaced in time,
+ * so at most `permitsPerSecond` callers pass `acquire()` in any second.
+ */
+public class RateLimiter {
+  private final long intervalNanos;
+  private long nextFreeNanos = System.nanoTime();
+
+  public RateLimiter(double permitsPerSecond) {
+    ArgVal.isTrue(permitsPerSecond > 0, "permitsPerSecond");
+    this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+  }
+
+  public void acquire() throws InterruptedException {
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      long slot = Math.max(now, nextFreeNanos);
+      nextFreeNanos = slot + intervalNanos;
+      waitNanos = slot - now;
+    }
+    if (waitNanos > 0)
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+  }
+}
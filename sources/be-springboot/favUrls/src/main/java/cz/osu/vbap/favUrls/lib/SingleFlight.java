@@ -0,0 +1,111 @@
+package cz.osu.vbap.favUrls.lib;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller (the leader) runs the loader, the callers
+ * arriving while it runs wait and get the same result (or the same exception). Nothing is cached,
+ * a call arriving after the leader finished runs the loader again.
+ * <p>
+ * The result is shared by all the waiting callers, so it must not be modified by them.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the result
+ */
+public class SingleFlight<K, V> {
+
+  public interface Loader<V, E extends Exception> {
+    V load() throws E;
+  }
+
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder callCount = new LongAdder();
+  private final LongAdder sharedCount = new LongAdder();
+
+  /**
+   * Runs the loader, or waits for the loader of the same key already running in another thread.
+   *
+   * @param key    the key of the call
+   * @param loader the code to run if no call of the key is in flight
+   * @return the result of the loader
+   * @throws E the exception of the loader
+   */
+  public <E extends Exception> V call(K key, Loader<V, E> loader) throws E {
+    ArgVal.notNull(key, "key");
+    ArgVal.notNull(loader, "loader");
+    callCount.increment();
+
+    CompletableFuture<V> own = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+    if (running != null) {
+      sharedCount.increment();
+      return await(running);
+    }
+
+    V ret;
+    try {
+      ret = loader.load();
+    } catch (Throwable e) {
+      // removed before completed, so no later caller gets the finished call
+      inFlight.remove(key, own);
+      own.completeExceptionally(e);
+      throw e;
+    }
+    inFlight.remove(key, own);
+    own.complete(ret);
+    return ret;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <V, E extends Exception> V await(CompletableFuture<V> future) throws E {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+      if (cause instanceof Error error) throw error;
+      // the loader of the same key throws only E
+      throw (E) cause;
+    }
+  }
+
+  /**
+   * @return the count of all calls
+   */
+  public long getCallCount() {
+    return callCount.sum();
+  }
+
+  /**
+   * @return the count of calls which got the result of another call instead of running the loader
+   */
+  public long getSharedCount() {
+    return sharedCount.sum();
+  }
+
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  /**
+   * Registers the counters `favUrls.coalescing.calls` and `favUrls.coalescing.shared` tagged by the operation;
+   * their ratio is the share of the calls which did not hit the database.
+   */
+  public void registerMeters(MeterRegistry meterRegistry, String operation) {
+    ArgVal.notNull(meterRegistry, "meterRegistry");
+    ArgVal.notWhitespace(operation, "operation");
+    FunctionCounter.builder("favUrls.coalescing.calls", this, SingleFlight::getCallCount)
+            .tag("operation", operation)
+            .register(meterRegistry);
+    FunctionCounter.builder("favUrls.coalescing.shared", this, SingleFlight::getSharedCount)
+            .tag("operation", operation)
+            .register(meterRegistry);
+  }
+}
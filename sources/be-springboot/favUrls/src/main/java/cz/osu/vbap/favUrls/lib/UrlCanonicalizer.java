@@ -0,0 +1,102 @@
+package cz.osu.vbap.favUrls.lib;
+
+import org.jetbrains.annotations.Contract;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Converts URL addresses into a canonical form, so the same bookmark written in different ways
+ * (e.g. `HTTPS://Www.Osu.cz:443/` and `https://www.osu.cz?utm_source=x`) is detected as a duplicate.
+ */
+public class UrlCanonicalizer {
+  public static final int HASH_LENGTH = HashUtil.SHA256_HEX_LENGTH;
+
+  private static final Set<String> TRACKING_PARAMS = Set.of(
+          "fbclid", "gclid", "dclid", "msclkid", "mc_cid", "mc_eid", "_ga", "igshid", "yclid");
+  private static final String TRACKING_PARAM_PREFIX = "utm_";
+
+  /**
+   * Returns the canonical form of the address. Scheme and host are lower-cased, default ports,
+   * fragments, tracking query parameters and trailing slashes are removed.
+   * Addresses which cannot be parsed as absolute URI are only trimmed.
+   *
+   * @param address the address
+   * @return canonical form of the address
+   */
+  @Contract(pure = true)
+  public static String canonicalize(String address) {
+    ArgVal.notNull(address, "address");
+    String trimmed = address.trim();
+
+    URI uri;
+    try {
+      uri = new URI(trimmed);
+    } catch (URISyntaxException e) {
+      return trimmed;
+    }
+    if (uri.getScheme() == null || uri.getRawAuthority() == null || uri.getHost() == null)
+      return trimmed;
+
+    String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+    String host = uri.getHost().toLowerCase(Locale.ROOT);
+    int port = isDefaultPort(scheme, uri.getPort()) ? -1 : uri.getPort();
+
+    StringBuilder ret = new StringBuilder(trimmed.length());
+    ret.append(scheme).append("://");
+    if (uri.getRawUserInfo() != null)
+      ret.append(uri.getRawUserInfo()).append('@');
+    ret.append(host);
+    if (port != -1)
+      ret.append(':').append(port);
+
+    String path = uri.getRawPath();
+    while (path != null && path.length() > 1 && path.endsWith("/"))
+      path = path.substring(0, path.length() - 1);
+    if (path != null && !path.isEmpty() && !path.equals("/"))
+      ret.append(path);
+
+    String query = stripTrackingParams(uri.getRawQuery());
+    if (!query.isEmpty())
+      ret.append('?').append(query);
+
+    return ret.toString();
+  }
+
+  /**
+   * Returns fixed-width (see {@link #HASH_LENGTH}) hash of the canonical address.
+   *
+   * @param canonicalAddress the address returned by {@link #canonicalize(String)}
+   * @return hex-encoded SHA-256 of the address
+   */
+  @Contract(pure = true)
+  public static String hash(String canonicalAddress) {
+    ArgVal.notNull(canonicalAddress, "canonicalAddress");
+    return HashUtil.sha256Hex(canonicalAddress.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static boolean isDefaultPort(String scheme, int port) {
+    return port == -1
+            || (port == 80 && scheme.equals("http"))
+            || (port == 443 && scheme.equals("https"));
+  }
+
+  private static String stripTrackingParams(String rawQuery) {
+    if (rawQuery == null || rawQuery.isEmpty()) return "";
+
+    StringBuilder ret = new StringBuilder(rawQuery.length());
+    for (String param : List.of(rawQuery.split("&"))) {
+      if (param.isEmpty()) continue;
+      int eq = param.indexOf('=');
+      String name = (eq < 0 ? param : param.substring(0, eq)).toLowerCase(Locale.ROOT);
+      if (name.startsWith(TRACKING_PARAM_PREFIX) || TRACKING_PARAMS.contains(name)) continue;
+      if (!ret.isEmpty()) ret.append('&');
+      ret.append(param);
+    }
+    return ret.toString();
+  }
+}
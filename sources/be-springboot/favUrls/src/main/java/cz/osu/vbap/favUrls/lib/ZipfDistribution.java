@@ -0,0 +1,38 @@
+package cz.osu.vbap.favUrls.lib;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples integers `1..n`, where `k` has the probability proportional to `1 / k^exponent` (Zipf's law).
+ * The cumulative distribution is precomputed, so one sample costs one binary search.
+ */
+public class ZipfDistribution {
+  private final double[] cumulative;
+
+  public ZipfDistribution(int n, double exponent) {
+    ArgVal.isTrue(n > 0, "n");
+    ArgVal.isTrue(exponent >= 0, "exponent");
+
+    cumulative = new double[n];
+    double sum = 0;
+    for (int k = 1; k <= n; k++) {
+      sum += 1 / Math.pow(k, exponent);
+      cumulative[k - 1] = sum;
+    }
+    for (int i = 0; i < n; i++) {
+      cumulative[i] /= sum;
+    }
+  }
+
+  public int getN() {
+    return cumulative.length;
+  }
+
+  public int sample(RandomGenerator random) {
+    double value = random.nextDouble();
+    int index = Arrays.binarySearch(cumulative, value);
+    if (index < 0) index = -index - 1;
+    return Math.min(index, cumulative.length - 1) + 1;
+  }
+}
@@ -0,0 +1,26 @@
+package cz.osu.vbap.favUrls.lib.aop;
+
+import org.aspectj.lang.JoinPoint;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Describes the invocations for the logs of the aspects. Only the types of the arguments and results are logged,
+ * never their values, as they may hold passwords and tokens (e.g. of the login).
+ */
+final class AopLogging {
+  private AopLogging() {
+  }
+
+  static String argTypesOf(JoinPoint joinPoint) {
+    String ret = Arrays.stream(joinPoint.getArgs())
+            .map(AopLogging::typeOf)
+            .collect(Collectors.joining(", ", "[", "]"));
+    return ret;
+  }
+
+  static String typeOf(Object value) {
+    return value == null ? "null" : value.getClass().getSimpleName();
+  }
+}
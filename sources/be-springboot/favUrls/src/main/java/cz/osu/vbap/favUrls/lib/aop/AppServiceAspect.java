@@ -1,13 +1,13 @@
 package cz.osu.vbap.favUrls.lib.aop;
 
 import cz.osu.vbap.favUrls.services.AppService;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import cz.osu.vbap.favUrls.services.exceptions.InternalException;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.*;
 import org.slf4j.Logger;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-
 @Aspect
 @Component
 public class AppServiceAspect {
@@ -21,8 +21,8 @@ public class AppServiceAspect {
     Logger logger = service.getLogger();
     String className = joinPoint.getTarget().getClass().getSimpleName();
     String methodName = joinPoint.getSignature().getName();
-    String methodArgs = Arrays.toString(joinPoint.getArgs());
-    logger.info("AOP:: {}.{}() invoked with arguments: {}", className, methodName, methodArgs);
+    String argTypes = AopLogging.argTypesOf(joinPoint);
+    logger.info("AOP:: {}.{}() invoked with arguments: {}", className, methodName, argTypes);
   }
 
   // Advice that runs after a method returns successfully
@@ -33,10 +33,10 @@ public class AppServiceAspect {
 
     String className = joinPoint.getTarget().getClass().getSimpleName();
     String methodName = joinPoint.getSignature().getName();
-    String methodArgs = Arrays.toString(joinPoint.getArgs());
-    logger.info("AOP:: {}.{}() completed with arguments: {} and result: {}", className, methodName, methodArgs, result);
+    logger.info("AOP:: {}.{}() completed with result: {}", className, methodName, AopLogging.typeOf(result));
   }
 
+  // the expected failures (bad requests, invalid credentials) are answered to the client, they are not errors
   @AfterThrowing(pointcut = "appServiceMethods()", throwing = "exception")
   public void logAfterThrowing(JoinPoint joinPoint, Throwable exception) {
     AppService service = (AppService) joinPoint.getTarget();
@@ -44,7 +44,12 @@ public class AppServiceAspect {
 
     String className = joinPoint.getTarget().getClass().getSimpleName();
     String methodName = joinPoint.getSignature().getName();
-    String methodArgs = Arrays.toString(joinPoint.getArgs());
-    logger.error("AOP-C:: {}.{}() failed with arguments: {}", className, methodName, methodArgs, exception);
+    if (exception instanceof AppServiceException && !(exception instanceof InternalException)) {
+      if (logger.isDebugEnabled())
+        logger.debug("AOP-C:: {}.{}() rejected: {}", className, methodName, exception.getMessage());
+    } else {
+      logger.error("AOP-C:: {}.{}() failed with arguments: {}",
+              className, methodName, AopLogging.argTypesOf(joinPoint), exception);
+    }
   }
 }
@@ -1,14 +1,14 @@
 package cz.osu.vbap.favUrls.lib.aop;
 
 import cz.osu.vbap.favUrls.services.AppService;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import cz.osu.vbap.favUrls.services.exceptions.InternalException;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-
 @Aspect
 @Component
 public class ControllerAspect {
@@ -21,23 +21,28 @@ public class ControllerAspect {
   public void logBefore(JoinPoint joinPoint) {
     String className = joinPoint.getTarget().getClass().getSimpleName();
     String methodName = joinPoint.getSignature().getName();
-    String methodArgs = Arrays.toString(joinPoint.getArgs());
-    logger.info("AOP-C:: {}.{}() invoked with arguments: {}", className, methodName, methodArgs);
+    String argTypes = AopLogging.argTypesOf(joinPoint);
+    logger.info("AOP-C:: {}.{}() invoked with arguments: {}", className, methodName, argTypes);
   }
 
   @AfterReturning(pointcut = "controllerMethods()", returning = "result")
   public void logAfterReturning(JoinPoint joinPoint, Object result) {
     String className = joinPoint.getTarget().getClass().getSimpleName();
     String methodName = joinPoint.getSignature().getName();
-    String methodArgs = Arrays.toString(joinPoint.getArgs());
-    logger.info("AOP-C:: {}.{}() completed with arguments: {} and result: {}", className, methodName, methodArgs, result);
+    logger.info("AOP-C:: {}.{}() completed with result: {}", className, methodName, AopLogging.typeOf(result));
   }
 
+  // the expected failures (bad requests, invalid credentials) are answered to the client, they are not errors
   @AfterThrowing(pointcut = "controllerMethods()", throwing = "exception")
   public void logAfterThrowing(JoinPoint joinPoint, Throwable exception) {
     String className = joinPoint.getTarget().getClass().getSimpleName();
     String methodName = joinPoint.getSignature().getName();
-    String methodArgs = Arrays.toString(joinPoint.getArgs());
-    logger.error("AOP-C:: {}.{}() failed with arguments: {}", className, methodName, methodArgs, exception);
+    if (exception instanceof AppServiceException && !(exception instanceof InternalException)) {
+      if (logger.isDebugEnabled())
+        logger.debug("AOP-C:: {}.{}() rejected: {}", className, methodName, exception.getMessage());
+    } else {
+      logger.error("AOP-C:: {}.{}() failed with arguments: {}",
+              className, methodName, AopLogging.argTypesOf(joinPoint), exception);
+    }
   }
 }
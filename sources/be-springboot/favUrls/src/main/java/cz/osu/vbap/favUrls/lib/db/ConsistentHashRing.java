@@ -0,0 +1,47 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to shards using consistent hashing. Every shard is represented by several virtual nodes on the ring,
+ * so keys are spread evenly and adding a shard moves only about `1/shardCount` of the keys.
+ */
+public class ConsistentHashRing {
+  private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+  private final int shardCount;
+
+  public ConsistentHashRing(int shardCount, int virtualNodesPerShard) {
+    ArgVal.isTrue(shardCount > 0, "shardCount");
+    ArgVal.isTrue(virtualNodesPerShard > 0, "virtualNodesPerShard");
+
+    this.shardCount = shardCount;
+    for (int shard = 0; shard < shardCount; shard++) {
+      for (int node = 0; node < virtualNodesPerShard; node++) {
+        ring.put(mix(((long) shard << 32) | node), shard);
+      }
+    }
+  }
+
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  public int shardOf(int key) {
+    Map.Entry<Long, Integer> entry = ring.ceilingEntry(mix(key));
+    if (entry == null)
+      entry = ring.firstEntry();
+    return entry.getValue();
+  }
+
+  // SplitMix64 finalizer, spreads consecutive ids over the whole ring
+  private static long mix(long value) {
+    long ret = value + 0x9E3779B97F4A7C15L;
+    ret = (ret ^ (ret >>> 30)) * 0xBF58476D1CE4E5B9L;
+    ret = (ret ^ (ret >>> 27)) * 0x94D049BB133111EBL;
+    return ret ^ (ret >>> 31);
+  }
+}
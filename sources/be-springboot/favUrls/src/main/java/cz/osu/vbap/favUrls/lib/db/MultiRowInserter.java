@@ -0,0 +1,71 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inserts rows by multi-row statements `insert into t (a, b) values (?, ?), (?, ?), ...`,
+ * which is by an order of magnitude faster than one statement per row.
+ * The statement for full chunks is prepared only once.
+ */
+public class MultiRowInserter {
+  private final String table;
+  private final List<String> columns;
+  private final int rowsPerStatement;
+
+  public MultiRowInserter(String table, List<String> columns, int rowsPerStatement) {
+    ArgVal.notWhitespace(table, "table");
+    ArgVal.notNull(columns, "columns");
+    ArgVal.isTrue(!columns.isEmpty(), "columns");
+    ArgVal.isTrue(rowsPerStatement > 0, "rowsPerStatement");
+    this.table = table;
+    this.columns = List.copyOf(columns);
+    this.rowsPerStatement = rowsPerStatement;
+  }
+
+  /**
+   * @param connection connection, the transaction is controlled by the caller
+   * @param rows rows, every one with the values in the order of the columns
+   * @return the number of inserted rows
+   */
+  public int insert(Connection connection, List<Object[]> rows) throws SQLException {
+    int fullChunks = rows.size() / rowsPerStatement;
+    if (fullChunks > 0) {
+      try (PreparedStatement statement = connection.prepareStatement(buildSql(rowsPerStatement))) {
+        for (int chunk = 0; chunk < fullChunks; chunk++) {
+          bind(statement, rows.subList(chunk * rowsPerStatement, (chunk + 1) * rowsPerStatement));
+          statement.executeUpdate();
+        }
+      }
+    }
+
+    List<Object[]> rest = rows.subList(fullChunks * rowsPerStatement, rows.size());
+    if (!rest.isEmpty()) {
+      try (PreparedStatement statement = connection.prepareStatement(buildSql(rest.size()))) {
+        bind(statement, rest);
+        statement.executeUpdate();
+      }
+    }
+    return rows.size();
+  }
+
+  private void bind(PreparedStatement statement, List<Object[]> rows) throws SQLException {
+    int index = 1;
+    for (Object[] row : rows) {
+      for (Object value : row) {
+        statement.setObject(index++, value);
+      }
+    }
+  }
+
+  private String buildSql(int rowCount) {
+    String row = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    return "insert into " + table + " (" + String.join(", ", columns) + ") values "
+            + String.join(", ", Collections.nCopies(rowCount, row));
+  }
+}
@@ -0,0 +1,46 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the statements executed by every http request, see `QueryObserver`. The endpoint is named
+ * by the http method and the mapped url pattern (e.g. `GET /v1/url/{appUserId}`), so the number
+ * of endpoints (metric tags) stays bounded.
+ */
+public class QueryCountingFilter extends OncePerRequestFilter {
+  private final QueryObserver queryObserver;
+
+  public QueryCountingFilter(QueryObserver queryObserver) {
+    ArgVal.notNull(queryObserver, "queryObserver");
+    this.queryObserver = queryObserver;
+  }
+
+  @Override
+  protected void doFilterInternal(
+          HttpServletRequest request,
+          HttpServletResponse response,
+          FilterChain filterChain)
+          throws ServletException, IOException {
+    QueryObserver.RequestSummary summary;
+    queryObserver.beginRequest(() -> endpointOf(request));
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      summary = queryObserver.endRequest();
+    }
+    queryObserver.checkLimit(summary);
+  }
+
+  private static String endpointOf(HttpServletRequest request) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return pattern == null ? null : request.getMethod() + " " + pattern;
+  }
+}
@@ -0,0 +1,295 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Listener of all statements executed through the (proxied) primary data source. It measures every statement
+ * (`favUrls.db.query` timer), logs the slow ones with redacted bind parameters and counts the statements
+ * of the current http request (see `QueryCountingFilter`), which are summarized per endpoint.
+ * <p>
+ * When a request executes more than `maxStatementsPerRequest` statements (usually the N+1 problem),
+ * the repeated statements are logged; in the `FAIL` mode the request also ends with an exception,
+ * which is meant for tests.
+ */
+public class QueryObserver implements QueryExecutionListener {
+  public enum GuardMode {
+    LOG,
+    FAIL
+  }
+
+  public record EndpointStats(long requests, long statements, long maxStatements, long overLimit) {
+    public double getAverageStatements() {
+      return requests == 0 ? 0 : (double) statements / requests;
+    }
+  }
+
+  public record SlowQuery(Instant at, String endpoint, long millis, String sql, List<String> parameters) {
+  }
+
+  public record RequestSummary(String endpoint, int statements, Map<String, Integer> statementCounts) {
+  }
+
+  public static class StatementLimitExceededException extends IllegalStateException {
+    public StatementLimitExceededException(String message) {
+      super(message);
+    }
+  }
+
+  public static final String UNMAPPED_ENDPOINT = "UNMAPPED";
+  private static final int MAX_DISTINCT_STATEMENTS_PER_REQUEST = 100;
+  private static final int MAX_LOGGED_SQL_LENGTH = 1000;
+
+  private static final Logger logger = LoggerFactory.getLogger(QueryObserver.class);
+  private static final Logger slowQueryLogger = LoggerFactory.getLogger(QueryObserver.class.getName() + ".slow");
+
+  private static class RequestContext {
+    private final Supplier<String> endpoint;
+    private int statements;
+    private final Map<String, Integer> statementCounts = new LinkedHashMap<>();
+
+    private RequestContext(Supplier<String> endpoint) {
+      this.endpoint = endpoint;
+    }
+  }
+
+  private static class Stats {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final AtomicLong maxStatements = new AtomicLong();
+    private final LongAdder overLimit = new LongAdder();
+  }
+
+  private final MeterRegistry meterRegistry;
+  private final long slowQueryMillis;
+  private final int slowQueryLogSize;
+  private final boolean redactParameters;
+  private final int maxStatementsPerRequest;
+  private final GuardMode guardMode;
+
+  private final ThreadLocal<RequestContext> currentRequest = new ThreadLocal<>();
+  private final Map<String, Stats> statsByEndpoint = new ConcurrentHashMap<>();
+  private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+  public QueryObserver(MeterRegistry meterRegistry, long slowQueryMillis, int slowQueryLogSize,
+                       boolean redactParameters, int maxStatementsPerRequest, GuardMode guardMode) {
+    ArgVal.notNull(meterRegistry, "meterRegistry");
+    ArgVal.isTrue(slowQueryLogSize > 0, "slowQueryLogSize");
+    ArgVal.isTrue(maxStatementsPerRequest > 0, "maxStatementsPerRequest");
+    ArgVal.notNull(guardMode, "guardMode");
+    this.meterRegistry = meterRegistry;
+    this.slowQueryMillis = slowQueryMillis;
+    this.slowQueryLogSize = slowQueryLogSize;
+    this.redactParameters = redactParameters;
+    this.maxStatementsPerRequest = maxStatementsPerRequest;
+    this.guardMode = guardMode;
+  }
+
+  public long getSlowQueryMillis() {
+    return slowQueryMillis;
+  }
+
+  public int getMaxStatementsPerRequest() {
+    return maxStatementsPerRequest;
+  }
+
+  public GuardMode getGuardMode() {
+    return guardMode;
+  }
+
+  /**
+   * Starts counting the statements of the current thread.
+   *
+   * @param endpoint supplies the endpoint name, called when the name is needed (it is usually known only after
+   *                 the request is mapped to the controller)
+   */
+  public void beginRequest(Supplier<String> endpoint) {
+    ArgVal.notNull(endpoint, "endpoint");
+    currentRequest.set(new RequestContext(endpoint));
+  }
+
+  /**
+   * Stops counting the statements of the current thread and records them to the stats of the endpoint.
+   */
+  public RequestSummary endRequest() {
+    RequestContext context = currentRequest.get();
+    if (context == null) throw new IllegalStateException("No request has been begun in the current thread.");
+    currentRequest.remove();
+
+    String endpoint = endpointOf(context);
+    Stats stats = statsByEndpoint.computeIfAbsent(endpoint, _ -> new Stats());
+    stats.requests.increment();
+    stats.statements.add(context.statements);
+    stats.maxStatements.accumulateAndGet(context.statements, Math::max);
+    meterRegistry.summary("favUrls.db.statements", "endpoint", endpoint).record(context.statements);
+
+    RequestSummary ret = new RequestSummary(
+            endpoint, context.statements, Collections.unmodifiableMap(context.statementCounts));
+    if (ret.statements() > maxStatementsPerRequest) {
+      stats.overLimit.increment();
+      meterRegistry.counter("favUrls.db.statementLimitExceeded", "endpoint", endpoint).increment();
+      logger.warn("Request {} executed {} statements (limit {}), repeated statements: {}",
+              endpoint, ret.statements(), maxStatementsPerRequest, repeatedStatementsOf(ret));
+    }
+    return ret;
+  }
+
+  /**
+   * Throws an exception if the guard is in the `FAIL` mode and the request exceeded the statement limit.
+   */
+  public void checkLimit(RequestSummary summary) {
+    ArgVal.notNull(summary, "summary");
+    if (guardMode == GuardMode.FAIL && summary.statements() > maxStatementsPerRequest)
+      throw new StatementLimitExceededException(String.format(
+              "Request %s executed %d statements, the limit is %d. Repeated statements: %s",
+              summary.endpoint(), summary.statements(), maxStatementsPerRequest, repeatedStatementsOf(summary)));
+  }
+
+  public Map<String, EndpointStats> getEndpointStats() {
+    Map<String, EndpointStats> ret = new TreeMap<>();
+    statsByEndpoint.forEach((endpoint, stats) -> ret.put(endpoint, new EndpointStats(
+            stats.requests.sum(), stats.statements.sum(), stats.maxStatements.get(), stats.overLimit.sum())));
+    return ret;
+  }
+
+  /**
+   * @return the latest slow queries, the newest first
+   */
+  public List<SlowQuery> getSlowQueries() {
+    synchronized (slowQueries) {
+      return new ArrayList<>(slowQueries);
+    }
+  }
+
+  public void reset() {
+    statsByEndpoint.clear();
+    synchronized (slowQueries) {
+      slowQueries.clear();
+    }
+  }
+
+  @Override
+  public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+  }
+
+  @Override
+  public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+    long millis = execInfo.getElapsedTime();
+
+    meterRegistry.timer("favUrls.db.query",
+                    "type", typeOf(sql),
+                    "outcome", execInfo.isSuccess() ? "success" : "error")
+            .record(millis, TimeUnit.MILLISECONDS);
+
+    RequestContext context = currentRequest.get();
+    if (context != null) {
+      context.statements++;
+      if (context.statementCounts.containsKey(sql) || context.statementCounts.size() < MAX_DISTINCT_STATEMENTS_PER_REQUEST)
+        context.statementCounts.merge(sql, 1, Integer::sum);
+    }
+
+    if (millis >= slowQueryMillis)
+      recordSlowQuery(context == null ? null : endpointOf(context), millis, sql, queryInfoList);
+  }
+
+  private void recordSlowQuery(String endpoint, long millis, String sql, List<QueryInfo> queryInfoList) {
+    List<String> parameters = queryInfoList.isEmpty()
+            ? List.of()
+            : formatParameters(queryInfoList.getFirst(), redactParameters);
+    SlowQuery slowQuery = new SlowQuery(Instant.now(), endpoint, millis, abbreviate(sql), parameters);
+
+    meterRegistry.counter("favUrls.db.slowQueries").increment();
+    slowQueryLogger.warn("Slow query ({} ms, endpoint {}): {} parameters {}",
+            millis, endpoint, slowQuery.sql(), parameters);
+    synchronized (slowQueries) {
+      slowQueries.addFirst(slowQuery);
+      if (slowQueries.size() > slowQueryLogSize)
+        slowQueries.removeLast();
+    }
+  }
+
+  /**
+   * Formats the bind parameters of the (first) execution of the statement. When redacted, only numbers,
+   * booleans and nulls are shown; strings, binary data and other values are replaced by their type
+   * (and length), as they may contain emails, password hashes or tokens.
+   */
+  static List<String> formatParameters(QueryInfo queryInfo, boolean redact) {
+    if (queryInfo.getParametersList().isEmpty()) return List.of();
+
+    List<String> ret = new ArrayList<>();
+    for (ParameterSetOperation operation : queryInfo.getParametersList().getFirst()) {
+      Object[] args = operation.getArgs();
+      boolean isNull = operation.getMethod().getName().equals("setNull");
+      Object value = isNull || args.length < 2 ? null : args[1];
+      ret.add(redact ? redactValue(value) : String.valueOf(value));
+    }
+    return ret;
+  }
+
+  static String redactValue(Object value) {
+    String ret;
+    if (value == null || value instanceof Number || value instanceof Boolean)
+      ret = String.valueOf(value);
+    else if (value instanceof CharSequence text)
+      ret = "<String(" + text.length() + ")>";
+    else if (value instanceof byte[] data)
+      ret = "<byte[" + data.length + "]>";
+    else
+      ret = "<" + value.getClass().getSimpleName() + ">";
+    return ret;
+  }
+
+  static String typeOf(String sql) {
+    String trimmed = sql.stripLeading();
+    int end = 0;
+    while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end)))
+      end++;
+    String ret = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+    return switch (ret) {
+      case "select", "insert", "update", "delete" -> ret;
+      default -> "other";
+    };
+  }
+
+  private static String endpointOf(RequestContext context) {
+    String ret = context.endpoint.get();
+    return ret == null ? UNMAPPED_ENDPOINT : ret;
+  }
+
+  private static String repeatedStatementsOf(RequestSummary summary) {
+    return summary.statementCounts().entrySet().stream()
+            .filter(q -> q.getValue() > 1)
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .map(q -> q.getValue() + "x " + abbreviate(q.getKey()))
+            .collect(Collectors.joining(", ", "[", "]"));
+  }
+
+  private static String abbreviate(String sql) {
+    if (sql.length() <= MAX_LOGGED_SQL_LENGTH) return sql;
+    return sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+  }
+}
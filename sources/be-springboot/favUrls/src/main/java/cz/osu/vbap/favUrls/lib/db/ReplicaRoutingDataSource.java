@@ -0,0 +1,87 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Routes read-only transactions (`@Transactional(readOnly = true)`) to the replica, everything else to the primary.
+ * <p>
+ * To provide read-your-writes consistency, once the user (identified by the request attribute) uses
+ * a read-write connection, all his connections are routed to the primary for `primaryPinDuration`,
+ * so he does not read stale data from the lagging replica.
+ * <p>
+ * Must be wrapped in `LazyConnectionDataSourceProxy`, otherwise the connection is obtained at the beginning
+ * of the transaction, before its read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+  public enum Target {
+    PRIMARY,
+    REPLICA
+  }
+
+  private static final int PRUNE_THRESHOLD = 10_000;
+
+  private final String appUserIdAttributeName;
+  private final long primaryPinNanos;
+  private final ConcurrentMap<Integer, Long> pinnedUntilNanos = new ConcurrentHashMap<>();
+
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                  String appUserIdAttributeName, Duration primaryPinDuration) {
+    ArgVal.notNull(primary, "primary");
+    ArgVal.notNull(replica, "replica");
+    ArgVal.notWhitespace(appUserIdAttributeName, "appUserIdAttributeName");
+    ArgVal.notNull(primaryPinDuration, "primaryPinDuration");
+
+    this.appUserIdAttributeName = appUserIdAttributeName;
+    this.primaryPinNanos = primaryPinDuration.toNanos();
+    setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Target determineCurrentLookupKey() {
+    Integer appUserId = getCurrentAppUserId();
+
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (appUserId != null)
+        pinToPrimary(appUserId);
+      return Target.PRIMARY;
+    }
+
+    if (appUserId != null && isPinnedToPrimary(appUserId))
+      return Target.PRIMARY;
+    return Target.REPLICA;
+  }
+
+  private void pinToPrimary(int appUserId) {
+    long now = System.nanoTime();
+    pinnedUntilNanos.put(appUserId, now + primaryPinNanos);
+    if (pinnedUntilNanos.size() > PRUNE_THRESHOLD)
+      pinnedUntilNanos.values().removeIf(q -> q - now < 0);
+  }
+
+  private boolean isPinnedToPrimary(int appUserId) {
+    Long until = pinnedUntilNanos.get(appUserId);
+    if (until == null) return false;
+    if (until - System.nanoTime() > 0) return true;
+    pinnedUntilNanos.remove(appUserId, until);
+    return false;
+  }
+
+  private Integer getCurrentAppUserId() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) return null;
+    Object ret = attributes.getAttribute(appUserIdAttributeName, RequestAttributes.SCOPE_REQUEST);
+    return ret instanceof Integer appUserId ? appUserId : null;
+  }
+}
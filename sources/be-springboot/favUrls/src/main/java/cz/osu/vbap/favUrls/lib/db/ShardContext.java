@@ -0,0 +1,60 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard or the user explicitly selected for the current thread. Used when the shard cannot be derived
+ * from the logged user of the current request (background jobs, authentication, data seeding).
+ */
+public class ShardContext {
+  private static final ThreadLocal<Integer> currentShard = new ThreadLocal<>();
+  private static final ThreadLocal<Integer> currentAppUserId = new ThreadLocal<>();
+
+  public static Integer get() {
+    return currentShard.get();
+  }
+
+  /**
+   * Returns the user selected by `callOnUser()`, whose shard is resolved when a connection is needed.
+   */
+  public static Integer getAppUserId() {
+    return currentAppUserId.get();
+  }
+
+  public static <T> T callOnUser(int appUserId, Supplier<T> supplier) {
+    Integer previousShard = currentShard.get();
+    Integer previousAppUserId = currentAppUserId.get();
+    currentShard.remove();
+    currentAppUserId.set(appUserId);
+    try {
+      return supplier.get();
+    } finally {
+      restore(currentShard, previousShard);
+      restore(currentAppUserId, previousAppUserId);
+    }
+  }
+
+  private static void restore(ThreadLocal<Integer> local, Integer previous) {
+    if (previous == null)
+      local.remove();
+    else
+      local.set(previous);
+  }
+
+  public static <T> T callOn(int shard, Supplier<T> supplier) {
+    Integer previous = currentShard.get();
+    currentShard.set(shard);
+    try {
+      return supplier.get();
+    } finally {
+      restore(currentShard, previous);
+    }
+  }
+
+  public static void runOn(int shard, Runnable runnable) {
+    callOn(shard, () -> {
+      runnable.run();
+      return null;
+    });
+  }
+}
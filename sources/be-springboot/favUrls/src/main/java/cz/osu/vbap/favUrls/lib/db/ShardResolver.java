@@ -0,0 +1,93 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the shard of the user. Users moved by the rebalancing are stored in the directory table
+ * (on the global shard), all the others are placed by the consistent hash ring.
+ * Placements are cached for at most `placementTtl` (counted from before the directory was read), so a change
+ * of the directory made by any application instance is seen by all instances within `placementTtl`.
+ * The directory table is created by the database migrations.
+ */
+public class ShardResolver {
+  public record Placement(int shard, boolean moving) {
+  }
+
+  private record CachedPlacement(Placement placement, long loadedAtNanos) {
+  }
+
+  public static final String DIRECTORY_TABLE_NAME = "shard_directory";
+
+  private final ConsistentHashRing ring;
+  private final JdbcTemplate directory;
+  private final Duration placementTtl;
+  private final ConcurrentMap<Integer, CachedPlacement> cache = new ConcurrentHashMap<>();
+
+  public ShardResolver(ConsistentHashRing ring, JdbcTemplate directory, Duration placementTtl) {
+    ArgVal.notNull(ring, "ring");
+    ArgVal.notNull(directory, "directory");
+    ArgVal.notNull(placementTtl, "placementTtl");
+    ArgVal.isTrue(!placementTtl.isNegative(), "placementTtl");
+    this.ring = ring;
+    this.directory = directory;
+    this.placementTtl = placementTtl;
+  }
+
+  /**
+   * Returns the longest time a placement is cached for.
+   */
+  public Duration getPlacementTtl() {
+    return placementTtl;
+  }
+
+  public int getShardCount() {
+    return ring.getShardCount();
+  }
+
+  public Placement resolve(int appUserId) {
+    CachedPlacement cached = cache.get(appUserId);
+    Placement ret = cached != null && System.nanoTime() - cached.loadedAtNanos() < placementTtl.toNanos()
+            ? cached.placement()
+            : reload(appUserId);
+    return ret;
+  }
+
+  /**
+   * Reads the placement from the directory, bypassing the cache.
+   */
+  public Placement reload(int appUserId) {
+    long loadedAtNanos = System.nanoTime();
+    Placement ret = load(appUserId);
+    cache.put(appUserId, new CachedPlacement(ret, loadedAtNanos));
+    return ret;
+  }
+
+  /**
+   * Returns the shard of a user who has never been moved, without looking into the directory.
+   * Intended for bulk-created users, which are not in the directory yet.
+   */
+  public int homeShardOf(int appUserId) {
+    return ring.shardOf(appUserId);
+  }
+
+  public void setPlacement(int appUserId, int shard, boolean moving) {
+    ArgVal.isTrue(shard >= 0 && shard < ring.getShardCount(), "shard");
+    directory.update("insert into " + DIRECTORY_TABLE_NAME + " (app_user_id, shard, moving) values (?, ?, ?) " +
+            "on duplicate key update shard = values(shard), moving = values(moving)", appUserId, shard, moving);
+    cache.put(appUserId, new CachedPlacement(new Placement(shard, moving), System.nanoTime()));
+  }
+
+  private Placement load(int appUserId) {
+    List<Placement> stored = directory.query(
+            "select shard, moving from " + DIRECTORY_TABLE_NAME + " where app_user_id = ?",
+            (rs, _) -> new Placement(rs.getInt("shard"), rs.getBoolean("moving")),
+            appUserId);
+    return stored.isEmpty() ? new Placement(ring.shardOf(appUserId), false) : stored.getFirst();
+  }
+}
@@ -0,0 +1,136 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard (database) is used by the current thread:
+ * <ol>
+ *   <li>the shard explicitly set by `runOnShard()` (see `ShardContext`),</li>
+ *   <li>the shard of the user set by `runOnUserShard()`, or of the user logged in the current request,</li>
+ *   <li>the global shard (app users for login, favicons, shard directory).</li>
+ * </ol>
+ * The shard of the user is resolved when the connection is needed, so the writes of the user are rejected
+ * while his data are being moved (see `ShardRebalanceService`) and go to the new shard after the move.
+ * When sharding is disabled, there is only one shard and all the methods just invoke the given code.
+ */
+public class ShardRouter implements AutoCloseable {
+  public static final int GLOBAL_SHARD = 0;
+
+  private final List<? extends DataSource> shards;
+  private final ShardResolver resolver;
+  private final String appUserIdAttributeName;
+
+  public static ShardRouter disabled() {
+    return new ShardRouter();
+  }
+
+  private ShardRouter() {
+    this.shards = List.of();
+    this.resolver = null;
+    this.appUserIdAttributeName = null;
+  }
+
+  public ShardRouter(List<? extends DataSource> shards, ShardResolver resolver, String appUserIdAttributeName) {
+    ArgVal.notNull(shards, "shards");
+    ArgVal.notNull(resolver, "resolver");
+    ArgVal.isTrue(shards.size() == resolver.getShardCount(), "shards");
+    ArgVal.notWhitespace(appUserIdAttributeName, "appUserIdAttributeName");
+
+    this.shards = List.copyOf(shards);
+    this.resolver = resolver;
+    this.appUserIdAttributeName = appUserIdAttributeName;
+  }
+
+  public boolean isEnabled() {
+    return resolver != null;
+  }
+
+  public int getShardCount() {
+    return isEnabled() ? shards.size() : 1;
+  }
+
+  public DataSource getShardDataSource(int shard) {
+    ArgVal.isTrue(isEnabled() && shard >= 0 && shard < shards.size(), "shard");
+    return shards.get(shard);
+  }
+
+  public ShardResolver getResolver() {
+    return resolver;
+  }
+
+  public int shardOf(int appUserId) {
+    return isEnabled() ? resolver.resolve(appUserId).shard() : GLOBAL_SHARD;
+  }
+
+  public int getCurrentShard() {
+    if (!isEnabled()) return GLOBAL_SHARD;
+
+    Integer ret = ShardContext.get();
+    if (ret == null) {
+      Integer appUserId = getCurrentAppUserId();
+      ret = appUserId == null ? GLOBAL_SHARD : shardOf(appUserId);
+    }
+    return ret;
+  }
+
+  /**
+   * Returns true if the data of the user of `runOnUserShard()` or of the current request are just being moved
+   * to another shard and therefore must not be modified.
+   */
+  public boolean isCurrentUserMoving() {
+    if (!isEnabled() || ShardContext.get() != null) return false;
+    Integer appUserId = getCurrentAppUserId();
+    return appUserId != null && resolver.resolve(appUserId).moving();
+  }
+
+  public <T> T callOnShard(int shard, Supplier<T> supplier) {
+    return isEnabled() ? ShardContext.callOn(shard, supplier) : supplier.get();
+  }
+
+  public void runOnShard(int shard, Runnable runnable) {
+    if (isEnabled())
+      ShardContext.runOn(shard, runnable);
+    else
+      runnable.run();
+  }
+
+  /**
+   * Invokes the code working with the data of the user, on his shard.
+   */
+  public <T> T callOnUserShard(int appUserId, Supplier<T> supplier) {
+    return isEnabled() ? ShardContext.callOnUser(appUserId, supplier) : supplier.get();
+  }
+
+  public void runOnUserShard(int appUserId, Runnable runnable) {
+    callOnUserShard(appUserId, () -> {
+      runnable.run();
+      return null;
+    });
+  }
+
+  private Integer getCurrentAppUserId() {
+    Integer ret = ShardContext.getAppUserId();
+    return ret != null ? ret : getLoggedAppUserId();
+  }
+
+  private Integer getLoggedAppUserId() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) return null;
+    Object ret = attributes.getAttribute(appUserIdAttributeName, RequestAttributes.SCOPE_REQUEST);
+    return ret instanceof Integer appUserId ? appUserId : null;
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (DataSource shard : shards) {
+      if (shard instanceof AutoCloseable closeable)
+        closeable.close();
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes connections to the shard selected by `ShardRouter`. Must be wrapped in `LazyConnectionDataSourceProxy`,
+ * so the shard is selected when the first statement is executed.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+  private final ShardRouter router;
+
+  public ShardRoutingDataSource(ShardRouter router) {
+    ArgVal.notNull(router, "router");
+    ArgVal.isTrue(router.isEnabled(), "router");
+
+    this.router = router;
+    Map<Object, Object> targets = new HashMap<>();
+    for (int i = 0; i < router.getShardCount(); i++) {
+      targets.put(i, router.getShardDataSource(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(router.getShardDataSource(ShardRouter.GLOBAL_SHARD));
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Integer determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() && router.isCurrentUserMoving())
+      throw new IllegalStateException("User data are being moved to another shard, try again later.");
+    return router.getCurrentShard();
+  }
+}
@@ -0,0 +1,352 @@
+package cz.osu.vbap.favUrls.lib.eventlog;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of binary records in memory-mapped segment files of a local directory.
+ * <p>
+ * Every record is addressed by its offset, the count of bytes written to the log before it; the segment files
+ * are named by the offset of their first record. A new segment (preallocated to `segmentSize` bytes) is started
+ * when the record does not fit into the current one; the oldest segments over `maxSegments` are deleted.
+ * <p>
+ * The record format (big-endian): `int size` (of the whole record, 0 marks the end of the data), `int crc`
+ * (CRC32C of the rest of the record), `long timestamp`, `byte type`, `int appUserId`, `int subjectId`, the payload.
+ * The size is written as the last, so a record is either complete or not seen at all. The mapped data survive
+ * a crash of the process; against the crash of the system, `flush()` has to be called (e.g. periodically).
+ * On open, the records of the last segment are validated and the log continues after the last valid one,
+ * so a torn record is discarded.
+ * <p>
+ * Appends are serialized; any number of readers (`reader()`) may read concurrently and wait for new records.
+ */
+public class EventLog implements AutoCloseable {
+  public static final int HEADER_SIZE = 4 + 4 + 8 + 1 + 4 + 4;
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String LOCK_FILE_NAME = "lock";
+
+  public record Entry(long offset, long timestampMillis, byte type, int appUserId, int subjectId, byte[] payload) {
+    /**
+     * @return the offset of the next record
+     */
+    public long nextOffset() {
+      return offset + HEADER_SIZE + payload.length;
+    }
+  }
+
+  /**
+   * The directory is used by another log, e.g. of another process.
+   */
+  public static class LockedException extends IOException {
+    public LockedException(String message) {
+      super(message);
+    }
+  }
+
+  private static class Segment {
+    private final long baseOffset;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    // bytes of valid records; the segments before the last one do not change anymore
+    private volatile int limit;
+
+    private Segment(long baseOffset, Path path, MappedByteBuffer buffer, int limit) {
+      this.baseOffset = baseOffset;
+      this.path = path;
+      this.buffer = buffer;
+      this.limit = limit;
+    }
+  }
+
+  private final Path directory;
+  private final int segmentSize;
+  private final int maxSegments;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+  private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+  private final CRC32C crc = new CRC32C();
+  private Segment active;
+  private volatile long endOffset;
+  private volatile boolean closed;
+
+  /**
+   * Opens the log in the directory, creates it if it does not exist.
+   *
+   * @param directory   the directory of the segment files
+   * @param segmentSize the size of the new segment files in bytes
+   * @param maxSegments the count of the kept segment files
+   * @throws LockedException if the directory is used by another open log
+   */
+  public EventLog(Path directory, int segmentSize, int maxSegments) throws IOException {
+    ArgVal.notNull(directory, "directory");
+    ArgVal.isTrue(segmentSize > HEADER_SIZE, "segmentSize");
+    ArgVal.isTrue(maxSegments > 0, "maxSegments");
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxSegments = maxSegments;
+
+    Files.createDirectories(directory);
+    lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock fileLock;
+    try {
+      fileLock = lockChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      fileLock = null; // locked by this process
+    }
+    if (fileLock == null) {
+      lockChannel.close();
+      throw new LockedException("The event log " + directory + " is used by another log.");
+    }
+    lock = fileLock;
+
+    try {
+      recover();
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private void recover() throws IOException {
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(directory)) {
+      files = stream.filter(q -> q.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+    }
+    Segment previous = null;
+    for (Path file : files) {
+      Segment segment = map(file, baseOffsetOf(file), 0);
+      if (previous != null)
+        previous.limit = (int) (segment.baseOffset - previous.baseOffset);
+      segments.put(segment.baseOffset, segment);
+      previous = segment;
+    }
+
+    if (previous == null) {
+      active = createSegment(0);
+    } else {
+      active = previous;
+      active.limit = validRecordsSize(active);
+      // the rest may contain a torn record, a new record must not be appended after its remains
+      clear(active.buffer, active.limit, active.buffer.capacity());
+    }
+    endOffset = active.baseOffset + active.limit;
+  }
+
+  private int validRecordsSize(Segment segment) {
+    ByteBuffer buffer = segment.buffer;
+    int ret = 0;
+    while (ret + HEADER_SIZE <= buffer.capacity()) {
+      int size = buffer.getInt(ret);
+      if (size < HEADER_SIZE || ret + size > buffer.capacity() || buffer.getInt(ret + 4) != crcOf(buffer, ret, size))
+        break;
+      ret += size;
+    }
+    return ret;
+  }
+
+  private static void clear(ByteBuffer buffer, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) != 0) buffer.put(i, (byte) 0); // the clean pages are not written
+    }
+  }
+
+  private int crcOf(ByteBuffer buffer, int position, int size) {
+    crc.reset();
+    crc.update(buffer.slice(position + 8, size - 8));
+    return (int) crc.getValue();
+  }
+
+  private static long baseOffsetOf(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private Segment createSegment(long baseOffset) throws IOException {
+    Path file = directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+    Segment ret = map(file, baseOffset, segmentSize);
+    segments.put(baseOffset, ret);
+    return ret;
+  }
+
+  private static Segment map(Path file, long baseOffset, int size) throws IOException {
+    try (FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      long length = Math.max(size, channel.size());
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+      return new Segment(baseOffset, file, buffer, 0);
+    }
+  }
+
+  /**
+   * Appends the record.
+   *
+   * @return the offset of the record
+   */
+  public long append(long timestampMillis, byte type, int appUserId, int subjectId, byte[] payload) {
+    ArgVal.notNull(payload, "payload");
+    int size = HEADER_SIZE + payload.length;
+    ArgVal.isTrue(size <= segmentSize, "payload");
+
+    long ret;
+    synchronized (this) {
+      if (closed) throw new IllegalStateException("The event log is closed.");
+      if (active.limit + size > active.buffer.capacity())
+        roll();
+
+      ByteBuffer buffer = active.buffer;
+      int position = active.limit;
+      buffer.putLong(position + 8, timestampMillis);
+      buffer.put(position + 16, type);
+      buffer.putInt(position + 17, appUserId);
+      buffer.putInt(position + 21, subjectId);
+      buffer.put(position + HEADER_SIZE, payload);
+      buffer.putInt(position + 4, crcOf(buffer, position, size));
+      buffer.putInt(position, size);
+
+      active.limit = position + size;
+      ret = active.baseOffset + position;
+      endOffset = ret + size;
+      notifyAll();
+    }
+    return ret;
+  }
+
+  private void roll() {
+    try {
+      active.buffer.force();
+      active = createSegment(active.baseOffset + active.limit);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create a segment of the event log.", e);
+    }
+    while (segments.size() > maxSegments) {
+      Segment eldest = segments.pollFirstEntry().getValue();
+      try {
+        // the mapping is released by the garbage collector
+        Files.deleteIfExists(eldest.path);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to delete a segment of the event log.", e);
+      }
+    }
+  }
+
+  /**
+   * Writes the appended records to the disk.
+   */
+  public void flush() {
+    Segment segment = active;
+    segment.buffer.force();
+  }
+
+  /**
+   * @return the offset of the oldest kept record
+   */
+  public long getStartOffset() {
+    return segments.firstKey();
+  }
+
+  /**
+   * @return the offset of the next appended record
+   */
+  public long getEndOffset() {
+    return endOffset;
+  }
+
+  /**
+   * Creates a reader of the records from the offset.
+   *
+   * @param offset the offset of a record (e.g. `Entry.nextOffset()` of the last read one), or `getEndOffset()`
+   */
+  public Reader reader(long offset) {
+    ArgVal.isTrue(offset >= getStartOffset() && offset <= endOffset, "offset");
+    return new Reader(offset);
+  }
+
+  /**
+   * Reads the records in the order of appending, not thread-safe.
+   */
+  public class Reader {
+    private long offset;
+
+    private Reader(long offset) {
+      this.offset = offset;
+    }
+
+    /**
+     * @return the offset of the next record
+     */
+    public long getOffset() {
+      return offset;
+    }
+
+    /**
+     * @return the next record, or null if there is none yet
+     * @throws IllegalStateException if the record was already deleted with its segment
+     */
+    public Entry next() {
+      if (offset >= endOffset) return null;
+
+      Map.Entry<Long, Segment> floor = segments.floorEntry(offset);
+      if (floor == null || offset - floor.getKey() >= floor.getValue().limit)
+        throw new IllegalStateException("The record " + offset + " of the event log was deleted.");
+      Segment segment = floor.getValue();
+      ByteBuffer buffer = segment.buffer;
+      int position = (int) (offset - segment.baseOffset);
+
+      int size = buffer.getInt(position);
+      byte[] payload = new byte[size - HEADER_SIZE];
+      buffer.get(position + HEADER_SIZE, payload);
+      Entry ret = new Entry(offset, buffer.getLong(position + 8), buffer.get(position + 16),
+              buffer.getInt(position + 17), buffer.getInt(position + 21), payload);
+      offset = ret.nextOffset();
+      return ret;
+    }
+
+    /**
+     * Waits for the next record at most for the timeout.
+     *
+     * @return the next record, or null if there is none after the timeout
+     */
+    public Entry next(Duration timeout) throws InterruptedException {
+      ArgVal.notNull(timeout, "timeout");
+      long deadline = System.nanoTime() + timeout.toNanos();
+      synchronized (EventLog.this) {
+        long remaining;
+        while (offset >= endOffset && !closed && (remaining = deadline - System.nanoTime()) > 0) {
+          TimeUnit.NANOSECONDS.timedWait(EventLog.this, remaining);
+        }
+      }
+      return next();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      if (closed) return;
+      closed = true;
+      if (active != null)
+        active.buffer.force();
+      notifyAll();
+    }
+    lock.release();
+    lockChannel.close();
+  }
+}
@@ -0,0 +1,38 @@
+package cz.osu.vbap.favUrls.lib.validation;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+
+import java.util.function.Predicate;
+
+/**
+ * A reusable check of a value with its error message, created once (e.g. as a constant), see `Rules`.
+ *
+ * @param <T> the type of the value
+ */
+public final class Rule<T> {
+  private final Predicate<? super T> check;
+  private final String message;
+
+  private Rule(Predicate<? super T> check, String message) {
+    this.check = check;
+    this.message = message;
+  }
+
+  /**
+   * @param check   returns true for a valid value
+   * @param message the error of an invalid value, without the field name (e.g. `must not be blank`)
+   */
+  public static <T> Rule<T> of(Predicate<? super T> check, String message) {
+    ArgVal.notNull(check, "check");
+    ArgVal.notWhitespace(message, "message");
+    return new Rule<>(check, message);
+  }
+
+  public boolean test(T value) {
+    return check.test(value);
+  }
+
+  public String getMessage() {
+    return message;
+  }
+}
@@ -0,0 +1,58 @@
+package cz.osu.vbap.favUrls.lib.validation;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+
+import java.util.Arrays;
+
+/**
+ * Ordered rules of one field, shared by the entities and the controllers (e.g. `Url.TITLE_RULES`).
+ * The rules are checked in the order, the first failed one is the error of the field.
+ *
+ * @param <T> the type of the value
+ */
+public final class RuleSet<T> {
+  private final Rule<? super T>[] rules;
+
+  private RuleSet(Rule<? super T>[] rules) {
+    this.rules = rules;
+  }
+
+  @SafeVarargs
+  public static <T> RuleSet<T> of(Rule<? super T>... rules) {
+    ArgVal.notNull(rules, "rules");
+    for (Rule<? super T> rule : rules) {
+      ArgVal.notNull(rule, "rules");
+    }
+    return new RuleSet<>(rules.clone());
+  }
+
+  /**
+   * @return the new set with the rules of this set followed by the given ones
+   */
+  @SafeVarargs
+  public final RuleSet<T> and(Rule<? super T>... rules) {
+    ArgVal.notNull(rules, "rules");
+    Rule<? super T>[] joined = Arrays.copyOf(this.rules, this.rules.length + rules.length);
+    System.arraycopy(rules, 0, joined, this.rules.length, rules.length);
+    return of(joined);
+  }
+
+  /**
+   * @return the message of the first failed rule, or null if the value is valid
+   */
+  public String check(T value) {
+    for (Rule<? super T> rule : rules) {
+      if (!rule.test(value)) return rule.getMessage();
+    }
+    return null;
+  }
+
+  /**
+   * @throws ValidationException if the value is invalid
+   */
+  public void validate(T value, String field) {
+    String error = check(value);
+    if (error != null)
+      throw new ValidationException(field, error);
+  }
+}
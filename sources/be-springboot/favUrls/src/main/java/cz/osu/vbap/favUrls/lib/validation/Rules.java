@@ -0,0 +1,72 @@
+package cz.osu.vbap.favUrls.lib.validation;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+
+/**
+ * The common rules. The text rules scan the characters directly, without regular expressions and allocations.
+ * Except for `NOT_NULL` and `NOT_BLANK`, the rules accept null (the field is optional unless required
+ * by one of these two).
+ */
+public class Rules {
+  public static final Rule<Object> NOT_NULL = Rule.of(q -> q != null, "must not be null");
+  public static final Rule<String> NOT_BLANK = Rule.of(q -> q != null && !q.isBlank(), "must not be blank");
+  /**
+   * At least one character before and after `@`, no line breaks (as `.+@.+`).
+   */
+  public static final Rule<String> EMAIL = Rule.of(q -> q == null || isEmail(q), "must be an email address");
+  /**
+   * Absolute `http` or `https` address with a host, without whitespace.
+   */
+  public static final Rule<String> HTTP_URL = Rule.of(q -> q == null || isHttpUrl(q), "must be an http(s) address");
+
+  public static Rule<String> maxLength(int maxLength) {
+    ArgVal.isTrue(maxLength >= 0, "maxLength");
+    return Rule.of(q -> q == null || q.length() <= maxLength, "must have " + maxLength + " characters at most");
+  }
+
+  public static Rule<String> hexDigits(int length) {
+    ArgVal.isTrue(length > 0, "length");
+    return Rule.of(q -> q == null || isHex(q, length), "must have " + length + " hexadecimal digits");
+  }
+
+  private static boolean isEmail(String text) {
+    int at = -1; // the first `@` after the first character
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (isLineBreak(c)) return false;
+      if (c == '@' && at == -1 && i > 0) at = i;
+    }
+    return at != -1 && at < text.length() - 1;
+  }
+
+  private static boolean isLineBreak(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isHttpUrl(String text) {
+    int hostStart;
+    if (text.regionMatches(true, 0, "https://", 0, 8))
+      hostStart = 8;
+    else if (text.regionMatches(true, 0, "http://", 0, 7))
+      hostStart = 7;
+    else
+      return false;
+
+    int hostEnd = hostStart;
+    while (hostEnd < text.length() && "/?#".indexOf(text.charAt(hostEnd)) == -1) hostEnd++;
+    if (hostEnd == hostStart) return false;
+    for (int i = hostStart; i < text.length(); i++) {
+      if (Character.isWhitespace(text.charAt(i))) return false;
+    }
+    return true;
+  }
+
+  private static boolean isHex(String text, int length) {
+    if (text.length() != length) return false;
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F')) return false;
+    }
+    return true;
+  }
+}
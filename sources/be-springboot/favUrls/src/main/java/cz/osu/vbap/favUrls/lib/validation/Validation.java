@@ -0,0 +1,38 @@
+package cz.osu.vbap.favUrls.lib.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks more fields (e.g. the parameters of a request) and reports all invalid ones at once:
+ * <pre>
+ * new Validation()
+ *         .check(Url.TITLE_RULES, title, "title")
+ *         .check(Url.ADDRESS_RULES, address, "address")
+ *         .throwIfInvalid();
+ * </pre>
+ */
+public class Validation {
+  private List<ValidationException.FieldError> errors; // created by the first error
+
+  public <T> Validation check(RuleSet<T> rules, T value, String field) {
+    String error = rules.check(value);
+    if (error != null) {
+      if (errors == null) errors = new ArrayList<>();
+      errors.add(new ValidationException.FieldError(field, error));
+    }
+    return this;
+  }
+
+  public boolean isValid() {
+    return errors == null;
+  }
+
+  /**
+   * @throws ValidationException with all errors, if any field is invalid
+   */
+  public void throwIfInvalid() {
+    if (errors != null)
+      throw new ValidationException(errors);
+  }
+}
@@ -0,0 +1,28 @@
+package cz.osu.vbap.favUrls.lib.validation;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Invalid values of one or more fields, returned by `ApiExceptionHandler` as 400 with the field errors.
+ */
+public class ValidationException extends IllegalArgumentException {
+
+  public record FieldError(String field, String message) {
+  }
+
+  private final List<FieldError> errors;
+
+  public ValidationException(List<FieldError> errors) {
+    super(errors.stream().map(q -> q.field() + " " + q.message()).collect(Collectors.joining(", ")));
+    this.errors = List.copyOf(errors);
+  }
+
+  public ValidationException(String field, String message) {
+    this(List.of(new FieldError(field, message)));
+  }
+
+  public List<FieldError> getErrors() {
+    return errors;
+  }
+}
@@ -0,0 +1,313 @@
+package cz.osu.vbap.favUrls.lib.web;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compression of responses with a configurable compression level (the compression of the embedded
+ * server does not allow to set it). The response is compressed only if the client accepts gzip,
+ * the content type is one of the given types and the body has at least `minResponseSize` bytes;
+ * smaller bodies are buffered and sent uncompressed. Bodies are compressed as they are written,
+ * so the whole response is never held in memory.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final int minResponseSize;
+  private final int level;
+  private final List<MediaType> mimeTypes;
+
+  /**
+   * @param minResponseSize the smallest compressed body in bytes
+   * @param level           the compression level, 1 (fastest) to 9 (smallest)
+   * @param mimeTypes       the compressed content types, without parameters
+   */
+  public CompressionFilter(int minResponseSize, int level, Collection<String> mimeTypes) {
+    ArgVal.isTrue(minResponseSize >= 0, "minResponseSize");
+    ArgVal.isTrue(level >= 1 && level <= 9, "level");
+    ArgVal.notNull(mimeTypes, "mimeTypes");
+    this.minResponseSize = minResponseSize;
+    this.level = level;
+    this.mimeTypes = mimeTypes.stream().map(q -> MediaType.parseMediaType(q.trim())).toList();
+  }
+
+  @Override
+  protected void doFilterInternal(
+          HttpServletRequest request,
+          HttpServletResponse response,
+          FilterChain filterChain)
+          throws ServletException, IOException {
+    if (!acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    CompressingResponse compressingResponse = new CompressingResponse(response);
+    try {
+      filterChain.doFilter(request, compressingResponse);
+    } finally {
+      compressingResponse.finish();
+    }
+  }
+
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) return false;
+    for (String item : acceptEncoding.split(",")) {
+      String[] parts = item.trim().split(";");
+      if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+      return isAcceptable(parts);
+    }
+    return false;
+  }
+
+  // the header comes from the client, a malformed weight makes the coding not acceptable instead of failing
+  private static boolean isAcceptable(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+      if (!parameter.startsWith("q=")) continue;
+      try {
+        if (Double.parseDouble(parameter.substring(2)) == 0)
+          return false;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isCompressible(String contentType) {
+    if (contentType == null) return false;
+    MediaType mediaType;
+    try {
+      mediaType = MediaType.parseMediaType(contentType);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    return mimeTypes.stream().anyMatch(q -> q.includes(mediaType));
+  }
+
+  private class CompressingResponse extends HttpServletResponseWrapper {
+    private CompressingOutputStream outputStream;
+    private PrintWriter writer;
+    private long contentLength = -1;
+
+    private CompressingResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (writer != null) throw new IllegalStateException("getWriter() has already been called.");
+      if (outputStream == null)
+        outputStream = new CompressingOutputStream(this);
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        if (outputStream != null) throw new IllegalStateException("getOutputStream() has already been called.");
+        String charset = getCharacterEncoding() == null ? StandardCharsets.ISO_8859_1.name() : getCharacterEncoding();
+        outputStream = new CompressingOutputStream(this);
+        writer = new PrintWriter(new OutputStreamWriter(outputStream, charset));
+      }
+      return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+      setContentLengthLong(len);
+    }
+
+    // the length is passed on only when decided not to compress
+    @Override
+    public void setContentLengthLong(long len) {
+      if (outputStream != null && outputStream.mode == Mode.PASS_THROUGH)
+        super.setContentLengthLong(len);
+      else
+        contentLength = len;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+      if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name))
+        setContentLengthLong(value == null ? -1 : Long.parseLong(value));
+      else
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name))
+        setHeader(name, value);
+      else
+        super.addHeader(name, value);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (writer != null)
+        writer.flush();
+      if (outputStream != null)
+        outputStream.flush();
+      else
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+      super.resetBuffer();
+      if (outputStream != null)
+        outputStream.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+      super.reset();
+      contentLength = -1;
+      if (outputStream != null)
+        outputStream.resetBuffer();
+    }
+
+    private void finish() throws IOException {
+      if (writer != null)
+        writer.flush();
+      if (outputStream != null)
+        outputStream.finish();
+      else if (contentLength >= 0)
+        super.setContentLengthLong(contentLength);
+    }
+
+    private void setUncompressedContentLength(long length) {
+      super.setContentLengthLong(contentLength >= 0 ? contentLength : length);
+    }
+  }
+
+  private enum Mode {
+    BUFFERING,
+    PASS_THROUGH,
+    COMPRESSING
+  }
+
+  private class CompressingOutputStream extends ServletOutputStream {
+    private final CompressingResponse response;
+    private Mode mode = Mode.BUFFERING;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(minResponseSize, BUFFER_SIZE));
+    private OutputStream target;
+
+    private CompressingOutputStream(CompressingResponse response) {
+      this.response = response;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (mode == Mode.BUFFERING) {
+        if (!isCompressible(response.getContentType())
+                || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+          startPassThrough(-1);
+        } else if (buffer.size() + len >= minResponseSize) {
+          startCompressing();
+        } else {
+          buffer.write(b, off, len);
+          return;
+        }
+      }
+      target.write(b, off, len);
+    }
+
+    /**
+     * While buffering, flush does nothing; the decision whether to compress is postponed.
+     */
+    @Override
+    public void flush() throws IOException {
+      if (target != null)
+        target.flush();
+    }
+
+    private void startPassThrough(long contentLength) throws IOException {
+      mode = Mode.PASS_THROUGH;
+      if (contentLength >= 0)
+        response.setUncompressedContentLength(contentLength);
+      else if (response.contentLength >= 0)
+        response.setUncompressedContentLength(response.contentLength);
+      target = response.getResponse().getOutputStream();
+      writeBuffer();
+    }
+
+    private void startCompressing() throws IOException {
+      mode = Mode.COMPRESSING;
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+      target = new GZIPOutputStream(response.getResponse().getOutputStream(), BUFFER_SIZE) {
+        {
+          def.setLevel(level);
+        }
+      };
+      writeBuffer();
+    }
+
+    private void writeBuffer() throws IOException {
+      buffer.writeTo(target);
+      buffer = null;
+    }
+
+    /**
+     * Starts again from buffering; the underlying response is reset by the caller (or throws if committed).
+     */
+    private void resetBuffer() {
+      if (mode == Mode.COMPRESSING)
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, null);
+      mode = Mode.BUFFERING;
+      buffer = new ByteArrayOutputStream(Math.min(minResponseSize, BUFFER_SIZE));
+      target = null;
+    }
+
+    private void finish() throws IOException {
+      switch (mode) {
+        case BUFFERING -> {
+          if (buffer.size() == 0 && response.contentLength < 0) return; // nothing written, e.g. sendError()
+          startPassThrough(buffer.size());
+        }
+        case COMPRESSING -> ((GZIPOutputStream) target).finish();
+        case PASS_THROUGH -> {
+        }
+      }
+      target.flush();
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      throw new UnsupportedOperationException("Asynchronous writes are not supported.");
+    }
+  }
+}
@@ -2,8 +2,11 @@ package cz.osu.vbap.favUrls.model.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.jetbrains.annotations.Contract;
-import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.validation.RuleSet;
+import cz.osu.vbap.favUrls.lib.validation.Rules;
 
 import java.util.Collection;
 
@@ -11,11 +14,22 @@ import java.util.Collection;
 @Setter
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "appUser")
+@Table(indexes = {
+        @Index(columnList = "email, password_hash", name = "IX_app_user_email_password_hash")
+}, uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"email"}, name = "UQ_app_user_email")
+})
 public class AppUser {
+  public static final int EMAIL_LENGTH = 64;
+  public static final RuleSet<String> EMAIL_RULES =
+          RuleSet.of(Rules.NOT_BLANK, Rules.maxLength(EMAIL_LENGTH), Rules.EMAIL);
+
   @Id
   @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
   private int appUserId;
-  @Column(unique = true, nullable = false, length = 64)
+  @Column(nullable = false, length = EMAIL_LENGTH)
   private String email;
   private String passwordHash;
 
@@ -30,7 +44,7 @@ public class AppUser {
 
   @Contract(pure = true)
   public AppUser(@NonNull String email) {
-    ArgVal.matchRegex(email, ".+@.+", "email");
+    EMAIL_RULES.validate(email, "email");
     this.email = email;
   }
 
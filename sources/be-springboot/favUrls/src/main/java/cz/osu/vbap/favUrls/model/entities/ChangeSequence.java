@@ -0,0 +1,27 @@
+package cz.osu.vbap.favUrls.model.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The change sequence of the user, see `SyncService`. Written only by native queries
+ * (`ChangeSequenceRepository`), the row is created by the first change of the user.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class ChangeSequence {
+  @Id
+  private int appUserId;
+  // the last allocated change
+  @Column(nullable = false)
+  private long seq;
+  // the last change of the purged tombstones, older cursors cannot be synced incrementally
+  @Column(nullable = false)
+  private long purgedSeq;
+}
@@ -0,0 +1,41 @@
+package cz.osu.vbap.favUrls.model.entities;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.HashUtil;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.jetbrains.annotations.Contract;
+
+/**
+ * Favicon of a web page. Content-addressed (the id is the hash of the data), so the same icon is stored only once
+ * and shared by all urls of all users.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class Favicon {
+  public static final int MAX_DATA_LENGTH = 1_000_000;
+
+  @Id
+  @Column(length = HashUtil.SHA256_HEX_LENGTH)
+  private String hash;
+  @Column(nullable = false, length = 64)
+  private String contentType;
+  @Lob
+  @Column(nullable = false, length = MAX_DATA_LENGTH)
+  private byte[] data;
+
+  @Contract(pure = true)
+  public Favicon(String contentType, byte[] data) {
+    ArgVal.notWhitespace(contentType, "contentType");
+    ArgVal.notNull(data, "data");
+    ArgVal.isTrue(data.length <= MAX_DATA_LENGTH, "data");
+
+    this.hash = HashUtil.sha256Hex(data);
+    this.contentType = contentType;
+    this.data = data;
+  }
+}
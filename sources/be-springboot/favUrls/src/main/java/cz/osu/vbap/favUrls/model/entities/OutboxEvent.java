@@ -0,0 +1,57 @@
+package cz.osu.vbap.favUrls.model.entities;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.jetbrains.annotations.Contract;
+
+import java.time.LocalDateTime;
+
+/**
+ * The change of an url waiting for the dispatch to the consumers, see `OutboxService`.
+ * Stored in the same transaction (and shard) as the change; the url itself is not referenced,
+ * as it may be deleted meanwhile.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class OutboxEvent {
+  public static final int TYPE_LENGTH = 16;
+
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  @Id
+  @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+  private long outboxEventId;
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = TYPE_LENGTH)
+  private Type type;
+  @Column(nullable = false)
+  private int appUserId;
+  @Column(nullable = false)
+  private int urlId;
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+  // failed dispatches
+  @Column(nullable = false)
+  private int attempts;
+  // the end of the lease of the dispatching instance or of the backoff after a failure, null if free
+  private LocalDateTime nextAttemptAt;
+
+  @Contract(pure = true)
+  public OutboxEvent(Type type, int appUserId, int urlId) {
+    ArgVal.notNull(type, "type");
+
+    this.type = type;
+    this.appUserId = appUserId;
+    this.urlId = urlId;
+    this.createdAt = LocalDateTime.now();
+  }
+}
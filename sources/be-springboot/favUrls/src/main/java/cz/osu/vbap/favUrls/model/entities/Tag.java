@@ -1,11 +1,15 @@
 package cz.osu.vbap.favUrls.model.entities;
 
 import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.validation.RuleSet;
+import cz.osu.vbap.favUrls.lib.validation.Rules;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.jetbrains.annotations.Contract;
 
 import java.util.Collection;
@@ -14,17 +18,29 @@ import java.util.Collection;
 @Getter
 @NoArgsConstructor
 @Setter
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tag")
+@Table(indexes = {
+        @Index(columnList = "app_user_id, title, color", name = "IX_tag_app_user"),
+        @Index(columnList = "app_user_id, change_seq", name = "IX_tag_app_user_change_seq")
+})
 public class Tag {
   private final static int COLOR_LENGTH = 3;
+  public static final int TITLE_LENGTH = 255;
+  public static final RuleSet<String> TITLE_RULES = RuleSet.of(Rules.NOT_BLANK, Rules.maxLength(TITLE_LENGTH));
+  public static final RuleSet<String> COLOR_RULES = RuleSet.of(Rules.NOT_NULL, Rules.hexDigits(COLOR_LENGTH));
 
   @Id
   @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
   private int tagId;
-  @Column(nullable = false)
+  @Column(nullable = false, length = TITLE_LENGTH)
   private String title;
   @Column(nullable = false, length = COLOR_LENGTH)
   @Size(min = COLOR_LENGTH, max = COLOR_LENGTH)
   private String color;
+  // the last change of the tag in the change sequence of the user, see `SyncService`
+  @Column(nullable = false)
+  private long changeSeq;
 
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "app_user_id", foreignKey = @ForeignKey(name = "FK_tag_app_user"))
@@ -35,19 +51,12 @@ public class Tag {
 
   @Contract(pure = true)
   public Tag(AppUser user, String title, String color) {
-    if (user == null)
-      throw new IllegalArgumentException("User is null");
-    if (title == null || title.trim().isEmpty())
-      throw new IllegalArgumentException("Title is empty.");
-    if (color.matches("[0-9a-fA-F]{" + COLOR_LENGTH + "}"))
-      throw new IllegalArgumentException("Color does not match the specified regular expression.");
-
     ArgVal.notNull(user, "user");
-    ArgVal.notWhitespace(title, "title");
-    ArgVal.matchRegex(color, "[0-9a-fA-F]{" + COLOR_LENGTH + "}", "color");
+    TITLE_RULES.validate(title, "title");
+    COLOR_RULES.validate(color, "color");
 
     this.title = title;
-    this.appUser = appUser;
+    this.appUser = user;
     this.color = color;
   }
 }
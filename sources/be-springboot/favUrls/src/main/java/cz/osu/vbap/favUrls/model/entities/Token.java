@@ -1,6 +1,7 @@
 package cz.osu.vbap.favUrls.model.entities;
 
 import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.HashUtil;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -8,21 +9,29 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.jetbrains.annotations.Contract;
 
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor
 @Table(uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"app_user_id"}, name = "UQ_token_app_user")
+        @UniqueConstraint(columnNames = {"app_user_id"}, name = "UQ_token_app_user"),
+        @UniqueConstraint(columnNames = {"value_hash"}, name = "UQ_token_value_hash")
 })
 public class Token {
+  public static final int VALUE_LENGTH = 512;
+
   @Id
   @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
   private int tokenId;
-  @Column(unique = true, nullable = false)
+  @Column(nullable = false, length = VALUE_LENGTH)
   private String value;
+  /**
+   * Tokens are looked up by this hash, the index on the long value would be unnecessarily large.
+   */
+  @Column(name = "value_hash", nullable = false, length = HashUtil.SHA256_HEX_LENGTH)
+  private String valueHash;
 
   @ManyToOne
   @JoinColumn(name = "app_user_id", foreignKey = @ForeignKey(name = "FK_token_app_user"))
@@ -36,4 +45,17 @@ public class Token {
     this.value = value;
     this.appUser = appUser;
   }
+
+  @PrePersist
+  @PreUpdate
+  private void prePersistCheck() {
+    if (value != null)
+      valueHash = hashOf(value);
+  }
+
+  @Contract(pure = true)
+  public static String hashOf(String value) {
+    ArgVal.notNull(value, "value");
+    return HashUtil.sha256Hex(value.getBytes(StandardCharsets.UTF_8));
+  }
 }
@@ -0,0 +1,57 @@
+package cz.osu.vbap.favUrls.model.entities;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.jetbrains.annotations.Contract;
+
+import java.time.LocalDateTime;
+
+/**
+ * The deleted url or tag, kept for the delta sync of the clients (see `SyncService`).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(columnList = "app_user_id, change_seq", name = "IX_tombstone_app_user_change_seq"),
+        @Index(columnList = "created_at", name = "IX_tombstone_created_at")
+})
+public class Tombstone {
+  public static final int TYPE_LENGTH = 8;
+
+  public enum Type {
+    URL,
+    TAG
+  }
+
+  @Id
+  @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+  private long tombstoneId;
+  @Column(nullable = false)
+  private int appUserId;
+  @Column(nullable = false)
+  private long changeSeq;
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = TYPE_LENGTH)
+  private Type type;
+  // the id of the deleted url or tag
+  @Column(nullable = false)
+  private int entityId;
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+
+  @Contract(pure = true)
+  public Tombstone(int appUserId, long changeSeq, Type type, int entityId) {
+    ArgVal.notNull(type, "type");
+
+    this.appUserId = appUserId;
+    this.changeSeq = changeSeq;
+    this.type = type;
+    this.entityId = entityId;
+    this.createdAt = LocalDateTime.now();
+  }
+}
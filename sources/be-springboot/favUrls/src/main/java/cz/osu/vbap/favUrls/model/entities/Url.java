@@ -1,12 +1,19 @@
 package cz.osu.vbap.favUrls.model.entities;
 
 import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.HashUtil;
+import cz.osu.vbap.favUrls.lib.UrlCanonicalizer;
+import cz.osu.vbap.favUrls.lib.validation.RuleSet;
+import cz.osu.vbap.favUrls.lib.validation.Rules;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.jetbrains.annotations.Contract;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -14,31 +21,63 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(columnList = "app_user_id, change_seq", name = "IX_url_app_user_change_seq")
+}, uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"app_user_id", "address_hash"}, name = "UQ_url_app_user_address_hash")
+})
 public class Url {
+  public static final int TITLE_LENGTH = 256;
+  public static final int DESCRIPTION_LENGTH = 512;
+  public static final int ADDRESS_LENGTH = 255;
+  public static final int CHECK_TARGET_LENGTH = 255;
+  public static final RuleSet<String> TITLE_RULES = RuleSet.of(Rules.NOT_BLANK, Rules.maxLength(TITLE_LENGTH));
+  // the entity keeps any address (see `UrlCanonicalizer`), the requests require `Rules.HTTP_URL` in addition
+  public static final RuleSet<String> ADDRESS_RULES = RuleSet.of(Rules.NOT_BLANK, Rules.maxLength(ADDRESS_LENGTH));
+
   @Id
   @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
   private int urlId;
-  @Column(nullable = false, length = 256)
+  @Column(nullable = false, length = TITLE_LENGTH)
   private String title;
-  @Column(nullable = false)
+  @Column(nullable = false, length = ADDRESS_LENGTH)
   private String address;
+  @Column(name = "address_hash", nullable = false, length = UrlCanonicalizer.HASH_LENGTH)
+  private String addressHash;
+
+  // filled asynchronously from the page itself, see `PageEnrichmentService`
+  @Column(length = DESCRIPTION_LENGTH)
+  private String description;
+  @Column(length = HashUtil.SHA256_HEX_LENGTH)
+  private String faviconHash;
+
+  // result of the last link-health check, see `LinkCheckService`
+  private Integer lastCheckStatus;
+  @Column(length = CHECK_TARGET_LENGTH)
+  private String lastCheckTarget;
+  private LocalDateTime lastCheckedAt;
+
+  // the last change of the url in the change sequence of the user, see `SyncService`
+  @Column(nullable = false)
+  private long changeSeq;
 
   @ManyToOne
   @JoinColumn(name = "app_user_id", foreignKey = @ForeignKey(name = "FK_url_app_user"))
   private AppUser appUser;
 
   @ManyToMany
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "urlTags")
   @JoinTable(name = "url_tag",
           joinColumns = @JoinColumn(name = "url_id", foreignKey = @ForeignKey(name = "FK_url_tag_url")),
-          inverseJoinColumns = @JoinColumn(name = "tag_id", foreignKey = @ForeignKey(name = "FK_url_tag_tag")))
+          inverseJoinColumns = @JoinColumn(name = "tag_id", foreignKey = @ForeignKey(name = "FK_url_tag_tag")),
+          indexes = @Index(columnList = "tag_id, url_id", name = "IX_url_tag_tag"))
   private Collection<Tag> tags;
 
   @Contract(pure = true)
   public Url(AppUser appUser, String title, String address, Tag... tags) {
     ArgVal.notNull(appUser, "user");
-    ArgVal.notWhitespace(title, "title");
-    ArgVal.isTrue(() -> title.length() <= 256, "Title must have 256 characters at most.");
-    ArgVal.notWhitespace(address, "address");
+    TITLE_RULES.validate(title, "title");
+    ADDRESS_RULES.validate(address, "address");
 
     this.appUser = appUser;
     this.title = title;
@@ -47,4 +86,29 @@ public class Url {
       this.tags = List.of(tags);
     }
   }
+
+  public void setAddress(String address) {
+    this.address = address;
+    this.addressHash = null; // canonicalized and hashed on persist
+  }
+
+  /**
+   * Sets the address already canonicalized by `UrlCanonicalizer` with its hash, so it is not canonicalized
+   * again on persist.
+   */
+  public void setCanonicalAddress(String canonicalAddress, String addressHash) {
+    ArgVal.notNull(canonicalAddress, "canonicalAddress");
+    ArgVal.notNull(addressHash, "addressHash");
+    this.address = canonicalAddress;
+    this.addressHash = addressHash;
+  }
+
+  @PrePersist
+  @PreUpdate
+  private void prePersistCheck() {
+    if (address != null && addressHash == null) {
+      address = UrlCanonicalizer.canonicalize(address);
+      addressHash = UrlCanonicalizer.hash(address);
+    }
+  }
 }
@@ -1,10 +1,27 @@
 package cz.osu.vbap.favUrls.model.repositories;
 
 import cz.osu.vbap.favUrls.model.entities.AppUser;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface AppUserRepository extends JpaRepository<AppUser, Integer> {
+  @Transactional(readOnly = true)
   Optional<AppUser> findByEmail(String email);
+
+  /**
+   * Inserts the copy of the existing user (with the same id) into the current shard.
+   * The query space limits the eviction of the second-level cache to the `appUser` region.
+   */
+  @Modifying
+  @Transactional
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "app_user"))
+  @Query(value = "insert into app_user (app_user_id, email, password_hash) values (?1, ?2, ?3)", nativeQuery = true)
+  void insertCopy(int appUserId, String email, String passwordHash);
 }
@@ -0,0 +1,42 @@
+package cz.osu.vbap.favUrls.model.repositories;
+
+import cz.osu.vbap.favUrls.model.entities.ChangeSequence;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ChangeSequenceRepository extends JpaRepository<ChangeSequence, Integer> {
+  /**
+   * Increments the change sequence of the user (creates it for the first change). The row stays locked
+   * until the end of the transaction, so the changes of one user are serialized.
+   */
+  @Modifying
+  @Transactional(propagation = Propagation.MANDATORY)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "change_sequence"))
+  @Query(value = "insert into change_sequence (app_user_id, seq, purged_seq) values (?1, 1, 0) " +
+          "on duplicate key update seq = seq + 1", nativeQuery = true)
+  void increment(int appUserId);
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  @Query("select c.seq from ChangeSequence c where c.appUserId = ?1")
+  long findSeq(int appUserId);
+
+  /**
+   * Moves `purgedSeq` of the users to their last tombstone created before the time.
+   */
+  @Modifying
+  @Transactional
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "change_sequence"))
+  @Query(value = "update change_sequence c set purged_seq = (select max(t.change_seq) from tombstone t " +
+          "where t.app_user_id = c.app_user_id and t.created_at < ?1) " +
+          "where exists (select 1 from tombstone t where t.app_user_id = c.app_user_id and t.created_at < ?1)",
+          nativeQuery = true)
+  int updatePurgedSeq(LocalDateTime createdBefore);
+}
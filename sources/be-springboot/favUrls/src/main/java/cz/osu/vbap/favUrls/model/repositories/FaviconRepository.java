@@ -0,0 +1,7 @@
+package cz.osu.vbap.favUrls.model.repositories;
+
+import cz.osu.vbap.favUrls.model.entities.Favicon;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FaviconRepository extends JpaRepository<Favicon, String> {
+}
@@ -0,0 +1,37 @@
+package cz.osu.vbap.favUrls.model.repositories;
+
+import cz.osu.vbap.favUrls.model.entities.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+  /**
+   * Returns the oldest events of the users without an event waiting for its next attempt (leased by a dispatcher
+   * or backed off after a failure), locked until the end of the transaction, so the dispatchers of more instances
+   * do not claim the same events concurrently (and out of order).
+   *
+   * @param now   the current time
+   * @param limit the batch size
+   * @return the events ordered by id, i.e. by the order of the changes
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select e from OutboxEvent e where not exists (select b.outboxEventId from OutboxEvent b " +
+          "where b.appUserId = e.appUserId and b.nextAttemptAt > ?1) order by e.outboxEventId")
+  List<OutboxEvent> findDispatchable(LocalDateTime now, Limit limit);
+
+  @Modifying
+  @Query("update OutboxEvent e set e.attempts = ?2, e.nextAttemptAt = ?3 where e.outboxEventId = ?1")
+  int updateAttempt(long outboxEventId, int attempts, LocalDateTime nextAttemptAt);
+
+  @Modifying
+  @Query("update OutboxEvent e set e.nextAttemptAt = null where e.outboxEventId in ?1")
+  int release(Collection<Long> outboxEventIds);
+}
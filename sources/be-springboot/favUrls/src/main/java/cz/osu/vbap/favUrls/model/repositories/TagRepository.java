@@ -1,7 +1,20 @@
 package cz.osu.vbap.favUrls.model.repositories;
 
+import cz.osu.vbap.favUrls.model.entities.AppUser;
 import cz.osu.vbap.favUrls.model.entities.Tag;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface TagRepository extends JpaRepository<Tag, Integer> {
+  @Transactional(readOnly = true)
+  List<Tag> findByAppUser(AppUser appUser);
+
+  /**
+   * Returns the tags of the user changed after the change, backed by `(app_user_id, change_seq)` index.
+   */
+  @Transactional(readOnly = true)
+  List<Tag> findByAppUserAndChangeSeqGreaterThanOrderByChangeSeqAsc(AppUser appUser, long changeSeq, Limit limit);
 }
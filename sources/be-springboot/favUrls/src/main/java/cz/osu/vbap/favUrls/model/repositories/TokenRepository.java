@@ -3,21 +3,34 @@ package cz.osu.vbap.favUrls.model.repositories;
 import cz.osu.vbap.favUrls.model.entities.AppUser;
 import cz.osu.vbap.favUrls.model.entities.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Integer> {
   Optional<Token> findByAppUser(AppUser appUser);
 
-  Optional<Token> findByValue(String value);
+  Optional<Token> findByValueHash(String valueHash);
+
+  default Optional<Token> findByValue(String value) {
+    return findByValueHash(Token.hashOf(value));
+  }
 
   /**
    * Deletes a token by its value. Thread-safe option.
    *
-   * @param value the value of the token to delete
+   * @param valueHash the hash of the value of the token to delete, see `Token.hashOf()`
    */
-  @Query(value = "delete from Token where value = ?1", nativeQuery = true)
-  void deleteByValue(String value);
+  @Modifying
+  @Transactional
+  @Query(value = "delete from token where value_hash = ?1", nativeQuery = true)
+  void deleteByValueHash(String valueHash);
+
+  default void deleteByValue(String value) {
+    deleteByValueHash(Token.hashOf(value));
+  }
+
   void deleteByAppUser(AppUser appUser);
 }
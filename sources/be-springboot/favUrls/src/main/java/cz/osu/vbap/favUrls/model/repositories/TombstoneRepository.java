@@ -0,0 +1,24 @@
+package cz.osu.vbap.favUrls.model.repositories;
+
+import cz.osu.vbap.favUrls.model.entities.Tombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+  /**
+   * Returns the deletions after the change, backed by `(app_user_id, change_seq)` index.
+   */
+  @Transactional(readOnly = true)
+  List<Tombstone> findByAppUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(int appUserId, long changeSeq, Limit limit);
+
+  @Modifying
+  @Transactional
+  @Query("delete from Tombstone t where t.createdAt < ?1")
+  int deleteCreatedBefore(LocalDateTime createdBefore);
+}
@@ -2,10 +2,89 @@ package cz.osu.vbap.favUrls.model.repositories;
 
 import cz.osu.vbap.favUrls.model.entities.AppUser;
 import cz.osu.vbap.favUrls.model.entities.Url;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface UrlRepository extends JpaRepository<Url, Integer> {
+    interface AddressView {
+        int getUrlId();
+
+        String getAddress();
+
+        int getAppUserId();
+    }
+
+    @Transactional(readOnly = true)
     List<Url> findByAppUser(AppUser appUser);
+
+    /**
+     * Finds the url of the user by the hash of its canonical address. Backed by `(app_user_id, address_hash)` unique index.
+     *
+     * @param appUser the owner of the url
+     * @param addressHash the hash of the canonical address, see `UrlCanonicalizer.hash()`
+     * @return the url, if exists
+     */
+    Optional<Url> findByAppUserAndAddressHash(AppUser appUser, String addressHash);
+
+    /**
+     * Returns the urls of the user changed after the change, backed by `(app_user_id, change_seq)` index.
+     *
+     * @param appUser the owner of the urls
+     * @param changeSeq the change sequence cursor of the client
+     * @param limit the maximum count of the urls
+     * @return the urls ordered by their last change
+     */
+    @Transactional(readOnly = true)
+    List<Url> findByAppUserAndChangeSeqGreaterThanOrderByChangeSeqAsc(AppUser appUser, long changeSeq, Limit limit);
+
+    /**
+     * Returns the next batch of url addresses using keyset paging (no offset scanning).
+     *
+     * @param urlId the last url id of the previous batch (0 for the first batch)
+     * @param limit the batch size
+     * @return ids, addresses and users of urls with id greater than `urlId`, ordered by id
+     */
+    @Transactional(readOnly = true)
+    @Query("select u.urlId as urlId, u.address as address, u.appUser.appUserId as appUserId from Url u " +
+            "where u.urlId > ?1 order by u.urlId")
+    List<AddressView> findByUrlIdGreaterThanOrderByUrlIdAsc(int urlId, Limit limit);
+
+    /**
+     * The query space of the updates of the url columns, which are not in the second-level cache
+     * (the `Url` entity is not cached). Hibernate evicts only the cache regions of the entities sharing
+     * the query space with a native update; the table name `url` would evict the whole `urlTags` region
+     * on every call, so a space of no entity is declared.
+     */
+    String UNCACHED_URL_COLUMNS_SPACE = "url_uncached_columns";
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = UNCACHED_URL_COLUMNS_SPACE))
+    @Query(value = "update url set last_check_status = ?2, last_check_target = ?3, last_checked_at = ?4 " +
+            "where url_id = ?1", nativeQuery = true)
+    int updateCheckResult(int urlId, int status, String finalAddress, LocalDateTime checkedAt);
+
+    /**
+     * Stores the metadata downloaded from the page. The title is replaced only if the user did not provide
+     * any (then the title equals to the address).
+     *
+     * @param changeSeq the change allocated for the update, see `SyncService.nextChangeSeq()`
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = UNCACHED_URL_COLUMNS_SPACE))
+    @Query(value = "update url set description = ?3, favicon_hash = ?4, change_seq = ?5, " +
+            "title = case when title = address then coalesce(?2, title) else title end " +
+            "where url_id = ?1", nativeQuery = true)
+    int updateMetadata(int urlId, String title, String description, String faviconHash, long changeSeq);
 }
@@ -1,29 +1,45 @@
 package cz.osu.vbap.favUrls.security;
 
+import cz.osu.vbap.favUrls.lib.ArgVal;
 import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.http.HttpMethod;
-import org.springframework.stereotype.Component;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
-import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
-@Component
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The CORS policy of all paths (`app.cors.*`), built once and shared by all requests; the CORS processing
+ * only reads it. The preflight responses are cached by the browsers for `maxAge`, so a client sends
+ * the preflight of a request only once per this time.
+ */
 public class AppCorsConfigurationSource implements CorsConfigurationSource {
-  @Override
-  public CorsConfiguration getCorsConfiguration(HttpServletRequest request) {
-    CorsConfiguration ret = new CorsConfiguration();
+  private final CorsConfiguration configuration;
 
-    ret.addAllowedOrigin("http://localhost:3000");
-    ret.addAllowedMethod(HttpMethod.GET);
-    ret.addAllowedMethod(HttpMethod.POST);
-    ret.addAllowedMethod(HttpMethod.PATCH);
-    ret.addAllowedMethod(HttpMethod.DELETE);
-    ret.addAllowedHeader("*");
-    ret.setAllowCredentials(true);
+  /**
+   * @param allowedOrigins the origins of the clients (e.g. `http://localhost:3000`)
+   * @param allowedMethods the allowed methods, `*` for all
+   * @param maxAge         how long the browsers may cache the preflight responses
+   */
+  public AppCorsConfigurationSource(Collection<String> allowedOrigins, Collection<String> allowedMethods,
+                                    Duration maxAge) {
+    ArgVal.notNull(allowedOrigins, "allowedOrigins");
+    ArgVal.notNull(allowedMethods, "allowedMethods");
+    ArgVal.notNull(maxAge, "maxAge");
 
-    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-    source.registerCorsConfiguration("/**", ret);
+    CorsConfiguration configuration = new CorsConfiguration();
+    configuration.setAllowedOrigins(List.copyOf(allowedOrigins));
+    configuration.setAllowedMethods(List.copyOf(allowedMethods));
+    configuration.addAllowedHeader(CorsConfiguration.ALL);
+    configuration.setAllowCredentials(true);
+    configuration.setMaxAge(maxAge);
+    configuration.validateAllowCredentials();
+    this.configuration = configuration;
+  }
 
-    return ret;
+  @Override
+  public CorsConfiguration getCorsConfiguration(HttpServletRequest request) {
+    return configuration;
   }
 }
@@ -1,17 +1,24 @@
 package cz.osu.vbap.favUrls.security;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 
 @Getter
-@RequiredArgsConstructor
 public class AppUserDetails implements UserDetails {
-  private final Collection<? extends GrantedAuthority> authorities = new HashSet<>();
+  private final Collection<? extends GrantedAuthority> authorities;
   private final String username;
   private final String password = null;
+
+  public AppUserDetails(String username) {
+    this(username, List.of());
+  }
+
+  public AppUserDetails(String username, Collection<? extends GrantedAuthority> authorities) {
+    this.username = username;
+    this.authorities = authorities;
+  }
 }
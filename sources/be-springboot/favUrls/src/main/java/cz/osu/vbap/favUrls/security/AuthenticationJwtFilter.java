@@ -6,9 +6,13 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import cz.osu.vbap.favUrls.SecurityConfiguration;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -16,6 +20,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 @Component
 public class AuthenticationJwtFilter extends OncePerRequestFilter {
@@ -31,8 +37,13 @@ public class AuthenticationJwtFilter extends OncePerRequestFilter {
     ERROR
   }
 
+  private static final List<GrantedAuthority> ADMIN_AUTHORITIES =
+          List.of(new SimpleGrantedAuthority("ROLE_" + SecurityConfiguration.ADMIN_ROLE));
+
   @Autowired
   private JwtTokenUtil jwtTokenUtil;
+  @Value("${app.security.adminEmails:}")
+  private Set<String> adminEmails;
 
   private static final Logger logger = LoggerFactory.getLogger(AuthenticationJwtFilter.class);
 
@@ -83,7 +94,9 @@ public class AuthenticationJwtFilter extends OncePerRequestFilter {
   private void processValidToken(HttpServletRequest request, String jwt) {
     String email = jwtTokenUtil.getSubject(jwt);
 
-    AppUserDetails userDetails = new AppUserDetails(email);
+    AppUserDetails userDetails = adminEmails.contains(email)
+            ? new AppUserDetails(email, ADMIN_AUTHORITIES)
+            : new AppUserDetails(email);
     UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                     userDetails,
@@ -1,7 +1,9 @@
 package cz.osu.vbap.favUrls.security;
 
+import cz.osu.vbap.favUrls.lib.ArgVal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.web.csrf.CsrfToken;
@@ -9,13 +11,34 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Sends the CSRF cookie to the clients which do not have it yet. The token is deferred by Spring Security,
+ * so for a client with the cookie it is loaded only by the requests checked by `CsrfFilter` (POST, DELETE...);
+ * the other requests neither read nor generate it.
+ */
 public final class CsrfCookieFilter extends OncePerRequestFilter {
+  private final String cookieName;
+
+  public CsrfCookieFilter(String cookieName) {
+    ArgVal.notWhitespace(cookieName, "cookieName");
+    this.cookieName = cookieName;
+  }
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
           throws ServletException, IOException {
-    CsrfToken csrfToken = (CsrfToken) request.getAttribute("_csrf");
-    csrfToken.getToken(); // Render the token value to a cookie by causing the deferred token to be loaded
+    CsrfToken csrfToken = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+    if (csrfToken != null && !hasCookie(request))
+      csrfToken.getToken(); // Render the token value to a cookie by causing the deferred token to be loaded
     filterChain.doFilter(request, response);
   }
+
+  private boolean hasCookie(HttpServletRequest request) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies == null) return false;
+    for (Cookie cookie : cookies) {
+      if (cookie.getName().equals(cookieName) && !cookie.getValue().isEmpty()) return true;
+    }
+    return false;
+  }
 }
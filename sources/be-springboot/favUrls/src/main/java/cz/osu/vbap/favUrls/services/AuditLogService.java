@@ -0,0 +1,205 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.eventlog.EventLog;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit log of url changes and logins in the local `EventLog` (`app.auditLog.directory`), so the history
+ * does not add writes to the database. The changes are appended after the commit of their transaction;
+ * a failed append is logged and counted by `favUrls.auditLog.failed`, it does not fail the change itself.
+ * The log is flushed to the disk every `app.auditLog.flushIntervalMillis`.
+ * <p>
+ * Only one instance may use the directory, the log of any other one is disabled (with a warning).
+ */
+@Service
+public class AuditLogService extends AppService {
+
+  public enum Type {
+    URL_CREATED, URL_UPDATED, URL_DELETED, LOGIN, LOGOUT
+  }
+
+  /**
+   * @param title   the title of the url at the time of the change, null for the logins
+   * @param address the address of the url at the time of the change, null for the logins
+   */
+  public record AuditEvent(long offset, Instant time, Type type, int appUserId, int urlId,
+                           String title, String address) {
+  }
+
+  @Value("${app.auditLog.enabled:true}")
+  private boolean enabled;
+  @Value("${app.auditLog.directory:data/auditLog}")
+  private String directory;
+  @Value("${app.auditLog.segmentSizeMegabytes:64}")
+  private int segmentSizeMegabytes;
+  @Value("${app.auditLog.maxSegments:16}")
+  private int maxSegments;
+  @Value("${app.auditLog.flushIntervalMillis:1000}")
+  private long flushIntervalMillis;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private EventLog eventLog;
+  private Thread flusher;
+  private Counter appendedCounter;
+  private Counter failedCounter;
+
+  @PostConstruct
+  private void init() throws IOException {
+    appendedCounter = meterRegistry.counter("favUrls.auditLog.appended");
+    failedCounter = meterRegistry.counter("favUrls.auditLog.failed");
+    if (!enabled) return;
+
+    try {
+      eventLog = new EventLog(Path.of(directory), segmentSizeMegabytes * 1024 * 1024, maxSegments);
+    } catch (EventLog.LockedException e) {
+      logger.warn("Audit log disabled: {}", e.getMessage());
+      return;
+    }
+    flusher = Thread.ofVirtual().name("auditLog-flusher").start(this::flushLoop);
+  }
+
+  @PreDestroy
+  private void close() throws InterruptedException, IOException {
+    if (eventLog == null) return;
+    flusher.interrupt();
+    flusher.join(TimeUnit.SECONDS.toMillis(10));
+    eventLog.close();
+  }
+
+  private void flushLoop() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        Thread.sleep(flushIntervalMillis);
+        eventLog.flush();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        logger.error("Failed to flush the audit log", e);
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return eventLog != null;
+  }
+
+  public void recordUrl(Type type, Url url) {
+    ArgVal.notNull(url, "url");
+    ArgVal.isTrue(type == Type.URL_CREATED || type == Type.URL_UPDATED || type == Type.URL_DELETED, "type");
+    // captured now, the entity may change before the commit
+    record(type, url.getAppUser().getAppUserId(), url.getUrlId(), encode(url.getTitle(), url.getAddress()));
+  }
+
+  public void recordLogin(int appUserId) {
+    record(Type.LOGIN, appUserId, 0, new byte[0]);
+  }
+
+  public void recordLogout(int appUserId) {
+    record(Type.LOGOUT, appUserId, 0, new byte[0]);
+  }
+
+  private void record(Type type, int appUserId, int urlId, byte[] payload) {
+    if (eventLog == null) return;
+    long timestamp = System.currentTimeMillis();
+    Runnable append = () -> {
+      try {
+        eventLog.append(timestamp, (byte) type.ordinal(), appUserId, urlId, payload);
+        appendedCounter.increment();
+      } catch (Exception e) {
+        logger.error("Failed to append {} of user {} to the audit log", type, appUserId, e);
+        failedCounter.increment();
+      }
+    };
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          append.run();
+        }
+      });
+    } else {
+      append.run();
+    }
+  }
+
+  /**
+   * @return the offset of the oldest kept event
+   */
+  public long getStartOffset() {
+    return requireLog().getStartOffset();
+  }
+
+  /**
+   * @return the offset of the next appended event
+   */
+  public long getEndOffset() {
+    return requireLog().getEndOffset();
+  }
+
+  /**
+   * Creates a reader of the events from the offset, the read entries are decoded by `decode()`.
+   */
+  public EventLog.Reader reader(long offset) {
+    return requireLog().reader(offset);
+  }
+
+  private EventLog requireLog() {
+    if (eventLog == null) throw new IllegalStateException("The audit log is disabled.");
+    return eventLog;
+  }
+
+  /**
+   * Encodes the url data as the payload of the event.
+   */
+  public static byte[] encode(String title, String address) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeUTF(title);
+      output.writeUTF(address);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static AuditEvent decode(EventLog.Entry entry) {
+    ArgVal.notNull(entry, "entry");
+    Type type = Type.values()[entry.type()];
+    String title = null;
+    String address = null;
+    if (entry.payload().length > 0) {
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(entry.payload()))) {
+        title = input.readUTF();
+        address = input.readUTF();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Invalid audit event " + entry.offset(), e);
+      }
+    }
+    AuditEvent ret = new AuditEvent(entry.offset(), Instant.ofEpochMilli(entry.timestampMillis()), type,
+            entry.appUserId(), entry.subjectId(), title, address);
+    return ret;
+  }
+}
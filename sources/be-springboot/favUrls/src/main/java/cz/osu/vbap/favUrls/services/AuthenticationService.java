@@ -1,5 +1,7 @@
 package cz.osu.vbap.favUrls.services;
 
+import cz.osu.vbap.favUrls.lib.SingleFlight;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
 import cz.osu.vbap.favUrls.model.entities.AppUser;
 import cz.osu.vbap.favUrls.model.entities.Token;
 import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
@@ -9,6 +11,9 @@ import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
 import cz.osu.vbap.favUrls.services.exceptions.BadRequestException;
 import cz.osu.vbap.favUrls.services.exceptions.InternalException;
 import cz.osu.vbap.favUrls.services.exceptions.InvalidOrExpiredCredentialsException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -25,7 +30,23 @@ public class AuthenticationService extends AppService {
   private AppUserRepository appUserRepository;
   @Autowired
   private PasswordEncoder passwordEncoder;
+  @Autowired
+  private ShardRouter shardRouter;
+  @Autowired
+  private MeterRegistry meterRegistry;
+  @Autowired
+  private AuditLogService auditLogService;
 
+  private final SingleFlight<String, String> refreshes = new SingleFlight<>();
+  // stackless and immutable, one instance serves all the failed logins and refreshes
+  private final BadRequestException invalidCredentials = new BadRequestException(this, "Invalid credentials.");
+  private final InvalidOrExpiredCredentialsException invalidOrExpiredCredentials =
+          new InvalidOrExpiredCredentialsException(this);
+
+  @PostConstruct
+  private void init() {
+    refreshes.registerMeters(meterRegistry, "appUser.refresh");
+  }
 
   public record LoginResponse(String refreshToken, String accessToken, AppUser appUser) {
   }
@@ -35,7 +56,7 @@ public class AuthenticationService extends AppService {
     Optional<AppUser> appUserOpt = tryInvoke(() -> appUserRepository.findByEmail(email));
 
     if (appUserOpt.isEmpty() || !isValidCredentials(appUserOpt.get(), password))
-      throw new BadRequestException(this, "Invalid credentials.");
+      throw invalidCredentials;
 
     AppUser appUser = appUserOpt.get();
     String refreshToken = jwtTokenUtil.generateRefreshToken(appUser.getEmail(), appUser.getAppUserId());
@@ -45,6 +66,7 @@ public class AuthenticationService extends AppService {
     } catch (Exception e) {
       throw new InternalException(this, "Failed to login", e);
     }
+    auditLogService.recordLogin(appUser.getAppUserId());
     ret = new LoginResponse(refreshToken, accessToken, appUser);
 
     return ret;
@@ -58,6 +80,12 @@ public class AuthenticationService extends AppService {
     user.setPasswordHash(passwordEncoder.encode(password));
     tryInvoke(() -> appUserRepository.save(user));
 
+    // the user is stored in the global shard (for login), his home shard needs a copy for foreign keys
+    int homeShard = shardRouter.shardOf(user.getAppUserId());
+    if (homeShard != ShardRouter.GLOBAL_SHARD)
+      tryInvoke(() -> shardRouter.runOnShard(homeShard,
+              () -> appUserRepository.insertCopy(user.getAppUserId(), user.getEmail(), user.getPasswordHash())));
+
     return user;
   }
 
@@ -70,16 +98,42 @@ public class AuthenticationService extends AppService {
   }
 
   public void logout(String refreshToken) throws InternalException {
-    tryInvoke(() -> deleteRefreshToken(refreshToken));
+    // expired or invalid token cannot be used anymore and is replaced on the next login
+    Optional<Integer> appUserId = tryGetAppUserId(refreshToken);
+    if (appUserId.isPresent()) {
+      tryInvoke(() -> shardRouter.runOnUserShard(appUserId.get(), () -> deleteRefreshToken(refreshToken)));
+      auditLogService.recordLogout(appUserId.get());
+    }
   }
 
+  private Optional<Integer> tryGetAppUserId(String token) {
+    try {
+      return jwtTokenUtil.isValid(token) ? Optional.of(jwtTokenUtil.getAppUserId(token)) : Optional.empty();
+    } catch (JwtException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Generates a new access token. Concurrent refreshes by the same refresh token (e.g. more tabs of the browser)
+   * share one token lookup and get the same access token.
+   */
   public String refreshAccessToken(String refreshToken) throws AppServiceException {
+    String ret = refreshes.call(refreshToken, () -> generateAccessToken(refreshToken));
+    return ret;
+  }
+
+  private String generateAccessToken(String refreshToken) throws AppServiceException {
     String ret;
 
-    Optional<Token> tokenOpt = tryInvoke(() -> tokenRepository.findByValue(refreshToken));
+    Optional<Integer> appUserId = tryGetAppUserId(refreshToken);
+    if (appUserId.isEmpty())
+      throw invalidOrExpiredCredentials;
 
-    if (tokenOpt.isEmpty() || !jwtTokenUtil.isValid(refreshToken))
-      throw new InvalidOrExpiredCredentialsException(this);
+    Optional<Token> tokenOpt = tryInvoke(
+            () -> shardRouter.callOnUserShard(appUserId.get(), () -> tokenRepository.findByValue(refreshToken)));
+    if (tokenOpt.isEmpty())
+      throw invalidOrExpiredCredentials;
 
     ret = jwtTokenUtil.generateAccessToken(refreshToken);
 
@@ -88,8 +142,10 @@ public class AuthenticationService extends AppService {
 
   private void storeRefreshToken(AppUser appUser, String refreshToken) {
     // exceptions handled at upper level
-    tokenRepository.findByAppUser(appUser).ifPresent(tokenRepository::delete);
-    Token token = new Token(appUser, refreshToken);
-    tokenRepository.save(token);
+    shardRouter.runOnUserShard(appUser.getAppUserId(), () -> {
+      tokenRepository.findByAppUser(appUser).ifPresent(tokenRepository::delete);
+      Token token = new Token(appUser, refreshToken);
+      tokenRepository.save(token);
+    });
   }
 }
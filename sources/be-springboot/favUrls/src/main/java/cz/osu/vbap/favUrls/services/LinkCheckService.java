@@ -0,0 +1,135 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.LinkChecker;
+import cz.osu.vbap.favUrls.lib.RateLimiter;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks all stored urls and records the status code, the final redirect target
+ * and the time of the check. Urls are read in keyset-paged batches, every url of the batch is checked
+ * in its own virtual thread. Writes of the results are throttled to `app.linkCheck.maxDbWritesPerSecond`.
+ */
+@Service
+@ConditionalOnProperty(name = "app.linkCheck.enabled", havingValue = "true")
+public class LinkCheckService extends AppService {
+  @Value("${app.linkCheck.batchSize:100}")
+  private int batchSize;
+  @Value("${app.linkCheck.connectTimeoutSeconds:5}")
+  private int connectTimeoutSeconds;
+  @Value("${app.linkCheck.requestTimeoutSeconds:10}")
+  private int requestTimeoutSeconds;
+  @Value("${app.linkCheck.perHostConcurrency:2}")
+  private int perHostConcurrency;
+  @Value("${app.linkCheck.maxDbWritesPerSecond:50}")
+  private double maxDbWritesPerSecond;
+
+  @Autowired
+  private UrlRepository urlRepository;
+  @Autowired
+  private MeterRegistry meterRegistry;
+  @Autowired
+  private ShardRouter shardRouter;
+
+  private LinkChecker linkChecker;
+  private RateLimiter dbWriteLimiter;
+  private Timer runTimer;
+  private Counter dbWriteCounter;
+
+  @PostConstruct
+  private void init() {
+    linkChecker = new LinkChecker(
+            Duration.ofSeconds(connectTimeoutSeconds),
+            Duration.ofSeconds(requestTimeoutSeconds),
+            perHostConcurrency);
+    dbWriteLimiter = new RateLimiter(maxDbWritesPerSecond);
+    runTimer = meterRegistry.timer("favUrls.linkCheck.run");
+    dbWriteCounter = meterRegistry.counter("favUrls.linkCheck.dbWrites");
+  }
+
+  @PreDestroy
+  private void close() {
+    linkChecker.close();
+  }
+
+  @Scheduled(
+          initialDelayString = "${app.linkCheck.initialDelaySeconds:60}",
+          fixedDelayString = "${app.linkCheck.intervalSeconds:3600}",
+          timeUnit = TimeUnit.SECONDS)
+  public void checkAll() {
+    runTimer.record(() -> {
+      for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+        checkShard(shard);
+      }
+    });
+  }
+
+  private void checkShard(int shard) {
+    int lastUrlId = 0;
+    List<UrlRepository.AddressView> batch;
+    do {
+      final int afterUrlId = lastUrlId;
+      batch = shardRouter.callOnShard(shard,
+              () -> urlRepository.findByUrlIdGreaterThanOrderByUrlIdAsc(afterUrlId, Limit.of(batchSize)));
+      checkBatch(batch);
+      if (!batch.isEmpty())
+        lastUrlId = batch.getLast().getUrlId();
+    } while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+  }
+
+  private void checkBatch(List<UrlRepository.AddressView> batch) {
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (UrlRepository.AddressView item : batch) {
+        executor.submit(() -> checkOne(item));
+      }
+    } // waits for all checks of the batch
+  }
+
+  private void checkOne(UrlRepository.AddressView item) {
+    try {
+      LinkChecker.Result result = linkChecker.check(item.getAddress());
+      meterRegistry.timer("favUrls.linkCheck.request", "outcome", outcomeOf(result))
+              .record(result.duration());
+
+      // the redirect target may be long (tracking parameters, signatures), it is kept only for information
+      String finalAddress = truncate(result.finalAddress(), Url.CHECK_TARGET_LENGTH);
+      dbWriteLimiter.acquire();
+      // on the shard of the user at the time of the update, he may have been moved since the batch was read
+      shardRouter.runOnUserShard(item.getAppUserId(), () -> urlRepository.updateCheckResult(
+              item.getUrlId(), result.statusCode(), finalAddress, result.checkedAt()));
+      dbWriteCounter.increment();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      logger.error("Failed to check url {}", item.getUrlId(), e);
+    }
+  }
+
+  private static String truncate(String text, int maxLength) {
+    if (text == null || text.length() <= maxLength) return text;
+    return text.substring(0, maxLength);
+  }
+
+  private static String outcomeOf(LinkChecker.Result result) {
+    if (result.statusCode() == LinkChecker.STATUS_UNREACHABLE) return "unreachable";
+    return result.isAlive() ? "alive" : "dead";
+  }
+}
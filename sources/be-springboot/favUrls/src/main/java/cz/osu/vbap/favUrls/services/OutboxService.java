@@ -0,0 +1,243 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import cz.osu.vbap.favUrls.model.entities.OutboxEvent;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.OutboxEventRepository;
+import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox of url changes. The change is recorded into the `outbox_event` table in the transaction
+ * of the change itself, so the write path is one transaction, and the follow-up work (the change stream,
+ * the enrichment) is done by the consumers after the commit.
+ * <p>
+ * The events are dispatched by one background thread, woken up after every commit and by polling
+ * (the events of other instances, retries). The events of every shard are claimed in batches in the order
+ * of the changes (leased for `app.outbox.leaseSeconds`, then delivered again if the instance crashed),
+ * delivered after the commit of the claim and deleted after all consumers accepted them, so the delivery is
+ * at-least-once and ordered per user: a failed event is retried after a growing delay
+ * (`app.outbox.retryDelayMillis`, at most `app.outbox.maxAttempts` times) before any later event of its user.
+ * The lag between the change and its dispatch is measured by the `favUrls.outbox.lag` timer.
+ */
+@Service
+public class OutboxService extends AppService {
+
+  /**
+   * Receives the dispatched url changes; all beans implementing this interface are consumers.
+   * An event may be received more than once (if any consumer failed), so the processing must be idempotent.
+   */
+  public interface Consumer {
+    /**
+     * @param event the change
+     * @param url   the current state of the url, null if deleted (also if deleted after the change)
+     */
+    void accept(OutboxEvent event, Url url) throws Exception;
+  }
+
+  @Value("${app.outbox.batchSize:100}")
+  private int batchSize;
+  @Value("${app.outbox.pollMillis:1000}")
+  private long pollMillis;
+  @Value("${app.outbox.maxAttempts:10}")
+  private int maxAttempts;
+  @Value("${app.outbox.retryDelayMillis:1000}")
+  private long retryDelayMillis;
+  @Value("${app.outbox.leaseSeconds:60}")
+  private long leaseSeconds;
+
+  @Autowired
+  private OutboxEventRepository outboxEventRepository;
+  @Autowired
+  private UrlRepository urlRepository;
+  @Autowired
+  private List<Consumer> consumers;
+  @Autowired
+  private ShardRouter shardRouter;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private record Batch(List<OutboxEvent> events, Map<Integer, Url> urls) {
+  }
+
+  private record BatchResult(int claimed, int delivered) {
+  }
+
+  private static final int MAX_RETRY_DELAY_DOUBLINGS = 16;
+
+  private final Semaphore wakeUp = new Semaphore(0);
+  private Duration retryDelay;
+  private Duration lease;
+  private Thread dispatcher;
+  private Timer lagTimer;
+  private Counter failedCounter;
+  private Counter droppedCounter;
+
+  @PostConstruct
+  private void init() {
+    retryDelay = Duration.ofMillis(retryDelayMillis);
+    lease = Duration.ofSeconds(leaseSeconds);
+    lagTimer = meterRegistry.timer("favUrls.outbox.lag");
+    failedCounter = meterRegistry.counter("favUrls.outbox.failed");
+    droppedCounter = meterRegistry.counter("favUrls.outbox.dropped");
+    dispatcher = Thread.ofVirtual().name("outbox-dispatcher").start(this::dispatchLoop);
+  }
+
+  @PreDestroy
+  private void close() throws InterruptedException {
+    dispatcher.interrupt();
+    dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+  }
+
+  /**
+   * Records the change of the url, must be called in the transaction of the change.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void record(OutboxEvent.Type type, int appUserId, int urlId) {
+    ArgVal.notNull(type, "type");
+    outboxEventRepository.save(new OutboxEvent(type, appUserId, urlId));
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        wakeUp.release();
+      }
+    });
+  }
+
+  private void dispatchLoop() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        wakeUp.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+        wakeUp.drainPermits(); // the commits meanwhile are handled by this round
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+          dispatchShard(shard);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        logger.error("Failed to dispatch outbox events", e);
+      }
+    }
+  }
+
+  private void dispatchShard(int shard) {
+    BatchResult result;
+    do {
+      result = shardRouter.callOnShard(shard, this::dispatchBatch);
+    } while (result.claimed() == batchSize && result.delivered() > 0 && !Thread.currentThread().isInterrupted());
+  }
+
+  /**
+   * Claims the batch in one transaction, delivers it after the commit (the consumers do not run while
+   * the rows are locked) and stores the results in another transaction.
+   */
+  private BatchResult dispatchBatch() {
+    Batch batch = transactionTemplate.execute(_ -> claimBatch(LocalDateTime.now()));
+    if (batch.events().isEmpty()) return new BatchResult(0, 0);
+
+    List<Long> done = new ArrayList<>();
+    List<OutboxEvent> failed = new ArrayList<>();
+    List<Long> released = new ArrayList<>();
+    Set<Integer> blockedAppUserIds = new HashSet<>(); // users with a failed event, their later events must wait
+    int delivered = 0;
+    for (OutboxEvent event : batch.events()) {
+      if (blockedAppUserIds.contains(event.getAppUserId())) {
+        released.add(event.getOutboxEventId());
+        continue;
+      }
+
+      Url url = event.getType() == OutboxEvent.Type.DELETED ? null : batch.urls().get(event.getUrlId());
+      if (deliver(event, url)) {
+        lagTimer.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+        done.add(event.getOutboxEventId());
+        delivered++;
+      } else if (event.getAttempts() + 1 >= maxAttempts) {
+        logger.error("Outbox event {} of url {} failed {} times, dropped.",
+                event.getOutboxEventId(), event.getUrlId(), maxAttempts);
+        droppedCounter.increment();
+        done.add(event.getOutboxEventId());
+      } else {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setNextAttemptAt(LocalDateTime.now().plus(retryDelayOf(event.getAttempts())));
+        failed.add(event);
+        blockedAppUserIds.add(event.getAppUserId());
+      }
+    }
+
+    transactionTemplate.executeWithoutResult(_ -> {
+      outboxEventRepository.deleteAllByIdInBatch(done);
+      for (OutboxEvent event : failed) {
+        outboxEventRepository.updateAttempt(event.getOutboxEventId(), event.getAttempts(), event.getNextAttemptAt());
+      }
+      // the user is skipped until the backoff of the failed event ends
+      if (!released.isEmpty())
+        outboxEventRepository.release(released);
+    });
+    return new BatchResult(batch.events().size(), delivered);
+  }
+
+  // the lease keeps the dispatchers of other instances off the users of the batch
+  private Batch claimBatch(LocalDateTime now) {
+    List<OutboxEvent> events = outboxEventRepository.findDispatchable(now, Limit.of(batchSize));
+    if (events.isEmpty()) return new Batch(events, Map.of());
+
+    LocalDateTime leaseEnd = now.plus(lease);
+    for (OutboxEvent event : events) {
+      event.setNextAttemptAt(leaseEnd);
+    }
+
+    Set<Integer> urlIds = events.stream()
+            .filter(q -> q.getType() != OutboxEvent.Type.DELETED)
+            .map(OutboxEvent::getUrlId)
+            .collect(Collectors.toSet());
+    Map<Integer, Url> urls = urlRepository.findAllById(urlIds).stream()
+            .collect(Collectors.toMap(Url::getUrlId, Function.identity()));
+    return new Batch(events, urls);
+  }
+
+  private Duration retryDelayOf(int attempts) {
+    return retryDelay.multipliedBy(1L << Math.min(attempts - 1, MAX_RETRY_DELAY_DOUBLINGS));
+  }
+
+  private boolean deliver(OutboxEvent event, Url url) {
+    for (Consumer consumer : consumers) {
+      try {
+        consumer.accept(event, url);
+      } catch (Exception e) {
+        logger.warn("Consumer {} failed on outbox event {}", consumer.getClass().getSimpleName(),
+                event.getOutboxEventId(), e);
+        failedCounter.increment();
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,248 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.PageMetadataFetcher;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import cz.osu.vbap.favUrls.model.entities.Favicon;
+import cz.osu.vbap.favUrls.model.entities.OutboxEvent;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.FaviconRepository;
+import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import cz.osu.vbap.favUrls.services.exceptions.BadDataException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronously downloads the title, description and favicon of newly created urls.
+ * Requests are put into the bounded queue processed by a fixed number of virtual-thread workers;
+ * when the queue is full, the caller waits at most `app.enrichment.enqueueTimeoutMillis` and then the
+ * enrichment of the url is skipped. Favicons are stored content-addressed and remembered by their source address,
+ * so the icon of a popular domain is downloaded only once.
+ */
+@Service
+public class PageEnrichmentService extends AppService implements OutboxService.Consumer {
+  private record Job(int appUserId, int urlId, String address) {
+  }
+
+  @Value("${app.enrichment.enabled:true}")
+  private boolean enabled;
+  @Value("${app.enrichment.workers:4}")
+  private int workerCount;
+  @Value("${app.enrichment.queueCapacity:1000}")
+  private int queueCapacity;
+  @Value("${app.enrichment.enqueueTimeoutMillis:50}")
+  private long enqueueTimeoutMillis;
+  @Value("${app.enrichment.connectTimeoutSeconds:5}")
+  private int connectTimeoutSeconds;
+  @Value("${app.enrichment.requestTimeoutSeconds:10}")
+  private int requestTimeoutSeconds;
+  @Value("${app.enrichment.maxHeadChars:65536}")
+  private int maxHeadChars;
+  @Value("${app.enrichment.faviconSourceCacheSize:10000}")
+  private int faviconSourceCacheSize;
+
+  @Autowired
+  private UrlRepository urlRepository;
+  @Autowired
+  private FaviconRepository faviconRepository;
+  @Autowired
+  private MeterRegistry meterRegistry;
+  @Autowired
+  private ShardRouter shardRouter;
+  @Autowired
+  private SyncService syncService;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private PageMetadataFetcher fetcher;
+  private BlockingQueue<Job> queue;
+  private final List<Thread> workers = new ArrayList<>();
+  private Map<String, CompletableFuture<String>> faviconHashesBySource;
+  private Timer enrichTimer;
+  private Counter rejectedCounter;
+  private Counter faviconDownloadCounter;
+
+  @PostConstruct
+  private void init() {
+    if (!enabled) return;
+
+    fetcher = new PageMetadataFetcher(
+            Duration.ofSeconds(connectTimeoutSeconds),
+            Duration.ofSeconds(requestTimeoutSeconds),
+            maxHeadChars,
+            Favicon.MAX_DATA_LENGTH);
+    queue = new ArrayBlockingQueue<>(queueCapacity);
+    faviconHashesBySource = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<String>> eldest) {
+        return size() > faviconSourceCacheSize;
+      }
+    };
+
+    meterRegistry.gauge("favUrls.enrichment.queueSize", queue, BlockingQueue::size);
+    enrichTimer = meterRegistry.timer("favUrls.enrichment.duration");
+    rejectedCounter = meterRegistry.counter("favUrls.enrichment.rejected");
+    faviconDownloadCounter = meterRegistry.counter("favUrls.enrichment.faviconDownloads");
+
+    for (int i = 0; i < workerCount; i++) {
+      workers.add(Thread.ofVirtual().name("enrichment-" + i).start(this::processQueue));
+    }
+  }
+
+  @PreDestroy
+  private void close() {
+    workers.forEach(Thread::interrupt);
+    if (fetcher != null)
+      fetcher.close();
+  }
+
+  /**
+   * Schedules the download of the metadata of the url.
+   *
+   * @param url the stored url
+   * @return true if scheduled, false if disabled or the queue is full
+   */
+  public boolean enqueue(Url url) {
+    ArgVal.notNull(url, "url");
+    if (!enabled) return false;
+
+    boolean ret;
+    try {
+      Job job = new Job(url.getAppUser().getAppUserId(), url.getUrlId(), url.getAddress());
+      ret = queue.offer(job, enqueueTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ret = false;
+    }
+    if (!ret) {
+      rejectedCounter.increment();
+      logger.warn("Enrichment queue is full, url {} will not be enriched.", url.getUrlId());
+    }
+    return ret;
+  }
+
+  /**
+   * Enqueues the created urls; a full queue is not a failure of the event, the url is just not enriched.
+   */
+  @Override
+  public void accept(OutboxEvent event, Url url) {
+    if (event.getType() == OutboxEvent.Type.CREATED && url != null)
+      enqueue(url);
+  }
+
+  @Transactional(readOnly = true)
+  public Favicon getFavicon(String hash) throws AppServiceException {
+    Favicon ret = tryInvoke(() -> shardRouter.callOnShard(ShardRouter.GLOBAL_SHARD, () -> faviconRepository.findById(hash)))
+            .orElseThrow(() -> new BadDataException(this, "Favicon not found."));
+    return ret;
+  }
+
+  private void processQueue() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        Job job = queue.take();
+        enrichTimer.recordCallable(() -> {
+          enrich(job);
+          return null;
+        });
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        logger.error("Failed to enrich url", e);
+      }
+    }
+  }
+
+  private void enrich(Job job) throws InterruptedException {
+    Optional<PageMetadataFetcher.PageMetadata> metadata = fetcher.fetch(job.address());
+    if (metadata.isEmpty()) return;
+
+    String title = truncate(metadata.get().title(), Url.TITLE_LENGTH);
+    String description = truncate(metadata.get().description(), Url.DESCRIPTION_LENGTH);
+    String faviconHash = resolveFaviconHash(metadata.get().faviconAddress());
+    // the update is a change of the url for the delta sync; on the shard of the user at the time of the update
+    shardRouter.runOnUserShard(job.appUserId(), () -> transactionTemplate.executeWithoutResult(_ -> {
+      long changeSeq = syncService.nextChangeSeq(job.appUserId());
+      urlRepository.updateMetadata(job.urlId(), title, description, faviconHash, changeSeq);
+    }));
+  }
+
+  private String resolveFaviconHash(String faviconAddress) throws InterruptedException {
+    CompletableFuture<String> future;
+    boolean isOwner = false;
+    synchronized (faviconHashesBySource) {
+      future = faviconHashesBySource.get(faviconAddress);
+      if (future == null) {
+        future = new CompletableFuture<>();
+        faviconHashesBySource.put(faviconAddress, future);
+        isOwner = true;
+      }
+    }
+
+    if (isOwner) {
+      String hash = null;
+      boolean isDefinitive = false;
+      try {
+        hash = downloadFavicon(faviconAddress);
+        isDefinitive = true; // also remembers that there is no favicon
+      } catch (IOException e) {
+        logger.debug("Favicon {} not downloaded: {}", faviconAddress, e.getMessage());
+      } finally {
+        // a failure may be transient, so a later enrichment tries again
+        if (!isDefinitive) {
+          synchronized (faviconHashesBySource) {
+            faviconHashesBySource.remove(faviconAddress, future);
+          }
+        }
+        future.complete(hash);
+      }
+    }
+
+    return future.join();
+  }
+
+  private String downloadFavicon(String faviconAddress) throws IOException, InterruptedException {
+    Optional<PageMetadataFetcher.Resource> resource = fetcher.fetchResource(faviconAddress);
+    if (resource.isEmpty()) return null;
+    faviconDownloadCounter.increment();
+
+    Favicon favicon = new Favicon(resource.get().contentType(), resource.get().data());
+    shardRouter.runOnShard(ShardRouter.GLOBAL_SHARD, () -> {
+      if (!faviconRepository.existsById(favicon.getHash())) {
+        try {
+          faviconRepository.save(favicon);
+        } catch (DataIntegrityViolationException e) {
+          // the same icon stored concurrently from another source address
+        }
+      }
+    });
+    return favicon.getHash();
+  }
+
+  private static String truncate(String text, int maxLength) {
+    if (text == null || text.length() <= maxLength) return text;
+    return text.substring(0, maxLength);
+  }
+}
@@ -0,0 +1,183 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.db.ShardResolver;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import cz.osu.vbap.favUrls.services.exceptions.BadDataException;
+import cz.osu.vbap.favUrls.services.exceptions.InternalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves all the data of one user from his current shard to another one while the application is running.
+ * <ol>
+ *   <li>the user is marked as moving - his read-write transactions are rejected (also of the background jobs,
+ *   which run them by `ShardRouter.runOnUserShard()`), reads still go to the old shard,</li>
+ *   <li>after the placement TTL (every instance has seen the flag, see `ShardResolver`) and a short grace
+ *   period (for in-flight transactions) his rows are copied in one transaction,</li>
+ *   <li>the directory is switched to the new shard,</li>
+ *   <li>after the placement TTL again (no instance routes to the old shard any more; until then, the instances
+ *   still see the user as moving, so they do not write), the rows are deleted from the old shard.</li>
+ * </ol>
+ * The `app_user` row is kept on the global shard, as it is needed for login by email.
+ * The change sequence, the tombstones and the pending outbox events are moved too, so the cursors
+ * of the delta sync stay valid; an outbox event dispatched on the old shard during the move may be delivered
+ * again from the new one (the delivery is at-least-once anyway).
+ */
+@Service
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardRebalanceService extends AppService {
+
+  private record TableCopy(String table, String selectSql, String deleteSql) {
+  }
+
+  // in the order of foreign keys
+  private static final List<TableCopy> USER_TABLES = List.of(
+          new TableCopy("app_user",
+                  "select * from app_user where app_user_id = ?",
+                  "delete from app_user where app_user_id = ?"),
+          new TableCopy("tag",
+                  "select * from tag where app_user_id = ?",
+                  "delete from tag where app_user_id = ?"),
+          new TableCopy("url",
+                  "select * from url where app_user_id = ?",
+                  "delete from url where app_user_id = ?"),
+          new TableCopy("url_tag",
+                  "select ut.* from url_tag ut join url u on u.url_id = ut.url_id where u.app_user_id = ?",
+                  "delete ut from url_tag ut join url u on u.url_id = ut.url_id where u.app_user_id = ?"),
+          new TableCopy("token",
+                  "select * from token where app_user_id = ?",
+                  "delete from token where app_user_id = ?"),
+          // the delta sync continues after the move: the sequence goes on and the tombstones are kept
+          new TableCopy("change_sequence",
+                  "select * from change_sequence where app_user_id = ?",
+                  "delete from change_sequence where app_user_id = ?"),
+          new TableCopy("tombstone",
+                  "select * from tombstone where app_user_id = ?",
+                  "delete from tombstone where app_user_id = ?"),
+          // the pending events are dispatched on the new shard, where their urls are
+          new TableCopy("outbox_event",
+                  "select * from outbox_event where app_user_id = ?",
+                  "delete from outbox_event where app_user_id = ?"));
+
+  @Autowired
+  private ShardRouter shardRouter;
+  @Value("${app.sharding.moveGraceMillis:1000}")
+  private long moveGraceMillis;
+
+  public ShardResolver.Placement getPlacement(int appUserId) {
+    return shardRouter.getResolver().resolve(appUserId);
+  }
+
+  public synchronized void moveUser(int appUserId, int targetShard) throws AppServiceException {
+    if (targetShard < 0 || targetShard >= shardRouter.getShardCount())
+      throw new BadDataException(this, "Invalid target shard.");
+    ShardResolver resolver = shardRouter.getResolver();
+    // the user may have been moved by another instance
+    int sourceShard = resolver.reload(appUserId).shard();
+    if (sourceShard == targetShard) return;
+
+    DataSource source = shardRouter.getShardDataSource(sourceShard);
+    DataSource target = shardRouter.getShardDataSource(targetShard);
+    long placementTtlMillis = resolver.getPlacementTtl().toMillis();
+
+    resolver.setPlacement(appUserId, sourceShard, true);
+    try {
+      Thread.sleep(placementTtlMillis + moveGraceMillis);
+      copyUserRows(appUserId, source, target, targetShard == ShardRouter.GLOBAL_SHARD);
+    } catch (Exception e) {
+      resolver.setPlacement(appUserId, sourceShard, false);
+      if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+      throw new InternalException(this, "Failed to copy user " + appUserId + " to shard " + targetShard, e);
+    }
+    resolver.setPlacement(appUserId, targetShard, false);
+
+    try {
+      Thread.sleep(placementTtlMillis);
+      deleteUserRows(appUserId, source, sourceShard == ShardRouter.GLOBAL_SHARD);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Moved user {} not deleted from shard {}, interrupted", appUserId, sourceShard);
+    } catch (SQLException e) {
+      // data are already served from the new shard, only garbage remains
+      logger.error("Failed to delete moved user {} from shard {}", appUserId, sourceShard, e);
+    }
+    logger.info("User {} moved from shard {} to shard {}", appUserId, sourceShard, targetShard);
+  }
+
+  private void copyUserRows(int appUserId, DataSource source, DataSource target, boolean targetIsGlobal)
+          throws SQLException {
+    try (Connection sourceConnection = source.getConnection();
+         Connection targetConnection = target.getConnection()) {
+      targetConnection.setAutoCommit(false);
+      try {
+        for (TableCopy tableCopy : USER_TABLES) {
+          if (targetIsGlobal && tableCopy.table().equals("app_user")) continue; // already there
+          copyRows(sourceConnection, targetConnection, tableCopy, appUserId);
+        }
+        targetConnection.commit();
+      } catch (SQLException e) {
+        targetConnection.rollback();
+        throw e;
+      }
+    }
+  }
+
+  private static void copyRows(Connection source, Connection target, TableCopy tableCopy, int appUserId)
+          throws SQLException {
+    try (PreparedStatement select = source.prepareStatement(tableCopy.selectSql())) {
+      select.setInt(1, appUserId);
+      try (ResultSet rs = select.executeQuery()) {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        StringBuilder columns = new StringBuilder();
+        for (int i = 1; i <= columnCount; i++) {
+          if (i > 1) columns.append(", ");
+          columns.append(metaData.getColumnName(i));
+        }
+        String insertSql = "insert into " + tableCopy.table() + " (" + columns + ") values ("
+                + String.join(", ", Collections.nCopies(columnCount, "?")) + ")";
+
+        try (PreparedStatement insert = target.prepareStatement(insertSql)) {
+          while (rs.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+              insert.setObject(i, rs.getObject(i));
+            }
+            insert.addBatch();
+          }
+          insert.executeBatch();
+        }
+      }
+    }
+  }
+
+  private static void deleteUserRows(int appUserId, DataSource source, boolean sourceIsGlobal) throws SQLException {
+    try (Connection connection = source.getConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        for (TableCopy tableCopy : USER_TABLES.reversed()) {
+          if (sourceIsGlobal && tableCopy.table().equals("app_user")) continue; // needed for login
+          try (PreparedStatement delete = connection.prepareStatement(tableCopy.deleteSql())) {
+            delete.setInt(1, appUserId);
+            delete.executeUpdate();
+          }
+        }
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      }
+    }
+  }
+}
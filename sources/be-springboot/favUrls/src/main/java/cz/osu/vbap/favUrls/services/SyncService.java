@@ -0,0 +1,170 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.ChangeSequence;
+import cz.osu.vbap.favUrls.model.entities.Tag;
+import cz.osu.vbap.favUrls.model.entities.Tombstone;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
+import cz.osu.vbap.favUrls.model.repositories.ChangeSequenceRepository;
+import cz.osu.vbap.favUrls.model.repositories.TagRepository;
+import cz.osu.vbap.favUrls.model.repositories.TombstoneRepository;
+import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
+import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
+import cz.osu.vbap.favUrls.services.exceptions.BadDataException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Delta sync of the urls and tags of a user. Every change of the user (create, update, delete) gets the next
+ * number of his change sequence, stored in the changed row or, for a deletion, in the tombstone. The clients
+ * keep the number of the last received change as the cursor and ask only for the later changes; the lookups
+ * use the `(app_user_id, change_seq)` indexes, so their cost depends on the count of the changes only.
+ * <p>
+ * The sequence row of the user is locked by the change until its commit, so the changes are committed
+ * in the order of their numbers and a client never skips a change committed later with a lower number.
+ * The tombstones are purged after `app.sync.tombstoneRetentionDays`; the clients with an older cursor
+ * get `reset` and have to do the full sync.
+ */
+@Service
+public class SyncService extends AppService {
+
+  /**
+   * @param cursor     the number of the last returned change, to be sent as `since` by the next sync
+   * @param reset      the cursor was too old (or unknown), the client has to do the full sync (without `since`)
+   * @param hasMore    the changes were limited, the rest is returned by the next sync
+   * @param urls       the created and updated urls
+   * @param tags       the created and updated tags
+   * @param tombstones the deleted urls and tags
+   */
+  public record Changes(long cursor, boolean reset, boolean hasMore,
+                        List<Url> urls, List<Tag> tags, List<Tombstone> tombstones) {
+  }
+
+  @Value("${app.sync.maxChanges:1000}")
+  private int maxChanges;
+  @Value("${app.sync.tombstoneRetentionDays:30}")
+  private int tombstoneRetentionDays;
+
+  @Autowired
+  private ChangeSequenceRepository changeSequenceRepository;
+  @Autowired
+  private TombstoneRepository tombstoneRepository;
+  @Autowired
+  private AppUserRepository appUserRepository;
+  @Autowired
+  private UrlRepository urlRepository;
+  @Autowired
+  private TagRepository tagRepository;
+  @Autowired
+  private ShardRouter shardRouter;
+
+  /**
+   * Allocates the number of the next change of the user, must be called in the transaction of the change.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public long nextChangeSeq(int appUserId) {
+    changeSequenceRepository.increment(appUserId);
+    long ret = changeSequenceRepository.findSeq(appUserId);
+    return ret;
+  }
+
+  /**
+   * Records the deletion of the url or tag, must be called in the transaction of the deletion.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordDeletion(int appUserId, Tombstone.Type type, int entityId) {
+    ArgVal.notNull(type, "type");
+    long changeSeq = nextChangeSeq(appUserId);
+    tombstoneRepository.save(new Tombstone(appUserId, changeSeq, type, entityId));
+  }
+
+  /**
+   * Returns the changes of the urls and tags of the user.
+   *
+   * @param appUserId the user
+   * @param since     the cursor of the last sync; null for the full sync (all urls and tags, without tombstones)
+   * @return the changes after the cursor, at most `app.sync.maxChanges` of them
+   */
+  @Transactional(readOnly = true)
+  public Changes getChanges(int appUserId, Long since) throws AppServiceException {
+    AppUser appUser = tryInvoke(() -> appUserRepository.findById(appUserId))
+            .orElseThrow(() -> new BadDataException(this, "User not found."));
+    Optional<ChangeSequence> sequence = tryInvoke(() -> changeSequenceRepository.findById(appUserId));
+    long lastSeq = sequence.map(ChangeSequence::getSeq).orElse(0L);
+    long purgedSeq = sequence.map(ChangeSequence::getPurgedSeq).orElse(0L);
+
+    Changes ret;
+    if (since == null) {
+      // the rows changed before the change tracking have the number 0, so they are not paged
+      ret = new Changes(lastSeq, false, false,
+              tryInvoke(() -> urlRepository.findByAppUser(appUser)),
+              tryInvoke(() -> tagRepository.findByAppUser(appUser)),
+              List.of());
+    } else if (since < purgedSeq || since > lastSeq) {
+      ret = new Changes(lastSeq, true, false, List.of(), List.of(), List.of());
+    } else {
+      ret = getChangesAfter(appUser, since);
+    }
+    return ret;
+  }
+
+  private Changes getChangesAfter(AppUser appUser, long since) throws AppServiceException {
+    Limit limit = Limit.of(maxChanges + 1);
+    List<Url> urls = tryInvoke(
+            () -> urlRepository.findByAppUserAndChangeSeqGreaterThanOrderByChangeSeqAsc(appUser, since, limit));
+    List<Tag> tags = tryInvoke(
+            () -> tagRepository.findByAppUserAndChangeSeqGreaterThanOrderByChangeSeqAsc(appUser, since, limit));
+    List<Tombstone> tombstones = tryInvoke(() -> tombstoneRepository
+            .findByAppUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(appUser.getAppUserId(), since, limit));
+
+    // the first maxChanges changes of all three lists; any change not loaded comes after them
+    long[] seqs = Stream.of(
+                    urls.stream().mapToLong(Url::getChangeSeq),
+                    tags.stream().mapToLong(Tag::getChangeSeq),
+                    tombstones.stream().mapToLong(Tombstone::getChangeSeq))
+            .flatMapToLong(q -> q)
+            .sorted()
+            .toArray();
+    boolean hasMore = seqs.length > maxChanges;
+    long cursor = seqs.length == 0 ? since : seqs[Math.min(seqs.length, maxChanges) - 1];
+
+    Changes ret = new Changes(cursor, false, hasMore,
+            urls.stream().filter(q -> q.getChangeSeq() <= cursor).toList(),
+            tags.stream().filter(q -> q.getChangeSeq() <= cursor).toList(),
+            tombstones.stream().filter(q -> q.getChangeSeq() <= cursor).toList());
+    return ret;
+  }
+
+  /**
+   * Deletes the old tombstones; the users' `purgedSeq` is moved first, so their older cursors get `reset`.
+   */
+  @Scheduled(initialDelay = 1, fixedDelay = 24, timeUnit = TimeUnit.HOURS)
+  public void purgeTombstones() {
+    LocalDateTime createdBefore = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+    for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+      try {
+        int purged = shardRouter.callOnShard(shard, () -> {
+          changeSequenceRepository.updatePurgedSeq(createdBefore);
+          return tombstoneRepository.deleteCreatedBefore(createdBefore);
+        });
+        logger.info("Purged {} tombstones of shard {}.", purged, shard);
+      } catch (Exception e) {
+        logger.error("Failed to purge tombstones of shard {}", shard, e);
+      }
+    }
+  }
+}
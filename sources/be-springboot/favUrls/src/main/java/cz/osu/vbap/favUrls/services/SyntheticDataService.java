@@ -0,0 +1,362 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.UrlCanonicalizer;
+import cz.osu.vbap.favUrls.lib.ZipfDistribution;
+import cz.osu.vbap.favUrls.lib.db.MultiRowInserter;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import cz.osu.vbap.favUrls.services.exceptions.InternalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk-generates a synthetic dataset for profiling of queries, indexes and caches:
+ * <ul>
+ *   <li>the number of urls per user follows Zipf's law (most users have a few, some have very many),</li>
+ *   <li>urls are spread over shared domains with Zipf popularity, a part of them are popular urls
+ *   stored by many users,</li>
+ *   <li>users pick their tags from a shared vocabulary, every url gets a few of the user's tags.</li>
+ * </ul>
+ * Rows are written over plain JDBC by multi-row inserts, bypassing JPA. Ids are assigned here
+ * (respecting `auto_increment_increment/offset` of every shard), so urls are linked to tags
+ * without reading generated keys back. The same random seed produces the same data.
+ * <p>
+ * All users have the same password `app.seed.synthetic.password`, hashing it by BCrypt for every user
+ * would take longer than the rest of the generation.
+ */
+@Service
+public class SyntheticDataService extends AppService {
+  public record Result(int users, long tags, long urls, long urlTags, Duration duration) {
+  }
+
+  private static final int USERS_PER_CHUNK = 500;
+  private static final String[] POPULAR_DOMAINS = {
+          "www.osu.cz", "www.nasa.gov", "github.com", "stackoverflow.com", "en.wikipedia.org",
+          "www.youtube.com", "news.ycombinator.com", "www.reddit.com", "docs.spring.io", "www.baeldung.com"};
+  private static final String[] WORDS = {
+          "work", "private", "news", "java", "spring", "music", "travel", "recipes", "science", "sport",
+          "shopping", "finance", "health", "movies", "books", "games", "photos", "school", "linux", "cloud",
+          "security", "design", "history", "space", "cars", "garden", "jobs", "weather", "maps", "read-later"};
+
+  @Value("${app.seed.synthetic.users:10000}")
+  private int userCount;
+  @Value("${app.seed.synthetic.maxUrlsPerUser:1000}")
+  private int maxUrlsPerUser;
+  @Value("${app.seed.synthetic.urlsPerUserExponent:1.2}")
+  private double urlsPerUserExponent;
+  @Value("${app.seed.synthetic.domains:5000}")
+  private int domainCount;
+  @Value("${app.seed.synthetic.popularUrls:10000}")
+  private int popularUrlCount;
+  @Value("${app.seed.synthetic.popularUrlRatio:0.3}")
+  private double popularUrlRatio;
+  @Value("${app.seed.synthetic.tagVocabulary:300}")
+  private int tagVocabularySize;
+  @Value("${app.seed.synthetic.maxTagsPerUser:10}")
+  private int maxTagsPerUser;
+  @Value("${app.seed.synthetic.maxTagsPerUrl:3}")
+  private int maxTagsPerUrl;
+  @Value("${app.seed.synthetic.rowsPerInsert:1000}")
+  private int rowsPerInsert;
+  @Value("${app.seed.synthetic.threads:4}")
+  private int threadCount;
+  @Value("${app.seed.synthetic.randomSeed:42}")
+  private long randomSeed;
+  @Value("${app.seed.synthetic.password:test}")
+  private String password;
+
+  @Autowired
+  private ShardRouter shardRouter;
+  @Autowired
+  private DataSource dataSource;
+  @Autowired
+  private PasswordEncoder passwordEncoder;
+
+  /**
+   * Rows of one chunk of users, for one shard.
+   */
+  private static class ShardRows {
+    private final List<Object[]> appUsers = new ArrayList<>();
+    private final List<Object[]> tags = new ArrayList<>();
+    private final List<Object[]> urls = new ArrayList<>();
+    private final List<Object[]> urlTags = new ArrayList<>();
+
+    private boolean isEmpty() {
+      return appUsers.isEmpty() && tags.isEmpty() && urls.isEmpty();
+    }
+  }
+
+  /**
+   * Ids of one table on one shard, continuing after the current maximum
+   * with the increment and offset of the shard's auto increment.
+   */
+  private static class IdSequence {
+    private final AtomicLong next;
+    private final int increment;
+
+    private IdSequence(Connection connection, String table, String idColumn) throws SQLException {
+      int offset = 1;
+      int step = 1;
+      try (Statement statement = connection.createStatement()) {
+        if (isMariaDb(connection)) {
+          try (ResultSet rs = statement.executeQuery(
+                  "select @@auto_increment_increment, @@auto_increment_offset")) {
+            rs.next();
+            step = rs.getInt(1);
+            offset = rs.getInt(2);
+          }
+        }
+        long first;
+        try (ResultSet rs = statement.executeQuery("select coalesce(max(" + idColumn + "), 0) from " + table)) {
+          rs.next();
+          first = rs.getLong(1) + 1;
+        }
+        long remainder = Math.floorMod(first - offset, step);
+        if (remainder != 0) first += step - remainder;
+        this.next = new AtomicLong(first);
+        this.increment = step;
+      }
+    }
+
+    private int nextId() {
+      return Math.toIntExact(next.getAndAdd(increment));
+    }
+  }
+
+  private String passwordHash;
+  private ZipfDistribution urlsPerUser;
+  private ZipfDistribution domains;
+  private ZipfDistribution popularUrls;
+  private ZipfDistribution tagVocabulary;
+  private MultiRowInserter appUserInserter;
+  private MultiRowInserter tagInserter;
+  private MultiRowInserter urlInserter;
+  private MultiRowInserter urlTagInserter;
+
+  public synchronized Result generate() throws InternalException {
+    long start = System.nanoTime();
+    logger.info("Generating synthetic data for {} users", userCount);
+
+    passwordHash = passwordEncoder.encode(password);
+    urlsPerUser = new ZipfDistribution(maxUrlsPerUser, urlsPerUserExponent);
+    domains = new ZipfDistribution(domainCount, 1);
+    popularUrls = new ZipfDistribution(popularUrlCount, 1);
+    tagVocabulary = new ZipfDistribution(tagVocabularySize, 1);
+    appUserInserter = new MultiRowInserter("app_user",
+            List.of("app_user_id", "email", "password_hash"), rowsPerInsert);
+    tagInserter = new MultiRowInserter("tag",
+            List.of("tag_id", "title", "color", "app_user_id"), rowsPerInsert);
+    urlInserter = new MultiRowInserter("url",
+            List.of("url_id", "title", "address", "address_hash", "app_user_id"), rowsPerInsert);
+    urlTagInserter = new MultiRowInserter("url_tag",
+            List.of("url_id", "tag_id"), rowsPerInsert);
+
+    int shardCount = shardRouter.getShardCount();
+    IdSequence userIds;
+    IdSequence[] tagIds = new IdSequence[shardCount];
+    IdSequence[] urlIds = new IdSequence[shardCount];
+    try {
+      try (Connection connection = getShardDataSource(ShardRouter.GLOBAL_SHARD).getConnection()) {
+        userIds = new IdSequence(connection, "app_user", "app_user_id");
+      }
+      for (int shard = 0; shard < shardCount; shard++) {
+        try (Connection connection = getShardDataSource(shard).getConnection()) {
+          tagIds[shard] = new IdSequence(connection, "tag", "tag_id");
+          urlIds[shard] = new IdSequence(connection, "url", "url_id");
+        }
+      }
+    } catch (SQLException e) {
+      throw new InternalException(this, "Failed to read current ids", e);
+    }
+
+    AtomicInteger nextChunk = new AtomicInteger();
+    AtomicLong tagCounter = new AtomicLong();
+    AtomicLong urlCounter = new AtomicLong();
+    AtomicLong urlTagCounter = new AtomicLong();
+    int chunkCount = (userCount + USERS_PER_CHUNK - 1) / USERS_PER_CHUNK;
+
+    List<Future<?>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < threadCount; i++) {
+        futures.add(executor.submit(() -> {
+          int chunk;
+          while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+            ShardRows[] rows = generateChunk(chunk, userIds, tagIds, urlIds);
+            for (int shard = 0; shard < shardCount; shard++) {
+              if (rows[shard].isEmpty()) continue;
+              writeRows(shard, rows[shard]);
+              tagCounter.addAndGet(rows[shard].tags.size());
+              urlCounter.addAndGet(rows[shard].urls.size());
+              urlTagCounter.addAndGet(rows[shard].urlTags.size());
+            }
+            if ((chunk + 1) % 20 == 0)
+              logger.info("Generated {} of {} users", Math.min((chunk + 1) * USERS_PER_CHUNK, userCount), userCount);
+          }
+          return null;
+        }));
+      }
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (Exception e) {
+        throw new InternalException(this, "Failed to generate synthetic data", e);
+      }
+    }
+
+    Result ret = new Result(userCount, tagCounter.get(), urlCounter.get(), urlTagCounter.get(),
+            Duration.ofNanos(System.nanoTime() - start));
+    logger.info("Synthetic data generated: {}", ret);
+    return ret;
+  }
+
+  private ShardRows[] generateChunk(int chunk, IdSequence userIds, IdSequence[] tagIds, IdSequence[] urlIds) {
+    // seeded by the chunk, so the content does not depend on the scheduling of the threads
+    SplittableRandom random = new SplittableRandom(randomSeed * 31 + chunk);
+    ShardRows[] ret = new ShardRows[shardRouter.getShardCount()];
+    for (int i = 0; i < ret.length; i++) {
+      ret[i] = new ShardRows();
+    }
+
+    int firstUser = chunk * USERS_PER_CHUNK;
+    int lastUser = Math.min(firstUser + USERS_PER_CHUNK, userCount);
+    for (int user = firstUser; user < lastUser; user++) {
+      int appUserId = userIds.nextId();
+      int shard = shardRouter.isEnabled()
+              ? shardRouter.getResolver().homeShardOf(appUserId)
+              : ShardRouter.GLOBAL_SHARD;
+
+      // the user is always on the global shard (for login), a copy on his home shard for foreign keys
+      Object[] appUserRow = {appUserId, "user" + appUserId + "@synthetic.test", passwordHash};
+      ret[ShardRouter.GLOBAL_SHARD].appUsers.add(appUserRow);
+      if (shard != ShardRouter.GLOBAL_SHARD)
+        ret[shard].appUsers.add(appUserRow);
+
+      int[] userTagIds = generateTags(random, appUserId, tagIds[shard], ret[shard]);
+      generateUrls(random, appUserId, userTagIds, urlIds[shard], ret[shard]);
+    }
+    return ret;
+  }
+
+  private int[] generateTags(SplittableRandom random, int appUserId, IdSequence tagIds, ShardRows rows) {
+    int tagCount = 1 + random.nextInt(Math.min(maxTagsPerUser, tagVocabularySize));
+    Set<Integer> words = new LinkedHashSet<>();
+    while (words.size() < tagCount) {
+      words.add(tagVocabulary.sample(random));
+    }
+
+    int[] ret = new int[tagCount];
+    int index = 0;
+    for (int word : words) {
+      int tagId = tagIds.nextId();
+      String color = Integer.toHexString(random.nextInt(16 * 16 * 16) | 0x1000).substring(1).toUpperCase();
+      rows.tags.add(new Object[]{tagId, tagTitle(word), color, appUserId});
+      ret[index++] = tagId;
+    }
+    return ret;
+  }
+
+  private void generateUrls(SplittableRandom random, int appUserId, int[] userTagIds,
+                            IdSequence urlIds, ShardRows rows) {
+    int urlCount = urlsPerUser.sample(random);
+    Set<Integer> usedPopularUrls = new HashSet<>();
+    for (int i = 0; i < urlCount; i++) {
+      int urlId = urlIds.nextId();
+      String address;
+      String title;
+      int popularUrl = popularUrls.sample(random);
+      if (random.nextDouble() < popularUrlRatio && usedPopularUrls.add(popularUrl)) {
+        String domain = domainName(1 + (popularUrl - 1) % domainCount);
+        address = "https://" + domain + "/popular/" + popularUrl;
+        title = capitalize(WORDS[popularUrl % WORDS.length]) + " on " + domain;
+      } else {
+        String domain = domainName(domains.sample(random));
+        String word = WORDS[random.nextInt(WORDS.length)];
+        address = "https://" + domain + "/" + word + "/" + urlId;
+        title = capitalize(word) + " " + urlId;
+      }
+      address = UrlCanonicalizer.canonicalize(address);
+      rows.urls.add(new Object[]{urlId, title, address, UrlCanonicalizer.hash(address), appUserId});
+
+      int urlTagCount = random.nextInt(Math.min(maxTagsPerUrl, userTagIds.length) + 1);
+      int firstTag = random.nextInt(userTagIds.length);
+      for (int j = 0; j < urlTagCount; j++) {
+        rows.urlTags.add(new Object[]{urlId, userTagIds[(firstTag + j) % userTagIds.length]});
+      }
+    }
+  }
+
+  private void writeRows(int shard, ShardRows rows) throws SQLException {
+    try (Connection connection = getShardDataSource(shard).getConnection()) {
+      boolean isMariaDb = isMariaDb(connection);
+      connection.setAutoCommit(false);
+      try {
+        // the generated data are consistent, checking every row only slows the inserts down
+        if (isMariaDb)
+          setChecks(connection, false);
+        appUserInserter.insert(connection, rows.appUsers);
+        tagInserter.insert(connection, rows.tags);
+        urlInserter.insert(connection, rows.urls);
+        urlTagInserter.insert(connection, rows.urlTags);
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        // the connection returns to the pool
+        if (isMariaDb)
+          setChecks(connection, true);
+        connection.setAutoCommit(true);
+      }
+    }
+  }
+
+  private DataSource getShardDataSource(int shard) {
+    return shardRouter.isEnabled() ? shardRouter.getShardDataSource(shard) : dataSource;
+  }
+
+  private static void setChecks(Connection connection, boolean enabled) throws SQLException {
+    int value = enabled ? 1 : 0;
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("set session foreign_key_checks = " + value + ", unique_checks = " + value);
+    }
+  }
+
+  private static boolean isMariaDb(Connection connection) throws SQLException {
+    String product = connection.getMetaData().getDatabaseProductName().toLowerCase();
+    return product.contains("mariadb") || product.contains("mysql");
+  }
+
+  private static String domainName(int index) {
+    return index <= POPULAR_DOMAINS.length ? POPULAR_DOMAINS[index - 1] : "www.site" + index + ".example";
+  }
+
+  private static String tagTitle(int index) {
+    String word = WORDS[(index - 1) % WORDS.length];
+    int round = (index - 1) / WORDS.length;
+    return round == 0 ? word : word + "-" + round;
+  }
+
+  private static String capitalize(String word) {
+    return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+  }
+}
@@ -0,0 +1,123 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.EventFeed;
+import cz.osu.vbap.favUrls.model.entities.OutboxEvent;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user stream of the changes of urls, published from the outbox of `UrlService` changes
+ * (see `OutboxService`) and consumed by `GET /v1/url/stream`.
+ * The events are kept only in memory of this instance (see `EventFeed`), so with more instances
+ * the subscriber gets only the changes dispatched by the instance he is connected to.
+ */
+@Service
+public class UrlChangeService extends AppService implements OutboxService.Consumer {
+
+  public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  /**
+   * The change of the url with the url data at the time of the change (null for `DELETED`).
+   */
+  public record UrlChange(ChangeType type, int urlId, String title, String address, Integer lastCheckStatus,
+                          String description, String faviconHash) {
+    private static UrlChange of(ChangeType type, Url url) {
+      return new UrlChange(type, url.getUrlId(), url.getTitle(), url.getAddress(), url.getLastCheckStatus(),
+              url.getDescription(), url.getFaviconHash());
+    }
+  }
+
+  @Value("${app.urlStream.historySize:100}")
+  private int historySize;
+  @Value("${app.urlStream.historyRetentionMinutes:10}")
+  private int historyRetentionMinutes;
+  @Value("${app.urlStream.queueCapacity:64}")
+  private int queueCapacity;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private EventFeed<Integer, UrlChange> feed;
+
+  @PostConstruct
+  private void init() {
+    feed = new EventFeed<>(historySize, Duration.ofMinutes(historyRetentionMinutes), queueCapacity);
+    meterRegistry.gauge("favUrls.urlStream.subscriptions", feed, EventFeed::getSubscriptionCount);
+    FunctionCounter.builder("favUrls.urlStream.overflows", feed, EventFeed::getOverflowCount)
+            .register(meterRegistry);
+  }
+
+  @PreDestroy
+  private void close() {
+    feed.close();
+  }
+
+  public void publishCreated(Url url) {
+    publish(ChangeType.CREATED, url);
+  }
+
+  public void publishUpdated(Url url) {
+    publish(ChangeType.UPDATED, url);
+  }
+
+  public void publishDeleted(int appUserId, int urlId) {
+    feed.publish(appUserId, new UrlChange(ChangeType.DELETED, urlId, null, null, null, null, null));
+  }
+
+  @Override
+  public void accept(OutboxEvent event, Url url) {
+    // the url is null if deleted meanwhile, its DELETED event follows
+    switch (event.getType()) {
+      case CREATED -> {
+        if (url != null) publishCreated(url);
+      }
+      case UPDATED -> {
+        if (url != null) publishUpdated(url);
+      }
+      case DELETED -> publishDeleted(event.getAppUserId(), event.getUrlId());
+    }
+  }
+
+  private void publish(ChangeType type, Url url) {
+    ArgVal.notNull(url, "url");
+    feed.publish(url.getAppUser().getAppUserId(), UrlChange.of(type, url));
+  }
+
+  /**
+   * Subscribes to the url changes of the user.
+   *
+   * @param appUserId   the user
+   * @param lastEventId the id of the last change received before the reconnection, or null
+   * @param listener    the receiver of the changes; it must close the subscription when the client disconnects
+   * @return the subscription
+   */
+  public EventFeed<Integer, UrlChange>.Subscription subscribe(
+          int appUserId, Long lastEventId, EventFeed.Listener<UrlChange> listener) {
+    EventFeed<Integer, UrlChange>.Subscription ret = feed.subscribe(appUserId, lastEventId, listener);
+    return ret;
+  }
+
+  @Scheduled(
+          initialDelayString = "${app.urlStream.heartbeatSeconds:30}",
+          fixedDelayString = "${app.urlStream.heartbeatSeconds:30}",
+          timeUnit = TimeUnit.SECONDS)
+  public void heartbeat() {
+    feed.heartbeat();
+    feed.cleanUp();
+  }
+}
@@ -1,41 +1,278 @@
 package cz.osu.vbap.favUrls.services;
 
+import cz.osu.vbap.favUrls.lib.ArgVal;
+import cz.osu.vbap.favUrls.lib.SingleFlight;
+import cz.osu.vbap.favUrls.lib.UrlCanonicalizer;
 import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.OutboxEvent;
+import cz.osu.vbap.favUrls.model.entities.Tombstone;
 import cz.osu.vbap.favUrls.model.entities.Url;
 import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
 import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
 import cz.osu.vbap.favUrls.services.exceptions.AppServiceException;
 import cz.osu.vbap.favUrls.services.exceptions.BadDataException;
+import cz.osu.vbap.favUrls.services.exceptions.InternalException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 @Service
 public class UrlService extends AppService {
 
+  /**
+   * Defines what happens when the user adds an url (after canonicalization) which he already has.
+   */
+  public enum DuplicatePolicy {
+    /**
+     * The request fails with `BadDataException`.
+     */
+    REJECT,
+    /**
+     * The existing url is kept, its title is updated to the new one.
+     */
+    MERGE
+  }
+
+  public record ImportItem(String title, String address) {
+  }
+
+  /**
+   * The key of `userUrlLoads`: the user and the count of his writes committed before the load.
+   */
+  private record UserUrlsKey(int appUserId, long writeVersion) {
+  }
+
+  @FunctionalInterface
+  private interface Work<T> {
+    T run() throws AppServiceException;
+  }
+
+  /**
+   * Thrown out of the transaction when the unique index `UQ_url_app_user_address_hash` rejects a new url,
+   * so the transaction is rolled back and the work can be repeated.
+   */
+  private static class DuplicateAddressException extends RuntimeException {
+    DuplicateAddressException(DataIntegrityViolationException cause) {
+      super(cause);
+    }
+  }
+
   @Autowired
   private UrlRepository urlRepository;
   @Autowired
   private AppUserRepository appUserRepository;
+  @Autowired
+  private OutboxService outboxService;
+  @Autowired
+  private AuditLogService auditLogService;
+  @Autowired
+  private SyncService syncService;
+  @Autowired
+  private MeterRegistry meterRegistry;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Value("${app.urls.duplicatePolicy:REJECT}")
+  private DuplicatePolicy duplicatePolicy;
+
+  // counts of the committed writes per user (striped, a shared stripe only prevents some coalescing)
+  private static final int WRITE_VERSION_STRIPES = 1024;
 
+  private final SingleFlight<UserUrlsKey, List<Url>> userUrlLoads = new SingleFlight<>();
+  private final AtomicLongArray writeVersions = new AtomicLongArray(WRITE_VERSION_STRIPES);
+
+  @PostConstruct
+  private void init() {
+    userUrlLoads.registerMeters(meterRegistry, "url.getByUser");
+  }
+
+  /**
+   * Creates the url. The follow-up work (the change stream, the enrichment) is done after the commit
+   * by the consumers of `OutboxService`, the change is appended to the audit log after the commit, too.
+   */
   public Url create(int appUserId, String title, String address) throws AppServiceException {
-    AppUser appUser = tryInvoke(() -> appUserRepository.findById(appUserId))
-            .orElseThrow(() -> new BadDataException(this, "User not found."));
+    Url ret = executeCreating(() -> {
+      AppUser appUser = tryInvoke(() -> appUserRepository.findById(appUserId))
+              .orElseThrow(() -> new BadDataException(this, "User not found."));
+      return createOrMerge(appUser, title, address);
+    });
+    return ret;
+  }
+
+  /**
+   * Imports multiple urls at once. Every address is canonicalized and checked for duplicates
+   * (also within the imported batch) according to the configured `DuplicatePolicy`.
+   * The import is all or nothing: if any url fails (e.g. a rejected duplicate), no url is imported.
+   *
+   * @param appUserId the owner of the urls
+   * @param items the urls to import
+   * @return the created (or merged) urls
+   * @throws AppServiceException if the user does not exist or a duplicate is rejected
+   */
+  public List<Url> importUrls(int appUserId, Collection<ImportItem> items) throws AppServiceException {
+    ArgVal.notNull(items, "items");
+    List<Url> ret = executeCreating(() -> {
+      AppUser appUser = tryInvoke(() -> appUserRepository.findById(appUserId))
+              .orElseThrow(() -> new BadDataException(this, "User not found."));
+
+      List<Url> urls = new ArrayList<>(items.size());
+      for (ImportItem item : items) {
+        urls.add(createOrMerge(appUser, item.title(), item.address()));
+      }
+      return urls;
+    });
+    return ret;
+  }
+
+  /**
+   * Runs the creating work in a transaction. When a concurrent create of the same address (e.g. a retry
+   * of the client) inserts first, the work is repeated once in a new transaction, where `createOrMerge()`
+   * finds the other url and applies the `DuplicatePolicy`.
+   */
+  private <T> T executeCreating(Work<T> work) throws AppServiceException {
+    T ret;
+    try {
+      ret = executeInTransaction(work);
+    } catch (DuplicateAddressException e) {
+      try {
+        ret = executeInTransaction(work);
+      } catch (DuplicateAddressException again) {
+        logger.error("Url created concurrently again", again.getCause());
+        throw new InternalException(this, "Url created concurrently again", again.getCause());
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the work in a transaction, which is rolled back when the work fails by any `AppServiceException`,
+   * so a failed import does not leave its earlier urls (and their outbox and audit events) behind.
+   */
+  private <T> T executeInTransaction(Work<T> work) throws AppServiceException {
+    AppServiceException[] failure = new AppServiceException[1];
+    T ret = transactionTemplate.execute(status -> {
+      try {
+        return work.run();
+      } catch (AppServiceException e) {
+        status.setRollbackOnly();
+        failure[0] = e;
+        return null;
+      }
+    });
+    if (failure[0] != null) throw failure[0];
+    return ret;
+  }
+
+  private Url createOrMerge(AppUser appUser, String title, String address) throws AppServiceException {
+    ArgVal.notWhitespace(address, "address");
+    String canonicalAddress = UrlCanonicalizer.canonicalize(address);
+    String addressHash = UrlCanonicalizer.hash(canonicalAddress);
+
+    Optional<Url> existing = tryInvoke(() -> urlRepository.findByAppUserAndAddressHash(appUser, addressHash))
+            .filter(q -> q.getAddress().equals(canonicalAddress)); // hash collision guard
+
+    Url ret;
+    if (existing.isPresent()) {
+      if (duplicatePolicy == DuplicatePolicy.REJECT)
+        throw new BadDataException(this, "Url already exists.");
+      ret = existing.get();
+      if (title != null && !title.isBlank())
+        ret.setTitle(title);
+      ret.setChangeSeq(tryInvoke(() -> syncService.nextChangeSeq(appUser.getAppUserId())));
+      tryInvoke(() -> urlRepository.save(ret));
+      tryInvoke(() -> outboxService.record(OutboxEvent.Type.UPDATED, appUser.getAppUserId(), ret.getUrlId()));
+      auditLogService.recordUrl(AuditLogService.Type.URL_UPDATED, ret);
+      markWritten(appUser.getAppUserId());
+    } else {
+      // without title, the address is used until the real title is downloaded by the enrichment
+      String effectiveTitle = title == null || title.isBlank()
+              ? canonicalAddress.substring(0, Math.min(canonicalAddress.length(), Url.TITLE_LENGTH))
+              : title;
+      ret = new Url(appUser, effectiveTitle, canonicalAddress);
+      ret.setCanonicalAddress(canonicalAddress, addressHash);
+      ret.setChangeSeq(tryInvoke(() -> syncService.nextChangeSeq(appUser.getAppUserId())));
+      try {
+        urlRepository.save(ret); // inserted at once, the id is generated by the database
+      } catch (DataIntegrityViolationException e) {
+        throw new DuplicateAddressException(e);
+      } catch (Exception e) {
+        logger.error("Error in 'tryInvoke'", e);
+        throw new InternalException(this, "Error in 'tryInvoke'", e);
+      }
+      tryInvoke(() -> outboxService.record(OutboxEvent.Type.CREATED, appUser.getAppUserId(), ret.getUrlId()));
+      auditLogService.recordUrl(AuditLogService.Type.URL_CREATED, ret);
+      markWritten(appUser.getAppUserId());
+    }
+    return ret;
+  }
 
-    Url url = new Url(appUser, title, address);
-    tryInvoke(() -> urlRepository.save(url));
-    return url;
+  /**
+   * Deletes the url of the user; a url which does not exist (e.g. already deleted) is ignored.
+   *
+   * @return false if the url belongs to another user, then it is not deleted
+   */
+  @Transactional(rollbackFor = InternalException.class)
+  public boolean delete(int appUserId, int urlId) throws AppServiceException {
+    Optional<Url> url = tryInvoke(() -> urlRepository.findById(urlId));
+    if (url.isEmpty()) return true;
+    if (url.get().getAppUser().getAppUserId() != appUserId) return false;
+    tryInvoke(() -> urlRepository.delete(url.get()));
+    tryInvoke(() -> syncService.recordDeletion(appUserId, Tombstone.Type.URL, urlId));
+    tryInvoke(() -> outboxService.record(OutboxEvent.Type.DELETED, appUserId, urlId));
+    auditLogService.recordUrl(AuditLogService.Type.URL_DELETED, url.get());
+    markWritten(appUserId);
+    return true;
   }
 
-  public void delete(int urlId) throws AppServiceException {
-    tryInvoke(() -> urlRepository.deleteById(urlId));
+  /**
+   * Counts the write of the user after the commit, so his next `getByUser()` does not join a load started
+   * before (reading the old data, possibly from the replica).
+   */
+  private void markWritten(int appUserId) {
+    Runnable increment = () -> writeVersions.incrementAndGet(Math.floorMod(appUserId, WRITE_VERSION_STRIPES));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          increment.run();
+        }
+      });
+    } else {
+      increment.run();
+    }
   }
 
+  /**
+   * Returns the urls of the user. Concurrent calls for the same user (e.g. more tabs of the browser)
+   * share one load and get the same unmodifiable list. A call after a write of the user never joins a load
+   * started before the write, so the user reads his writes (the load is also routed to the primary then,
+   * see `ReplicaRoutingDataSource`).
+   */
   public List<Url> getByUser(int appUserId) throws AppServiceException {
+    // no transaction here, the waiting callers would hold a connection each;
+    // the repository methods run in their own read-only transactions
+    UserUrlsKey key = new UserUrlsKey(appUserId, writeVersions.get(Math.floorMod(appUserId, WRITE_VERSION_STRIPES)));
+    List<Url> ret = userUrlLoads.call(key, () -> loadByUser(appUserId));
+    return ret;
+  }
+
+  private List<Url> loadByUser(int appUserId) throws AppServiceException {
     AppUser appUser = tryInvoke(() -> appUserRepository.findById(appUserId))
             .orElseThrow(() -> new BadDataException(this, "User not found."));
-    List<Url> ret = tryInvoke(() -> urlRepository.findByAppUser(appUser));
+    List<Url> ret = Collections.unmodifiableList(tryInvoke(() -> urlRepository.findByAppUser(appUser)));
     return ret;
   }
 }
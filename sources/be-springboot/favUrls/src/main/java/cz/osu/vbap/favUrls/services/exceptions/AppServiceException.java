@@ -3,6 +3,11 @@ package cz.osu.vbap.favUrls.services.exceptions;
 import cz.osu.vbap.favUrls.services.AppService;
 import lombok.Getter;
 
+/**
+ * The failure of a service. The expected failures (`BadRequestException`, `InvalidOrExpiredCredentialsException`)
+ * are returned to the client and have no stack trace, so a flood of them (e.g. bad logins) costs only
+ * the allocation; only `InternalException` has the full trace.
+ */
 @Getter
 public abstract class AppServiceException extends Exception {
   private final AppService source;
@@ -16,4 +21,13 @@ public abstract class AppServiceException extends Exception {
     super(message, cause);
     this.source = source;
   }
+
+  /**
+   * Creates the exception of an expected failure, without the stack trace and the suppressed exceptions.
+   * Such exception is immutable, so one instance may be thrown repeatedly.
+   */
+  protected AppServiceException(AppService source, String message, boolean writableStackTrace) {
+    super(message, null, false, writableStackTrace);
+    this.source = source;
+  }
 }
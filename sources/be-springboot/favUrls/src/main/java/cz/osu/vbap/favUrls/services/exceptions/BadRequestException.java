@@ -4,6 +4,6 @@ import cz.osu.vbap.favUrls.services.AppService;
 
 public class BadRequestException extends AppServiceException {
   public BadRequestException(AppService service, String message) {
-    super(service, message);
+    super(service, message, false);
   }
 }
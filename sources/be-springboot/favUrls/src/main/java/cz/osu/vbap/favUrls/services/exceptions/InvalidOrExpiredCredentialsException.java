@@ -4,6 +4,6 @@ import cz.osu.vbap.favUrls.services.AppService;
 
 public class InvalidOrExpiredCredentialsException extends AppServiceException {
   public InvalidOrExpiredCredentialsException(AppService source) {
-    super(source, "Invalid or expired credentials.");
+    super(source, "Invalid or expired credentials.", false);
   }
 }
@@ -0,0 +1,84 @@
+-- Schema of favUrls. Kept compatible with H2 in MariaDB mode (used by the load tests).
+-- Hibernate validates the entities against this schema at startup (ddl-auto=validate).
+
+CREATE TABLE app_user
+(
+    app_user_id   INT AUTO_INCREMENT NOT NULL,
+    email         VARCHAR(64)        NOT NULL,
+    password_hash VARCHAR(255)       NULL,
+    CONSTRAINT PK_app_user PRIMARY KEY (app_user_id),
+    CONSTRAINT UQ_app_user_email UNIQUE (email)
+);
+-- login (findByEmail) reads the whole row from the index only
+CREATE INDEX IX_app_user_email_password_hash ON app_user (email, password_hash);
+
+CREATE TABLE tag
+(
+    tag_id      INT AUTO_INCREMENT NOT NULL,
+    title       VARCHAR(255)       NOT NULL,
+    color       VARCHAR(3)         NOT NULL,
+    app_user_id INT                NULL,
+    CONSTRAINT PK_tag PRIMARY KEY (tag_id),
+    CONSTRAINT FK_tag_app_user FOREIGN KEY (app_user_id) REFERENCES app_user (app_user_id)
+);
+-- tags of a user, covering
+CREATE INDEX IX_tag_app_user ON tag (app_user_id, title, color);
+
+CREATE TABLE url
+(
+    url_id            INT AUTO_INCREMENT NOT NULL,
+    title             VARCHAR(256)       NOT NULL,
+    address           VARCHAR(255)       NOT NULL,
+    address_hash      VARCHAR(64)        NOT NULL,
+    description       VARCHAR(512)       NULL,
+    favicon_hash      VARCHAR(64)        NULL,
+    last_check_status INT                NULL,
+    last_check_target VARCHAR(255)       NULL,
+    last_checked_at   DATETIME(6)        NULL,
+    app_user_id       INT                NULL,
+    CONSTRAINT PK_url PRIMARY KEY (url_id),
+    CONSTRAINT FK_url_app_user FOREIGN KEY (app_user_id) REFERENCES app_user (app_user_id)
+);
+-- urls of a user (findByAppUser) and the duplicate check (findByAppUserAndAddressHash)
+CREATE INDEX IX_url_app_user_address_hash ON url (app_user_id, address_hash);
+
+CREATE TABLE url_tag
+(
+    url_id INT NOT NULL,
+    tag_id INT NOT NULL,
+    CONSTRAINT PK_url_tag PRIMARY KEY (url_id, tag_id),
+    CONSTRAINT FK_url_tag_url FOREIGN KEY (url_id) REFERENCES url (url_id),
+    CONSTRAINT FK_url_tag_tag FOREIGN KEY (tag_id) REFERENCES tag (tag_id)
+);
+-- urls of a tag
+CREATE INDEX IX_url_tag_tag ON url_tag (tag_id, url_id);
+
+-- the refresh token is looked up by the fixed-length hash of its value, not by the (long) value itself
+CREATE TABLE token
+(
+    token_id    INT AUTO_INCREMENT NOT NULL,
+    value       VARCHAR(512)       NOT NULL,
+    value_hash  VARCHAR(64)        NOT NULL,
+    app_user_id INT                NULL,
+    CONSTRAINT PK_token PRIMARY KEY (token_id),
+    CONSTRAINT UQ_token_app_user UNIQUE (app_user_id),
+    CONSTRAINT UQ_token_value_hash UNIQUE (value_hash),
+    CONSTRAINT FK_token_app_user FOREIGN KEY (app_user_id) REFERENCES app_user (app_user_id)
+);
+
+CREATE TABLE favicon
+(
+    hash         VARCHAR(64) NOT NULL,
+    content_type VARCHAR(64) NOT NULL,
+    data         MEDIUMBLOB  NOT NULL,
+    CONSTRAINT PK_favicon PRIMARY KEY (hash)
+);
+
+-- shard directory (see ShardResolver), used only on the global shard
+CREATE TABLE shard_directory
+(
+    app_user_id INT NOT NULL,
+    shard       INT NOT NULL,
+    moving      BIT NOT NULL DEFAULT 0,
+    CONSTRAINT PK_shard_directory PRIMARY KEY (app_user_id)
+);
@@ -0,0 +1,12 @@
+-- changes of urls written in the same transaction as the change itself and dispatched
+-- to the in-process consumers after the commit, see OutboxService
+CREATE TABLE outbox_event
+(
+    outbox_event_id BIGINT AUTO_INCREMENT NOT NULL,
+    type            VARCHAR(16)           NOT NULL,
+    app_user_id     INT                   NOT NULL,
+    url_id          INT                   NOT NULL,
+    created_at      DATETIME(6)           NOT NULL,
+    attempts        INT                   NOT NULL DEFAULT 0,
+    CONSTRAINT PK_outbox_event PRIMARY KEY (outbox_event_id)
+);
@@ -0,0 +1,31 @@
+-- per-user change sequence of the delta sync (GET /v1/url/changes), see SyncService;
+-- the rows existing before have the sequence 0 and are returned only by the full sync
+ALTER TABLE url ADD change_seq BIGINT NOT NULL DEFAULT 0;
+CREATE INDEX IX_url_app_user_change_seq ON url (app_user_id, change_seq);
+
+ALTER TABLE tag ADD change_seq BIGINT NOT NULL DEFAULT 0;
+CREATE INDEX IX_tag_app_user_change_seq ON tag (app_user_id, change_seq);
+
+-- the last change of the user (the row is locked until the commit of the change, so the changes
+-- are committed in the order of the sequence) and the last change of the purged tombstones
+CREATE TABLE change_sequence
+(
+    app_user_id INT    NOT NULL,
+    seq         BIGINT NOT NULL,
+    purged_seq  BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT PK_change_sequence PRIMARY KEY (app_user_id)
+);
+
+-- deleted urls and tags, kept for the delta sync for app.sync.tombstoneRetentionDays
+CREATE TABLE tombstone
+(
+    tombstone_id BIGINT AUTO_INCREMENT NOT NULL,
+    app_user_id  INT                   NOT NULL,
+    change_seq   BIGINT                NOT NULL,
+    type         VARCHAR(8)            NOT NULL,
+    entity_id    INT                   NOT NULL,
+    created_at   DATETIME(6)           NOT NULL,
+    CONSTRAINT PK_tombstone PRIMARY KEY (tombstone_id)
+);
+CREATE INDEX IX_tombstone_app_user_change_seq ON tombstone (app_user_id, change_seq);
+CREATE INDEX IX_tombstone_created_at ON tombstone (created_at);
@@ -0,0 +1,4 @@
+-- one url per canonical address and user also for concurrent creates, see UrlService.createOrMerge();
+-- created before the old index is dropped, MariaDB needs an index for FK_url_app_user all the time
+CREATE UNIQUE INDEX UQ_url_app_user_address_hash ON url (app_user_id, address_hash);
+DROP INDEX IX_url_app_user_address_hash ON url;
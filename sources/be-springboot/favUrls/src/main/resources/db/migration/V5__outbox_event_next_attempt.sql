@@ -0,0 +1,3 @@
+-- the failed event is retried after a backoff and the claimed batch is leased, see OutboxService;
+-- a user with an event waiting for its next attempt is skipped whole, so his events stay in order
+ALTER TABLE outbox_event ADD COLUMN next_attempt_at DATETIME(6) NULL;
@@ -0,0 +1,65 @@
+package cz.osu.vbap.favUrls;
+
+import cz.osu.vbap.favUrls.security.AuthenticationJwtFilter;
+import cz.osu.vbap.favUrls.security.JwtTokenUtil;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest()
+@AutoConfigureMockMvc
+@TestPropertySource(locations =
+        {"classpath:application.properties", "classpath:test.properties"},
+        properties = {"app.enrichment.enabled=false", "app.security.adminEmails=admin@osu.cz"})
+public class ActuatorSecurityTest {
+
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  JwtTokenUtil jwtTokenUtil;
+
+  private Cookie accessTokenOf(String email, int appUserId) {
+    String accessToken = jwtTokenUtil.generateAccessToken(jwtTokenUtil.generateRefreshToken(email, appUserId));
+    return new Cookie(AuthenticationJwtFilter.ACCESS_TOKEN_COOKIE_NAME, accessToken);
+  }
+
+  @Test
+  void ordinaryUserIsForbidden() throws Exception {
+    Cookie user = accessTokenOf("user@osu.cz", 1);
+
+    mockMvc.perform(post("/actuator/shards/2").with(csrf()).cookie(user)
+                    .contentType(MediaType.APPLICATION_JSON).content("{\"targetShard\": 1}"))
+            .andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/shards/2").cookie(user))
+            .andExpect(status().isForbidden());
+    mockMvc.perform(delete("/actuator/queries").with(csrf()).cookie(user))
+            .andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/queries").cookie(user))
+            .andExpect(status().isForbidden());
+
+    int healthStatus = mockMvc.perform(get("/actuator/health").cookie(user)).andReturn().getResponse().getStatus();
+    assertNotEquals(403, healthStatus);
+  }
+
+  @Test
+  void adminIsAllowed() throws Exception {
+    Cookie admin = accessTokenOf("admin@osu.cz", 2);
+
+    mockMvc.perform(get("/actuator/metrics").cookie(admin))
+            .andExpect(status().isOk());
+    mockMvc.perform(get("/actuator/queries").cookie(admin))
+            .andExpect(status().isOk());
+  }
+}
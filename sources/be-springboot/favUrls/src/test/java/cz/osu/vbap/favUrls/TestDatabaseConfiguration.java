@@ -0,0 +1,39 @@
+package cz.osu.vbap.favUrls;
+
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Tests with `test.properties` run against a persistent database, so it is emptied before the migrations,
+ * as `ddl-auto=create-drop` did before. With sharding, every shard is emptied and migrated
+ * (instead of the strategy of `ShardingConfiguration`).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.test.cleanDatabase", havingValue = "true")
+public class TestDatabaseConfiguration {
+
+  @Bean
+  @Primary
+  public FlywayMigrationStrategy cleanFlywayMigrationStrategy(ShardRouter shardRouter) {
+    return flyway -> {
+      if (!shardRouter.isEnabled()) {
+        flyway.clean();
+        flyway.migrate();
+        return;
+      }
+      for (int i = 0; i < shardRouter.getShardCount(); i++) {
+        Flyway shardFlyway = Flyway.configure()
+                .configuration(flyway.getConfiguration())
+                .dataSource(shardRouter.getShardDataSource(i))
+                .load();
+        shardFlyway.clean();
+        shardFlyway.migrate();
+      }
+    };
+  }
+}
@@ -0,0 +1,31 @@
+package cz.osu.vbap.favUrls.lib;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AddressGuardTest {
+
+  private static boolean isPublic(String literal) throws UnknownHostException {
+    return AddressGuard.isPublic(InetAddress.getByName(literal));
+  }
+
+  @Test
+  void internalAddressesAreNotPublic() throws UnknownHostException {
+    for (String literal : new String[]{"127.0.0.1", "0.0.0.0", "10.1.2.3", "172.16.0.1", "192.168.1.1",
+            "169.254.169.254", "::1", "::", "fe80::1", "fd00::1", "::ffff:127.0.0.1", "224.0.0.1",
+            "0.1.2.3", "100.64.0.1", "100.127.255.254"}) {
+      assertFalse(isPublic(literal), literal);
+    }
+  }
+
+  @Test
+  void publicAddressesArePublic() throws UnknownHostException {
+    for (String literal : new String[]{"8.8.8.8", "158.196.0.1", "172.32.0.1", "100.63.255.255", "100.128.0.1", "2001:4860:4860::8888"}) {
+      assertTrue(isPublic(literal), literal);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package cz.osu.vbap.favUrls.lib;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventFeedTest {
+  private static final String RESET = "<reset>";
+  private static final String CLOSED = "<closed>";
+
+  // collects the event data and signals
+  private static class RecordingListener implements EventFeed.Listener<String> {
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private volatile long lastId;
+
+    @Override
+    public void onEvent(EventFeed.Event<String> event) {
+      lastId = event.id();
+      received.add(event.data());
+    }
+
+    @Override
+    public void onReset() {
+      received.add(RESET);
+    }
+
+    @Override
+    public void onClose() {
+      received.add(CLOSED);
+    }
+
+    private String next() throws InterruptedException {
+      String ret = received.poll(5, TimeUnit.SECONDS);
+      assertNotNull(ret, "No event received.");
+      return ret;
+    }
+  }
+
+  @Test
+  void eventsAreDeliveredToSubscribersOfTheKey() throws Exception {
+    EventFeed<Integer, String> feed = new EventFeed<>(10, Duration.ofMinutes(1), 10);
+    RecordingListener first = new RecordingListener();
+    RecordingListener second = new RecordingListener();
+    feed.subscribe(1, null, first);
+    feed.subscribe(2, null, second);
+
+    feed.publish(1, "a");
+    feed.publish(2, "b");
+    feed.publish(1, "c");
+
+    assertEquals(List.of("a", "c"), List.of(first.next(), first.next()));
+    assertEquals("b", second.next());
+    assertEquals(2, feed.getSubscriptionCount());
+  }
+
+  @Test
+  void resumedSubscriptionGetsMissedEvents() throws Exception {
+    EventFeed<Integer, String> feed = new EventFeed<>(10, Duration.ofMinutes(1), 10);
+    RecordingListener listener = new RecordingListener();
+    EventFeed<Integer, String>.Subscription subscription = feed.subscribe(1, null, listener);
+    feed.publish(1, "a");
+    assertEquals("a", listener.next());
+    subscription.close();
+    assertEquals(CLOSED, listener.next());
+
+    feed.publish(1, "b");
+    feed.publish(1, "c");
+    RecordingListener resumed = new RecordingListener();
+    feed.subscribe(1, listener.lastId, resumed);
+    feed.publish(1, "d");
+
+    assertEquals(List.of("b", "c", "d"), List.of(resumed.next(), resumed.next(), resumed.next()));
+  }
+
+  @Test
+  void resumptionAfterDiscardedEventsResets() throws Exception {
+    EventFeed<Integer, String> feed = new EventFeed<>(2, Duration.ofMinutes(1), 10);
+    long firstId = feed.publish(1, "a");
+    feed.publish(1, "b");
+    feed.publish(1, "c");
+    feed.publish(1, "d");
+
+    RecordingListener listener = new RecordingListener();
+    feed.subscribe(1, firstId, listener);
+    assertEquals(RESET, listener.next());
+
+    // an id unknown to the feed, e.g. from before a restart
+    RecordingListener unknown = new RecordingListener();
+    feed.subscribe(1, firstId + 100, unknown);
+    assertEquals(RESET, unknown.next());
+  }
+
+  @Test
+  void resumptionWithMoreMissedEventsThanTheQueueResets() throws Exception {
+    EventFeed<Integer, String> feed = new EventFeed<>(100, Duration.ofMinutes(1), 4);
+    long firstId = feed.publish(1, "a");
+    for (int i = 0; i < 10; i++) {
+      feed.publish(1, "b" + i);
+    }
+
+    // the replay would overflow the queue, the subscription is not closed
+    RecordingListener listener = new RecordingListener();
+    EventFeed<Integer, String>.Subscription subscription = feed.subscribe(1, firstId, listener);
+    assertEquals(RESET, listener.next());
+    assertFalse(subscription.isClosed());
+    assertEquals(0, feed.getOverflowCount());
+    feed.publish(1, "c");
+    assertEquals("c", listener.next());
+  }
+
+  @Test
+  void slowSubscriberIsClosed() throws Exception {
+    EventFeed<Integer, String> feed = new EventFeed<>(10, Duration.ofMinutes(1), 2);
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch closed = new CountDownLatch(1);
+    feed.subscribe(1, null, new EventFeed.Listener<>() {
+      @Override
+      public void onEvent(EventFeed.Event<String> event) throws InterruptedException {
+        blocked.countDown();
+        release.await();
+      }
+
+      @Override
+      public void onClose() {
+        closed.countDown();
+      }
+    });
+
+    feed.publish(1, "a");
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < 3; i++) {
+      feed.publish(1, "x" + i);
+    }
+    release.countDown();
+
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    assertEquals(1, feed.getOverflowCount());
+    assertEquals(0, feed.getSubscriptionCount());
+  }
+
+  @Test
+  void cleanUpRemovesExpiredEvents() throws Exception {
+    EventFeed<Integer, String> feed = new EventFeed<>(10, Duration.ZERO, 10);
+    long id = feed.publish(1, "a");
+    feed.publish(1, "b");
+    Thread.sleep(5);
+    feed.cleanUp();
+
+    RecordingListener listener = new RecordingListener();
+    feed.subscribe(1, id, listener);
+    assertEquals(RESET, listener.next());
+  }
+}
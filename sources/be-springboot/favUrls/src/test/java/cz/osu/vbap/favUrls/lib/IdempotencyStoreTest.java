@@ -0,0 +1,92 @@
+package cz.osu.vbap.favUrls.lib;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+
+  @Test
+  void replayReturnsTheFirstResult() throws Exception {
+    IdempotencyStore<String> store = new IdempotencyStore<>(Duration.ofMinutes(1), 10);
+    AtomicInteger executions = new AtomicInteger();
+    SingleFlight.Loader<String, RuntimeException> operation = () -> "result" + executions.incrementAndGet();
+
+    assertEquals("result1", store.execute(1, "key", "a", operation));
+    assertEquals("result1", store.execute(1, "key", "a", operation));
+    // the same key of another user
+    assertEquals("result2", store.execute(2, "key", "a", operation));
+    assertEquals(2, executions.get());
+  }
+
+  @Test
+  void keyWithDifferentRequestIsRejected() {
+    IdempotencyStore<String> store = new IdempotencyStore<>(Duration.ofMinutes(1), 10);
+    store.execute(1, "key", "a", () -> "result");
+
+    assertThrows(IdempotencyStore.KeyReusedException.class, () -> store.execute(1, "key", "b", () -> "other"));
+    assertThrows(IdempotencyStore.InvalidKeyException.class, () -> store.execute(1, " ", "a", () -> "other"));
+    assertThrows(IdempotencyStore.InvalidKeyException.class,
+            () -> store.execute(1, "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1), "a", () -> "other"));
+  }
+
+  @Test
+  void failedOperationIsNotStored() throws Exception {
+    IdempotencyStore<String> store = new IdempotencyStore<>(Duration.ofMinutes(1), 10);
+
+    assertThrows(IOException.class, () -> store.execute(1, "key", "a", () -> {
+      throw new IOException("failed");
+    }));
+    assertEquals("result", store.execute(1, "key", "a", () -> "result"));
+  }
+
+  @Test
+  void concurrentReplayWaitsForTheFirstExecution() throws Exception {
+    IdempotencyStore<String> store = new IdempotencyStore<>(Duration.ofMinutes(1), 10);
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch executing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    SingleFlight.Loader<String, InterruptedException> operation = () -> {
+      executions.incrementAndGet();
+      executing.countDown();
+      release.await();
+      return "result";
+    };
+
+    Future<String> first;
+    Future<String> replay;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      first = executor.submit(() -> store.execute(1, "key", "a", operation));
+      assertTrue(executing.await(5, TimeUnit.SECONDS));
+      replay = executor.submit(() -> store.execute(1, "key", "a", operation));
+      release.countDown();
+    }
+
+    assertEquals("result", first.get());
+    assertEquals("result", replay.get());
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void oldResultsAreDiscarded() {
+    IdempotencyStore<String> expiring = new IdempotencyStore<>(Duration.ZERO, 10);
+    expiring.execute(1, "key", "a", () -> "first");
+    assertEquals("second", expiring.execute(1, "key", "a", () -> "second"));
+
+    IdempotencyStore<String> small = new IdempotencyStore<>(Duration.ofMinutes(1), 2);
+    small.execute(1, "key1", "a", () -> "first");
+    small.execute(1, "key2", "a", () -> "x");
+    small.execute(1, "key3", "a", () -> "x");
+    assertEquals(2, small.size());
+    assertEquals("second", small.execute(1, "key1", "a", () -> "second"));
+  }
+}
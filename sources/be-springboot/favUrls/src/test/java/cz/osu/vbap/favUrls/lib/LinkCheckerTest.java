@@ -0,0 +1,176 @@
+package cz.osu.vbap.favUrls.lib;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LinkCheckerTest {
+
+  private HttpServer server;
+  private String baseAddress;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext("/ok", q -> respond(q, 200));
+    server.createContext("/missing", q -> respond(q, 404));
+    server.createContext("/redirect", q -> {
+      q.getResponseHeaders().add("Location", "/ok");
+      respond(q, 302);
+    });
+    server.createContext("/redirectToCounted", q -> {
+      q.getResponseHeaders().add("Location", baseAddress + "/counted");
+      respond(q, 302);
+    });
+    server.createContext("/noHead", q -> respond(q, q.getRequestMethod().equals("HEAD") ? 405 : 200));
+    server.createContext("/slow", q -> {
+      sleep(2000);
+      respond(q, 200);
+    });
+    server.createContext("/counted", q -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      sleep(100);
+      inFlight.decrementAndGet();
+      respond(q, 200);
+    });
+    server.start();
+    baseAddress = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  private static void respond(HttpExchange exchange, int status) throws IOException {
+    exchange.sendResponseHeaders(status, -1);
+    exchange.close();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private LinkChecker createChecker(int perHostLimit) {
+    return new LinkChecker(Duration.ofSeconds(1), Duration.ofSeconds(1), perHostLimit, AddressGuard.ANY);
+  }
+
+  @Test
+  void aliveLink() throws InterruptedException {
+    try (LinkChecker checker = createChecker(2)) {
+      LinkChecker.Result result = checker.check(baseAddress + "/ok");
+      assertEquals(200, result.statusCode());
+      assertTrue(result.isAlive());
+    }
+  }
+
+  @Test
+  void deadLink() throws InterruptedException {
+    try (LinkChecker checker = createChecker(2)) {
+      LinkChecker.Result result = checker.check(baseAddress + "/missing");
+      assertEquals(404, result.statusCode());
+      assertFalse(result.isAlive());
+    }
+  }
+
+  @Test
+  void redirectIsFollowed() throws InterruptedException {
+    try (LinkChecker checker = createChecker(2)) {
+      LinkChecker.Result result = checker.check(baseAddress + "/redirect");
+      assertEquals(200, result.statusCode());
+      assertEquals(baseAddress + "/ok", result.finalAddress());
+    }
+  }
+
+  @Test
+  void fallbackToGetWhenHeadNotAllowed() throws InterruptedException {
+    try (LinkChecker checker = createChecker(2)) {
+      assertEquals(200, checker.check(baseAddress + "/noHead").statusCode());
+    }
+  }
+
+  @Test
+  void timeoutIsUnreachable() throws InterruptedException {
+    try (LinkChecker checker = createChecker(2)) {
+      assertEquals(LinkChecker.STATUS_UNREACHABLE, checker.check(baseAddress + "/slow").statusCode());
+    }
+  }
+
+  @Test
+  void invalidAddressIsUnreachable() throws InterruptedException {
+    try (LinkChecker checker = createChecker(2)) {
+      assertEquals(LinkChecker.STATUS_UNREACHABLE, checker.check("not an address").statusCode());
+    }
+  }
+
+  @Test
+  void perHostLimitIsRespected() {
+    try (LinkChecker checker = createChecker(2);
+         ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 10; i++) {
+        executor.submit(() -> checker.check(baseAddress + "/counted"));
+      }
+    }
+    assertTrue(maxInFlight.get() <= 2, "Max concurrent requests was " + maxInFlight.get());
+  }
+
+  @Test
+  void perHostLimitCoversRedirectTargets() {
+    // the checks start at two hosts, all requests of the target host share its limit
+    String otherHostAddress = "http://127.0.0.1:" + server.getAddress().getPort();
+    try (LinkChecker checker = createChecker(1);
+         ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 5; i++) {
+        executor.submit(() -> checker.check(baseAddress + "/counted"));
+        executor.submit(() -> checker.check(otherHostAddress + "/redirectToCounted"));
+      }
+    }
+    assertEquals(1, maxInFlight.get());
+  }
+
+  @Test
+  void privateAddressIsUnreachable() throws InterruptedException {
+    try (LinkChecker checker = new LinkChecker(Duration.ofSeconds(1), Duration.ofSeconds(1), 2)) {
+      assertEquals(LinkChecker.STATUS_UNREACHABLE, checker.check(baseAddress + "/ok").statusCode());
+      assertEquals(LinkChecker.STATUS_UNREACHABLE, checker.check("http://169.254.169.254/latest/meta-data/").statusCode());
+    }
+  }
+
+  @Test
+  void redirectTargetIsGuarded() throws InterruptedException {
+    // only the first address is allowed, the redirect to the same server is already not
+    AtomicInteger checks = new AtomicInteger();
+    AddressGuard firstOnly = new AddressGuard(_ -> checks.incrementAndGet() == 1);
+    try (LinkChecker checker = new LinkChecker(Duration.ofSeconds(1), Duration.ofSeconds(1), 2, firstOnly)) {
+      String address = "http://127.0.0.1:" + server.getAddress().getPort() + "/redirect";
+      assertEquals(LinkChecker.STATUS_UNREACHABLE, checker.check(address).statusCode());
+    }
+  }
+
+  @Test
+  void idleHostIsEvicted() throws InterruptedException {
+    try (LinkChecker checker = createChecker(2)) {
+      checker.check(baseAddress + "/ok");
+      checker.check("http://127.0.0.1:" + server.getAddress().getPort() + "/ok");
+      assertEquals(0, checker.getHostCount());
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package cz.osu.vbap.favUrls.lib;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageMetadataFetcherTest {
+
+  private static final String PAGE = """
+          <!DOCTYPE html>
+          <html><head>
+            <meta charset="utf-8">
+            <title>  University   of Ostrava &amp; friends </title>
+            <meta name="description" content="Study with us.">
+            <link rel="icon" href="/static/icon.png">
+          </head>
+          <body><title>Not this one</title></body></html>
+          """;
+  private static final String PAGE_WITHOUT_ICON = "<html><head><title>Plain</title></head><body></body></html>";
+  private static final byte[] ICON = {1, 2, 3, 4};
+
+  private HttpServer server;
+  private String baseAddress;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/page", q -> respond(q, "text/html; charset=utf-8", PAGE.getBytes(StandardCharsets.UTF_8)));
+    server.createContext("/plain", q -> respond(q, "text/html", PAGE_WITHOUT_ICON.getBytes(StandardCharsets.UTF_8)));
+    server.createContext("/data", q -> respond(q, "application/json", "{}".getBytes(StandardCharsets.UTF_8)));
+    server.createContext("/static/icon.png", q -> respond(q, "image/png", ICON));
+    server.createContext("/big.png", q -> respond(q, "image/png", new byte[100]));
+    server.createContext("/icon.ico", q -> respond(q, "Image/X-Icon; charset=binary", ICON));
+    server.createContext("/icon.svg", q -> respond(q, "image/svg+xml", "<svg/>".getBytes(StandardCharsets.UTF_8)));
+    server.createContext("/unavailable.png", q -> {
+      q.sendResponseHeaders(503, -1);
+      q.close();
+    });
+    server.createContext("/missing.png", q -> {
+      q.sendResponseHeaders(404, -1);
+      q.close();
+    });
+    server.start();
+    baseAddress = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(body);
+    }
+  }
+
+  private PageMetadataFetcher createFetcher() {
+    return new PageMetadataFetcher(Duration.ofSeconds(1), Duration.ofSeconds(2), 65536, 50, AddressGuard.ANY);
+  }
+
+  @Test
+  void metadataExtractedFromHead() throws InterruptedException {
+    try (PageMetadataFetcher fetcher = createFetcher()) {
+      Optional<PageMetadataFetcher.PageMetadata> metadata = fetcher.fetch(baseAddress + "/page");
+      assertTrue(metadata.isPresent());
+      assertEquals("University of Ostrava & friends", metadata.get().title());
+      assertEquals("Study with us.", metadata.get().description());
+      assertEquals(baseAddress + "/static/icon.png", metadata.get().faviconAddress());
+    }
+  }
+
+  @Test
+  void defaultFaviconAddress() throws InterruptedException {
+    try (PageMetadataFetcher fetcher = createFetcher()) {
+      Optional<PageMetadataFetcher.PageMetadata> metadata = fetcher.fetch(baseAddress + "/plain");
+      assertTrue(metadata.isPresent());
+      assertEquals("Plain", metadata.get().title());
+      assertNull(metadata.get().description());
+      assertEquals(baseAddress + "/favicon.ico", metadata.get().faviconAddress());
+    }
+  }
+
+  @Test
+  void nonHtmlIgnored() throws InterruptedException {
+    try (PageMetadataFetcher fetcher = createFetcher()) {
+      assertTrue(fetcher.fetch(baseAddress + "/data").isEmpty());
+      assertTrue(fetcher.fetch(baseAddress + "/missing").isEmpty());
+    }
+  }
+
+  @Test
+  void resourceDownloaded() throws Exception {
+    try (PageMetadataFetcher fetcher = createFetcher()) {
+      Optional<PageMetadataFetcher.Resource> resource = fetcher.fetchResource(baseAddress + "/static/icon.png");
+      assertTrue(resource.isPresent());
+      assertEquals("image/png", resource.get().contentType());
+      assertArrayEquals(ICON, resource.get().data());
+    }
+  }
+
+  @Test
+  void tooLargeResourceIgnored() throws Exception {
+    try (PageMetadataFetcher fetcher = createFetcher()) {
+      assertTrue(fetcher.fetchResource(baseAddress + "/big.png").isEmpty());
+    }
+  }
+
+  @Test
+  void onlyRasterResourceDownloaded() throws Exception {
+    try (PageMetadataFetcher fetcher = createFetcher()) {
+      assertEquals("image/x-icon", fetcher.fetchResource(baseAddress + "/icon.ico").orElseThrow().contentType());
+      assertTrue(fetcher.fetchResource(baseAddress + "/icon.svg").isEmpty());
+    }
+  }
+
+  @Test
+  void privateAddressIgnored() throws InterruptedException {
+    try (PageMetadataFetcher fetcher = new PageMetadataFetcher(Duration.ofSeconds(1), Duration.ofSeconds(2), 65536, 50)) {
+      assertTrue(fetcher.fetch(baseAddress + "/page").isEmpty());
+      assertThrows(AddressGuard.ForbiddenAddressException.class,
+              () -> fetcher.fetchResource(baseAddress + "/static/icon.png"));
+    }
+  }
+
+  @Test
+  void onlyMissingResourceIsDefinitive() throws Exception {
+    try (PageMetadataFetcher fetcher = createFetcher()) {
+      assertTrue(fetcher.fetchResource(baseAddress + "/missing.png").isEmpty());
+      assertThrows(IOException.class, () -> fetcher.fetchResource(baseAddress + "/unavailable.png"));
+    }
+  }
+}
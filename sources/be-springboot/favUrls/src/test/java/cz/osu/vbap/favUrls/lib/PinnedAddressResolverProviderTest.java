@@ -0,0 +1,24 @@
+package cz.osu.vbap.favUrls.lib;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PinnedAddressResolverProviderTest {
+
+  @Test
+  void pinnedHostIsResolvedToPinnedAddresses() throws Exception {
+    InetAddress pinned = InetAddress.getByName("127.0.0.2");
+    // the reserved TLD is not resolvable by the built-in resolver
+    PinnedAddressResolverProvider.pin("Rebinding.invalid", List.of(pinned));
+    try {
+      assertArrayEquals(new InetAddress[]{pinned}, InetAddress.getAllByName("rebinding.INVALID"));
+      assertTrue(PinnedAddressResolverProvider.isInstalled());
+    } finally {
+      PinnedAddressResolverProvider.unpin("rebinding.invalid");
+    }
+  }
+}
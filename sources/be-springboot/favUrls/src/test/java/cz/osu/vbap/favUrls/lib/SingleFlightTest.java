@@ -0,0 +1,94 @@
+package cz.osu.vbap.favUrls.lib;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+  private static final int CALLERS = 8;
+
+  // starts the leader, waits until it is loading, then starts the followers and lets the leader finish
+  private static <V> List<Future<V>> callConcurrently(
+          SingleFlight<Integer, V> singleFlight, SingleFlight.Loader<V, ?> loader,
+          CountDownLatch loading, CountDownLatch release) throws Exception {
+    List<Future<V>> ret = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      ret.add(executor.submit(() -> singleFlight.call(1, loader)));
+      assertTrue(loading.await(5, TimeUnit.SECONDS));
+      for (int i = 1; i < CALLERS; i++) {
+        ret.add(executor.submit(() -> singleFlight.call(1, loader)));
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (singleFlight.getSharedCount() < CALLERS - 1 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      release.countDown();
+    }
+    return ret;
+  }
+
+  @Test
+  void concurrentCallsShareOneLoad() throws Exception {
+    SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<String>> results = callConcurrently(singleFlight, () -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      release.await();
+      return "result";
+    }, loading, release);
+
+    for (Future<String> result : results) {
+      assertEquals("result", result.get());
+    }
+    assertEquals(1, loads.get());
+    assertEquals(CALLERS, singleFlight.getCallCount());
+    assertEquals(CALLERS - 1, singleFlight.getSharedCount());
+    assertEquals(0, singleFlight.getInFlightCount());
+  }
+
+  @Test
+  void exceptionIsPassedToAllCallers() throws Exception {
+    SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<String>> results = callConcurrently(singleFlight, () -> {
+      loading.countDown();
+      release.await();
+      throw new IOException("failed");
+    }, loading, release);
+
+    for (Future<String> result : results) {
+      ExecutionException e = assertThrows(ExecutionException.class, result::get);
+      assertInstanceOf(IOException.class, e.getCause());
+    }
+    assertEquals(0, singleFlight.getInFlightCount());
+  }
+
+  @Test
+  void sequentialCallsLoadAgain() throws Exception {
+    SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+    AtomicInteger loads = new AtomicInteger();
+    SingleFlight.Loader<String, RuntimeException> loader = () -> "load" + loads.incrementAndGet();
+
+    assertEquals("load1", singleFlight.call(1, loader));
+    assertEquals("load2", singleFlight.call(1, loader));
+    assertEquals("load3", singleFlight.call(2, loader));
+    assertEquals(0, singleFlight.getSharedCount());
+  }
+}
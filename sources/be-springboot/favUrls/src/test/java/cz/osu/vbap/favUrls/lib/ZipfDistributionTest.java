@@ -0,0 +1,47 @@
+package cz.osu.vbap.favUrls.lib;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipfDistributionTest {
+  private static final int SAMPLE_COUNT = 100_000;
+
+  @Test
+  void samplesAreInRange() {
+    ZipfDistribution distribution = new ZipfDistribution(10, 1.2);
+    SplittableRandom random = new SplittableRandom(1);
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      int sample = distribution.sample(random);
+      assertTrue(sample >= 1 && sample <= 10, "Out of range: " + sample);
+    }
+  }
+
+  @Test
+  void frequenciesFollowZipfLaw() {
+    // with the exponent 1, the value 1 is twice as frequent as 2 and three times as 3
+    ZipfDistribution distribution = new ZipfDistribution(100, 1);
+    SplittableRandom random = new SplittableRandom(1);
+    int[] counts = new int[101];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      counts[distribution.sample(random)]++;
+    }
+    assertEquals(2, (double) counts[1] / counts[2], 0.15);
+    assertEquals(3, (double) counts[1] / counts[3], 0.25);
+  }
+
+  @Test
+  void zeroExponentIsUniform() {
+    ZipfDistribution distribution = new ZipfDistribution(4, 0);
+    SplittableRandom random = new SplittableRandom(1);
+    int[] counts = new int[5];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      counts[distribution.sample(random)]++;
+    }
+    for (int value = 1; value <= 4; value++) {
+      assertEquals(SAMPLE_COUNT / 4, counts[value], SAMPLE_COUNT / 4 * 0.05);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+  private static final int KEY_COUNT = 100_000;
+
+  @Test
+  void keysAreSpreadEvenly() {
+    ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+    int[] counts = new int[4];
+    for (int key = 1; key <= KEY_COUNT; key++) {
+      counts[ring.shardOf(key)]++;
+    }
+    for (int count : counts) {
+      assertTrue(Math.abs(count - KEY_COUNT / 4) < KEY_COUNT / 4 * 0.2, "Uneven distribution: " + count);
+    }
+  }
+
+  @Test
+  void addingShardMovesOnlyFewKeys() {
+    ConsistentHashRing before = new ConsistentHashRing(4, 128);
+    ConsistentHashRing after = new ConsistentHashRing(5, 128);
+    int moved = 0;
+    for (int key = 1; key <= KEY_COUNT; key++) {
+      int shardAfter = after.shardOf(key);
+      if (before.shardOf(key) != shardAfter) {
+        moved++;
+        assertEquals(4, shardAfter, "Key moved between old shards");
+      }
+    }
+    assertTrue(moved < KEY_COUNT / 5 * 1.3, "Too many keys moved: " + moved);
+  }
+
+  @Test
+  void sameKeySameShard() {
+    ConsistentHashRing a = new ConsistentHashRing(3, 64);
+    ConsistentHashRing b = new ConsistentHashRing(3, 64);
+    for (int key = 1; key <= 1000; key++) {
+      assertEquals(a.shardOf(key), b.shardOf(key));
+    }
+  }
+}
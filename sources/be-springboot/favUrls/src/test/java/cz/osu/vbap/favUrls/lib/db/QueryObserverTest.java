@@ -0,0 +1,121 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class QueryObserverTest {
+  private static final String SELECT_TAGS = "select * from tag where app_user_id=?";
+  private static final String SELECT_USER = "select * from app_user where email=? and password_hash=?";
+
+  private SimpleMeterRegistry meterRegistry;
+  private QueryObserver observer;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    observer = new QueryObserver(meterRegistry, 100, 2, true, 3, QueryObserver.GuardMode.FAIL);
+  }
+
+  private static QueryInfo queryInfo(String sql, Object... parameters) throws NoSuchMethodException {
+    QueryInfo ret = new QueryInfo(sql);
+    List<ParameterSetOperation> operations = new ArrayList<>();
+    for (int i = 0; i < parameters.length; i++) {
+      ParameterSetOperation operation = parameters[i] == null
+              ? new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+              new Object[]{i + 1, Types.VARCHAR})
+              : new ParameterSetOperation(PreparedStatement.class.getMethod("setObject", int.class, Object.class),
+              new Object[]{i + 1, parameters[i]});
+      operations.add(operation);
+    }
+    ret.getParametersList().add(operations);
+    return ret;
+  }
+
+  private void execute(long millis, QueryInfo queryInfo) {
+    ExecutionInfo execInfo = new ExecutionInfo();
+    execInfo.setElapsedTime(millis);
+    execInfo.setSuccess(true);
+    observer.afterQuery(execInfo, List.of(queryInfo));
+  }
+
+  @Test
+  void statementsOfRequestAreCountedPerEndpoint() throws NoSuchMethodException {
+    observer.beginRequest(() -> "GET /v1/url/{appUserId}");
+    execute(1, queryInfo(SELECT_TAGS, 1));
+    execute(1, queryInfo(SELECT_TAGS, 1));
+    QueryObserver.RequestSummary summary = observer.endRequest();
+    execute(1, queryInfo(SELECT_TAGS, 1)); // outside the request
+
+    assertEquals(2, summary.statements());
+    assertEquals(2, summary.statementCounts().get(SELECT_TAGS));
+    QueryObserver.EndpointStats stats = observer.getEndpointStats().get("GET /v1/url/{appUserId}");
+    assertEquals(1, stats.requests());
+    assertEquals(2, stats.maxStatements());
+    assertEquals(3, meterRegistry.get("favUrls.db.query").timer().count());
+    assertDoesNotThrow(() -> observer.checkLimit(summary));
+  }
+
+  @Test
+  void requestOverLimitFailsInFailMode() throws NoSuchMethodException {
+    observer.beginRequest(() -> null);
+    for (int i = 0; i < 4; i++) {
+      execute(1, queryInfo(SELECT_TAGS, i));
+    }
+    QueryObserver.RequestSummary summary = observer.endRequest();
+
+    assertEquals(QueryObserver.UNMAPPED_ENDPOINT, summary.endpoint());
+    assertEquals(1, observer.getEndpointStats().get(QueryObserver.UNMAPPED_ENDPOINT).overLimit());
+    assertThrows(QueryObserver.StatementLimitExceededException.class, () -> observer.checkLimit(summary));
+  }
+
+  @Test
+  void slowQueriesAreRecordedWithRedactedParameters() throws NoSuchMethodException {
+    execute(99, queryInfo(SELECT_TAGS, 1));
+    execute(150, queryInfo(SELECT_USER, "john@example.com", null));
+
+    List<QueryObserver.SlowQuery> slowQueries = observer.getSlowQueries();
+    assertEquals(1, slowQueries.size());
+    assertEquals(SELECT_USER, slowQueries.getFirst().sql());
+    assertEquals(List.of("<String(16)>", "null"), slowQueries.getFirst().parameters());
+    assertNull(slowQueries.getFirst().endpoint());
+  }
+
+  @Test
+  void slowQueryLogIsBounded() throws NoSuchMethodException {
+    execute(100, queryInfo("select 1"));
+    execute(100, queryInfo("select 2"));
+    execute(100, queryInfo("select 3"));
+
+    List<QueryObserver.SlowQuery> slowQueries = observer.getSlowQueries();
+    assertEquals(List.of("select 3", "select 2"), slowQueries.stream().map(QueryObserver.SlowQuery::sql).toList());
+  }
+
+  @Test
+  void redactValue() {
+    assertEquals("42", QueryObserver.redactValue(42));
+    assertEquals("true", QueryObserver.redactValue(true));
+    assertEquals("<String(6)>", QueryObserver.redactValue("secret"));
+    assertEquals("<byte[3]>", QueryObserver.redactValue(new byte[3]));
+  }
+
+  @Test
+  void typeOf() {
+    assertEquals("select", QueryObserver.typeOf("  SELECT 1"));
+    assertEquals("update", QueryObserver.typeOf("update url set title=?"));
+    assertEquals("other", QueryObserver.typeOf("set session x = 1"));
+  }
+}
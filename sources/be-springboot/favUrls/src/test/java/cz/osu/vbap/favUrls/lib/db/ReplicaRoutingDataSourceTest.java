@@ -0,0 +1,74 @@
+package cz.osu.vbap.favUrls.lib.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest {
+  private static final String APP_USER_ID_ATTRIBUTE = "__appUserId";
+
+  private final Connection primaryConnection = mock(Connection.class);
+  private final Connection replicaConnection = mock(Connection.class);
+  private ReplicaRoutingDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    DataSource primary = mock(DataSource.class);
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    DataSource replica = mock(DataSource.class);
+    when(replica.getConnection()).thenReturn(replicaConnection);
+    dataSource = new ReplicaRoutingDataSource(primary, replica, APP_USER_ID_ATTRIBUTE, Duration.ofMillis(200));
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private void setLoggedUser(int appUserId) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setAttribute(APP_USER_ID_ATTRIBUTE, appUserId);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @Test
+  void readWriteGoesToPrimary() throws SQLException {
+    assertSame(primaryConnection, dataSource.getConnection());
+  }
+
+  @Test
+  void readOnlyGoesToReplica() throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    assertSame(replicaConnection, dataSource.getConnection());
+  }
+
+  @Test
+  void readAfterWriteOfSameUserGoesToPrimary() throws SQLException, InterruptedException {
+    setLoggedUser(1);
+    assertSame(primaryConnection, dataSource.getConnection()); // write
+
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    assertSame(primaryConnection, dataSource.getConnection());
+
+    setLoggedUser(2);
+    assertSame(replicaConnection, dataSource.getConnection());
+
+    Thread.sleep(300);
+    setLoggedUser(1);
+    assertSame(replicaConnection, dataSource.getConnection());
+  }
+}
@@ -0,0 +1,149 @@
+package cz.osu.vbap.favUrls.lib.eventlog;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogTest {
+  private static final int SEGMENT_SIZE = 1024;
+
+  private static byte[] payload(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static List<Path> segmentFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(q -> q.toString().endsWith(".log")).sorted().toList();
+    }
+  }
+
+  @Test
+  void appendedRecordsAreReadInOrder() throws Exception {
+    Path directory = Files.createTempDirectory("eventLog");
+    try (EventLog log = new EventLog(directory, SEGMENT_SIZE, 4)) {
+      long first = log.append(1000, (byte) 1, 7, 42, payload("first"));
+      long second = log.append(2000, (byte) 2, 7, 43, new byte[0]);
+
+      assertEquals(0, first);
+      assertEquals(EventLog.HEADER_SIZE + 5, second);
+      assertEquals(second + EventLog.HEADER_SIZE, log.getEndOffset());
+
+      EventLog.Reader reader = log.reader(0);
+      EventLog.Entry entry = reader.next();
+      assertEquals(0, entry.offset());
+      assertEquals(1000, entry.timestampMillis());
+      assertEquals(1, entry.type());
+      assertEquals(7, entry.appUserId());
+      assertEquals(42, entry.subjectId());
+      assertEquals("first", new String(entry.payload(), StandardCharsets.UTF_8));
+      assertEquals(second, reader.next().offset());
+      assertNull(reader.next());
+
+      assertEquals(43, log.reader(second).next().subjectId());
+    }
+  }
+
+  @Test
+  void readerWaitsForNewRecords() throws Exception {
+    Path directory = Files.createTempDirectory("eventLog");
+    try (EventLog log = new EventLog(directory, SEGMENT_SIZE, 4);
+         ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      EventLog.Reader reader = log.reader(log.getEndOffset());
+      assertNull(reader.next(Duration.ofMillis(10)));
+
+      Future<EventLog.Entry> tailed = executor.submit(() -> reader.next(Duration.ofSeconds(5)));
+      Thread.sleep(50);
+      log.append(1000, (byte) 1, 7, 42, payload("tailed"));
+      assertEquals("tailed", new String(tailed.get().payload(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void reopenedLogContinuesAfterTheLastRecord() throws Exception {
+    Path directory = Files.createTempDirectory("eventLog");
+    long end;
+    try (EventLog log = new EventLog(directory, SEGMENT_SIZE, 4)) {
+      log.append(1000, (byte) 1, 7, 42, payload("first"));
+      end = log.getEndOffset();
+      assertThrows(EventLog.LockedException.class, () -> new EventLog(directory, SEGMENT_SIZE, 4));
+    }
+
+    try (EventLog log = new EventLog(directory, SEGMENT_SIZE, 4)) {
+      assertEquals(end, log.getEndOffset());
+      assertEquals(end, log.append(2000, (byte) 2, 7, 43, payload("second")));
+      EventLog.Reader reader = log.reader(0);
+      assertEquals(42, reader.next().subjectId());
+      assertEquals(43, reader.next().subjectId());
+    }
+  }
+
+  @Test
+  void tornRecordIsDiscardedOnOpen() throws Exception {
+    Path directory = Files.createTempDirectory("eventLog");
+    long second;
+    try (EventLog log = new EventLog(directory, SEGMENT_SIZE, 4)) {
+      log.append(1000, (byte) 1, 7, 42, payload("first"));
+      second = log.append(2000, (byte) 2, 7, 43, payload("second"));
+    }
+    // a crash in the middle of the second record: the payload is not completely written
+    try (FileChannel channel = FileChannel.open(segmentFiles(directory).getFirst(), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[]{'X'}), second + EventLog.HEADER_SIZE + 3);
+    }
+
+    try (EventLog log = new EventLog(directory, SEGMENT_SIZE, 4)) {
+      assertEquals(second, log.getEndOffset());
+      EventLog.Reader reader = log.reader(0);
+      assertEquals(42, reader.next().subjectId());
+      assertNull(reader.next());
+
+      log.append(3000, (byte) 3, 7, 44, payload("third"));
+      assertEquals(44, reader.next().subjectId());
+    }
+  }
+
+  @Test
+  void segmentsAreRolledAndTheOldestDeleted() throws Exception {
+    Path directory = Files.createTempDirectory("eventLog");
+    byte[] payload = new byte[200];
+    try (EventLog log = new EventLog(directory, SEGMENT_SIZE, 2)) {
+      for (int i = 0; i < 20; i++) {
+        log.append(i, (byte) 1, 7, i, payload);
+      }
+      assertEquals(2, segmentFiles(directory).size());
+      assertTrue(log.getStartOffset() > 0);
+      assertThrows(IllegalArgumentException.class, () -> log.reader(0));
+
+      EventLog.Reader reader = log.reader(log.getStartOffset());
+      int last = -1;
+      EventLog.Entry entry;
+      while ((entry = reader.next()) != null) {
+        assertEquals(last == -1 ? entry.subjectId() : last + 1, entry.subjectId());
+        last = entry.subjectId();
+      }
+      assertEquals(19, last);
+    }
+
+    // the sealed segments are recognized on open
+    try (EventLog log = new EventLog(directory, SEGMENT_SIZE, 2)) {
+      EventLog.Reader reader = log.reader(log.getStartOffset());
+      int count = 0;
+      while (reader.next() != null) count++;
+      assertTrue(count >= 2);
+      assertEquals(reader.getOffset(), log.getEndOffset());
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package cz.osu.vbap.favUrls.lib.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RulesTest {
+
+  @Test
+  void emailRuleMatchesTheFormerRegex() {
+    for (String email : List.of("a@b", "john.doe@osu.cz", "@a@b", "a@@b", " @ ")) {
+      assertEquals(email.matches(".+@.+"), Rules.EMAIL.test(email), email);
+    }
+    for (String email : List.of("", "@", "a@", "@b", "ab", "a\n@b", "a@b\r")) {
+      assertEquals(email.matches(".+@.+"), Rules.EMAIL.test(email), email);
+      assertFalse(Rules.EMAIL.test(email), email);
+    }
+    assertTrue(Rules.EMAIL.test(null));
+  }
+
+  @Test
+  void hexDigitsRuleChecksTheLengthAndDigits() {
+    Rule<String> rule = Rules.hexDigits(3);
+    assertTrue(rule.test("0aF"));
+    assertFalse(rule.test("0aG"));
+    assertFalse(rule.test("0a"));
+    assertFalse(rule.test("0aF0"));
+    assertFalse(rule.test("０aF")); // fullwidth digit
+  }
+
+  @Test
+  void httpUrlRuleRequiresTheSchemeAndHost() {
+    assertTrue(Rules.HTTP_URL.test("https://www.osu.cz"));
+    assertTrue(Rules.HTTP_URL.test("HTTP://osu.cz/a?b=c#d"));
+    assertFalse(Rules.HTTP_URL.test("ftp://osu.cz"));
+    assertFalse(Rules.HTTP_URL.test("www.osu.cz"));
+    assertFalse(Rules.HTTP_URL.test("https:///path"));
+    assertFalse(Rules.HTTP_URL.test("https://osu.cz/a b"));
+  }
+
+  @Test
+  void firstFailedRuleIsReported() {
+    RuleSet<String> rules = RuleSet.of(Rules.NOT_BLANK, Rules.maxLength(3)).and(Rules.hexDigits(3));
+    assertNull(rules.check("abc"));
+    assertEquals("must not be blank", rules.check(" "));
+    assertEquals("must have 3 characters at most", rules.check("abcd"));
+    assertEquals("must have 3 hexadecimal digits", rules.check("xyz"));
+
+    ValidationException e = assertThrows(ValidationException.class, () -> rules.validate("xyz", "color"));
+    assertEquals(List.of(new ValidationException.FieldError("color", "must have 3 hexadecimal digits")),
+            e.getErrors());
+  }
+
+  @Test
+  void validationReportsAllInvalidFields() {
+    RuleSet<String> rules = RuleSet.of(Rules.NOT_BLANK);
+    Validation valid = new Validation().check(rules, "a", "first").check(rules, "b", "second");
+    assertTrue(valid.isValid());
+    valid.throwIfInvalid();
+
+    Validation invalid = new Validation().check(rules, "", "first").check(rules, "b", "second")
+            .check(rules, null, "third");
+    ValidationException e = assertThrows(ValidationException.class, invalid::throwIfInvalid);
+    assertEquals(List.of("first", "third"), e.getErrors().stream().map(ValidationException.FieldError::field).toList());
+    assertEquals("first must not be blank, third must not be blank", e.getMessage());
+  }
+}
@@ -0,0 +1,112 @@
+package cz.osu.vbap.favUrls.lib.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionFilterTest {
+  private static final int MIN_RESPONSE_SIZE = 100;
+
+  private final CompressionFilter filter = new CompressionFilter(MIN_RESPONSE_SIZE, 5, List.of("application/json"));
+
+  private static byte[] body(int length) {
+    return "x".repeat(length).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private MockHttpServletResponse invoke(String acceptEncoding, String contentType, byte[] body)
+          throws ServletException, IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/url/1");
+    if (acceptEncoding != null)
+      request.addHeader("Accept-Encoding", acceptEncoding);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    FilterChain chain = (_, res) -> {
+      res.setContentType(contentType);
+      // written in parts, as Jackson does
+      for (int i = 0; i < body.length; i += 30) {
+        res.getOutputStream().write(body, i, Math.min(30, body.length - i));
+      }
+    };
+    filter.doFilter(request, response, chain);
+    return response;
+  }
+
+  private static byte[] gunzip(byte[] data) throws IOException {
+    try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(data))) {
+      return stream.readAllBytes();
+    }
+  }
+
+  @Test
+  void largeResponseIsCompressed() throws Exception {
+    byte[] body = body(1000);
+    MockHttpServletResponse response = invoke("gzip, deflate, br", "application/json;charset=UTF-8", body);
+
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertTrue(response.getContentAsByteArray().length < body.length);
+    assertArrayEquals(body, gunzip(response.getContentAsByteArray()));
+    assertEquals("Accept-Encoding", response.getHeader("Vary"));
+  }
+
+  @Test
+  void smallResponseIsNotCompressed() throws Exception {
+    byte[] body = body(MIN_RESPONSE_SIZE - 1);
+    MockHttpServletResponse response = invoke("gzip", "application/json", body);
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertArrayEquals(body, response.getContentAsByteArray());
+    assertEquals(body.length, response.getContentLength());
+  }
+
+  @Test
+  void otherContentTypeIsNotCompressed() throws Exception {
+    byte[] body = body(1000);
+    MockHttpServletResponse response = invoke("gzip", "image/png", body);
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertArrayEquals(body, response.getContentAsByteArray());
+  }
+
+  @Test
+  void responseIsNotCompressedWhenGzipIsNotAccepted() throws Exception {
+    byte[] body = body(1000);
+    MockHttpServletResponse response = invoke(null, "application/json", body);
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertArrayEquals(body, response.getContentAsByteArray());
+  }
+
+  @Test
+  void malformedAcceptEncodingIsNotCompressed() throws Exception {
+    byte[] body = body(1000);
+    MockHttpServletResponse response = invoke("gzip;q=x", "application/json", body);
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertArrayEquals(body, response.getContentAsByteArray());
+  }
+
+  @Test
+  void acceptsGzip() {
+    assertTrue(CompressionFilter.acceptsGzip("gzip"));
+    assertTrue(CompressionFilter.acceptsGzip("deflate, GZIP;q=0.5"));
+    assertFalse(CompressionFilter.acceptsGzip("gzip;q=0"));
+    assertFalse(CompressionFilter.acceptsGzip("gzip;q=x"));
+    assertFalse(CompressionFilter.acceptsGzip("gzip;q="));
+    assertFalse(CompressionFilter.acceptsGzip("br, deflate"));
+    assertFalse(CompressionFilter.acceptsGzip(null));
+  }
+}
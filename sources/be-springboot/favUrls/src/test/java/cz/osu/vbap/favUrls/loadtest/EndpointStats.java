@@ -0,0 +1,47 @@
+package cz.osu.vbap.favUrls.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and errors of the requests of one endpoint.
+ * Not thread-safe, every virtual user records into its own instances, which are merged at the end.
+ */
+class EndpointStats {
+  private long[] latencyNanos = new long[1024];
+  private int count;
+  private int errorCount;
+
+  void record(long nanos, boolean success) {
+    if (count == latencyNanos.length)
+      latencyNanos = Arrays.copyOf(latencyNanos, count * 2);
+    latencyNanos[count++] = nanos;
+    if (!success) errorCount++;
+  }
+
+  void addAll(EndpointStats other) {
+    for (int i = 0; i < other.count; i++) {
+      record(other.latencyNanos[i], true);
+    }
+    errorCount += other.errorCount;
+  }
+
+  int getCount() {
+    return count;
+  }
+
+  int getErrorCount() {
+    return errorCount;
+  }
+
+  /**
+   * @param percentile 0 - 100
+   * @return latency in milliseconds, nearest-rank method
+   */
+  double getPercentileMillis(double percentile) {
+    if (count == 0) return 0;
+    long[] sorted = Arrays.copyOf(latencyNanos, count);
+    Arrays.sort(sorted);
+    int rank = (int) Math.ceil(percentile / 100 * count);
+    return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+  }
+}
@@ -0,0 +1,197 @@
+package cz.osu.vbap.favUrls.loadtest;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Tag;
+import cz.osu.vbap.favUrls.model.repositories.TagRepository;
+import cz.osu.vbap.favUrls.services.AuthenticationService;
+import cz.osu.vbap.favUrls.services.UrlService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the whole application on the embedded database (profile `loadtest`), seeds synthetic users
+ * and lets `loadtest.concurrency` virtual users repeat the flow login - list - create - refresh - logout.
+ * Prints the throughput and latency percentiles per endpoint and stores them to `loadtest.reportFile`.
+ * <p>
+ * Run by `mvn -B test -Ploadtest`, parameters can be set by `-Dloadtest.xxx=...`
+ * (see `application-loadtest.properties`).
+ */
+@org.junit.jupiter.api.Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+public class LoadTest {
+  private static final String PASSWORD = "loadTestPassword";
+  private static final String[] DOMAINS = {
+          "www.osu.cz", "www.nasa.gov", "github.com", "stackoverflow.com", "en.wikipedia.org", "www.youtube.com"};
+
+  private record SeededUser(int appUserId, String email) {
+  }
+
+  @LocalServerPort
+  private int port;
+  @Value("${loadtest.users}")
+  private int userCount;
+  @Value("${loadtest.urlsPerUser}")
+  private int urlsPerUser;
+  @Value("${loadtest.concurrency}")
+  private int concurrency;
+  @Value("${loadtest.warmupSeconds}")
+  private int warmupSeconds;
+  @Value("${loadtest.durationSeconds}")
+  private int durationSeconds;
+  @Value("${loadtest.reportFile}")
+  private String reportFile;
+
+  @Autowired
+  private AuthenticationService authenticationService;
+  @Autowired
+  private UrlService urlService;
+  @Autowired
+  private TagRepository tagRepository;
+
+  private final AtomicInteger createdUrlCounter = new AtomicInteger();
+
+  @Test
+  void loginListCreateRefreshLogout() throws Exception {
+    assertTrue(userCount >= concurrency, "Every virtual user needs its own user, increase loadtest.users.");
+    List<SeededUser> users = seedUsers();
+
+    Map<String, EndpointStats> stats = runVirtualUsers(users);
+    String report = buildReport(stats);
+    System.out.println(report);
+    writeCsv(stats);
+
+    assertFalse(stats.isEmpty(), "No request recorded.");
+    stats.forEach((endpoint, q) -> assertEquals(0, q.getErrorCount(), "Failed requests of " + endpoint));
+  }
+
+  private List<SeededUser> seedUsers() throws Exception {
+    List<Future<SeededUser>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < userCount; i++) {
+        final int index = i;
+        futures.add(executor.submit(() -> seedUser(index)));
+      }
+    }
+    List<SeededUser> ret = new ArrayList<>();
+    for (Future<SeededUser> future : futures) {
+      ret.add(future.get());
+    }
+    return ret;
+  }
+
+  private SeededUser seedUser(int index) throws Exception {
+    AppUser appUser = authenticationService.register("load.user." + index + "@favurls.test", PASSWORD);
+    tagRepository.saveAll(List.of(
+            new Tag(appUser, "work", "00F"),
+            new Tag(appUser, "private", "F00"),
+            new Tag(appUser, "read later", "0F0")));
+
+    List<UrlService.ImportItem> items = IntStream.range(0, urlsPerUser)
+            .mapToObj(q -> new UrlService.ImportItem(
+                    "Page " + q,
+                    "https://" + DOMAINS[(index + q) % DOMAINS.length] + "/seeded/" + index + "/" + q))
+            .toList();
+    urlService.importUrls(appUser.getAppUserId(), items);
+
+    return new SeededUser(appUser.getAppUserId(), appUser.getEmail());
+  }
+
+  private Map<String, EndpointStats> runVirtualUsers(List<SeededUser> users) throws Exception {
+    HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    String baseAddress = "http://localhost:" + port;
+    long recordFrom = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+    long end = recordFrom + Duration.ofSeconds(durationSeconds).toNanos();
+
+    List<Future<LoadTestClient>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < concurrency; i++) {
+        SeededUser user = users.get(i);
+        futures.add(executor.submit(() -> {
+          LoadTestClient client = new LoadTestClient(httpClient, baseAddress);
+          client.recordFrom(recordFrom);
+          client.init();
+          while (System.nanoTime() < end) {
+            runFlow(client, user);
+          }
+          return client;
+        }));
+      }
+    }
+
+    Map<String, EndpointStats> ret = new TreeMap<>();
+    for (Future<LoadTestClient> future : futures) {
+      future.get().getStats().forEach(
+              (endpoint, q) -> ret.computeIfAbsent(endpoint, _ -> new EndpointStats()).addAll(q));
+    }
+    return ret;
+  }
+
+  private void runFlow(LoadTestClient client, SeededUser user) throws IOException, InterruptedException {
+    client.post("POST /v1/appUser/login", "/v1/appUser/login",
+            Map.of("email", user.email(), "password", PASSWORD));
+    client.get("GET /v1/url/{appUserId}", "/v1/url/" + user.appUserId());
+
+    int urlNumber = createdUrlCounter.incrementAndGet();
+    client.post("POST /v1/url", "/v1/url", Map.of(
+            "appUserId", String.valueOf(user.appUserId()),
+            "title", "Created " + urlNumber,
+            "address", "https://" + DOMAINS[urlNumber % DOMAINS.length] + "/created/" + urlNumber));
+
+    client.post("POST /v1/appUser/refresh", "/v1/appUser/refresh", Map.of());
+    client.post("POST /v1/appUser/logout", "/v1/appUser/logout", Map.of());
+  }
+
+  private String buildReport(Map<String, EndpointStats> stats) {
+    StringBuilder ret = new StringBuilder();
+    ret.append(String.format(Locale.ROOT, "%nLoad test: %d virtual users, %d s (after %d s warm-up)%n",
+            concurrency, durationSeconds, warmupSeconds));
+    ret.append(String.format(Locale.ROOT, "%-28s %9s %7s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+    stats.forEach((endpoint, q) -> ret.append(String.format(Locale.ROOT,
+            "%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+            endpoint, q.getCount(), q.getErrorCount(), (double) q.getCount() / durationSeconds,
+            q.getPercentileMillis(50), q.getPercentileMillis(90), q.getPercentileMillis(99),
+            q.getPercentileMillis(100))));
+    return ret.toString();
+  }
+
+  private void writeCsv(Map<String, EndpointStats> stats) throws IOException {
+    Path path = Path.of(reportFile);
+    if (path.getParent() != null)
+      Files.createDirectories(path.getParent());
+    try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+      writer.println("endpoint,concurrency,requests,errors,requestsPerSecond,p50Ms,p90Ms,p99Ms,maxMs");
+      stats.forEach((endpoint, q) -> writer.printf(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f%n",
+              endpoint, concurrency, q.getCount(), q.getErrorCount(), (double) q.getCount() / durationSeconds,
+              q.getPercentileMillis(50), q.getPercentileMillis(90), q.getPercentileMillis(99),
+              q.getPercentileMillis(100)));
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package cz.osu.vbap.favUrls.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP client of one virtual user. Keeps its own cookies (tokens and the CSRF token), like the browser does.
+ * {@link java.net.CookieManager} cannot be used, as it does not send `Secure` cookies over plain http.
+ */
+class LoadTestClient {
+  private static final String CSRF_COOKIE_NAME = "XSRF-TOKEN";
+  private static final String CSRF_HEADER_NAME = "X-XSRF-TOKEN";
+
+  private final HttpClient httpClient;
+  private final String baseAddress;
+  private final Map<String, String> cookies = new HashMap<>();
+  private final Map<String, EndpointStats> stats = new HashMap<>();
+  private long recordFromNanos = Long.MAX_VALUE;
+
+  LoadTestClient(HttpClient httpClient, String baseAddress) {
+    this.httpClient = httpClient;
+    this.baseAddress = baseAddress;
+  }
+
+  /**
+   * Requests sent before the given time (warm-up) are not recorded.
+   */
+  void recordFrom(long nanoTime) {
+    this.recordFromNanos = nanoTime;
+  }
+
+  Map<String, EndpointStats> getStats() {
+    return stats;
+  }
+
+  /**
+   * Obtains the CSRF cookie; any response sets it, the request is not recorded.
+   */
+  void init() throws IOException, InterruptedException {
+    send(null, HttpRequest.newBuilder(URI.create(baseAddress + "/v1/appUser/login")).GET());
+  }
+
+  int get(String endpoint, String path) throws IOException, InterruptedException {
+    return send(endpoint, HttpRequest.newBuilder(URI.create(baseAddress + path)).GET());
+  }
+
+  int post(String endpoint, String path, Map<String, String> form) throws IOException, InterruptedException {
+    String body = form.entrySet().stream()
+            .map(q -> q.getKey() + "=" + URLEncoder.encode(q.getValue(), StandardCharsets.UTF_8))
+            .collect(Collectors.joining("&"));
+    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseAddress + path))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+    String csrfToken = cookies.get(CSRF_COOKIE_NAME);
+    if (csrfToken != null)
+      builder.header(CSRF_HEADER_NAME, csrfToken);
+    return send(endpoint, builder);
+  }
+
+  private int send(String endpoint, HttpRequest.Builder builder) throws IOException, InterruptedException {
+    if (!cookies.isEmpty())
+      builder.header("Cookie", cookies.entrySet().stream()
+              .map(q -> q.getKey() + "=" + q.getValue())
+              .collect(Collectors.joining("; ")));
+
+    long start = System.nanoTime();
+    HttpResponse<Void> response;
+    try {
+      response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+    } catch (IOException e) {
+      record(endpoint, start, false);
+      throw e;
+    }
+    record(endpoint, start, response.statusCode() / 100 == 2);
+
+    updateCookies(response.headers().allValues("Set-Cookie"));
+    return response.statusCode();
+  }
+
+  private void record(String endpoint, long start, boolean success) {
+    if (endpoint == null || start < recordFromNanos) return;
+    long duration = System.nanoTime() - start;
+    stats.computeIfAbsent(endpoint, _ -> new EndpointStats()).record(duration, success);
+  }
+
+  private void updateCookies(List<String> setCookieHeaders) {
+    for (String header : setCookieHeaders) {
+      String[] parts = header.split(";");
+      int eq = parts[0].indexOf('=');
+      if (eq < 0) continue;
+      String name = parts[0].substring(0, eq).trim();
+      String value = parts[0].substring(eq + 1).trim();
+
+      boolean isDeleted = value.isEmpty();
+      for (int i = 1; i < parts.length; i++) {
+        if (parts[i].trim().equalsIgnoreCase("Max-Age=0")) isDeleted = true;
+      }
+
+      if (isDeleted)
+        cookies.remove(name);
+      else
+        cookies.put(name, value);
+    }
+  }
+}
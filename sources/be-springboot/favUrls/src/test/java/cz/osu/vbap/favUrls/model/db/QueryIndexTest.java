@@ -0,0 +1,111 @@
+package cz.osu.vbap.favUrls.model.db;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Token;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
+import cz.osu.vbap.favUrls.model.repositories.TokenRepository;
+import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks by `EXPLAIN` that the SQL generated for the repository methods uses an index and no full table scan.
+ * Only the first statement of every method is checked, the following ones are eager loads by the primary key.
+ */
+@SpringBootTest()
+@TestPropertySource(locations =
+        {"classpath:application.properties", "classpath:test.properties"},
+        properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "cz.osu.vbap.favUrls.model.db.RecordingStatementInspector")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryIndexTest {
+  // enough rows for the optimizer to prefer indexes over scans
+  private static final int USER_COUNT = 50;
+  private static final int URLS_PER_USER = 20;
+
+  @Autowired
+  private AppUserRepository appUserRepository;
+  @Autowired
+  private UrlRepository urlRepository;
+  @Autowired
+  private TokenRepository tokenRepository;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private AppUser appUser;
+  private Url url;
+  private Token token;
+
+  @BeforeAll
+  void seed() {
+    for (int i = 0; i < USER_COUNT; i++) {
+      AppUser user = new AppUser("index.test." + i + "@osu.cz");
+      user.setPasswordHash("hash" + i);
+      appUserRepository.save(user);
+
+      List<Url> urls = new ArrayList<>();
+      for (int j = 0; j < URLS_PER_USER; j++) {
+        urls.add(new Url(user, "Page " + j, "https://www.osu.cz/" + i + "/" + j));
+      }
+      urlRepository.saveAll(urls);
+      Token userToken = tokenRepository.save(new Token(user, "token" + i));
+
+      appUser = user;
+      url = urls.getLast();
+      token = userToken;
+    }
+    jdbcTemplate.execute("analyze table app_user, url, token");
+  }
+
+  @Test
+  void findByEmail() {
+    assertUsesIndex(() -> appUserRepository.findByEmail(appUser.getEmail()), appUser.getEmail());
+  }
+
+  @Test
+  void urlFindByAppUser() {
+    assertUsesIndex(() -> urlRepository.findByAppUser(appUser), appUser.getAppUserId());
+  }
+
+  @Test
+  void urlFindByAppUserAndAddressHash() {
+    assertUsesIndex(() -> urlRepository.findByAppUserAndAddressHash(appUser, url.getAddressHash()),
+            appUser.getAppUserId(), url.getAddressHash());
+  }
+
+  @Test
+  void tokenFindByValue() {
+    assertUsesIndex(() -> tokenRepository.findByValue(token.getValue()), token.getValueHash());
+  }
+
+  @Test
+  void tokenFindByAppUser() {
+    assertUsesIndex(() -> tokenRepository.findByAppUser(appUser), appUser.getAppUserId());
+  }
+
+  private void assertUsesIndex(Runnable query, Object... parameters) {
+    RecordingStatementInspector.clear();
+    query.run();
+    List<String> statements = RecordingStatementInspector.getStatements();
+    assertFalse(statements.isEmpty(), "No statement executed.");
+
+    String sql = statements.getFirst();
+    List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + sql, parameters);
+    for (Map<String, Object> row : plan) {
+      assertNotEquals("ALL", row.get("type"), "Full table scan: " + sql + "\n" + plan);
+      assertNotNull(row.get("key"), "No index used: " + sql + "\n" + plan);
+    }
+  }
+}
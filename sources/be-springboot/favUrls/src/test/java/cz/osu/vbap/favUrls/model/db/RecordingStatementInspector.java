@@ -0,0 +1,34 @@
+package cz.osu.vbap.favUrls.model.db;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Remembers all SQL statements prepared by Hibernate, so tests can check the SQL of repository methods.
+ * Registered by `spring.jpa.properties.hibernate.session_factory.statement_inspector`.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+  private static final List<String> statements = new ArrayList<>();
+
+  @Override
+  public String inspect(String sql) {
+    synchronized (statements) {
+      statements.add(sql);
+    }
+    return sql;
+  }
+
+  public static void clear() {
+    synchronized (statements) {
+      statements.clear();
+    }
+  }
+
+  public static List<String> getStatements() {
+    synchronized (statements) {
+      return List.copyOf(statements);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package cz.osu.vbap.favUrls.model.db;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Tag;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
+import cz.osu.vbap.favUrls.model.repositories.TagRepository;
+import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest()
+@TestPropertySource(locations =
+        {"classpath:application.properties", "classpath:test.properties"})
+public class SecondLevelCacheTest {
+
+  @Autowired
+  private AppUserRepository appUserRepository;
+  @Autowired
+  private TagRepository tagRepository;
+  @Autowired
+  private UrlRepository urlRepository;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private Statistics statistics;
+  private AppUser appUser;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    appUser = new AppUser("cache.test." + System.nanoTime() + "@osu.cz");
+    appUserRepository.save(appUser);
+  }
+
+  @Test
+  void appUserIsReadFromCache() {
+    appUserRepository.findById(appUser.getAppUserId());
+
+    statistics.clear();
+    assertTrue(appUserRepository.findById(appUser.getAppUserId()).isPresent());
+    assertEquals(1, statistics.getDomainDataRegionStatistics("appUser").getHitCount());
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void updatedAppUserIsNotStale() {
+    appUserRepository.findById(appUser.getAppUserId());
+    appUser.setPasswordHash("changed");
+    appUserRepository.save(appUser);
+
+    assertEquals("changed", appUserRepository.findById(appUser.getAppUserId()).orElseThrow().getPasswordHash());
+  }
+
+  @Test
+  void tagIsReadFromCache() {
+    Tag tag = tagRepository.save(new Tag(appUser, "cached", "ABC"));
+    tagRepository.findById(tag.getTagId());
+
+    statistics.clear();
+    assertTrue(tagRepository.findById(tag.getTagId()).isPresent());
+    assertEquals(1, statistics.getDomainDataRegionStatistics("tag").getHitCount());
+  }
+
+  @Test
+  void urlTagsAreReadFromCacheAndSurviveMetadataUpdate() {
+    Tag tag = tagRepository.save(new Tag(appUser, "cached", "ABC"));
+    Url url = urlRepository.save(new Url(appUser, "OSU", "https://www.osu.cz/cache", tag));
+    countTags(url.getUrlId());
+
+    // updates of uncached columns do not evict the collection region
+    urlRepository.updateMetadata(url.getUrlId(), "University of Ostrava", "description", null, 1);
+
+    statistics.clear();
+    assertEquals(1, countTags(url.getUrlId()));
+    assertEquals(1, statistics.getDomainDataRegionStatistics("urlTags").getHitCount());
+  }
+
+  private int countTags(int urlId) {
+    Integer ret = transactionTemplate.execute(_ -> urlRepository.findById(urlId).orElseThrow().getTags().size());
+    assertNotNull(ret);
+    return ret;
+  }
+}
@@ -0,0 +1,98 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
+import cz.osu.vbap.favUrls.model.repositories.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest()
+@TestPropertySource(locations =
+        {"classpath:application.properties", "classpath:test.properties"},
+        properties = {"app.enrichment.enabled=false", "app.outbox.pollMillis=50", "app.outbox.retryDelayMillis=200"})
+public class OutboxServiceTest {
+  private static final String FAILING_ADDRESS = "https://www.osu.cz/outboxFailing";
+  private static final int FAILURES = 2;
+
+  /**
+   * Fails the first deliveries of the url with `FAILING_ADDRESS`.
+   */
+  @TestConfiguration
+  static class FailingConsumerConfiguration {
+    static final AtomicInteger calls = new AtomicInteger();
+
+    @Bean
+    OutboxService.Consumer failingConsumer() {
+      return (event, url) -> {
+        if (url == null || !url.getAddress().equals(FAILING_ADDRESS)) return;
+        if (calls.incrementAndGet() <= FAILURES)
+          throw new IllegalStateException("Failure " + calls.get());
+      };
+    }
+  }
+
+  @Autowired
+  AppUserRepository appUserRepository;
+  @Autowired
+  OutboxEventRepository outboxEventRepository;
+  @Autowired
+  UrlService urlService;
+  @Autowired
+  UrlChangeService urlChangeService;
+
+  @Test
+  void urlChangesAreDispatchedAfterCommit() throws Exception {
+    AppUser appUser = appUserRepository.save(new AppUser("outboxTest@osu.cz"));
+    BlockingQueue<UrlChangeService.UrlChange> changes = new LinkedBlockingQueue<>();
+    urlChangeService.subscribe(appUser.getAppUserId(), null, event -> changes.add(event.data()));
+
+    Url url = urlService.create(appUser.getAppUserId(), "OSU", "https://www.osu.cz/outbox");
+    UrlChangeService.UrlChange created = changes.poll(5, TimeUnit.SECONDS);
+    assertNotNull(created, "The creation was not dispatched.");
+    assertEquals(UrlChangeService.ChangeType.CREATED, created.type());
+    assertEquals(url.getUrlId(), created.urlId());
+
+    urlService.delete(appUser.getAppUserId(), url.getUrlId());
+    UrlChangeService.UrlChange deleted = changes.poll(5, TimeUnit.SECONDS);
+    assertNotNull(deleted, "The deletion was not dispatched.");
+    assertEquals(UrlChangeService.ChangeType.DELETED, deleted.type());
+
+    // the dispatched events are deleted in the transaction of the dispatch, it may still run
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (outboxEventRepository.count() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, outboxEventRepository.count());
+  }
+
+  @Test
+  void failedEventIsRetriedAfterBackoff() throws Exception {
+    AppUser appUser = appUserRepository.save(new AppUser("outboxRetryTest@osu.cz"));
+    long start = System.nanoTime();
+    urlService.create(appUser.getAppUserId(), "OSU", FAILING_ADDRESS);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (FailingConsumerConfiguration.calls.get() <= FAILURES && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    // delivered by the third attempt after the backoff of 200 + 400 ms
+    assertEquals(FAILURES + 1, FailingConsumerConfiguration.calls.get());
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(600), "Retried without backoff.");
+    while (outboxEventRepository.count() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, outboxEventRepository.count());
+  }
+}
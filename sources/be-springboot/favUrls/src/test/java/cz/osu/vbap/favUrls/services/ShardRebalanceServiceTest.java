@@ -0,0 +1,106 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.lib.db.ConsistentHashRing;
+import cz.osu.vbap.favUrls.lib.db.ShardResolver;
+import cz.osu.vbap.favUrls.lib.db.ShardRouter;
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Tombstone;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest()
+@TestPropertySource(locations =
+        {"classpath:application.properties", "classpath:test.properties"},
+        properties = {"app.enrichment.enabled=false",
+                "app.sharding.enabled=true",
+                "app.sharding.urls=jdbc:mariadb://localhost:3306/favUrlsTestShard0?createDatabaseIfNotExist=true,"
+                        + "jdbc:mariadb://localhost:3306/favUrlsTestShard1?createDatabaseIfNotExist=true",
+                "app.sharding.placementTtlMillis=200",
+                "app.sharding.moveGraceMillis=0"})
+public class ShardRebalanceServiceTest {
+
+  @Autowired
+  AuthenticationService authenticationService;
+  @Autowired
+  UrlService urlService;
+  @Autowired
+  SyncService syncService;
+  @Autowired
+  ShardRebalanceService shardRebalanceService;
+  @Autowired
+  ShardRouter shardRouter;
+
+  private <T> T callOnUserShard(int appUserId, Callable<T> callable) {
+    return shardRouter.callOnUserShard(appUserId, () -> {
+      try {
+        return callable.call();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+  }
+
+  @Test
+  void deltaSyncContinuesAcrossTheMove() throws Exception {
+    AppUser appUser = authenticationService.register("rebalanceTest@osu.cz", "password");
+    int appUserId = appUser.getAppUserId();
+    int sourceShard = shardRouter.shardOf(appUserId);
+    int targetShard = (sourceShard + 1) % shardRouter.getShardCount();
+
+    Url first = callOnUserShard(appUserId, () -> urlService.create(appUserId, "OSU", "https://www.osu.cz/move1"));
+    long cursor = callOnUserShard(appUserId, () -> syncService.getChanges(appUserId, null)).cursor();
+    callOnUserShard(appUserId, () -> urlService.create(appUserId, "OSU", "https://www.osu.cz/move2"));
+    callOnUserShard(appUserId, () -> {
+      urlService.delete(appUserId, first.getUrlId());
+      return null;
+    });
+
+    shardRebalanceService.moveUser(appUserId, targetShard);
+    assertEquals(targetShard, shardRouter.shardOf(appUserId));
+
+    // the cursor from before the move still returns the changes after it, incl. the deletion
+    Url third = callOnUserShard(appUserId, () -> urlService.create(appUserId, "OSU", "https://www.osu.cz/move3"));
+    SyncService.Changes changes = callOnUserShard(appUserId, () -> syncService.getChanges(appUserId, cursor));
+    assertFalse(changes.reset());
+    assertEquals(2, changes.urls().size());
+    assertEquals(third.getUrlId(), changes.urls().getLast().getUrlId());
+    assertTrue(third.getChangeSeq() > cursor, "The change sequence started again.");
+    assertEquals(1, changes.tombstones().size());
+    assertEquals(Tombstone.Type.URL, changes.tombstones().getFirst().getType());
+    assertEquals(first.getUrlId(), changes.tombstones().getFirst().getEntityId());
+
+    // nothing of the user remains on the old shard
+    JdbcTemplate source = new JdbcTemplate(shardRouter.getShardDataSource(sourceShard));
+    for (String table : new String[]{"url", "change_sequence", "tombstone", "outbox_event"}) {
+      assertEquals(0, source.queryForObject(
+              "select count(*) from " + table + " where app_user_id = ?", Integer.class, appUserId), table);
+    }
+  }
+
+  @Test
+  void moveIsSeenByOtherInstances() throws Exception {
+    AppUser appUser = authenticationService.register("rebalanceInstances@osu.cz", "password");
+    int appUserId = appUser.getAppUserId();
+    int sourceShard = shardRouter.shardOf(appUserId);
+    int targetShard = (sourceShard + 1) % shardRouter.getShardCount();
+
+    // the resolver of another instance, with the placement cached before the move
+    ShardResolver otherInstance = new ShardResolver(
+            new ConsistentHashRing(shardRouter.getShardCount(), 128),
+            new JdbcTemplate(shardRouter.getShardDataSource(ShardRouter.GLOBAL_SHARD)),
+            shardRouter.getResolver().getPlacementTtl());
+    assertEquals(new ShardResolver.Placement(sourceShard, false), otherInstance.resolve(appUserId));
+
+    shardRebalanceService.moveUser(appUserId, targetShard);
+    assertEquals(new ShardResolver.Placement(targetShard, false), otherInstance.resolve(appUserId));
+  }
+}
@@ -0,0 +1,65 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Tombstone;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest()
+@TestPropertySource(locations =
+        {"classpath:application.properties", "classpath:test.properties"},
+        properties = {"app.enrichment.enabled=false", "app.sync.maxChanges=2"})
+public class SyncServiceTest {
+
+  @Autowired
+  AppUserRepository appUserRepository;
+  @Autowired
+  UrlService urlService;
+  @Autowired
+  SyncService syncService;
+
+  @Test
+  void changesAfterTheCursorAreReturned() throws Exception {
+    AppUser appUser = appUserRepository.save(new AppUser("syncTest@osu.cz"));
+    int appUserId = appUser.getAppUserId();
+
+    SyncService.Changes full = syncService.getChanges(appUserId, null);
+    assertEquals(0, full.cursor());
+    assertTrue(full.urls().isEmpty());
+
+    Url first = urlService.create(appUserId, "OSU", "https://www.osu.cz/sync1");
+    Url second = urlService.create(appUserId, "OSU", "https://www.osu.cz/sync2");
+    urlService.create(appUserId, "OSU", "https://www.osu.cz/sync3");
+    urlService.delete(appUserId, first.getUrlId());
+
+    // the deleted url is returned only as the tombstone, the changes are limited to 2
+    SyncService.Changes changes = syncService.getChanges(appUserId, full.cursor());
+    assertTrue(changes.hasMore());
+    assertEquals(2, changes.urls().size());
+    assertEquals(second.getUrlId(), changes.urls().getFirst().getUrlId());
+    assertTrue(changes.tombstones().isEmpty());
+
+    changes = syncService.getChanges(appUserId, changes.cursor());
+    assertFalse(changes.hasMore());
+    assertTrue(changes.urls().isEmpty());
+    assertEquals(1, changes.tombstones().size());
+    assertEquals(Tombstone.Type.URL, changes.tombstones().getFirst().getType());
+    assertEquals(first.getUrlId(), changes.tombstones().getFirst().getEntityId());
+
+    SyncService.Changes none = syncService.getChanges(appUserId, changes.cursor());
+    assertEquals(changes.cursor(), none.cursor());
+    assertTrue(none.urls().isEmpty() && none.tombstones().isEmpty());
+
+    full = syncService.getChanges(appUserId, null);
+    assertEquals(changes.cursor(), full.cursor());
+    assertEquals(2, full.urls().size());
+
+    assertTrue(syncService.getChanges(appUserId, full.cursor() + 1).reset());
+  }
+}
@@ -0,0 +1,94 @@
+package cz.osu.vbap.favUrls.services;
+
+import cz.osu.vbap.favUrls.model.entities.AppUser;
+import cz.osu.vbap.favUrls.model.entities.Url;
+import cz.osu.vbap.favUrls.model.repositories.AppUserRepository;
+import cz.osu.vbap.favUrls.model.repositories.UrlRepository;
+import cz.osu.vbap.favUrls.services.exceptions.BadDataException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest()
+@TestPropertySource(locations =
+        {"classpath:application.properties", "classpath:test.properties"},
+        properties = {"app.enrichment.enabled=false", "app.urls.duplicatePolicy=REJECT"})
+public class UrlServiceTest {
+
+  private static final int CLIENT_COUNT = 8;
+
+  @Autowired
+  AppUserRepository appUserRepository;
+  @Autowired
+  UrlRepository urlRepository;
+  @Autowired
+  UrlService urlService;
+
+  @Test
+  void concurrentCreatesOfTheSameAddressAreRejected() throws Exception {
+    AppUser appUser = appUserRepository.save(new AppUser("urlServiceTest@osu.cz"));
+    int appUserId = appUser.getAppUserId();
+
+    // different forms of one canonical address, e.g. the retries of the client
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Url>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(CLIENT_COUNT)) {
+      for (int i = 0; i < CLIENT_COUNT; i++) {
+        String address = i % 2 == 0 ? "https://www.osu.cz/concurrent" : "HTTPS://WWW.OSU.CZ:443/concurrent";
+        results.add(executor.submit(() -> {
+          start.await();
+          return urlService.create(appUserId, "OSU", address);
+        }));
+      }
+      start.countDown();
+    }
+
+    int created = 0;
+    for (Future<Url> result : results) {
+      try {
+        result.get();
+        created++;
+      } catch (Exception e) {
+        assertInstanceOf(BadDataException.class, e.getCause());
+      }
+    }
+    assertEquals(1, created);
+    assertEquals(1, urlRepository.findByAppUser(appUser).size());
+  }
+
+  @Test
+  void urlOfAnotherUserIsNotDeleted() throws Exception {
+    AppUser owner = appUserRepository.save(new AppUser("urlServiceOwner@osu.cz"));
+    AppUser other = appUserRepository.save(new AppUser("urlServiceOther@osu.cz"));
+    Url url = urlService.create(owner.getAppUserId(), "OSU", "https://www.osu.cz/owned");
+
+    assertFalse(urlService.delete(other.getAppUserId(), url.getUrlId()));
+    assertTrue(urlRepository.existsById(url.getUrlId()));
+    assertTrue(urlService.delete(owner.getAppUserId(), url.getUrlId()));
+    assertFalse(urlRepository.existsById(url.getUrlId()));
+    // already deleted
+    assertTrue(urlService.delete(owner.getAppUserId(), url.getUrlId()));
+  }
+
+  @Test
+  void importWithRejectedDuplicateIsRolledBack() throws Exception {
+    AppUser appUser = appUserRepository.save(new AppUser("urlServiceImport@osu.cz"));
+    List<UrlService.ImportItem> items = List.of(
+            new UrlService.ImportItem("OSU", "https://www.osu.cz/import1"),
+            new UrlService.ImportItem("OSU", "https://www.osu.cz/import2"),
+            new UrlService.ImportItem("OSU", "HTTPS://WWW.OSU.CZ/import1"));
+
+    assertThrows(BadDataException.class, () -> urlService.importUrls(appUser.getAppUserId(), items));
+    assertTrue(urlRepository.findByAppUser(appUser).isEmpty());
+  }
+}
@@ -0,0 +1,221 @@
+package cz.osu.vbap.favUrls.smoketest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Black-box tests of the started executable (`mvn -B test -Psmoketest`), by default the native one built
+ * by the `native` profile. Any command can be tested by `-Dsmoke.command=...`, e.g. the jar, so the reported
+ * startup time and RSS of the native and JVM builds can be compared.
+ * <p>
+ * The database `smoke.datasourceUrl` is created and seeded with the sample user if empty.
+ */
+@Tag("smoke")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class SmokeTest {
+  private static final String CSRF_COOKIE_NAME = "XSRF-TOKEN";
+  private static final String CSRF_HEADER_NAME = "X-XSRF-TOKEN";
+  private static final String EMAIL = "marek.vajgl@osu.cz";
+  private static final String PASSWORD = "test";
+  private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final HttpClient httpClient = HttpClient.newHttpClient();
+  private static final Map<String, String> cookies = new HashMap<>();
+  private static Process process;
+  private static String baseAddress;
+  private static long startupMillis;
+  private static int appUserId;
+
+  @BeforeAll
+  static void startApplication() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    baseAddress = "http://localhost:" + port;
+
+    List<String> command = new ArrayList<>(Arrays.asList(
+            System.getProperty("smoke.command", "target/favUrls").trim().split("\\s+")));
+    command.add("--server.port=" + port);
+    command.add("--spring.datasource.url=" + System.getProperty("smoke.datasourceUrl",
+            "jdbc:mariadb://localhost:3306/favUrlsSmokeDB?createDatabaseIfNotExist=true"));
+    command.add("--app.seed.mode=SAMPLE");
+    command.add("--app.linkCheck.enabled=false");
+    command.add("--app.enrichment.enabled=false");
+
+    long start = System.nanoTime();
+    process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(new File("target/smoke-test-application.log"))
+            .start();
+    waitForFirstResponse(start);
+    startupMillis = (System.nanoTime() - start) / 1_000_000;
+  }
+
+  @AfterAll
+  static void stopApplication() throws Exception {
+    if (process == null) return;
+    System.out.printf("%nSmoke test of %s: first response after %d ms, RSS %s%n",
+            System.getProperty("smoke.command", "target/favUrls"), startupMillis, residentSetSize(process.pid()));
+    process.destroy();
+    process.waitFor();
+  }
+
+  private static void waitForFirstResponse(long start) throws InterruptedException {
+    while (true) {
+      try {
+        send(HttpRequest.newBuilder(URI.create(baseAddress + "/v1/appUser/login")).GET()); // also sets CSRF cookie
+        return;
+      } catch (IOException e) {
+        if (!process.isAlive())
+          throw new IllegalStateException("The application exited, see target/smoke-test-application.log");
+        if (System.nanoTime() - start > STARTUP_TIMEOUT.toNanos())
+          throw new IllegalStateException("The application did not start in " + STARTUP_TIMEOUT);
+        Thread.sleep(20);
+      }
+    }
+  }
+
+  private static String residentSetSize(long pid) {
+    try {
+      return Files.readAllLines(Path.of("/proc/" + pid + "/status")).stream()
+              .filter(q -> q.startsWith("VmRSS:"))
+              .map(q -> q.substring("VmRSS:".length()).trim())
+              .findFirst().orElse("n/a");
+    } catch (IOException e) {
+      return "n/a";
+    }
+  }
+
+  private static HttpResponse<String> get(String path) throws IOException {
+    return send(HttpRequest.newBuilder(URI.create(baseAddress + path)).GET());
+  }
+
+  private static HttpResponse<String> delete(String path) throws IOException {
+    return send(withCsrf(HttpRequest.newBuilder(URI.create(baseAddress + path)).DELETE()));
+  }
+
+  private static HttpResponse<String> post(String path, Map<String, String> form) throws IOException {
+    String body = form.entrySet().stream()
+            .map(q -> q.getKey() + "=" + URLEncoder.encode(q.getValue(), StandardCharsets.UTF_8))
+            .collect(Collectors.joining("&"));
+    return send(withCsrf(HttpRequest.newBuilder(URI.create(baseAddress + path))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(body))));
+  }
+
+  private static HttpRequest.Builder withCsrf(HttpRequest.Builder builder) {
+    String csrfToken = cookies.get(CSRF_COOKIE_NAME);
+    if (csrfToken != null)
+      builder.header(CSRF_HEADER_NAME, csrfToken);
+    return builder;
+  }
+
+  // cookies are handled here, as CookieManager does not send `Secure` cookies over plain http
+  private static HttpResponse<String> send(HttpRequest.Builder builder) throws IOException {
+    if (!cookies.isEmpty())
+      builder.header("Cookie", cookies.entrySet().stream()
+              .map(q -> q.getKey() + "=" + q.getValue())
+              .collect(Collectors.joining("; ")));
+
+    HttpResponse<String> ret;
+    try {
+      ret = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+
+    for (String header : ret.headers().allValues("Set-Cookie")) {
+      String nameValue = header.split(";")[0];
+      int eq = nameValue.indexOf('=');
+      String name = nameValue.substring(0, eq).trim();
+      String value = nameValue.substring(eq + 1).trim();
+      if (value.isEmpty() || header.toLowerCase().contains("max-age=0"))
+        cookies.remove(name);
+      else
+        cookies.put(name, value);
+    }
+    return ret;
+  }
+
+  @Test
+  @Order(1)
+  void loginWithWrongPasswordIsRejected() throws IOException {
+    HttpResponse<String> response = post("/v1/appUser/login", Map.of("email", EMAIL, "password", "wrong"));
+    assertEquals(400, response.statusCode());
+  }
+
+  @Test
+  @Order(2)
+  void listUrlsRequiresLogin() throws IOException {
+    HttpResponse<String> response = get("/v1/url/1");
+    assertEquals(403, response.statusCode());
+  }
+
+  @Test
+  @Order(3)
+  void login() throws IOException {
+    HttpResponse<String> response = post("/v1/appUser/login", Map.of("email", EMAIL, "password", PASSWORD));
+    assertEquals(200, response.statusCode());
+
+    JsonNode appUser = objectMapper.readTree(response.body());
+    assertEquals(EMAIL, appUser.get("email").asText());
+    appUserId = appUser.get("appUserId").asInt();
+  }
+
+  @Test
+  @Order(4)
+  void createListAndDeleteUrl() throws IOException {
+    String address = "https://smoke.example.com/" + System.currentTimeMillis();
+    HttpResponse<String> created = post("/v1/url", Map.of(
+            "appUserId", String.valueOf(appUserId), "title", "Smoke test", "address", address));
+    assertEquals(200, created.statusCode());
+    int urlId = objectMapper.readTree(created.body()).get("urlId").asInt();
+
+    HttpResponse<String> listed = get("/v1/url/" + appUserId);
+    assertEquals(200, listed.statusCode());
+    JsonNode urls = objectMapper.readTree(listed.body());
+    assertTrue(urls.findValuesAsText("address").contains(address));
+
+    assertEquals(200, delete("/v1/url/" + urlId).statusCode());
+  }
+
+  @Test
+  @Order(5)
+  void refreshAndLogout() throws IOException {
+    assertEquals(200, post("/v1/appUser/refresh", Map.of()).statusCode());
+    assertEquals(200, post("/v1/appUser/logout", Map.of()).statusCode());
+    assertEquals(403, get("/v1/url/" + appUserId).statusCode());
+  }
+}